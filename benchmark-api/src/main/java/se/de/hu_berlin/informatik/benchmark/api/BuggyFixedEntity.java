@@ -4,6 +4,7 @@ import java.util.List;
 import java.util.Map;
 
 import se.de.hu_berlin.informatik.benchmark.modification.Modification;
+import se.de.hu_berlin.informatik.benchmark.modification.ModificationIndex;
 import se.de.hu_berlin.informatik.utils.miscellaneous.Log;
 
 public interface BuggyFixedEntity<T extends Entity> {
@@ -39,6 +40,7 @@ public interface BuggyFixedEntity<T extends Entity> {
 		}
 		Modification.storeChanges(changes, getBuggyVersion().getWorkDataDir().resolve(BugLoRDConstants.CHANGES_FILE_NAME));
 		Modification.storeChangesHumanReadable(changes, getBuggyVersion().getWorkDataDir().resolve(BugLoRDConstants.CHANGES_FILE_NAME_HUMAN));
+		ModificationIndex.invalidate(this);
 		return true;
 	}
 	
@@ -36,6 +36,10 @@ public final class Defects4J extends Defects4JBase {
 				"set the path to the archive of spectra directory, if it exists"),
 		CHANGES_ARCHIVE_DIR("changesArchive_dir", "/path/to/../changesArchive",
 				"set the path to the archive of changes directory, if it exists"),
+		SNAPSHOT_DIR("snapshot_dir", "/path/to/../snapshot_dir",
+				"set the path to a directory that stores snapshots of checked out and compiled bugs.",
+				"new work directories are created from these snapshots instead of checking out and",
+				"compiling the bugs again. snapshots are only used if this directory exists."),
 		D4J_DIR("defects4j_dir", "/path/to/../defects4j/framework/bin", "path to the defects4j framework");
 
 		final private String[] descriptionLines;
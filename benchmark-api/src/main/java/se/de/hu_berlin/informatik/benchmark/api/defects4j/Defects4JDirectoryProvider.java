@@ -48,28 +48,32 @@ public class Defects4JDirectoryProvider extends AbstractDirectoryProvider {
 
 	}
 
+	private Defects4JMetadataStore getMetadataStore() {
+		return Defects4JMetadataStore.getStore(project, bugID, buggyVersion);
+	}
+
 	public Path getProjectDir(boolean executionMode) {
 		return getBenchmarkDir(executionMode).resolve(project);
 	}
 
 	@Override
 	public Path computeMainSourceDir(boolean executionMode) {
-		return Paths.get(Defects4J.getD4JExport(getWorkDir(executionMode).toString(), "dir.src.classes"));
+		return Paths.get(getMetadataStore().getExport(getWorkDir(executionMode), "dir.src.classes"));
 	}
 
 	@Override
 	public Path computeTestSourceDir(boolean executionMode) {
-		return Paths.get(Defects4J.getD4JExport(getWorkDir(executionMode).toString(), "dir.src.tests"));
+		return Paths.get(getMetadataStore().getExport(getWorkDir(executionMode), "dir.src.tests"));
 	}
 
 	@Override
 	public Path computeMainBinDir(boolean executionMode) {
-		return Paths.get(Defects4J.getD4JExport(getWorkDir(executionMode).toString(), "dir.bin.classes"));
+		return Paths.get(getMetadataStore().getExport(getWorkDir(executionMode), "dir.bin.classes"));
 	}
 
 	@Override
 	public Path computeTestBinDir(boolean executionMode) {
-		return Paths.get(Defects4J.getD4JExport(getWorkDir(executionMode).toString(), "dir.bin.tests"));
+		return Paths.get(getMetadataStore().getExport(getWorkDir(executionMode), "dir.bin.tests"));
 	}
 
 	@Override
@@ -13,6 +13,7 @@ import java.util.concurrent.ConcurrentHashMap;
 
 import se.de.hu_berlin.informatik.benchmark.api.AbstractEntity;
 import se.de.hu_berlin.informatik.benchmark.api.defects4j.Defects4J.Defects4JProperties;
+import se.de.hu_berlin.informatik.benchmark.api.defects4j.Defects4JSnapshotCache.State;
 import se.de.hu_berlin.informatik.utils.files.FileUtils;
 import se.de.hu_berlin.informatik.utils.miscellaneous.Log;
 
@@ -98,6 +99,12 @@ public class Defects4JEntity extends AbstractEntity {
 			return false;
 		}
 		getEntityDir(executionMode).toFile().mkdirs();
+		
+		Defects4JSnapshotCache snapshotCache = getSnapshotCache();
+		if (snapshotCache != null && snapshotCache.materialize(getWorkDir(executionMode)) != State.NONE) {
+			getMetadataStore().invalidate(getWorkDir(executionMode));
+			return true;
+		}
 
 		String version = null;
 		if (buggyVersion) {
@@ -109,13 +116,26 @@ public class Defects4JEntity extends AbstractEntity {
 		Defects4J.executeCommand(getEntityDir(executionMode).toFile(), true,
 				Defects4J.getDefects4JExecutable(), "checkout", 
 				"-p", getProject(), "-v", version, "-w", getWorkDir(executionMode).toString());
+		getMetadataStore().invalidate(getWorkDir(executionMode));
+		
+		if (snapshotCache != null) {
+			snapshotCache.store(getWorkDir(executionMode), State.CHECKED_OUT);
+		}
 		return true;
 	}
 
 	
 	public String getInfo(boolean executionMode) {
-		return Defects4J.executeCommandWithOutput(getEntityDir(executionMode).toFile(), false, 
-				Defects4J.getDefects4JExecutable(), "info", "-p", getProject(), "-b", String.valueOf(getBugId()));
+		return getMetadataStore().getInfo(() -> Defects4J.executeCommandWithOutput(getEntityDir(executionMode).toFile(), false, 
+				Defects4J.getDefects4JExecutable(), "info", "-p", getProject(), "-b", String.valueOf(getBugId())));
+	}
+	
+	private Defects4JMetadataStore getMetadataStore() {
+		return Defects4JMetadataStore.getStore(getProject(), getBugId(), buggyVersion);
+	}
+	
+	private Defects4JSnapshotCache getSnapshotCache() {
+		return Defects4JSnapshotCache.getCache(getProject(), getBugId(), buggyVersion);
 	}
 
 
@@ -155,8 +175,17 @@ public class Defects4JEntity extends AbstractEntity {
 			Log.abort(Defects4JEntity.class, "Defects4J config file doesn't exist: '%s'.", 
 					getWorkDir(executionMode).resolve(".defects4j.config"));
 		}
+		if (Defects4JSnapshotCache.consumeState(getWorkDir(executionMode)) == State.COMPILED) {
+			// created from a snapshot of the compiled version and not modified since
+			return true;
+		}
 		Defects4J.executeCommand(getWorkDir(executionMode).toFile(), true,
 				Defects4J.getDefects4JExecutable(), "compile");
+		
+		Defects4JSnapshotCache snapshotCache = getSnapshotCache();
+		if (snapshotCache != null) {
+			snapshotCache.store(getWorkDir(executionMode), State.COMPILED);
+		}
 		return true;
 	}
 
@@ -239,12 +268,12 @@ public class Defects4JEntity extends AbstractEntity {
 
 	@Override
 	public String computeClassPath(boolean executionMode) {
-		return Defects4J.getD4JExport(getWorkDir(executionMode).toString(), "cp.classes");
+		return getMetadataStore().getExport(getWorkDir(executionMode), "cp.classes");
 	}
 
 	@Override
 	public String computeTestClassPath(boolean executionMode) {
-		return Defects4J.getD4JExport(getWorkDir(executionMode).toString(), "cp.test");
+		return getMetadataStore().getExport(getWorkDir(executionMode), "cp.test");
 	}
 
 	@Override
@@ -256,9 +285,9 @@ public class Defects4JEntity extends AbstractEntity {
 	public List<Path> computeTestClasses(boolean executionMode) {
 		String list;
 		if (Boolean.parseBoolean(Defects4J.getValueOf(Defects4JProperties.ONLY_RELEVANT_TESTS))) {
-			list = Defects4J.getD4JExport(getWorkDir(executionMode).toString(), "tests.relevant");
+			list = getMetadataStore().getExport(getWorkDir(executionMode), "tests.relevant");
 		} else {
-			list = Defects4J.getD4JExport(getWorkDir(executionMode).toString(), "tests.all");
+			list = getMetadataStore().getExport(getWorkDir(executionMode), "tests.all");
 		}
 		String[] array = list.split(System.lineSeparator());
 		List<Path> testClasses = new ArrayList<>(array.length);
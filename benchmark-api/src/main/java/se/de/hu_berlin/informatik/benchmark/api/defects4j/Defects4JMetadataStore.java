@@ -0,0 +1,325 @@
+package se.de.hu_berlin.informatik.benchmark.api.defects4j;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileLock;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Consumer;
+import java.util.function.Supplier;
+
+import se.de.hu_berlin.informatik.benchmark.api.defects4j.Defects4J.Defects4JProperties;
+import se.de.hu_berlin.informatik.utils.miscellaneous.Log;
+
+/**
+ * Persistently stores the outputs of {@code defects4j export} and {@code defects4j info}
+ * for a single version of a Defects4J bug, such that repeated queries (also in later runs)
+ * do not need to start Defects4J again. The data is stored in one file per version in a
+ * metadata directory in the archive directory.
+ *
+ * <p>
+ * Exported properties depend on the work directory that they were computed for. They are
+ * invalidated if the work directory is checked out again (i.e., if the Defects4J config
+ * file in the work directory has changed). The bug information is invalidated if the
+ * version (i.e., the commit) of Defects4J changes. All stored data is invalidated if a
+ * different Defects4J installation is used.
+ *
+ * <p>
+ * Multiple processes may use the same store file. Loading and saving is guarded by a
+ * lock on a separate lock file, and modifications are applied to freshly loaded data.
+ */
+public class Defects4JMetadataStore {
+
+	public static final String METADATA_DIR_NAME = ".d4j_metadata";
+
+	private static final String DEFECTS4J_KEY = ".defects4j";
+	private static final String INFO_KEY = ".info";
+	private static final String INFO_VERSION_KEY = ".info.version";
+	private static final String CHECKOUT_KEY = ".checkout";
+	private static final String KEY_SEPARATOR = "::";
+	private static final String LOCK_FILE_EXTENSION = ".lock";
+
+	private static volatile String defects4JVersion = null;
+
+	private static final Map<Path, Defects4JMetadataStore> STORES = new ConcurrentHashMap<>();
+
+	private final Path storeFile;
+	private Properties properties = null;
+
+	private Defects4JMetadataStore(Path storeFile) {
+		this.storeFile = storeFile;
+	}
+
+	/**
+	 * Returns the store for the given version of a Defects4J bug.
+	 * @param project
+	 * a project identifier
+	 * @param bugID
+	 * id of the bug
+	 * @param buggy
+	 * whether to use the buggy or the fixed version of the bug with the given id
+	 * @return
+	 * the store
+	 */
+	public static Defects4JMetadataStore getStore(String project, int bugID, boolean buggy) {
+		Path storeFile = Paths.get(Defects4J.getValueOf(Defects4JProperties.ARCHIVE_DIR),
+				METADATA_DIR_NAME, project, bugID + (buggy ? "b" : "f") + ".properties").toAbsolutePath();
+		return STORES.computeIfAbsent(storeFile, Defects4JMetadataStore::new);
+	}
+
+	/**
+	 * Returns the value of the given property, as exported by Defects4J
+	 * ({@code defects4j export -p option}) in the given work directory.
+	 * Defects4J is only executed if the value is not stored yet.
+	 * @param workDir
+	 * the work directory with a checked out version of the bug
+	 * @param option
+	 * the property to export (e.g., {@code cp.classes})
+	 * @return
+	 * the exported value
+	 */
+	public String getExport(Path workDir, String option) {
+		String workDirString = workDir.toAbsolutePath().toString();
+		String checkout = getCheckoutStamp(workDir);
+		String checkoutKey = workDirString + KEY_SEPARATOR + CHECKOUT_KEY;
+		String key = workDirString + KEY_SEPARATOR + option;
+		synchronized (this) {
+			if (checkout != null) {
+				loadIfNecessary();
+				if (!properties.containsKey(key)) {
+					// may have been stored by another process in the meantime
+					properties = load();
+				}
+				if (checkout.equals(properties.getProperty(checkoutKey)) && properties.getProperty(key) != null) {
+					return properties.getProperty(key);
+				}
+			}
+		}
+
+		String value = Defects4J.getD4JExport(workDirString, option);
+
+		if (checkout != null && value != null && !value.isEmpty()) {
+			synchronized (this) {
+				update(properties -> {
+					if (!checkout.equals(properties.getProperty(checkoutKey))) {
+						removeEntriesOf(properties, workDirString);
+						properties.setProperty(checkoutKey, checkout);
+					}
+					properties.setProperty(key, value);
+				});
+			}
+		}
+		return value;
+	}
+
+	/**
+	 * Returns the bug information, as given by Defects4J ({@code defects4j info}).
+	 * The given supplier is only used if the information is not stored yet or if it
+	 * was stored with a different version of Defects4J.
+	 * @param infoSupplier
+	 * computes the information
+	 * @return
+	 * the information
+	 */
+	public String getInfo(Supplier<String> infoSupplier) {
+		String version = getDefects4JVersion();
+		synchronized (this) {
+			loadIfNecessary();
+			if (!properties.containsKey(INFO_KEY)) {
+				// may have been stored by another process in the meantime
+				properties = load();
+			}
+			if (version.equals(properties.getProperty(INFO_VERSION_KEY)) && properties.getProperty(INFO_KEY) != null) {
+				return properties.getProperty(INFO_KEY);
+			}
+		}
+
+		String info = infoSupplier.get();
+
+		if (info != null && !info.isEmpty()) {
+			synchronized (this) {
+				update(properties -> {
+					properties.setProperty(INFO_KEY, info);
+					properties.setProperty(INFO_VERSION_KEY, version);
+				});
+			}
+		}
+		return info;
+	}
+
+	/**
+	 * Removes all stored properties that were exported in the given work directory.
+	 * @param workDir
+	 * the work directory
+	 */
+	public synchronized void invalidate(Path workDir) {
+		String workDirString = workDir.toAbsolutePath().toString();
+		loadIfNecessary();
+		if (hasEntriesOf(properties, workDirString)) {
+			update(properties -> removeEntriesOf(properties, workDirString));
+		}
+	}
+
+	private static boolean hasEntriesOf(Properties properties, String workDirString) {
+		for (String key : properties.stringPropertyNames()) {
+			if (key.startsWith(workDirString + KEY_SEPARATOR)) {
+				return true;
+			}
+		}
+		return false;
+	}
+
+	private static void removeEntriesOf(Properties properties, String workDirString) {
+		List<String> keysToRemove = new ArrayList<>();
+		for (String key : properties.stringPropertyNames()) {
+			if (key.startsWith(workDirString + KEY_SEPARATOR)) {
+				keysToRemove.add(key);
+			}
+		}
+		for (String key : keysToRemove) {
+			properties.remove(key);
+		}
+	}
+
+	/**
+	 * @return
+	 * a stamp that changes if the given work directory is checked out again;
+	 * or null if the work directory does not contain a checked out version
+	 */
+	private static String getCheckoutStamp(Path workDir) {
+		Path configFile = workDir.resolve(".defects4j.config");
+		try {
+			return String.valueOf(Files.getLastModifiedTime(configFile).toMillis());
+		} catch (IOException e) {
+			return null;
+		}
+	}
+
+	/**
+	 * @return
+	 * the commit of the used Defects4J repository; or the modification time of
+	 * the Defects4J executable if Defects4J is not installed from a git repository
+	 */
+	private static String getDefects4JVersion() {
+		String version = defects4JVersion;
+		if (version == null) {
+			version = computeDefects4JVersion(Paths.get(Defects4J.getDefects4JExecutable()));
+			defects4JVersion = version;
+		}
+		return version;
+	}
+
+	static String computeDefects4JVersion(Path executable) {
+		// <defects4j>/framework/bin/defects4j
+		Path gitDir = executable.toAbsolutePath().getParent().getParent().getParent().resolve(".git");
+		try {
+			String head = new String(Files.readAllBytes(gitDir.resolve("HEAD")), StandardCharsets.UTF_8).trim();
+			if (!head.startsWith("ref:")) {
+				// detached head
+				return head;
+			}
+			String ref = head.substring("ref:".length()).trim();
+			Path refFile = gitDir.resolve(ref);
+			if (Files.exists(refFile)) {
+				return new String(Files.readAllBytes(refFile), StandardCharsets.UTF_8).trim();
+			}
+			for (String line : Files.readAllLines(gitDir.resolve("packed-refs"), StandardCharsets.UTF_8)) {
+				if (line.endsWith(" " + ref)) {
+					return line.substring(0, line.indexOf(' '));
+				}
+			}
+		} catch (IOException e) {
+			// no git repository
+		}
+		try {
+			return String.valueOf(Files.getLastModifiedTime(executable).toMillis());
+		} catch (IOException e) {
+			return "unknown";
+		}
+	}
+
+	private void loadIfNecessary() {
+		if (properties == null) {
+			properties = load();
+		}
+	}
+
+	private Properties load() {
+		Properties loadedProperties = new Properties();
+		try (FileChannel channel = openLockFile(); FileLock lock = channel.lock(0, Long.MAX_VALUE, true)) {
+			loadFromFile(loadedProperties);
+		} catch (IOException e) {
+			Log.warn(this, "Could not lock Defects4J metadata file '%s'.", storeFile);
+			loadFromFile(loadedProperties);
+		}
+		return loadedProperties;
+	}
+
+	private void loadFromFile(Properties loadedProperties) {
+		if (Files.exists(storeFile)) {
+			try (InputStream in = Files.newInputStream(storeFile)) {
+				loadedProperties.load(in);
+			} catch (IOException | IllegalArgumentException e) {
+				Log.warn(this, "Could not load Defects4J metadata from '%s'.", storeFile);
+				loadedProperties.clear();
+			}
+		}
+		String defects4j = Defects4J.getDefects4JExecutable();
+		if (!defects4j.equals(loadedProperties.getProperty(DEFECTS4J_KEY))) {
+			loadedProperties.clear();
+			loadedProperties.setProperty(DEFECTS4J_KEY, defects4j);
+		}
+	}
+
+	/**
+	 * Applies the given modification to the stored properties. The properties are loaded
+	 * again while holding the lock on the store file, such that entries that were stored by
+	 * other processes in the meantime are not lost. Callers must hold the monitor of this store.
+	 * @param modification
+	 * the modification
+	 */
+	private void update(Consumer<Properties> modification) {
+		try (FileChannel channel = openLockFile(); FileLock lock = channel.lock()) {
+			Properties loadedProperties = new Properties();
+			loadFromFile(loadedProperties);
+			modification.accept(loadedProperties);
+			properties = loadedProperties;
+			save();
+		} catch (IOException e) {
+			Log.warn(this, "Could not lock Defects4J metadata file '%s'.", storeFile);
+			loadIfNecessary();
+			modification.accept(properties);
+		}
+	}
+
+	private FileChannel openLockFile() throws IOException {
+		Files.createDirectories(storeFile.getParent());
+		return FileChannel.open(storeFile.resolveSibling(storeFile.getFileName() + LOCK_FILE_EXTENSION),
+				StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+	}
+
+	private void save() {
+		try {
+			// write to a temporary file first, such that other processes never read a partial file
+			Path tempFile = Files.createTempFile(storeFile.getParent(), storeFile.getFileName().toString(), ".tmp");
+			try (OutputStream out = Files.newOutputStream(tempFile)) {
+				properties.store(out, null);
+			}
+			Files.move(tempFile, storeFile, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+		} catch (IOException e) {
+			Log.warn(this, "Could not save Defects4J metadata to '%s'.", storeFile);
+		}
+	}
+
+}
@@ -0,0 +1,286 @@
+package se.de.hu_berlin.informatik.benchmark.api.defects4j;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.FileVisitResult;
+import java.nio.file.Files;
+import java.nio.file.LinkOption;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.SimpleFileVisitor;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.nio.file.attribute.FileTime;
+import java.util.UUID;
+import java.util.stream.Stream;
+
+import se.de.hu_berlin.informatik.benchmark.api.defects4j.Defects4J.Defects4JProperties;
+import se.de.hu_berlin.informatik.utils.files.FileUtils;
+import se.de.hu_berlin.informatik.utils.miscellaneous.Log;
+
+/**
+ * Stores snapshots of checked out (and compiled) work directories of a single version
+ * of a Defects4J bug in the snapshot directory, such that new work directories can be
+ * created from a snapshot instead of checking out and compiling the bug again.
+ *
+ * <p>
+ * Work directories are created from snapshots with copy-on-write copies (reflinks) if
+ * the file system supports them, and with regular copies otherwise. Files are never
+ * shared between a snapshot and a work directory, since later stages may modify files
+ * in place (e.g., when compiling).
+ *
+ * <p>
+ * A work directory that is created from a snapshot contains a marker file with the
+ * state of the snapshot. The marker is consumed by {@link #consumeState(Path)}, which
+ * only reports the state if no file in the work directory was modified afterwards.
+ *
+ * <p>
+ * Snapshots are only used if the snapshot directory is set and exists.
+ */
+public class Defects4JSnapshotCache {
+
+	/**
+	 * The state of a snapshot.
+	 */
+	public static enum State {
+		/** no snapshot exists */
+		NONE,
+		/** the snapshot contains a checked out version */
+		CHECKED_OUT,
+		/** the snapshot contains a checked out and compiled version */
+		COMPILED
+	}
+
+	private static final String TREE_DIR_NAME = "tree";
+	private static final String STATE_FILE_NAME = "state";
+	private static final String MARKER_FILE_NAME = ".snapshot_state";
+
+	private final Path snapshotDir;
+
+	private Defects4JSnapshotCache(Path snapshotDir) {
+		this.snapshotDir = snapshotDir;
+	}
+
+	/**
+	 * Returns the snapshot cache for the given version of a Defects4J bug.
+	 * @param project
+	 * a project identifier
+	 * @param bugID
+	 * id of the bug
+	 * @param buggy
+	 * whether to use the buggy or the fixed version of the bug with the given id
+	 * @return
+	 * the snapshot cache; or null if no (existing) snapshot directory is set
+	 */
+	public static Defects4JSnapshotCache getCache(String project, int bugID, boolean buggy) {
+		String snapshotDir = Defects4J.getValueOf(Defects4JProperties.SNAPSHOT_DIR);
+		if (snapshotDir == null || snapshotDir.isEmpty()) {
+			return null;
+		}
+		return getCache(Paths.get(snapshotDir), project, bugID, buggy);
+	}
+
+	/**
+	 * Returns the snapshot cache for the given version of a Defects4J bug.
+	 * @param snapshotDir
+	 * the snapshot directory
+	 * @param project
+	 * a project identifier
+	 * @param bugID
+	 * id of the bug
+	 * @param buggy
+	 * whether to use the buggy or the fixed version of the bug with the given id
+	 * @return
+	 * the snapshot cache; or null if the snapshot directory does not exist
+	 */
+	public static Defects4JSnapshotCache getCache(Path snapshotDir, String project, int bugID, boolean buggy) {
+		if (!Files.isDirectory(snapshotDir)) {
+			return null;
+		}
+		return new Defects4JSnapshotCache(snapshotDir.resolve(project).resolve(bugID + (buggy ? "b" : "f")).toAbsolutePath());
+	}
+
+	/**
+	 * @return
+	 * the state of the stored snapshot
+	 */
+	public State getState() {
+		Path stateFile = snapshotDir.resolve(STATE_FILE_NAME);
+		if (!Files.exists(stateFile)) {
+			return State.NONE;
+		}
+		try {
+			return State.valueOf(new String(Files.readAllBytes(stateFile), StandardCharsets.UTF_8).trim());
+		} catch (IOException | IllegalArgumentException e) {
+			Log.warn(this, "Could not read state of snapshot '%s'.", snapshotDir);
+			return State.NONE;
+		}
+	}
+
+	/**
+	 * Creates the given work directory from the stored snapshot, if any, and
+	 * records the state of the snapshot in the work directory.
+	 * @param workDir
+	 * the work directory to create; must not exist
+	 * @return
+	 * the state of the snapshot that the work directory was created from;
+	 * {@link State#NONE} if the work directory was not created
+	 */
+	public State materialize(Path workDir) {
+		State state = getState();
+		if (state == State.NONE) {
+			return State.NONE;
+		}
+		if (!copyTree(snapshotDir.resolve(TREE_DIR_NAME), workDir)) {
+			// the snapshot may have been replaced in the meantime
+			Log.warn(this, "Could not create '%s' from snapshot '%s'.", workDir, snapshotDir);
+			FileUtils.delete(workDir);
+			return State.NONE;
+		}
+		try {
+			Files.write(workDir.resolve(MARKER_FILE_NAME), state.toString().getBytes(StandardCharsets.UTF_8));
+		} catch (IOException e) {
+			Log.warn(this, "Could not record snapshot state in '%s'.", workDir);
+		}
+		return state;
+	}
+
+	/**
+	 * Returns the state of the snapshot that the given work directory was created from
+	 * and removes the recorded state from the work directory.
+	 * @param workDir
+	 * the work directory
+	 * @return
+	 * the state of the snapshot; {@link State#NONE} if the work directory was not
+	 * created from a snapshot or if any file in it was modified after its creation
+	 */
+	public static State consumeState(Path workDir) {
+		Path markerFile = workDir.resolve(MARKER_FILE_NAME);
+		if (!Files.exists(markerFile)) {
+			return State.NONE;
+		}
+		try {
+			State state = State.valueOf(new String(Files.readAllBytes(markerFile), StandardCharsets.UTF_8).trim());
+			FileTime creationTime = Files.getLastModifiedTime(markerFile);
+			// copies of snapshot files keep their original modification times
+			try (Stream<Path> files = Files.walk(workDir)) {
+				if (files.anyMatch(file -> !file.equals(markerFile) && isModifiedSince(file, creationTime))) {
+					return State.NONE;
+				}
+			}
+			return state;
+		} catch (IOException | UncheckedIOException | IllegalArgumentException e) {
+			return State.NONE;
+		} finally {
+			FileUtils.delete(markerFile);
+		}
+	}
+
+	private static boolean isModifiedSince(Path file, FileTime time) {
+		try {
+			return Files.isRegularFile(file, LinkOption.NOFOLLOW_LINKS) 
+					&& Files.getLastModifiedTime(file, LinkOption.NOFOLLOW_LINKS).compareTo(time) >= 0;
+		} catch (IOException e) {
+			throw new UncheckedIOException(e);
+		}
+	}
+
+	/**
+	 * Stores a snapshot of the given work directory, if there is no snapshot
+	 * with the given or a more advanced state, yet.
+	 * @param workDir
+	 * the work directory
+	 * @param state
+	 * the state of the work directory
+	 */
+	public void store(Path workDir, State state) {
+		if (getState().compareTo(state) >= 0) {
+			return;
+		}
+		Path parent = snapshotDir.getParent();
+		String uniqueName = snapshotDir.getFileName() + "_" + UUID.randomUUID();
+		Path tempDir = parent.resolve(uniqueName + ".tmp");
+		Path oldDir = parent.resolve(uniqueName + ".old");
+		try {
+			if (!copyTree(workDir, tempDir.resolve(TREE_DIR_NAME))) {
+				Log.warn(this, "Could not store snapshot of '%s'.", workDir);
+				return;
+			}
+			Files.write(tempDir.resolve(STATE_FILE_NAME), state.toString().getBytes(StandardCharsets.UTF_8));
+
+			// replace an existing snapshot
+			if (Files.exists(snapshotDir)) {
+				Files.move(snapshotDir, oldDir, StandardCopyOption.ATOMIC_MOVE);
+			}
+			Files.move(tempDir, snapshotDir, StandardCopyOption.ATOMIC_MOVE);
+		} catch (IOException e) {
+			// another process may have stored a snapshot at the same time
+			Log.warn(this, "Could not store snapshot of '%s' in '%s'.", workDir, snapshotDir);
+		} finally {
+			FileUtils.delete(tempDir);
+			FileUtils.delete(oldDir);
+		}
+	}
+
+	/**
+	 * Copies the contents of the given source directory to the given target
+	 * directory. Creates copy-on-write copies (reflinks) if supported by the
+	 * file system, and regular copies otherwise.
+	 * @param source
+	 * the directory to copy
+	 * @param target
+	 * the target directory; is created if it does not exist
+	 * @return
+	 * whether the directory has been copied successfully
+	 */
+	public static boolean copyTree(Path source, Path target) {
+		try {
+			Files.createDirectories(target);
+		} catch (IOException e) {
+			return false;
+		}
+		return copyTreeWithCp(source, target) || copyTreeWithFiles(source, target);
+	}
+
+	private static boolean copyTreeWithCp(Path source, Path target) {
+		// creates copy-on-write copies, if possible (GNU cp)
+		try {
+			Process process = new ProcessBuilder("cp", "-a", "--reflink=auto",
+					source.toAbsolutePath() + "/.", target.toAbsolutePath().toString())
+					.redirectErrorStream(true)
+					.redirectOutput(ProcessBuilder.Redirect.INHERIT)
+					.start();
+			return process.waitFor() == 0;
+		} catch (IOException e) {
+			// cp is not available
+			return false;
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			return false;
+		}
+	}
+
+	// regular copies (fallback)
+	static boolean copyTreeWithFiles(Path source, Path target) {
+		try {
+			Files.walkFileTree(source, new SimpleFileVisitor<Path>() {
+				@Override
+				public FileVisitResult preVisitDirectory(Path dir, BasicFileAttributes attrs) throws IOException {
+					Files.createDirectories(target.resolve(source.relativize(dir).toString()));
+					return FileVisitResult.CONTINUE;
+				}
+				@Override
+				public FileVisitResult visitFile(Path file, BasicFileAttributes attrs) throws IOException {
+					Files.copy(file, target.resolve(source.relativize(file).toString()),
+							StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.COPY_ATTRIBUTES);
+					return FileVisitResult.CONTINUE;
+				}
+			});
+			return true;
+		} catch (IOException e) {
+			return false;
+		}
+	}
+
+}
@@ -0,0 +1,231 @@
+package se.de.hu_berlin.informatik.benchmark.modification;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Map.Entry;
+import java.util.Set;
+
+import se.de.hu_berlin.informatik.benchmark.api.BugLoRDConstants;
+import se.de.hu_berlin.informatik.benchmark.api.BuggyFixedEntity;
+
+/**
+ * Index over the modifications of a bug that finds the modifications relevant to a
+ * source code range in logarithmic time. For each file, the possibly modified lines
+ * of all modifications are stored in a sorted array.
+ *
+ * <p>
+ * An index is immutable and may be shared between threads. It does not reflect
+ * changes to the possible lines of the indexed modifications after its creation.
+ */
+public class ModificationIndex {
+
+	// the number of indices to keep in memory (i.e., the number of bugs)
+	private static final int MAX_CACHED_INDICES = 64;
+
+	private static final Map<String, ModificationIndex> INDEX_CACHE = new LinkedHashMap<String, ModificationIndex>(16, 0.75f, true) {
+		private static final long serialVersionUID = 1L;
+		@Override
+		protected boolean removeEldestEntry(Map.Entry<String, ModificationIndex> eldest) {
+			return size() > MAX_CACHED_INDICES;
+		}
+	};
+
+	private final Map<String, FileIndex> fileIndices = new HashMap<>();
+	// size and modification time of the changes file that the index was created from
+	private final long[] stamp;
+
+	/**
+	 * Creates an index over the given modifications.
+	 * @param changesMap
+	 * the map of all existing changes (the keys are the file names/paths)
+	 */
+	public ModificationIndex(Map<String, List<Modification>> changesMap) {
+		this(changesMap, null);
+	}
+
+	private ModificationIndex(Map<String, List<Modification>> changesMap, long[] stamp) {
+		super();
+		this.stamp = stamp;
+		for (Entry<String, List<Modification>> entry : changesMap.entrySet()) {
+			if (entry.getValue() != null && !entry.getValue().isEmpty()) {
+				fileIndices.put(entry.getKey(), new FileIndex(entry.getValue()));
+			}
+		}
+	}
+
+	/**
+	 * Returns the index over the modifications of the given entity. The indices of the
+	 * most recently used entities are cached and shared between all callers. A cached
+	 * index is created again if the changes file of the entity has changed.
+	 * @param entity
+	 * the entity
+	 * @return
+	 * the index; or null if the changes of the entity could not be loaded
+	 */
+	public static ModificationIndex getIndex(BuggyFixedEntity<?> entity) {
+		String key = entity.getUniqueIdentifier();
+		long[] stamp = getStamp(entity);
+		synchronized (INDEX_CACHE) {
+			ModificationIndex index = INDEX_CACHE.get(key);
+			if (index != null && Arrays.equals(index.stamp, stamp)) {
+				return index;
+			}
+		}
+
+		Map<String, List<Modification>> changesMap = entity.loadChangesFromFile();
+		if (changesMap == null) {
+			return null;
+		}
+		ModificationIndex index = new ModificationIndex(changesMap, stamp);
+		synchronized (INDEX_CACHE) {
+			INDEX_CACHE.put(key, index);
+		}
+		return index;
+	}
+
+	/**
+	 * Removes the cached index of the given entity, e.g. after its changes were computed again.
+	 * @param entity
+	 * the entity
+	 */
+	public static void invalidate(BuggyFixedEntity<?> entity) {
+		synchronized (INDEX_CACHE) {
+			INDEX_CACHE.remove(entity.getUniqueIdentifier());
+		}
+	}
+
+	/**
+	 * @return
+	 * size and modification time of the changes file of the given entity;
+	 * or null if the changes are not stored in a file
+	 */
+	private static long[] getStamp(BuggyFixedEntity<?> entity) {
+		Path changesFile = entity.getBuggyVersion().getWorkDataDir().resolve(BugLoRDConstants.CHANGES_FILE_NAME);
+		try {
+			return new long[] { Files.size(changesFile), Files.getLastModifiedTime(changesFile).toMillis() };
+		} catch (IOException e) {
+			return null;
+		}
+	}
+
+	/**
+	 * @return
+	 * a new (empty) set to pass as ignore set to
+	 * {@link #getModifications(String, int, int, Set)}
+	 */
+	public static Set<Modification> newIgnoreSet() {
+		return Collections.newSetFromMap(new IdentityHashMap<>());
+	}
+
+	/**
+	 * Returns the list of changes relevant to the given source code range. The changes
+	 * are returned in the order of the original list of changes for the given file.
+	 * @param filePath
+	 * the file under consideration
+	 * @param start
+	 * the beginning line
+	 * @param end
+	 * the ending line
+	 * @param ignoreSet
+	 * modifications that have already been seen/used and should not be returned again;
+	 * returned modifications are added to this set (may be null)
+	 * @return
+	 * list of changes relevant to the given range; {@code null} if no changes match
+	 */
+	public List<Modification> getModifications(String filePath, int start, int end, Set<Modification> ignoreSet) {
+		//see if the respective file was changed
+		FileIndex fileIndex = fileIndices.get(filePath);
+		if (fileIndex == null) {
+			return null;
+		}
+		return fileIndex.getModifications(start, end, ignoreSet);
+	}
+
+	private static class FileIndex {
+
+		// the original list of modifications
+		private final Modification[] modifications;
+		// all possibly modified lines, sorted in ascending order
+		private final int[] lines;
+		// the positions of the corresponding modifications in the original list
+		private final int[] positions;
+
+		private FileIndex(List<Modification> changes) {
+			modifications = changes.toArray(new Modification[changes.size()]);
+
+			int lineCount = 0;
+			for (Modification change : modifications) {
+				lineCount += change.getPossibleLines().length;
+			}
+			// encode line and position in a single long to sort both at once
+			long[] entries = new long[lineCount];
+			int i = 0;
+			for (int position = 0; position < modifications.length; ++position) {
+				for (int line : modifications[position].getPossibleLines()) {
+					entries[i++] = ((long) line << 32) | position;
+				}
+			}
+			Arrays.sort(entries);
+
+			lines = new int[lineCount];
+			positions = new int[lineCount];
+			for (i = 0; i < lineCount; ++i) {
+				lines[i] = (int) (entries[i] >> 32);
+				positions[i] = (int) entries[i];
+			}
+		}
+
+		private List<Modification> getModifications(int start, int end, Set<Modification> ignoreSet) {
+			// find the first line that is not smaller than the start line
+			int low = 0;
+			int high = lines.length;
+			while (low < high) {
+				int middle = (low + high) >>> 1;
+				if (lines[middle] < start) {
+					low = middle + 1;
+				} else {
+					high = middle;
+				}
+			}
+			if (low == lines.length || lines[low] > end) {
+				return null;
+			}
+
+			// collect the positions of all modifications in the range (usually very few)
+			int[] found = new int[4];
+			int foundCount = 0;
+			for (int i = low; i < lines.length && lines[i] <= end; ++i) {
+				if (foundCount == found.length) {
+					found = Arrays.copyOf(found, found.length * 2);
+				}
+				found[foundCount++] = positions[i];
+			}
+			Arrays.sort(found, 0, foundCount);
+
+			List<Modification> list = null;
+			for (int i = 0; i < foundCount; ++i) {
+				if (i > 0 && found[i] == found[i-1]) {
+					continue;
+				}
+				Modification change = modifications[found[i]];
+				if (ignoreSet == null || ignoreSet.add(change)) {
+					if (list == null) {
+						list = new ArrayList<>(1);
+					}
+					list.add(change);
+				}
+			}
+			return list;
+		}
+	}
+
+}
@@ -0,0 +1,70 @@
+package se.de.hu_berlin.informatik.benchmark.api.defects4j;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.util.Arrays;
+
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+public class Defects4JMetadataStoreTest {
+
+	private static final String COMMIT = "0123456789abcdef0123456789abcdef01234567";
+
+	@Rule
+	public TemporaryFolder folder = new TemporaryFolder();
+
+	private Path gitDir;
+	private Path executable;
+
+	@Before
+	public void setUp() throws IOException {
+		Path root = folder.getRoot().toPath().resolve("defects4j");
+		gitDir = root.resolve(".git");
+		executable = root.resolve("framework").resolve("bin").resolve("defects4j");
+		Files.createDirectories(executable.getParent());
+		Files.write(executable, Arrays.asList("#!/usr/bin/env perl"));
+	}
+
+	@Test
+	public void versionFromBranch() throws IOException {
+		Files.createDirectories(gitDir.resolve("refs/heads"));
+		Files.write(gitDir.resolve("HEAD"), Arrays.asList("ref: refs/heads/master"));
+		Files.write(gitDir.resolve("refs/heads/master"), Arrays.asList(COMMIT));
+
+		Assert.assertEquals(COMMIT, Defects4JMetadataStore.computeDefects4JVersion(executable));
+	}
+
+	@Test
+	public void versionFromPackedRefs() throws IOException {
+		Files.createDirectories(gitDir);
+		Files.write(gitDir.resolve("HEAD"), Arrays.asList("ref: refs/heads/master"));
+		Files.write(gitDir.resolve("packed-refs"), Arrays.asList(
+				"# pack-refs with: peeled fully-peeled sorted",
+				"fedcba9876543210fedcba9876543210fedcba98 refs/heads/other",
+				COMMIT + " refs/heads/master"));
+
+		Assert.assertEquals(COMMIT, Defects4JMetadataStore.computeDefects4JVersion(executable));
+	}
+
+	@Test
+	public void versionFromDetachedHead() throws IOException {
+		Files.createDirectories(gitDir);
+		Files.write(gitDir.resolve("HEAD"), Arrays.asList(COMMIT));
+
+		Assert.assertEquals(COMMIT, Defects4JMetadataStore.computeDefects4JVersion(executable));
+	}
+
+	@Test
+	public void versionWithoutGitRepository() throws IOException {
+		Files.setLastModifiedTime(executable, FileTime.fromMillis(123000));
+
+		Assert.assertEquals("123000", Defects4JMetadataStore.computeDefects4JVersion(executable));
+	}
+
+}
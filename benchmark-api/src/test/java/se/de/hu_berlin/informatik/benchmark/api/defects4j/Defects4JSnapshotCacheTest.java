@@ -0,0 +1,125 @@
+package se.de.hu_berlin.informatik.benchmark.api.defects4j;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.util.Arrays;
+
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import se.de.hu_berlin.informatik.benchmark.api.defects4j.Defects4JSnapshotCache.State;
+
+public class Defects4JSnapshotCacheTest {
+
+	@Rule
+	public TemporaryFolder folder = new TemporaryFolder();
+
+	private Path snapshotDir;
+	private Path workDir;
+
+	@Before
+	public void setUp() throws IOException {
+		snapshotDir = folder.newFolder("snapshots").toPath();
+		workDir = folder.getRoot().toPath().resolve("work");
+		Files.createDirectories(workDir.resolve("src/a"));
+		Files.write(workDir.resolve(".defects4j.config"), Arrays.asList("pid=Lang"));
+		Files.write(workDir.resolve("src/a/A.java"), Arrays.asList("class A {}"));
+		// files of a snapshot are older than the work directories created from it
+		setOld(workDir.resolve(".defects4j.config"));
+		setOld(workDir.resolve("src/a/A.java"));
+	}
+
+	private static void setOld(Path file) throws IOException {
+		Files.setLastModifiedTime(file, FileTime.fromMillis(System.currentTimeMillis() - 60000));
+	}
+
+	private static String read(Path file) throws IOException {
+		return new String(Files.readAllBytes(file), StandardCharsets.UTF_8);
+	}
+
+	@Test
+	public void noCacheWithoutSnapshotDir() {
+		Assert.assertNull(Defects4JSnapshotCache.getCache(folder.getRoot().toPath().resolve("missing"), "Lang", 1, true));
+	}
+
+	@Test
+	public void materializeWithoutSnapshot() {
+		Defects4JSnapshotCache cache = Defects4JSnapshotCache.getCache(snapshotDir, "Lang", 1, true);
+		Path newWorkDir = folder.getRoot().toPath().resolve("new");
+
+		Assert.assertEquals(State.NONE, cache.getState());
+		Assert.assertEquals(State.NONE, cache.materialize(newWorkDir));
+		Assert.assertFalse(Files.exists(newWorkDir));
+	}
+
+	@Test
+	public void storeAndMaterialize() throws IOException {
+		Defects4JSnapshotCache cache = Defects4JSnapshotCache.getCache(snapshotDir, "Lang", 1, true);
+		cache.store(workDir, State.CHECKED_OUT);
+		Assert.assertEquals(State.CHECKED_OUT, cache.getState());
+		Assert.assertTrue(Files.isDirectory(snapshotDir.resolve("Lang").resolve("1b")));
+
+		// a snapshot of a compiled version replaces the snapshot of the checked out version
+		Files.write(workDir.resolve("src/a/A.class"), new byte[] { 1, 2, 3 });
+		setOld(workDir.resolve("src/a/A.class"));
+		cache.store(workDir, State.COMPILED);
+		Assert.assertEquals(State.COMPILED, cache.getState());
+		// no going back
+		cache.store(workDir, State.CHECKED_OUT);
+		Assert.assertEquals(State.COMPILED, cache.getState());
+
+		// other versions have their own snapshots
+		Assert.assertEquals(State.NONE, Defects4JSnapshotCache.getCache(snapshotDir, "Lang", 1, false).getState());
+
+		Path newWorkDir = folder.getRoot().toPath().resolve("new");
+		Assert.assertEquals(State.COMPILED, cache.materialize(newWorkDir));
+		Assert.assertEquals(read(workDir.resolve("src/a/A.java")), read(newWorkDir.resolve("src/a/A.java")));
+		Assert.assertArrayEquals(new byte[] { 1, 2, 3 }, Files.readAllBytes(newWorkDir.resolve("src/a/A.class")));
+
+		// the state recorded in the work directory can only be consumed once
+		Assert.assertEquals(State.COMPILED, Defects4JSnapshotCache.consumeState(newWorkDir));
+		Assert.assertEquals(State.NONE, Defects4JSnapshotCache.consumeState(newWorkDir));
+	}
+
+	@Test
+	public void modifiedWorkDirIsNotCompiled() throws IOException {
+		Defects4JSnapshotCache cache = Defects4JSnapshotCache.getCache(snapshotDir, "Lang", 1, true);
+		cache.store(workDir, State.COMPILED);
+
+		Path newWorkDir = folder.getRoot().toPath().resolve("new");
+		Assert.assertEquals(State.COMPILED, cache.materialize(newWorkDir));
+		Files.write(newWorkDir.resolve("src/a/A.java"), Arrays.asList("class A { int a; }"));
+		Files.setLastModifiedTime(newWorkDir.resolve("src/a/A.java"),
+				FileTime.fromMillis(System.currentTimeMillis() + 10000));
+
+		Assert.assertEquals(State.NONE, Defects4JSnapshotCache.consumeState(newWorkDir));
+	}
+
+	@Test
+	public void workDirNotCreatedFromSnapshot() {
+		Assert.assertEquals(State.NONE, Defects4JSnapshotCache.consumeState(workDir));
+	}
+
+	@Test
+	public void fallbackCopy() throws IOException {
+		Path target = folder.getRoot().toPath().resolve("copy");
+		Assert.assertTrue(Defects4JSnapshotCache.copyTreeWithFiles(workDir, target));
+
+		Assert.assertEquals(read(workDir.resolve(".defects4j.config")), read(target.resolve(".defects4j.config")));
+		Assert.assertEquals(read(workDir.resolve("src/a/A.java")), read(target.resolve("src/a/A.java")));
+		// modification times are kept
+		Assert.assertEquals(Files.getLastModifiedTime(workDir.resolve("src/a/A.java")),
+				Files.getLastModifiedTime(target.resolve("src/a/A.java")));
+
+		// files are not shared
+		Files.write(target.resolve("src/a/A.java"), Arrays.asList("class B {}"));
+		Assert.assertEquals("class A {}", read(workDir.resolve("src/a/A.java")).trim());
+	}
+
+}
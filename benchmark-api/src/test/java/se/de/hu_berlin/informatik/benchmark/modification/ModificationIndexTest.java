@@ -0,0 +1,89 @@
+package se.de.hu_berlin.informatik.benchmark.modification;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.Set;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+public class ModificationIndexTest {
+
+	private static Map<String, List<Modification>> createChanges() {
+		Map<String, List<Modification>> changesMap = new HashMap<>();
+		changesMap.put("a/A.java", new ArrayList<>(Arrays.asList(
+				new Change(new int[] { 10, 12 }, "a/A.java"),
+				new Delete(new int[] { 11 }, "a/A.java"),
+				new Insert(new int[] { 30 }, "a/A.java"),
+				new Change(new int[] { 5, 31 }, "a/A.java"))));
+		changesMap.put("b/B.java", new ArrayList<>(Arrays.asList(
+				new Change(new int[] { 1 }, "b/B.java"))));
+		return changesMap;
+	}
+
+	@Test
+	public void getModificationsInRange() {
+		Map<String, List<Modification>> changesMap = createChanges();
+		List<Modification> changes = changesMap.get("a/A.java");
+		ModificationIndex index = new ModificationIndex(changesMap);
+
+		// returned in the order of the original list
+		Assert.assertEquals(Arrays.asList(changes.get(0), changes.get(1)), index.getModifications("a/A.java", 11, 12, null));
+		Assert.assertEquals(Arrays.asList(changes.get(2), changes.get(3)), index.getModifications("a/A.java", 30, 31, null));
+		// a modification with multiple lines in the range is only returned once
+		Assert.assertEquals(Arrays.asList(changes.get(0), changes.get(1)), index.getModifications("a/A.java", 10, 12, null));
+		Assert.assertNull(index.getModifications("a/A.java", 13, 29, null));
+		Assert.assertNull(index.getModifications("c/C.java", 1, 100, null));
+	}
+
+	@Test
+	public void getModificationsWithIgnoreSet() {
+		Map<String, List<Modification>> changesMap = createChanges();
+		List<Modification> changes = changesMap.get("a/A.java");
+		ModificationIndex index = new ModificationIndex(changesMap);
+
+		Set<Modification> ignoreSet = ModificationIndex.newIgnoreSet();
+		Assert.assertEquals(Arrays.asList(changes.get(1)), index.getModifications("a/A.java", 11, 11, ignoreSet));
+		Assert.assertEquals(Arrays.asList(changes.get(0)), index.getModifications("a/A.java", 10, 12, ignoreSet));
+		Assert.assertNull(index.getModifications("a/A.java", 10, 12, ignoreSet));
+		Assert.assertEquals(2, ignoreSet.size());
+	}
+
+	@Test
+	public void equalToLinearSearch() {
+		Random random = new Random(42);
+		for (int iteration = 0; iteration < 1000; ++iteration) {
+			Map<String, List<Modification>> changesMap = new HashMap<>();
+			for (int file = 0; file < 3; ++file) {
+				List<Modification> changes = new ArrayList<>();
+				int changeCount = random.nextInt(6);
+				for (int i = 0; i < changeCount; ++i) {
+					int[] lines = new int[1 + random.nextInt(4)];
+					for (int j = 0; j < lines.length; ++j) {
+						lines[j] = 1 + random.nextInt(60);
+					}
+					changes.add(new Change(lines, "f" + file));
+				}
+				changesMap.put("f" + file, changes);
+			}
+
+			ModificationIndex index = new ModificationIndex(changesMap);
+			boolean useIgnoreList = random.nextBoolean();
+			List<Modification> ignoreList = useIgnoreList ? new ArrayList<>() : null;
+			Set<Modification> ignoreSet = useIgnoreList ? ModificationIndex.newIgnoreSet() : null;
+			for (int query = 0; query < 40; ++query) {
+				String file = "f" + random.nextInt(4);
+				int start = random.nextInt(65);
+				int end = start + random.nextInt(10);
+				Assert.assertEquals(
+						Modification.getModifications(file, start, end, true, changesMap, ignoreList),
+						index.getModifications(file, start, end, ignoreSet));
+			}
+		}
+	}
+
+}
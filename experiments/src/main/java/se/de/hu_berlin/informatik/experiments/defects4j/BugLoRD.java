@@ -1,6 +1,7 @@
 package se.de.hu_berlin.informatik.experiments.defects4j;
 
 import java.io.File;
+import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
 import java.util.Properties;
@@ -8,6 +9,11 @@ import java.util.Random;
 
 import se.de.hu_berlin.informatik.benchmark.api.BugLoRDConstants;
 import se.de.hu_berlin.informatik.benchmark.api.Entity;
+import se.de.hu_berlin.informatik.rankingplotter.plotter.BinaryRankingFile;
+import se.de.hu_berlin.informatik.stardust.localizer.SourceCodeBlock;
+import se.de.hu_berlin.informatik.stardust.spectra.ISpectra;
+import se.de.hu_berlin.informatik.stardust.spectra.manipulation.SaveSpectraModule;
+import se.de.hu_berlin.informatik.stardust.util.SpectraFileUtils;
 import se.de.hu_berlin.informatik.utils.properties.PropertyLoader;
 import se.de.hu_berlin.informatik.utils.properties.PropertyTemplate;
 
@@ -44,8 +50,18 @@ public final class BugLoRD {
 						+ "Kulczynski1 Kulczynski2 M1 M2 Ochiai2 Overlap RogersTanimoto Rogot1 Rogot2 "
 						+ "RussellRao Scott SimpleMatching Sokal SorensenDice Wong1 Wong2 Wong3 Zoltar"),
 
-		GLOBAL_LM_BINARY("global_lm_binary", "/path/to/../some_language_model.kenlm.binary",
-				"specify the path to the LM binary that shall be used");
+		GLOBAL_LM_BINARY("global_lm_binary", "/path/to/../some_language_model.arpa",
+				"specify the path to the LM that shall be used (preferably in ARPA format, optionally gzipped)",
+				"(LMs in ARPA format are queried inside of the JVM, kenLM binaries with the kenLM query executable)"),
+
+		RANKING_CACHE_DIR("ranking_cache_dir", "/path/to/../ranking_cache",
+				"path to a directory that stores binary copies of ranking files for faster loading",
+				"(binary copies are only used if this directory exists)"),
+
+		SPECTRA_FILE_FORMAT("spectra_file_format", "zip",
+				"format of generated spectra files: 'zip' or 'binary'",
+				"(binary spectra files allow to read single traces or nodes without decoding the whole file;",
+				"spectra files of both formats can be loaded, independently of this setting)");
 
 		final private String[] descriptionLines;
 		final private String identifier;
@@ -92,6 +108,13 @@ public final class BugLoRD {
 	private static Properties props = PropertyLoader
 			.loadProperties(new File(BugLoRD.PROP_FILE_NAME), BugLoRDProperties.class);
 
+	static {
+		String rankingCacheDir = getValueOf(BugLoRDProperties.RANKING_CACHE_DIR);
+		if (rankingCacheDir != null && Files.isDirectory(Paths.get(rankingCacheDir))) {
+			BinaryRankingFile.setCacheDir(Paths.get(rankingCacheDir));
+		}
+	}
+
 	// suppress default constructor (class should not be instantiated)
 	private BugLoRD() {
 		throw new AssertionError();
@@ -169,6 +192,22 @@ public final class BugLoRD {
 		return spectraFile;
 	}
 	
+	public static boolean useBinarySpectraFiles() {
+		return "binary".equalsIgnoreCase(getValueOf(BugLoRDProperties.SPECTRA_FILE_FORMAT));
+	}
+
+	public static SaveSpectraModule<SourceCodeBlock> newSaveSpectraModule(Path spectraFile) {
+		return new SaveSpectraModule<SourceCodeBlock>(SourceCodeBlock.DUMMY, spectraFile, useBinarySpectraFiles());
+	}
+
+	public static void saveSpectra(ISpectra<SourceCodeBlock, ?> spectra, Path spectraFile) {
+		if (useBinarySpectraFiles()) {
+			SpectraFileUtils.saveBlockSpectraToBinaryFile(spectra, spectraFile, true);
+		} else {
+			SpectraFileUtils.saveBlockSpectraToZipFile(spectra, spectraFile, true, true, true);
+		}
+	}
+	
 	public static String getSubDirName(ToolSpecific toolSpecific) {
 		String subDirName = null;
 		switch (toolSpecific) {
@@ -19,6 +19,7 @@ import se.de.hu_berlin.informatik.experiments.defects4j.calls.ERCheckoutFixAndCh
 import se.de.hu_berlin.informatik.experiments.defects4j.calls.ERCleanupEH;
 import se.de.hu_berlin.informatik.experiments.defects4j.calls.ERComputeSBFLRankingsFromSpectraEH;
 import se.de.hu_berlin.informatik.experiments.defects4j.calls.ERQueryLMRankingsEH;
+import se.de.hu_berlin.informatik.experiments.lm.LMQueryEngine;
 import se.de.hu_berlin.informatik.stardust.localizer.sbfl.AbstractSpectrumBasedFaultLocalizer.ComputationStrategies;
 import se.de.hu_berlin.informatik.utils.miscellaneous.Log;
 import se.de.hu_berlin.informatik.utils.miscellaneous.Misc;
@@ -62,6 +63,8 @@ public class ExperimentRunner {
 				"Whether to compute rankings based on filtered spectra. " + "(Only for experiment 'computeSBFL'!)",
 				false),
 		SUFFIX("s", "suffix", true, "A suffix to append to the ranking directory.", false),
+		CONCURRENT_SPECTRA("cs", "concurrentSpectra", false, "Whether to generate the Cobertura and JaCoCo spectra "
+				+ "concurrently and to merge them in memory. (Only for experiment 'genSpectra'!)", false),
 		SIMILARITY_SBFL("sim", "similarity", false, "Whether the ranking should be based on similarity between traces.",
 				false),
 		LM("lm", "globalLM", true, "Path to a language model binary (kenLM).", false);
@@ -165,7 +168,8 @@ public class ExperimentRunner {
 		if (toDoContains(toDo, "genSpectra") || toDoContains(toDo, "all")) {
 			// every thread needs its own port for the JaCoCo Java agent, sadly...
 			EHWithInputAndReturn<BuggyFixedEntity<?>,BuggyFixedEntity<?>> firstEH = 
-					new ERGenerateSpectraEH(options.getOptionValue(CmdOptions.SUFFIX, null), AgentOptions.DEFAULT_PORT).asEH();
+					new ERGenerateSpectraEH(options.getOptionValue(CmdOptions.SUFFIX, null), AgentOptions.DEFAULT_PORT,
+							options.hasOption(CmdOptions.CONCURRENT_SPECTRA)).asEH();
 			@SuppressWarnings("unchecked")
 			final Class<EHWithInputAndReturn<BuggyFixedEntity<?>,BuggyFixedEntity<?>>> clazz = (Class<EHWithInputAndReturn<BuggyFixedEntity<?>,BuggyFixedEntity<?>>>) firstEH.getClass();
 			final EHWithInputAndReturn<BuggyFixedEntity<?>,BuggyFixedEntity<?>>[] handlers = Misc.createGenericArray(clazz, threadCount);
@@ -173,7 +177,8 @@ public class ExperimentRunner {
 			handlers[0] = firstEH;
 			for (int i = 1; i < handlers.length; ++i) {
 				// create modules with different port numbers
-				handlers[i] = new ERGenerateSpectraEH(options.getOptionValue(CmdOptions.SUFFIX, null), AgentOptions.DEFAULT_PORT + (i * 3)).asEH();
+				handlers[i] = new ERGenerateSpectraEH(options.getOptionValue(CmdOptions.SUFFIX, null), AgentOptions.DEFAULT_PORT + (i * 3),
+						options.hasOption(CmdOptions.CONCURRENT_SPECTRA)).asEH();
 			}
 			linker.append(
 					new ThreadedProcessor<>(limit, handlers));
@@ -228,6 +233,9 @@ public class ExperimentRunner {
 		}
 
 		linker.shutdown();
+		
+		// the language models are not needed anymore
+		LMQueryEngine.releaseEngines();
 	}
 
 	private static boolean toDoContains(String[] toDo, String item) {
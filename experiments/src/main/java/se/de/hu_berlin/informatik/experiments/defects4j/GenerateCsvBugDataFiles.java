@@ -4,10 +4,10 @@
 package se.de.hu_berlin.informatik.experiments.defects4j;
 
 import java.nio.file.Path;
-import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
 
 import org.apache.commons.cli.Option;
 
@@ -16,6 +16,7 @@ import se.de.hu_berlin.informatik.benchmark.api.Entity;
 import se.de.hu_berlin.informatik.benchmark.api.defects4j.Defects4J;
 import se.de.hu_berlin.informatik.benchmark.api.defects4j.Defects4JBuggyFixedEntity;
 import se.de.hu_berlin.informatik.benchmark.modification.Modification;
+import se.de.hu_berlin.informatik.benchmark.modification.ModificationIndex;
 import se.de.hu_berlin.informatik.experiments.defects4j.BugLoRD.BugLoRDProperties;
 import se.de.hu_berlin.informatik.rankingplotter.plotter.RankingUtils;
 import se.de.hu_berlin.informatik.rankingplotter.plotter.RankingUtils.SourceCodeBlockRankingMetrics;
@@ -252,7 +253,7 @@ public class GenerateCsvBugDataFiles {
 			Log.out(GenerateCsvBugDataFiles.class, "Processing %s.", entity);
 			Entity bug = entity.getBuggyVersion();
 
-			Map<String, List<Modification>> changeInformation = entity.loadChangesFromFile();
+			ModificationIndex changeIndex = ModificationIndex.getIndex(entity);
 
 			Ranking<SourceCodeBlock> ranking = RankingUtils.getRanking(bug, suffix, rankingIdentifier);
 			if (ranking == null) {
@@ -261,11 +262,10 @@ public class GenerateCsvBugDataFiles {
 
 			MarkedRanking<SourceCodeBlock, List<Modification>> markedRanking = new MarkedRanking<>(ranking);
 
-			List<Modification> ignoreList = new ArrayList<>();
+			Set<Modification> ignoreSet = ModificationIndex.newIgnoreSet();
 			for (SourceCodeBlock block : markedRanking.getElements()) {
-				List<Modification> list = Modification.getModifications(
-						block.getFilePath(), block.getStartLineNumber(), block.getEndLineNumber(), true,
-						changeInformation, ignoreList);
+				List<Modification> list = changeIndex.getModifications(
+						block.getFilePath(), block.getStartLineNumber(), block.getEndLineNumber(), ignoreSet);
 				// found changes for this line? then mark the line with the
 				// change(s)...
 				if (list != null && !list.isEmpty()) {
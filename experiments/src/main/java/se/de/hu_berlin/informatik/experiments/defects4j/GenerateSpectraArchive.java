@@ -185,7 +185,7 @@ public class GenerateSpectraArchive {
 									} catch (IOException e) {
 										Log.err(this, "Could not copy spectra for %s.", input);
 										ISpectra<SourceCodeBlock, ?> spectra = SpectraFileUtils.loadSpectraFromZipFile(SourceCodeBlock.DUMMY, spectraFile);
-										SpectraFileUtils.saveBlockSpectraToZipFile(spectra, spectraDestination, true, true, true);
+										BugLoRD.saveSpectra(spectra, spectraDestination);
 									}
 									if (spectraFileFiltered.toFile().exists()) {
 										try {
@@ -194,13 +194,13 @@ public class GenerateSpectraArchive {
 										} catch (IOException e) {
 											Log.err(this, "Could not copy filtered spectra for %s.", input);
 											ISpectra<SourceCodeBlock, ?> spectra = SpectraFileUtils.loadSpectraFromZipFile(SourceCodeBlock.DUMMY, spectraFileFiltered);
-											SpectraFileUtils.saveBlockSpectraToZipFile(spectra, spectraDestinationFiltered, true, true, true);
+											BugLoRD.saveSpectra(spectra, spectraDestinationFiltered);
 										}
 									} else { //generate filtered spectra
 										ISpectra<SourceCodeBlock, ?> spectra = SpectraFileUtils.loadSpectraFromZipFile(SourceCodeBlock.DUMMY, spectraFile);
-										SpectraFileUtils.saveBlockSpectraToZipFile(
+										BugLoRD.saveSpectra(
 												new FilterSpectraModule<SourceCodeBlock>(INode.CoverageType.EF_EQUALS_ZERO).submit(spectra).getResult(),
-												spectraDestinationFiltered, true, true, true);
+												spectraDestinationFiltered);
 									}
 								} else {
 									Log.err(GenerateSpectraArchive.class, "'%s' does not exist.", spectraFile);
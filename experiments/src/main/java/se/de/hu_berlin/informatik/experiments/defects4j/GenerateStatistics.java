@@ -15,6 +15,7 @@ import se.de.hu_berlin.informatik.benchmark.api.Entity;
 import se.de.hu_berlin.informatik.benchmark.api.defects4j.Defects4J;
 import se.de.hu_berlin.informatik.benchmark.api.defects4j.Defects4JBuggyFixedEntity;
 import se.de.hu_berlin.informatik.benchmark.modification.Modification;
+import se.de.hu_berlin.informatik.benchmark.modification.ModificationIndex;
 import se.de.hu_berlin.informatik.experiments.defects4j.BugLoRD.ToolSpecific;
 import se.de.hu_berlin.informatik.stardust.localizer.SourceCodeBlock;
 import se.de.hu_berlin.informatik.stardust.spectra.INode;
@@ -201,8 +202,8 @@ public class GenerateStatistics {
 				return null;
 			}
 
-			Map<String, List<Modification>> changesMap = input.loadChangesFromFile();
-			if (changesMap == null) {
+			ModificationIndex changeIndex = ModificationIndex.getIndex(input);
+			if (changeIndex == null) {
 				Log.err(GenerateStatistics.class, "Could not load changes for %s.", input);
 				return null;
 			}
@@ -217,8 +218,8 @@ public class GenerateStatistics {
 			int changesCount = 0;
 			for (INode<SourceCodeBlock> node : spectra.getNodes()) {
 				SourceCodeBlock block = node.getIdentifier();
-				List<Modification> changes = Modification.getModifications(block.getFilePath(), 
-						block.getStartLineNumber(), block.getEndLineNumber(), false, changesMap, null);
+				List<Modification> changes = changeIndex.getModifications(block.getFilePath(), 
+						block.getStartLineNumber(), block.getEndLineNumber(), null);
 				if (changes == null) {
 					continue;
 				}
@@ -297,8 +298,8 @@ public class GenerateStatistics {
 
 			for (INode<SourceCodeBlock> node : spectra.getNodes()) {
 				SourceCodeBlock block = node.getIdentifier();
-				List<Modification> changes = Modification.getModifications(block.getFilePath(), 
-						block.getStartLineNumber(), block.getEndLineNumber(), false, changesMap, null);
+				List<Modification> changes = changeIndex.getModifications(block.getFilePath(), 
+						block.getStartLineNumber(), block.getEndLineNumber(), null);
 				if (changes == null) {
 					continue;
 				}
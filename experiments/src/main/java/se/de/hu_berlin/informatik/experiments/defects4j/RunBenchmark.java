@@ -13,6 +13,7 @@ import se.de.hu_berlin.informatik.benchmark.api.defects4j.Defects4J;
 import se.de.hu_berlin.informatik.benchmark.api.defects4j.Defects4JBuggyFixedEntity;
 import se.de.hu_berlin.informatik.experiments.defects4j.BugLoRD.BugLoRDProperties;
 import se.de.hu_berlin.informatik.experiments.defects4j.calls.ERQueryLMRankingsEH;
+import se.de.hu_berlin.informatik.experiments.lm.LMQueryEngine;
 import se.de.hu_berlin.informatik.utils.files.processors.FileToStringListReader;
 import se.de.hu_berlin.informatik.utils.miscellaneous.Log;
 import se.de.hu_berlin.informatik.utils.optionparser.OptionParser;
@@ -165,6 +166,8 @@ public class RunBenchmark {
 				}
 			}
 			linker.shutdown();
+			// only keep one language model in memory at a time
+			LMQueryEngine.releaseEngines();
 		}
 		
 //		/*
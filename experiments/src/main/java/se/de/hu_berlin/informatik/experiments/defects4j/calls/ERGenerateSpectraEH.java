@@ -10,12 +10,18 @@ import java.nio.file.Paths;
 import java.nio.file.StandardCopyOption;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 
 import se.de.hu_berlin.informatik.benchmark.api.BugLoRDConstants;
 import se.de.hu_berlin.informatik.benchmark.api.BuggyFixedEntity;
 import se.de.hu_berlin.informatik.benchmark.api.Entity;
 import se.de.hu_berlin.informatik.benchmark.api.defects4j.Defects4J;
 import se.de.hu_berlin.informatik.benchmark.api.defects4j.Defects4J.Defects4JProperties;
+import se.de.hu_berlin.informatik.benchmark.api.defects4j.Defects4JSnapshotCache;
+import se.de.hu_berlin.informatik.experiments.defects4j.BugLoRD;
 import se.de.hu_berlin.informatik.gen.spectra.AbstractSpectraGenerator.AbstractBuilder;
 import se.de.hu_berlin.informatik.gen.spectra.main.CoberturaSpectraGenerator;
 import se.de.hu_berlin.informatik.gen.spectra.main.JaCoCoSpectraGenerator;
@@ -23,7 +29,6 @@ import se.de.hu_berlin.informatik.stardust.localizer.SourceCodeBlock;
 import se.de.hu_berlin.informatik.stardust.spectra.INode;
 import se.de.hu_berlin.informatik.stardust.spectra.ISpectra;
 import se.de.hu_berlin.informatik.stardust.spectra.manipulation.FilterSpectraModule;
-import se.de.hu_berlin.informatik.stardust.spectra.manipulation.SaveSpectraModule;
 import se.de.hu_berlin.informatik.stardust.util.SpectraFileUtils;
 import se.de.hu_berlin.informatik.stardust.util.SpectraUtils;
 import se.de.hu_berlin.informatik.utils.files.FileUtils;
@@ -42,6 +47,7 @@ public class ERGenerateSpectraEH extends AbstractProcessor<BuggyFixedEntity<?>,B
 
 	private String suffix;
 	final private int port;
+	final private boolean concurrent;
 
 	/**
 	 * @param suffix
@@ -50,8 +56,22 @@ public class ERGenerateSpectraEH extends AbstractProcessor<BuggyFixedEntity<?>,B
 	 * the port to use for the JaCoCo Java agent
 	 */
 	public ERGenerateSpectraEH(String suffix, int port) {
+		this(suffix, port, false);
+	}
+	
+	/**
+	 * @param suffix
+	 * a suffix to append to the ranking directory (may be null)
+	 * @param port
+	 * the port to use for the JaCoCo Java agent
+	 * @param concurrent
+	 * whether to generate the Cobertura and JaCoCo spectra concurrently and to
+	 * merge and filter them in memory
+	 */
+	public ERGenerateSpectraEH(String suffix, int port, boolean concurrent) {
 		this.suffix = suffix;
 		this.port = port;
+		this.concurrent = concurrent;
 	}
 
 	private boolean tryToGetSpectraFromArchive(Entity entity) {
@@ -163,9 +183,9 @@ public class ERGenerateSpectraEH extends AbstractProcessor<BuggyFixedEntity<?>,B
 		ISpectra<SourceCodeBlock, ?> spectra = SpectraFileUtils.loadSpectraFromZipFile(SourceCodeBlock.DUMMY, spectraFile);
 		
 		Path destination = entity.getWorkDataDir().resolve(BugLoRDConstants.FILTERED_SPECTRA_FILE_NAME);
-		SpectraFileUtils.saveBlockSpectraToZipFile(
+		BugLoRD.saveSpectra(
 				new FilterSpectraModule<SourceCodeBlock>(INode.CoverageType.EF_EQUALS_ZERO).submit(spectra).getResult(),
-				destination, true, true, true);
+				destination);
 	}
 
 	@Override
@@ -231,17 +251,27 @@ public class ERGenerateSpectraEH extends AbstractProcessor<BuggyFixedEntity<?>,B
 			Path statsDirData = bug.getWorkDataDir().resolve(suffix == null ? 
 					BugLoRDConstants.DIR_NAME_STATS : BugLoRDConstants.DIR_NAME_STATS + "_" + suffix);
 			
+			if (concurrent) {
+				if (!generateSpectraConcurrently(buggyEntity, bug, buggyMainSrcDir, buggyMainBinDir, buggyTestBinDir,
+						buggyTestCP, testClassesFile, rankingDir, statsDirData, failingTests)) {
+					Log.err(this, "Error while generating spectra. Skipping '" + buggyEntity + "'.");
+					return null;
+				}
+				bug.removeUnnecessaryFiles(true);
+				return buggyEntity;
+			}
+			
 			// generate a spectra with cobertura
 			Log.out(this, "%s: Generating spectra with Cobertura...", buggyEntity);
 			ISpectra<SourceCodeBlock, ?> majorityCoberturaSpectra = createMajoritySpectra(true, 1,
-					buggyEntity, bug, buggyMainSrcDir, buggyMainBinDir, buggyTestBinDir, buggyTestCP, testClassesFile,
+					buggyEntity, bug, bug.getWorkDir(true), buggyMainSrcDir, buggyMainBinDir, buggyTestBinDir, buggyTestCP, testClassesFile,
 					rankingDir, failingTests);
 
 			Path majorityCoberturaSpectraFile = null;
 			if (majorityCoberturaSpectra != null) {
 				// save the generated spectra while computing the spectras with JaCoCo...
 				majorityCoberturaSpectraFile = rankingDir.resolve("majorityCoberturaSpectra.zip");
-				new SaveSpectraModule<SourceCodeBlock>(SourceCodeBlock.DUMMY, majorityCoberturaSpectraFile)
+				BugLoRD.newSaveSpectraModule(majorityCoberturaSpectraFile)
 				.submit(majorityCoberturaSpectra);
 				// let the GC collect the spectra while computing a spectra with JaCoCo (possible RAM issues)
 				majorityCoberturaSpectra = null;
@@ -250,14 +280,14 @@ public class ERGenerateSpectraEH extends AbstractProcessor<BuggyFixedEntity<?>,B
 			// generate a spectra with jacoco
 			Log.out(this, "%s: Generating spectra with JaCoCo...", buggyEntity);
 			ISpectra<SourceCodeBlock, ?> majorityJaCoCoSpectra = createMajoritySpectra(false, 1,
-					buggyEntity, bug, buggyMainSrcDir, buggyMainBinDir, buggyTestBinDir, buggyTestCP, testClassesFile,
+					buggyEntity, bug, bug.getWorkDir(true), buggyMainSrcDir, buggyMainBinDir, buggyTestBinDir, buggyTestCP, testClassesFile,
 					rankingDir, failingTests);
 			
 			Path majorityJaCoCoSpectraFile = null;
 			if (majorityJaCoCoSpectra != null) {
 				// temporarily save the generated spectra
 				majorityJaCoCoSpectraFile = rankingDir.resolve("majorityJaCoCoSpectra.zip");
-				new SaveSpectraModule<SourceCodeBlock>(SourceCodeBlock.DUMMY, majorityJaCoCoSpectraFile)
+				BugLoRD.newSaveSpectraModule(majorityJaCoCoSpectraFile)
 				.submit(majorityJaCoCoSpectra);
 			}
 
@@ -282,7 +312,7 @@ public class ERGenerateSpectraEH extends AbstractProcessor<BuggyFixedEntity<?>,B
 
 				Log.out(this, "%s: Saving merged spectra...", buggyEntity);
 				mergedSpectraFile = rankingDir.resolve(BugLoRDConstants.SPECTRA_FILE_NAME);
-				new SaveSpectraModule<SourceCodeBlock>(SourceCodeBlock.DUMMY, mergedSpectraFile)
+				BugLoRD.newSaveSpectraModule(mergedSpectraFile)
 				.submit(mergedSpectra);
 
 				
@@ -292,7 +322,7 @@ public class ERGenerateSpectraEH extends AbstractProcessor<BuggyFixedEntity<?>,B
 				new ModuleLinker().append(
 //						new TraceFileModule<SourceCodeBlock>(rankingDir.toAbsolutePath().toString()),
 						new FilterSpectraModule<SourceCodeBlock>(INode.CoverageType.EF_EQUALS_ZERO),
-						new SaveSpectraModule<SourceCodeBlock>(SourceCodeBlock.DUMMY, mergedFilteredSpectraFile))
+						BugLoRD.newSaveSpectraModule(mergedFilteredSpectraFile))
 				.submit(mergedSpectra);
 
 				mergedSpectra = null;
@@ -340,28 +370,8 @@ public class ERGenerateSpectraEH extends AbstractProcessor<BuggyFixedEntity<?>,B
 				FileUtils.delete(rankingDir.resolve(BugLoRDConstants.FILTERED_SPECTRA_FILE_NAME));
 				
 				
-				List<Path> result = new SearchFileOrDirToListProcessor("**cobertura.ser", true)
-						.searchForFiles().submit(rankingDir).getResult();
-				for (Path file : result) {
-					FileUtils.delete(file);
-				}
-				List<Path> result2 = new SearchFileOrDirToListProcessor("**" + BugLoRDConstants.FILTERED_SPECTRA_FILE_NAME, true)
-						.searchForFiles().submit(rankingDir).getResult();
-				for (Path file : result2) {
-					FileUtils.delete(file);
-				}
-				List<Path> result3 = new SearchFileOrDirToListProcessor("**instrumented", true)
-						.searchForDirectories().skipSubTreeAfterMatch().submit(rankingDir).getResult();
-				for (Path dir : result3) {
-					FileUtils.delete(dir);
-				}
-				
 //				FileUtils.delete(rankingDir.resolve(BugLoRDConstants.FILENAME_TRACE_FILE));
-				//delete old stats data directory
-				FileUtils.delete(statsDirData);
-				FileUtils.copyFileOrDir(
-						rankingDir.toFile(), 
-						statsDirData.toFile());
+				copyStatsToDataDir(rankingDir, statsDirData);
 //				FileUtils.delete(rankingDir.resolve(BugLoRDConstants.SPECTRA_FILE_NAME));
 			} catch (IOException e) {
 				Log.err(this, e, "Could not copy the spectra to the data directory.");
@@ -395,8 +405,162 @@ public class ERGenerateSpectraEH extends AbstractProcessor<BuggyFixedEntity<?>,B
 		return buggyEntity;
 	}
 
+	/**
+	 * Generates the Cobertura and the JaCoCo spectra at the same time. Both tools use
+	 * their own output directories (including the instrumented classes and data files).
+	 * Cobertura runs the tests in its own (copy-on-write, if possible) copy of the working
+	 * directory, such that files that are written to the working directory during the test
+	 * runs do not collide with the ones of the JaCoCo run. The spectra that the generators
+	 * (which run in separate JVMs) write to their output directories are loaded once. They
+	 * are merged and filtered in memory, and each resulting spectra file is saved only once,
+	 * directly to the data directory.
+	 * @return
+	 * whether all spectra files have been generated successfully
+	 */
+	private boolean generateSpectraConcurrently(BuggyFixedEntity<?> buggyEntity, Entity bug, 
+			String buggyMainSrcDir, String buggyMainBinDir, String buggyTestBinDir, String buggyTestCP, 
+			String testClassesFile, Path rankingDir, Path statsDirData, List<String> failingTests) {
+		Log.out(this, "%s: Generating spectra with Cobertura and JaCoCo concurrently...", buggyEntity);
+		ISpectra<SourceCodeBlock, ?> majorityCoberturaSpectra = null;
+		ISpectra<SourceCodeBlock, ?> majorityJaCoCoSpectra = null;
+		Path workDir = bug.getWorkDir(true);
+		Path coberturaWorkDir = workDir.resolveSibling(workDir.getFileName() + "_" + BugLoRDConstants.DIR_NAME_COBERTURA);
+		FileUtils.delete(coberturaWorkDir);
+		// creates copy-on-write copies, if supported by the file system
+		if (!Defects4JSnapshotCache.copyTree(workDir, coberturaWorkDir)) {
+			Log.err(this, "Could not copy the working directory for Cobertura.");
+			FileUtils.delete(coberturaWorkDir);
+			return false;
+		}
+		String coberturaTestCP = relocateClassPath(buggyTestCP, workDir, coberturaWorkDir);
+		
+		ExecutorService executor = Executors.newSingleThreadExecutor();
+		try {
+			Future<ISpectra<SourceCodeBlock, ?>> coberturaResult = executor.submit(() -> createMajoritySpectra(true, 1,
+					buggyEntity, bug, coberturaWorkDir, buggyMainSrcDir, buggyMainBinDir, buggyTestBinDir, coberturaTestCP, 
+					testClassesFile, rankingDir, failingTests));
+			majorityJaCoCoSpectra = createMajoritySpectra(false, 1,
+					buggyEntity, bug, workDir, buggyMainSrcDir, buggyMainBinDir, buggyTestBinDir, buggyTestCP, testClassesFile,
+					rankingDir, failingTests);
+			majorityCoberturaSpectra = coberturaResult.get();
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			Log.err(this, e, "Interrupted while generating spectra with Cobertura.");
+			return false;
+		} catch (ExecutionException e) {
+			Log.err(this, e.getCause(), "Error while generating spectra with Cobertura.");
+			return false;
+		} finally {
+			executor.shutdownNow();
+			FileUtils.delete(coberturaWorkDir);
+		}
+		
+		if (majorityCoberturaSpectra == null || majorityJaCoCoSpectra == null) {
+			return false;
+		}
+		
+		Path coberturaSpectraFile = bug.getWorkDataDir().resolve(BugLoRDConstants.DIR_NAME_COBERTURA)
+				.resolve(BugLoRDConstants.SPECTRA_FILE_NAME);
+		Path jacocoSpectraFile = bug.getWorkDataDir().resolve(BugLoRDConstants.DIR_NAME_JACOCO)
+				.resolve(BugLoRDConstants.SPECTRA_FILE_NAME);
+		Path mergedSpectraFile = bug.getWorkDataDir().resolve(BugLoRDConstants.SPECTRA_FILE_NAME);
+		Path mergedFilteredSpectraFile = bug.getWorkDataDir().resolve(BugLoRDConstants.FILTERED_SPECTRA_FILE_NAME);
+		
+		coberturaSpectraFile.getParent().toFile().mkdirs();
+		BugLoRD.newSaveSpectraModule(coberturaSpectraFile)
+		.submit(majorityCoberturaSpectra);
+		jacocoSpectraFile.getParent().toFile().mkdirs();
+		BugLoRD.newSaveSpectraModule(jacocoSpectraFile)
+		.submit(majorityJaCoCoSpectra);
+		
+		List<ISpectra<SourceCodeBlock, ?>> generatedSpectras = new ArrayList<>();
+		generatedSpectras.add(majorityJaCoCoSpectra);
+		generatedSpectras.add(majorityCoberturaSpectra);
+		
+		// generate a merged spectra from both majority spectras
+		Log.out(this, "%s: Merging spectra...", buggyEntity);
+		ISpectra<SourceCodeBlock, ?> mergedSpectra = SpectraUtils.mergeCountSpectra(generatedSpectras, true, true);
+		generatedSpectras = null;
+		majorityCoberturaSpectra = null;
+		majorityJaCoCoSpectra = null;
+		
+		// save the merged spectra and the filtered merged spectra (filtering is done in place)
+		Log.out(this, "%s: Saving merged spectra...", buggyEntity);
+		new ModuleLinker().append(
+				BugLoRD.newSaveSpectraModule(mergedSpectraFile),
+				new FilterSpectraModule<SourceCodeBlock>(INode.CoverageType.EF_EQUALS_ZERO),
+				BugLoRD.newSaveSpectraModule(mergedFilteredSpectraFile))
+		.submit(mergedSpectra);
+		mergedSpectra = null;
+		
+		for (Path spectraFile : new Path[] { coberturaSpectraFile, jacocoSpectraFile, 
+				mergedSpectraFile, mergedFilteredSpectraFile }) {
+			if (!spectraFile.toFile().exists()) {
+				Log.err(this, "Spectra file doesn't exist: '" + spectraFile + "'.");
+				return false;
+			}
+		}
+		
+		try {
+			copyStatsToDataDir(rankingDir, statsDirData);
+		} catch (IOException e) {
+			Log.err(this, e, "Could not copy the statistics to the data directory.");
+		}
+		
+		return true;
+	}
+	
+	/**
+	 * Replaces the absolute class path elements that are located in the given
+	 * original directory with the respective elements in the given copy.
+	 */
+	private static String relocateClassPath(String classPath, Path originalDir, Path copyDir) {
+		StringBuilder result = new StringBuilder();
+		for (String element : classPath.split(File.pathSeparator)) {
+			Path path = Paths.get(element);
+			if (path.isAbsolute() && path.normalize().startsWith(originalDir.toAbsolutePath().normalize())) {
+				element = copyDir.toAbsolutePath().resolve(
+						originalDir.toAbsolutePath().normalize().relativize(path.normalize())).toString();
+			}
+			if (result.length() > 0) {
+				result.append(File.pathSeparator);
+			}
+			result.append(element);
+		}
+		return result.toString();
+	}
+	
+	/**
+	 * Removes coverage data, instrumented classes and left over spectra files from the
+	 * ranking directory and replaces the statistics in the data directory with the
+	 * remaining contents of the ranking directory.
+	 */
+	private static void copyStatsToDataDir(Path rankingDir, Path statsDirData) throws IOException {
+		List<Path> result = new SearchFileOrDirToListProcessor("**cobertura.ser", true)
+				.searchForFiles().submit(rankingDir).getResult();
+		for (Path file : result) {
+			FileUtils.delete(file);
+		}
+		List<Path> result2 = new SearchFileOrDirToListProcessor("**" + BugLoRDConstants.FILTERED_SPECTRA_FILE_NAME, true)
+				.searchForFiles().submit(rankingDir).getResult();
+		for (Path file : result2) {
+			FileUtils.delete(file);
+		}
+		List<Path> result3 = new SearchFileOrDirToListProcessor("**instrumented", true)
+				.searchForDirectories().skipSubTreeAfterMatch().submit(rankingDir).getResult();
+		for (Path dir : result3) {
+			FileUtils.delete(dir);
+		}
+		
+		//delete old stats data directory
+		FileUtils.delete(statsDirData);
+		FileUtils.copyFileOrDir(
+				rankingDir.toFile(), 
+				statsDirData.toFile());
+	}
+
 	private ISpectra<SourceCodeBlock, ?> createMajoritySpectra(boolean useCobertura, int iterations,
-			BuggyFixedEntity<?> buggyEntity, Entity bug, String buggyMainSrcDir,
+			BuggyFixedEntity<?> buggyEntity, Entity bug, Path projectDir, String buggyMainSrcDir,
 			String buggyMainBinDir, String buggyTestBinDir, String buggyTestCP, String testClassesFile,
 			Path rankingDir, List<String> failingTests) {
 		// generate the spectra 3 times and compare them afterwards to avoid false data...
@@ -423,11 +587,11 @@ public class ERGenerateSpectraEH extends AbstractProcessor<BuggyFixedEntity<?>,B
 			
 			builder
 			.setJavaHome(Defects4JProperties.JAVA7_HOME.getValue())
-			.setProjectDir(bug.getWorkDir(true).toString())
+			.setProjectDir(projectDir.toString())
 			.setSourceDir(buggyMainSrcDir)
 			.setTestClassDir(buggyTestBinDir)
 			.setTestClassPath(buggyTestCP)
-			.setPathsToBinaries(bug.getWorkDir(true).resolve(buggyMainBinDir).toString())
+			.setPathsToBinaries(projectDir.resolve(buggyMainBinDir).toString())
 			.setOutputDir(uniqueRankingDir.toString())
 			.setTestClassList(testClassesFile)
 			.setFailingTests(failingTests)
@@ -5,8 +5,15 @@ package se.de.hu_berlin.informatik.experiments.defects4j.calls;
 
 import java.io.File;
 import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
 import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.IdentityHashMap;
+import java.util.List;
 import java.util.Locale;
+import java.util.Map;
 
 import se.de.hu_berlin.informatik.benchmark.api.BugLoRDConstants;
 import se.de.hu_berlin.informatik.benchmark.api.BuggyFixedEntity;
@@ -14,14 +21,23 @@ import se.de.hu_berlin.informatik.benchmark.api.Entity;
 import se.de.hu_berlin.informatik.benchmark.api.defects4j.Defects4J;
 import se.de.hu_berlin.informatik.experiments.defects4j.BugLoRD;
 import se.de.hu_berlin.informatik.experiments.defects4j.BugLoRD.BugLoRDProperties;
+import se.de.hu_berlin.informatik.experiments.lm.LMQueryEngine;
 import se.de.hu_berlin.informatik.javatokenizer.tokenizelines.TokenizeLines;
+import se.de.hu_berlin.informatik.javatokenizer.tokenizelines.TokenizedLine;
 import se.de.hu_berlin.informatik.utils.files.FileUtils;
 import se.de.hu_berlin.informatik.utils.miscellaneous.Log;
+import se.de.hu_berlin.informatik.utils.miscellaneous.Misc;
 import se.de.hu_berlin.informatik.utils.processors.AbstractProcessor;
 
 /**
  * Runs a single experiment.
  * 
+ * <p>
+ * Each source file is tokenized only once for all numbers of preceding and succeeding
+ * tokens. Language models in ARPA format are queried inside of the JVM with the
+ * {@link LMQueryEngine}. All other language models, in particular kenLM binaries,
+ * are queried with a single call to the (altered) kenLM query executable.
+ * 
  * @author Simon Heiden
  */
 public class ERQueryLMRankingsEH extends AbstractProcessor<BuggyFixedEntity<?>,BuggyFixedEntity<?>> {
@@ -36,7 +52,7 @@ public class ERQueryLMRankingsEH extends AbstractProcessor<BuggyFixedEntity<?>,B
 	 * @param suffix 
 	 * a suffix to append to the ranking directory (may be null)
 	 * @param globalLM
-	 * the path to the global lm binary
+	 * the path to the global language model (preferably in ARPA format)
 	 */
 	public ERQueryLMRankingsEH(String suffix, String globalLM) {
 		super();
@@ -120,38 +136,33 @@ public class ERQueryLMRankingsEH extends AbstractProcessor<BuggyFixedEntity<?>,B
 		Log.out(this, "Processing: " + traceFile);
 		File allLMRankingFileNames = new File(BugLoRDConstants.LM_RANKING_FILENAMES_FILE);
 
+		// sentences for all combinations of numbers of preceding and succeeding tokens
+		List<List<String>> sentences = getSentences(
+				buggyVersionDir + Defects4J.SEP + buggyMainSrcDir, depth, traceFile);
+		List<List<String>> scores;
+		if (LMQueryEngine.isSupported(Paths.get(globalLM))) {
+			scores = queryWithEngine(sentences);
+		} else {
+			Log.out(this, "Language model is not in ARPA format. Querying with kenLM.");
+			scores = queryWithKenLM(sentences, sentenceOutput);
+		}
+		if (scores == null) {
+			Log.err(this, "Error while querying sentences. Skipping '" + buggyEntity + "'.");
+			return null;
+		}
+		
 		for (int pre = 0; pre <= BugLoRDConstants.MAX_PRE_TOKENS_COUNT; pre += 1) {
 			for (int post = 0; post <= BugLoRDConstants.MAX_POST_TOKENS_COUNT; post += 1) {
-				if (depth != null) {
-					TokenizeLines.tokenizeLinesDefects4JElementSemantic(
-							buggyVersionDir + Defects4J.SEP + buggyMainSrcDir,
-							traceFile, sentenceOutput, "10", depth, 
-							BugLoRDConstants.INCLUDE_PARENT_IN_TOKEN, BugLoRDConstants.CHILD_COUNT_STEPS, 
-							String.valueOf(pre), String.valueOf(post));
-				} else {
-					TokenizeLines.tokenizeLinesDefects4JElement(
-							buggyVersionDir + Defects4J.SEP + buggyMainSrcDir,
-							traceFile, sentenceOutput, "10");
-				}
 				String lmRankingFile = getLMRankingFileName(lmFileName, pre, post);
-
-				Defects4J.executeCommand(null, true, "/bin/sh", "-c", BugLoRD.getKenLMQueryExecutable() 
-						+ " -n -c " + globalLM + " < " + sentenceOutput + " > " + lmRankingDir + File.separator + lmRankingFile);
-				
+				Path lmRankingPath = Paths.get(lmRankingDir, lmRankingFile);
 				try {
-					// first check without synchronization
-					if (!FileUtils.isLineInFile(lmRankingFile, allLMRankingFileNames)) {
-						// only allow access to file for one thread at a time 
-						synchronized (fileLock) {
-							// weird double check, but necessary if multiple threads run in here
-							if (!FileUtils.isLineInFile(lmRankingFile, allLMRankingFileNames)) {
-								FileUtils.appendString2File(lmRankingFile, allLMRankingFileNames);
-							}
-						}
-					}
+					Files.write(lmRankingPath, scores.get(getCombinationIndex(pre, post)), StandardCharsets.UTF_8);
 				} catch (IOException e) {
-					Log.err(this, e, "Could not read/write lm ranking filename file: ", allLMRankingFileNames);
+					Log.err(this, e, "Could not write lm ranking to '%s'.", lmRankingPath);
+					continue;
 				}
+				
+				addLMRankingFileName(lmRankingFile, allLMRankingFileNames);
 			}
 		}
 		
@@ -170,6 +181,123 @@ public class ERQueryLMRankingsEH extends AbstractProcessor<BuggyFixedEntity<?>,B
 		return buggyEntity;
 	}
 	
+	private static int getCombinationIndex(int pre, int post) {
+		return pre * (BugLoRDConstants.MAX_POST_TOKENS_COUNT + 1) + post;
+	}
+	
+	/**
+	 * Tokenizes the lines in the given trace file. The returned list contains
+	 * the sentences for each combination of numbers of preceding and succeeding
+	 * tokens (see {@link #getCombinationIndex(int, int)}). Combinations with
+	 * equal sentences share the same list.
+	 */
+	private static List<List<String>> getSentences(String srcDir, String depth, String traceFile) {
+		int combinationCount = getCombinationIndex(
+				BugLoRDConstants.MAX_PRE_TOKENS_COUNT, BugLoRDConstants.MAX_POST_TOKENS_COUNT) + 1;
+		List<List<String>> sentences = new ArrayList<>(combinationCount);
+		if (depth == null) {
+			// the syntactic sentences do not depend on the numbers of preceding and succeeding tokens
+			List<String> syntacticSentences = TokenizeLines.getSentencesDefects4JElement(srcDir, Paths.get(traceFile), 10);
+			for (int i = 0; i < combinationCount; ++i) {
+				sentences.add(syntacticSentences);
+			}
+			return sentences;
+		}
+		
+		List<TokenizedLine> tokenizedLines = TokenizeLines.getTokenizedLinesDefects4JElementSemantic(
+				srcDir, Paths.get(traceFile), 10, Integer.parseInt(depth), 
+				BugLoRDConstants.INCLUDE_PARENT_IN_TOKEN, BugLoRDConstants.CHILD_COUNT_STEPS, 
+				BugLoRDConstants.MAX_PRE_TOKENS_COUNT, BugLoRDConstants.MAX_POST_TOKENS_COUNT);
+		for (int pre = 0; pre <= BugLoRDConstants.MAX_PRE_TOKENS_COUNT; pre += 1) {
+			for (int post = 0; post <= BugLoRDConstants.MAX_POST_TOKENS_COUNT; post += 1) {
+				List<String> combinationSentences = new ArrayList<>(tokenizedLines.size());
+				for (TokenizedLine tokenizedLine : tokenizedLines) {
+					combinationSentences.add(tokenizedLine == null ? "" : 
+						Misc.replaceNewLinesInString(tokenizedLine.getSentence(pre, post), "_"));
+				}
+				sentences.add(combinationSentences);
+			}
+		}
+		return sentences;
+	}
+	
+	private List<List<String>> queryWithEngine(List<List<String>> sentences) {
+		LMQueryEngine engine = LMQueryEngine.getEngine(globalLM);
+		
+		// shared sentence lists are only queried once
+		Map<List<String>, List<String>> scores = new IdentityHashMap<>();
+		List<List<String>> result = new ArrayList<>(sentences.size());
+		for (List<String> combinationSentences : sentences) {
+			result.add(scores.computeIfAbsent(combinationSentences, k -> {
+				List<String> lines = new ArrayList<>(k.size());
+				for (double score : engine.getScores(k)) {
+					lines.add(Double.isNaN(score) ? "nan" : String.valueOf(score));
+				}
+				return lines;
+			}));
+		}
+		return result;
+	}
+	
+	/**
+	 * Queries the sentences of all combinations with a single kenLM call, 
+	 * such that the language model is only loaded once.
+	 * @return
+	 * the scores for each combination; or null if an error occurred
+	 */
+	private List<List<String>> queryWithKenLM(List<List<String>> sentences, String sentenceOutput) {
+		// shared sentence lists are only queried once
+		Map<List<String>, Integer> offsets = new IdentityHashMap<>();
+		List<String> allSentences = new ArrayList<>();
+		for (List<String> combinationSentences : sentences) {
+			if (!offsets.containsKey(combinationSentences)) {
+				offsets.put(combinationSentences, allSentences.size());
+				allSentences.addAll(combinationSentences);
+			}
+		}
+		
+		Path scoreOutput = Paths.get(sentenceOutput + ".lmr");
+		List<String> allScores;
+		try {
+			Files.write(Paths.get(sentenceOutput), allSentences, StandardCharsets.UTF_8);
+			Defects4J.executeCommand(null, true, "/bin/sh", "-c", BugLoRD.getKenLMQueryExecutable() 
+					+ " -n -c " + globalLM + " < " + sentenceOutput + " > " + scoreOutput);
+			allScores = Files.readAllLines(scoreOutput, StandardCharsets.UTF_8);
+			Files.delete(scoreOutput);
+		} catch (IOException e) {
+			Log.err(this, e, "Could not query sentences in '%s' with kenLM.", sentenceOutput);
+			return null;
+		}
+		if (allScores.size() != allSentences.size()) {
+			Log.err(this, "kenLM returned %d scores for %d sentences.", allScores.size(), allSentences.size());
+			return null;
+		}
+		
+		List<List<String>> result = new ArrayList<>(sentences.size());
+		for (List<String> combinationSentences : sentences) {
+			int offset = offsets.get(combinationSentences);
+			result.add(allScores.subList(offset, offset + combinationSentences.size()));
+		}
+		return result;
+	}
+	
+	private void addLMRankingFileName(String lmRankingFile, File allLMRankingFileNames) {
+		try {
+			// first check without synchronization
+			if (!FileUtils.isLineInFile(lmRankingFile, allLMRankingFileNames)) {
+				// only allow access to file for one thread at a time 
+				synchronized (fileLock) {
+					// weird double check, but necessary if multiple threads run in here
+					if (!FileUtils.isLineInFile(lmRankingFile, allLMRankingFileNames)) {
+						FileUtils.appendString2File(lmRankingFile, allLMRankingFileNames);
+					}
+				}
+			}
+		} catch (IOException e) {
+			Log.err(this, e, "Could not read/write lm ranking filename file: ", allLMRankingFileNames);
+		}
+	}
+	
 	private static String getLMRankingFileName(String prefix, int pre, int post) {
 		prefix = prefix.toLowerCase(Locale.getDefault());
 		return prefix + "_" + pre + "_" + post + ".lmr";
@@ -3,11 +3,12 @@ package se.de.hu_berlin.informatik.experiments.defects4j.plot;
 import java.nio.file.Path;
 import java.util.ArrayList;
 import java.util.List;
-import java.util.Map;
+import java.util.Set;
 
 import se.de.hu_berlin.informatik.benchmark.api.BuggyFixedEntity;
 import se.de.hu_berlin.informatik.benchmark.api.Entity;
 import se.de.hu_berlin.informatik.benchmark.modification.Modification;
+import se.de.hu_berlin.informatik.benchmark.modification.ModificationIndex;
 import se.de.hu_berlin.informatik.rankingplotter.plotter.RankingUtils;
 import se.de.hu_berlin.informatik.stardust.localizer.SourceCodeBlock;
 import se.de.hu_berlin.informatik.utils.experiments.ranking.MarkedRanking;
@@ -44,7 +45,7 @@ public class ComputeSBFLRankingsProcessor extends AbstractProcessor<BuggyFixedEn
 //		Log.out(this, "Processing %s.", entity);
 		Entity bug = entity.getBuggyVersion();
 
-		Map<String, List<Modification>> changeInformation = entity.loadChangesFromFile();
+		ModificationIndex changeIndex = ModificationIndex.getIndex(entity);
 
 		Ranking<SourceCodeBlock> ranking = RankingUtils.getRanking(
 				mainBugDir.resolve(bug.getUniqueIdentifier()), bug, suffix, rankingIdentifier);
@@ -54,11 +55,10 @@ public class ComputeSBFLRankingsProcessor extends AbstractProcessor<BuggyFixedEn
 
 		MarkedRanking<SourceCodeBlock, List<Modification>> markedRanking = new MarkedRanking<>(ranking);
 
-		List<Modification> ignoreList = new ArrayList<>();
+		Set<Modification> ignoreSet = ModificationIndex.newIgnoreSet();
 		for (SourceCodeBlock block : markedRanking.getElements()) {
-			List<Modification> list = Modification.getModifications(
-					block.getFilePath(), block.getStartLineNumber(), block.getEndLineNumber(), true,
-					changeInformation, ignoreList);
+			List<Modification> list = changeIndex.getModifications(
+					block.getFilePath(), block.getStartLineNumber(), block.getEndLineNumber(), ignoreSet);
 			// found changes for this line? then mark the line with the
 			// change(s)...
 			if (list != null && !list.isEmpty()) {
@@ -119,8 +119,7 @@ public class HyperbolicBucketsEH extends AbstractConsumingProcessor<StatisticsCo
 			
 			if (!onlyAddLocalizerValues) {
 				// 1. use evo algorithm to get hyperbolic function coefficients
-				EvoItem<Double[], Double, ChangeId> result = new HyperbolicEvoProcessor(threadCount, 
-						cvOutputDir + SEP + "bucket_" + String.valueOf(i), suffix, null)
+				EvoItem<Double[], Double, ChangeId> result = new HyperbolicEvoProcessor(threadCount, suffix)
 						.submit(bucket)
 						.getResult();
 
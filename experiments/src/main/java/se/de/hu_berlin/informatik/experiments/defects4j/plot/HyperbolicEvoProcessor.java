@@ -3,20 +3,13 @@
  */
 package se.de.hu_berlin.informatik.experiments.defects4j.plot;
 
-import java.io.File;
-import java.nio.file.Paths;
-import java.util.Collections;
+import java.util.ArrayList;
 import java.util.List;
 import java.util.Random;
 import java.util.concurrent.atomic.AtomicInteger;
 
 import se.de.hu_berlin.informatik.benchmark.api.BuggyFixedEntity;
-import se.de.hu_berlin.informatik.experiments.defects4j.BugLoRD.ToolSpecific;
-import se.de.hu_berlin.informatik.experiments.defects4j.plot.ComputeSBFLRankingsProcessor.ResultCollection;
 import se.de.hu_berlin.informatik.experiments.defects4j.plot.HyperbolicBucketsEH.ChangeId;
-import se.de.hu_berlin.informatik.stardust.localizer.SourceCodeBlock;
-import se.de.hu_berlin.informatik.stardust.localizer.sbfl.AbstractSpectrumBasedFaultLocalizer.ComputationStrategies;
-import se.de.hu_berlin.informatik.stardust.localizer.sbfl.localizers.Hyperbolic;
 import se.de.hu_berlin.informatik.utils.experiments.evo.AbstractEvoLocationProvider;
 import se.de.hu_berlin.informatik.utils.experiments.evo.EvoAlgorithm;
 import se.de.hu_berlin.informatik.utils.experiments.evo.EvoFitnessChecker;
@@ -30,13 +23,9 @@ import se.de.hu_berlin.informatik.utils.experiments.evo.EvoAlgorithm.KillStrateg
 import se.de.hu_berlin.informatik.utils.experiments.evo.EvoAlgorithm.ParentSelectionStrategy;
 import se.de.hu_berlin.informatik.utils.experiments.evo.EvoAlgorithm.PopulationSelectionStrategy;
 import se.de.hu_berlin.informatik.utils.experiments.evo.EvoAlgorithm.RecombinationStrategy;
-import se.de.hu_berlin.informatik.utils.files.FileUtils;
 import se.de.hu_berlin.informatik.utils.miscellaneous.Log;
 import se.de.hu_berlin.informatik.utils.miscellaneous.Misc;
 import se.de.hu_berlin.informatik.utils.processors.AbstractProcessor;
-import se.de.hu_berlin.informatik.utils.processors.basics.CollectionSequencer;
-import se.de.hu_berlin.informatik.utils.processors.basics.ItemCollector;
-import se.de.hu_berlin.informatik.utils.processors.sockets.pipe.PipeLinker;
 import se.de.hu_berlin.informatik.utils.statistics.StatisticsCollector;
 
 /**
@@ -46,19 +35,21 @@ import se.de.hu_berlin.informatik.utils.statistics.StatisticsCollector;
  */
 public class HyperbolicEvoProcessor extends AbstractProcessor<List<BuggyFixedEntity<?>>, EvoItem<Double[], Double, ChangeId>> {
 	
-	private String outputDir;
 	private String suffix;
-	private ComputationStrategies strategy;
 	private int threadCount;
 	
 	private AtomicInteger bucketID = new AtomicInteger(0);
 
-	public HyperbolicEvoProcessor(int threadCount, String outputDir, String suffix, ComputationStrategies strategy) {
+	/**
+	 * @param threadCount
+	 * the number of threads to use for the fitness computations
+	 * @param suffix
+	 * a suffix to append to the ranking directory (may be null)
+	 */
+	public HyperbolicEvoProcessor(int threadCount, String suffix) {
 		super();
 		this.threadCount = threadCount;
-		this.outputDir = outputDir;
 		this.suffix = suffix;
-		this.strategy = strategy;
 	}
 	
 	public double getNumberInRangeForK1K2(Random random) {
@@ -75,6 +66,15 @@ public class HyperbolicEvoProcessor extends AbstractProcessor<List<BuggyFixedEnt
 		//Integer[] goal = { 1, 2, 3 };
 		Random random = new Random();
 		
+		// load the spectra data and the changed nodes of all bugs only once
+		List<HyperbolicFitnessData> bucketData = new ArrayList<>(bucket.size());
+		for (BuggyFixedEntity<?> buggyEntity : bucket) {
+			HyperbolicFitnessData data = HyperbolicFitnessData.load(buggyEntity, suffix);
+			if (data != null) {
+				bucketData.add(data);
+			}
+		}
+		
 		// locations: 0 <-> k1, 1 <-> k2, 2 <-> k3
 		// ID type for Evoitems: (double, double, double)
 		
@@ -137,41 +137,23 @@ public class HyperbolicEvoProcessor extends AbstractProcessor<List<BuggyFixedEnt
 			
 			@Override
 			public Double computeFitness(Double[] item) {
-				// use coefficients to generate hyperbolic function localizer
-				Hyperbolic<SourceCodeBlock> hyperbolic = new Hyperbolic<>(item[0], item[1], item[2]);
-				
-				// generate rankings in separate directory
 				int uniqueBucketID = bucketID.getAndIncrement();
-				String uniqueOutputDir = outputDir + File.separator + uniqueBucketID;
-				
-				ItemCollector<ResultCollection> collector = new ItemCollector<ResultCollection>();
-				// compute the rankings and get the mean rankings and so on as a result
-				new PipeLinker().append(
-						new CollectionSequencer<>(),
-						new HyperbolicComputeSBFLRankingsEH(Collections.singletonList(hyperbolic), 
-								ToolSpecific.MERGED, uniqueOutputDir, suffix, strategy),
-						new ComputeSBFLRankingsProcessor(Paths.get(uniqueOutputDir), suffix, "hyperbolic"),
-						collector)
-				.submitAndShutdown(bucket);
 				
-				FileUtils.delete(Paths.get(uniqueOutputDir));
-
-				List<ResultCollection> collectedItems = collector.getCollectedItems();
-				
-				if (collectedItems.size() != 1) {
-					Log.err(this, "Fitness computation for '%s' was not successful -> collected items: %d.", 
-							uniqueOutputDir, collectedItems.size());
-					
-					return Double.NEGATIVE_INFINITY;
+				// compute the rankings of the changed nodes in memory
+				double sumOfAverageRankings = 0;
+				int changedNodeCount = 0;
+				for (HyperbolicFitnessData data : bucketData) {
+					sumOfAverageRankings += data.getSumOfAverageRankings(item[0], item[1], item[2]);
+					changedNodeCount += data.getChangedNodeCount();
 				}
 				
 				// atm, the bigger the fitness is, the better
 				// so we use negative values here
-				double fitness = -collectedItems.get(0).getMeanAvgRanking();
+				double fitness = -(sumOfAverageRankings / changedNodeCount);
 				
 				if (fitness > -1.0 || Double.isNaN(fitness)) {
-					Log.err(this, "Fitness computation for '%s' was not successful -> fitness: %f.", 
-							uniqueOutputDir, fitness);
+					Log.err(this, "Fitness computation for item %d was not successful -> fitness: %f.", 
+							uniqueBucketID, fitness);
 					
 					return Double.NEGATIVE_INFINITY;
 				}
@@ -0,0 +1,185 @@
+/**
+ *
+ */
+package se.de.hu_berlin.informatik.experiments.defects4j.plot;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Set;
+
+import se.de.hu_berlin.informatik.benchmark.api.BugLoRDConstants;
+import se.de.hu_berlin.informatik.benchmark.api.BuggyFixedEntity;
+import se.de.hu_berlin.informatik.benchmark.api.Entity;
+import se.de.hu_berlin.informatik.benchmark.modification.Modification;
+import se.de.hu_berlin.informatik.benchmark.modification.ModificationIndex;
+import se.de.hu_berlin.informatik.stardust.localizer.SourceCodeBlock;
+import se.de.hu_berlin.informatik.utils.files.csv.CSVUtils;
+import se.de.hu_berlin.informatik.utils.miscellaneous.Log;
+
+/**
+ * Holds the data of a single bug that is needed to compute the rankings of the changed
+ * nodes for the hyperbolic localizer in memory. The EF, EP, NF and NP values of all nodes
+ * are read once from the trace file and the metrics file of the bug and are stored as
+ * the two ratios of the hyperbolic formula that do not depend on the coefficients.
+ * The indices of the changed nodes are computed once, as well.
+ *
+ * <p>
+ * Computing the rankings of the changed nodes for given coefficients yields the same results
+ * as computing and saving the full ranking with {@link HyperbolicComputeSBFLRankingsEH}
+ * and evaluating it with {@link ComputeSBFLRankingsProcessor}.
+ */
+public class HyperbolicFitnessData {
+
+	/** has to match the delta used in {@link se.de.hu_berlin.informatik.stardust.localizer.sbfl.localizers.Hyperbolic} */
+	private static final double SMALL_DELTA = 1.0E-6;
+
+	/** NF / (EF + NF) for each node */
+	final private double[] failedRatios;
+	/** EP / (EF + EP) for each node */
+	final private double[] passedRatios;
+	/** the indices of the changed nodes */
+	final private int[] changedNodes;
+
+	private HyperbolicFitnessData(double[] failedRatios, double[] passedRatios, int[] changedNodes) {
+		this.failedRatios = failedRatios;
+		this.passedRatios = passedRatios;
+		this.changedNodes = changedNodes;
+	}
+
+	/**
+	 * Loads the data of the given bug from its trace file and metrics file.
+	 * @param buggyEntity
+	 * the bug
+	 * @param suffix
+	 * a suffix that is appended to the ranking directory (may be null)
+	 * @return
+	 * the loaded data; or null if the work data directory of the bug doesn't exist
+	 */
+	public static HyperbolicFitnessData load(BuggyFixedEntity<?> buggyEntity, String suffix) {
+		Entity bug = buggyEntity.getBuggyVersion();
+		if (!(bug.getWorkDataDir().toFile()).exists()) {
+			Log.err(HyperbolicFitnessData.class, "Work data directory doesn't exist: '" + bug.getWorkDataDir() + "'.");
+			Log.err(HyperbolicFitnessData.class, "Error while loading data. Skipping '" + buggyEntity + "'.");
+			return null;
+		}
+
+		Path rankingDir = bug.getWorkDataDir().resolve(suffix == null ?
+				BugLoRDConstants.DIR_NAME_RANKING : BugLoRDConstants.DIR_NAME_RANKING + "_" + suffix);
+		Path traceFile = rankingDir.resolve(BugLoRDConstants.getTraceFileFileName(null));
+		Path metricsFile = rankingDir.resolve(BugLoRDConstants.getMetricsFileFileName(null));
+		if (!traceFile.toFile().exists() || !metricsFile.toFile().exists()) {
+			Log.abort(HyperbolicFitnessData.class, "Trace file or metrics file not found for %s.", bug.getUniqueIdentifier());
+		}
+
+		List<SourceCodeBlock> nodes = new ArrayList<>();
+		double[] failedRatios = new double[16];
+		double[] passedRatios = new double[16];
+		try (BufferedReader traceFileReader = Files.newBufferedReader(traceFile, StandardCharsets.UTF_8);
+				BufferedReader metricsCsvFileReader = Files.newBufferedReader(metricsFile, StandardCharsets.UTF_8)) {
+			String traceLine;
+			String metricsLine;
+			while ((traceLine = traceFileReader.readLine()) != null
+					&& (metricsLine = metricsCsvFileReader.readLine()) != null) {
+				String[] entry = CSVUtils.fromCsvLine(metricsLine);
+				if (entry.length != 4) {
+					Log.abort(HyperbolicFitnessData.class, "metrics file entry is not correct: '%s'.", metricsLine);
+				}
+				if (nodes.size() == failedRatios.length) {
+					failedRatios = Arrays.copyOf(failedRatios, failedRatios.length * 2);
+					passedRatios = Arrays.copyOf(passedRatios, passedRatios.length * 2);
+				}
+
+				// EF, EP, NF, NP
+				double ef = Integer.parseInt(entry[0]);
+				double ep = Integer.parseInt(entry[1]);
+				double nf = Integer.parseInt(entry[2]);
+				failedRatios[nodes.size()] = nf / (ef + nf + SMALL_DELTA);
+				passedRatios[nodes.size()] = ep / (ef + ep + SMALL_DELTA);
+
+				nodes.add(SourceCodeBlock.getNewBlockFromString(traceLine));
+			}
+		} catch (IOException | NumberFormatException e) {
+			Log.abort(HyperbolicFitnessData.class, e, "Could not read trace file or metrics file for %s.", bug.getUniqueIdentifier());
+		}
+
+		ModificationIndex changeIndex = ModificationIndex.getIndex(buggyEntity);
+
+		// each change marks only the first node that it is found for
+		Set<Modification> ignoreSet = ModificationIndex.newIgnoreSet();
+		int[] changedNodes = new int[nodes.size()];
+		int changedNodeCount = 0;
+		for (int i = 0; i < nodes.size(); ++i) {
+			SourceCodeBlock block = nodes.get(i);
+			List<Modification> list = changeIndex.getModifications(
+					block.getFilePath(), block.getStartLineNumber(), block.getEndLineNumber(), ignoreSet);
+			if (list != null && !list.isEmpty()) {
+				changedNodes[changedNodeCount++] = i;
+			}
+		}
+
+		return new HyperbolicFitnessData(
+				Arrays.copyOf(failedRatios, nodes.size()),
+				Arrays.copyOf(passedRatios, nodes.size()),
+				Arrays.copyOf(changedNodes, changedNodeCount));
+	}
+
+	/**
+	 * @return
+	 * the number of changed nodes
+	 */
+	public int getChangedNodeCount() {
+		return changedNodes.length;
+	}
+
+	/**
+	 * Computes the sum of the average rankings of all changed nodes, given the
+	 * coefficients of the hyperbolic formula. As in the rankings computed from
+	 * trace files, NaN values are treated as being negative infinity.
+	 * @param k1
+	 * the coefficient K1
+	 * @param k2
+	 * the coefficient K2
+	 * @param k3
+	 * the coefficient K3
+	 * @return
+	 * the sum of the average rankings of the changed nodes
+	 */
+	public double getSumOfAverageRankings(double k1, double k2, double k3) {
+		int nodeCount = failedRatios.length;
+		double[] scores = new double[nodeCount];
+		double k1Delta = k1 + SMALL_DELTA;
+		double k2Delta = k2 + SMALL_DELTA;
+		for (int i = 0; i < nodeCount; ++i) {
+			scores[i] = 1.0 / (k1Delta + failedRatios[i]) + k3 / (k2Delta + passedRatios[i]);
+		}
+		for (int i = 0; i < nodeCount; ++i) {
+			if (Double.isNaN(scores[i])) {
+				scores[i] = Double.NEGATIVE_INFINITY;
+			}
+		}
+
+		double sum = 0;
+		for (int changedNode : changedNodes) {
+			double score = scores[changedNode];
+			int higher = 0;
+			int equal = 0;
+			for (int i = 0; i < nodeCount; ++i) {
+				if (scores[i] > score) {
+					++higher;
+				} else if (scores[i] == score) {
+					++equal;
+				}
+			}
+			// (best + worst) / 2
+			sum += ((higher + 1) + (higher + equal)) / 2.0;
+		}
+		return sum;
+	}
+
+}
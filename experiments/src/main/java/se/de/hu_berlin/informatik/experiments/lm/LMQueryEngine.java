@@ -0,0 +1,179 @@
+/**
+ *
+ */
+package se.de.hu_berlin.informatik.experiments.lm;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.stream.IntStream;
+import java.util.zip.GZIPInputStream;
+
+import edu.berkeley.nlp.lm.ArrayEncodedProbBackoffLm;
+import edu.berkeley.nlp.lm.StringWordIndexer;
+import edu.berkeley.nlp.lm.WordIndexer;
+import edu.berkeley.nlp.lm.io.ArpaLmReader;
+import edu.berkeley.nlp.lm.io.LmReaders;
+import se.de.hu_berlin.informatik.javatokenizer.tokenizelines.TokenizeLines;
+import se.de.hu_berlin.informatik.utils.miscellaneous.Log;
+
+/**
+ * Scores sentences with a language model inside of the JVM. Each language model
+ * is loaded only once and is shared between all threads that query it.
+ *
+ * <p>
+ * Sentences are not wrapped in sentence start and end symbols. All tokens that
+ * precede the context token {@link TokenizeLines#CONTEXT_TOKEN} are only used as
+ * context, and the score of a sentence is the mean log10 probability of the
+ * remaining tokens (NaN if there are no remaining tokens).
+ *
+ * <p>
+ * Only language models in ARPA format (optionally gzipped) are supported, which
+ * is checked with {@link #isSupported(Path)}. ARPA is the default format of the
+ * global language model. kenLM binaries can not be loaded and have to be queried
+ * with the (altered) kenLM query executable.
+ *
+ * <p>
+ * Loaded language models are kept until {@link #releaseEngines()} is called.
+ */
+public class LMQueryEngine {
+
+	/** the first line of the data section of every ARPA file */
+	final private static String ARPA_HEADER = "\\data\\";
+	final private static int GZIP_MAGIC = 0x8b1f;
+
+	final private static Map<String, LMQueryEngine> ENGINES = new ConcurrentHashMap<>();
+
+	final private ArrayEncodedProbBackoffLm<String> lm;
+	final private WordIndexer<String> wordIndexer;
+	final private int order;
+
+	private LMQueryEngine(ArrayEncodedProbBackoffLm<String> lm) {
+		this.lm = lm;
+		this.wordIndexer = lm.getWordIndexer();
+		this.order = lm.getLmOrder();
+	}
+
+	/**
+	 * Returns the query engine for the given language model. The language model
+	 * is loaded when the engine is requested for the first time.
+	 * @param lmFile
+	 * the language model file in ARPA format
+	 * @return
+	 * the query engine
+	 * @throws IllegalArgumentException
+	 * if the given file is not supported
+	 * @see #isSupported(Path)
+	 */
+	public static LMQueryEngine getEngine(String lmFile) throws IllegalArgumentException {
+		return ENGINES.computeIfAbsent(Paths.get(lmFile).toAbsolutePath().toString(), k -> {
+			if (!isSupported(Paths.get(k))) {
+				throw new IllegalArgumentException("Language model '" + k + "' is not in ARPA format.");
+			}
+			Log.out(LMQueryEngine.class, "Loading language model '%s'...", k);
+			return new LMQueryEngine(readArpaFile(k));
+		});
+	}
+
+	/**
+	 * Releases all loaded language models, such that they can be garbage collected.
+	 * Should be called when all queries of a run are finished. Engines that are
+	 * requested afterwards load their language models again.
+	 */
+	public static void releaseEngines() {
+		ENGINES.clear();
+	}
+
+	private static ArrayEncodedProbBackoffLm<String> readArpaFile(String lmFile) {
+		// token language models use the standard ARPA symbols
+		StringWordIndexer wordIndexer = new StringWordIndexer();
+		wordIndexer.setStartSymbol(ArpaLmReader.START_SYMBOL);
+		wordIndexer.setEndSymbol(ArpaLmReader.END_SYMBOL);
+		wordIndexer.setUnkSymbol(ArpaLmReader.UNK_SYMBOL);
+		return LmReaders.readArrayEncodedLmFromArpa(lmFile, false, wordIndexer);
+	}
+
+	/**
+	 * @param lmFile
+	 * a language model file
+	 * @return
+	 * whether the given file is in ARPA format (optionally gzipped) and can be loaded by this engine
+	 */
+	public static boolean isSupported(Path lmFile) {
+		try (InputStream in = new BufferedInputStream(Files.newInputStream(lmFile))) {
+			in.mark(2);
+			int magic = in.read() | (in.read() << 8);
+			in.reset();
+			try (BufferedReader reader = new BufferedReader(new InputStreamReader(
+					magic == GZIP_MAGIC ? new GZIPInputStream(in) : in, StandardCharsets.UTF_8))) {
+				String line;
+				while ((line = reader.readLine()) != null) {
+					// the data section may be preceded by blank lines
+					if (!line.trim().isEmpty()) {
+						return line.trim().equals(ARPA_HEADER);
+					}
+				}
+				return false;
+			}
+		} catch (IOException e) {
+			Log.err(LMQueryEngine.class, e, "Could not read language model file '%s'.", lmFile);
+			return false;
+		}
+	}
+
+	/**
+	 * Computes the score of the given sentence.
+	 * @param sentence
+	 * the sentence with tokens separated by white space
+	 * @return
+	 * the mean log10 probability of the tokens after the context token
+	 */
+	public double getScore(String sentence) {
+		String trimmedSentence = sentence.trim();
+		if (trimmedSentence.isEmpty()) {
+			return Double.NaN;
+		}
+		String[] tokens = trimmedSentence.split("\\s+");
+
+		int[] ngram = new int[tokens.length];
+		int length = 0;
+		int contextLength = 0;
+		for (String token : tokens) {
+			if (token.equals(TokenizeLines.CONTEXT_TOKEN)) {
+				contextLength = length;
+			} else {
+				ngram[length++] = wordIndexer.getIndexPossiblyUnk(token);
+			}
+		}
+
+		double sum = 0;
+		for (int i = contextLength; i < length; ++i) {
+			sum += lm.getLogProb(ngram, Math.max(0, i - order + 1), i + 1);
+		}
+		return length > contextLength ? sum / (length - contextLength) : Double.NaN;
+	}
+
+	/**
+	 * Computes the scores of the given sentences in parallel.
+	 * @param sentences
+	 * the sentences with tokens separated by white space
+	 * @return
+	 * the scores of the sentences, in the same order
+	 */
+	public double[] getScores(List<String> sentences) {
+		double[] scores = new double[sentences.size()];
+		IntStream.range(0, scores.length).parallel()
+		.forEach(i -> scores[i] = getScore(sentences.get(i)));
+		return scores;
+	}
+
+}
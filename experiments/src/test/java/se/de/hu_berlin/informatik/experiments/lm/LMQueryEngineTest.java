@@ -0,0 +1,85 @@
+package se.de.hu_berlin.informatik.experiments.lm;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.List;
+import java.util.zip.GZIPOutputStream;
+
+import org.junit.Assert;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import se.de.hu_berlin.informatik.utils.miscellaneous.TestSettings;
+
+public class LMQueryEngineTest extends TestSettings {
+
+	@Rule
+	public TemporaryFolder folder = new TemporaryFolder();
+
+	private static Path getResource(String fileName) {
+		return Paths.get(getStdResourcesDir(), "lm", fileName);
+	}
+
+	/**
+	 * The expected scores in 'sentences.lmr' are the output format of the (altered) kenLM
+	 * query executable: the mean log10 probability of the tokens after the context token,
+	 * with backoff for unseen n-grams and unknown tokens, and 'nan' if no token is scored.
+	 */
+	@Test
+	public void scoresEqualToKenLM() throws IOException {
+		LMQueryEngine engine = LMQueryEngine.getEngine(getResource("tokens.arpa").toString());
+		List<String> sentences = Files.readAllLines(getResource("sentences.txt"), StandardCharsets.UTF_8);
+		List<String> expected = Files.readAllLines(getResource("sentences.lmr"), StandardCharsets.UTF_8);
+
+		double[] scores = engine.getScores(sentences);
+		Assert.assertEquals(expected.size(), scores.length);
+		for (int i = 0; i < scores.length; ++i) {
+			if (expected.get(i).equals("nan")) {
+				Assert.assertTrue(Double.isNaN(scores[i]));
+			} else {
+				Assert.assertEquals(Double.parseDouble(expected.get(i)), scores[i], 0.0001);
+			}
+		}
+	}
+
+	@Test
+	public void supportsOnlyArpaFiles() throws IOException {
+		Assert.assertTrue(LMQueryEngine.isSupported(getResource("tokens.arpa")));
+
+		Path gzippedArpaFile = folder.getRoot().toPath().resolve("tokens.arpa.gz");
+		try (OutputStream out = new GZIPOutputStream(Files.newOutputStream(gzippedArpaFile))) {
+			Files.copy(getResource("tokens.arpa"), out);
+		}
+		Assert.assertTrue(LMQueryEngine.isSupported(gzippedArpaFile));
+
+		Path kenLMBinary = folder.getRoot().toPath().resolve("tokens.binary");
+		Files.write(kenLMBinary, "mmap lm http://kheafield.com/code format version 5\n\0\0\0"
+				.getBytes(StandardCharsets.US_ASCII));
+		Assert.assertFalse(LMQueryEngine.isSupported(kenLMBinary));
+		Assert.assertFalse(LMQueryEngine.isSupported(getResource("sentences.txt")));
+	}
+
+	@Test
+	public void releaseLoadedEngines() {
+		String lmFile = getResource("tokens.arpa").toString();
+		LMQueryEngine engine = LMQueryEngine.getEngine(lmFile);
+		Assert.assertSame(engine, LMQueryEngine.getEngine(lmFile));
+
+		LMQueryEngine.releaseEngines();
+		LMQueryEngine reloadedEngine = LMQueryEngine.getEngine(lmFile);
+		Assert.assertNotSame(engine, reloadedEngine);
+		Assert.assertEquals(engine.getScore("a b a"), reloadedEngine.getScore("a b a"), 0.0);
+		LMQueryEngine.releaseEngines();
+	}
+
+	@Test(expected = IllegalArgumentException.class)
+	public void rejectUnsupportedFiles() {
+		LMQueryEngine.getEngine(getResource("sentences.txt").toString());
+	}
+
+}
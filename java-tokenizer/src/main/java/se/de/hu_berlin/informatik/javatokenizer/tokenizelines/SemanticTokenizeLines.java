@@ -50,6 +50,8 @@ public class SemanticTokenizeLines
 
 	// maps trace file lines to sentences
 	private Map<String, String> sentenceMap;
+	// maps trace file lines to tokenized lines
+	private Map<String, TokenizedLine> tokenizedLineMap;
 
 	/**
 	 * Creates a new {@link SemanticTokenizeLines} object with the given
@@ -81,6 +83,7 @@ public class SemanticTokenizeLines
 	public SemanticTokenizeLines(String src_path, boolean use_context, boolean startFromMethods, int order,
 			boolean long_tokens, int depth, boolean includeParent, int childCountStepWidth, int preTokenCount, int postTokenCount) {
 		this.sentenceMap = new HashMap<>();
+		this.tokenizedLineMap = new HashMap<>();
 		this.src_path = Paths.get(src_path);
 		this.use_context = use_context;
 		this.startFromMethods = startFromMethods;
@@ -151,7 +154,6 @@ public class SemanticTokenizeLines
 		List<TokenWrapper> context = new ArrayList<>();
 		List<TokenWrapper> possibleLineTokens = new ArrayList<>();
 		StringBuilder line = new StringBuilder();
-		StringBuilder contextLine = new StringBuilder();
 
 		// iterate over all line numbers
 		// we start all over again after each line which is surely not very
@@ -231,7 +233,7 @@ public class SemanticTokenizeLines
 					// if it's the start of the next line
 					if (endOfLineReached) {
 						addLineToSentenceMap(
-								prefixForMap, contextLength, context, line, contextLine, parsedLineNumber,
+								prefixForMap, contextLength, context, line, parsedLineNumber,
 								tokenWrapper, tokenIterator);
 
 						addedLine = true;
@@ -243,7 +245,7 @@ public class SemanticTokenizeLines
 
 			if (!addedLine) {
 				appendPossibleLineTokens(possibleLineTokens, context, line);
-				addLineToSentenceMap(prefixForMap, contextLength, context, line, contextLine, parsedLineNumber, null, null);
+				addLineToSentenceMap(prefixForMap, contextLength, context, line, parsedLineNumber, null, null);
 			}
 		}
 	}
@@ -277,56 +279,54 @@ public class SemanticTokenizeLines
 	}
 
 	private void addLineToSentenceMap(String prefixForMap, final int contextLength, List<TokenWrapper> context,
-			StringBuilder line, StringBuilder contextLine, ComparablePair<Integer, Integer> parsedLineNumber,
+			StringBuilder line, ComparablePair<Integer, Integer> parsedLineNumber,
 			TokenWrapper lastToken, Iterator<TokenWrapper> tokenIterator) {
 		if (line.length() != 0) {
 			// delete the last space
 			line.deleteCharAt(line.length() - 1);
 		}
 
-		// add the context, if enabled
-		if (use_context) {
-			int index = context.size() - contextLength - preTokenCount;
-
-			int count = 0;
-			for (ListIterator<TokenWrapper> i = context.listIterator(index < 0 ? 0 : index); count < context.size()
-					- preTokenCount && count < contextLength && i.hasNext(); ++count) {
-				contextLine.append(i.next().getToken() + " ");
-			}
-			contextLine.append(TokenizeLines.CONTEXT_TOKEN + " ");
-		}
-
-		// add a number of tokens before the actual line, if specified
-		if (preTokenCount > 0) {
-			int preTokenIndex = context.size() - preTokenCount;
-			for (ListIterator<TokenWrapper> i = context.listIterator(preTokenIndex < 0 ? 0 : preTokenIndex); i.hasNext();) {
-				contextLine.append(i.next().getToken() + " ");
-			}
+		// store only the context tokens that may be needed
+		int contextIndex = context.size() - contextLength - preTokenCount;
+		List<String> contextTokens = new ArrayList<>();
+		for (ListIterator<TokenWrapper> i = context.listIterator(contextIndex < 0 ? 0 : contextIndex); i.hasNext();) {
+			contextTokens.add(i.next().getToken());
 		}
 
-		// add the line itself
-		contextLine.append(line);
-		
-		// add a number of tokens after the actual line, if specified
+		// store a number of tokens after the actual line, if specified
+		List<String> postTokens = new ArrayList<>(postTokenCount);
 		if (postTokenCount > 0) {
 			if (lastToken != null && tokenIterator != null) {
-				contextLine.append(" " + lastToken.getToken());
-				int count = 1;
-				while (count < postTokenCount && tokenIterator.hasNext()) {
-					++count;
-					contextLine.append(" " + tokenIterator.next().getToken());
+				postTokens.add(lastToken.getToken());
+				while (postTokens.size() < postTokenCount && tokenIterator.hasNext()) {
+					postTokens.add(tokenIterator.next().getToken());
 				}
 			}
 		}
 
-		// add the line to the map
-		sentenceMap.put(prefixForMap + ":" + String.valueOf(parsedLineNumber.first()), contextLine.toString());
+		TokenizedLine tokenizedLine = new TokenizedLine(
+				use_context, contextLength, contextTokens, line.toString(), postTokens);
 
-		// reuse the StringBuilders
-		contextLine.setLength(0);
+		// add the line to the maps
+		String key = prefixForMap + ":" + String.valueOf(parsedLineNumber.first());
+		tokenizedLineMap.put(key, tokenizedLine);
+		sentenceMap.put(key, tokenizedLine.getSentence(preTokenCount, postTokenCount));
+
+		// reuse the StringBuilder
 		line.setLength(0);
 	}
 
+	/**
+	 * Returns the tokenized lines that have been processed so far. Sentences may be
+	 * generated from them with up to the numbers of preceding and succeeding tokens
+	 * that were given to the constructor.
+	 * @return
+	 * a map that links file paths with start line numbers (format: 'path:line') to tokenized lines
+	 */
+	public Map<String, TokenizedLine> getTokenizedLines() {
+		return tokenizedLineMap;
+	}
+
 	public static <T extends Comparable<? super T>> List<T> asSortedList(Collection<T> c) {
 		List<T> list = new ArrayList<T>(c);
 		java.util.Collections.sort(list);
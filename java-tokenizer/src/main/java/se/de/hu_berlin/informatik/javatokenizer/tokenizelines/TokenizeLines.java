@@ -3,8 +3,12 @@
  */
 package se.de.hu_berlin.informatik.javatokenizer.tokenizelines;
 
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
+import java.util.ArrayList;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
@@ -12,6 +16,7 @@ import java.util.Set;
 import org.apache.commons.cli.Option;
 import se.de.hu_berlin.informatik.javatokenizer.modules.TraceFileMergerModule;
 import se.de.hu_berlin.informatik.javatokenizer.tokenize.Tokenize.TokenizationStrategy;
+import se.de.hu_berlin.informatik.stardust.localizer.SourceCodeBlock;
 import se.de.hu_berlin.informatik.utils.files.processors.FileLineProcessor;
 import se.de.hu_berlin.informatik.utils.files.processors.ListToFileWriter;
 import se.de.hu_berlin.informatik.utils.miscellaneous.ComparablePair;
@@ -267,4 +272,84 @@ public class TokenizeLines {
 		main(args);
 	}
 
+	/**
+	 * Tokenizes the lines given by the trace file with the syntactic tokenizer and
+	 * returns the generated sentences in the order of the trace file, without
+	 * writing them to a file.
+	 * @param inputDir
+	 * the input main source directory, containing the Java source files
+	 * @param traceFile
+	 * the trace file based on which the sentences shall be generated (may be an
+	 * SBFL ranking file)
+	 * @param order
+	 * the n-gram order (only important for the length of the context)
+	 * @return
+	 * the sentences in the order of the trace file
+	 */
+	public static List<String> getSentencesDefects4JElement(String inputDir, Path traceFile, int order) {
+		Map<String, Set<ComparablePair<Integer, Integer>>> map = new FileLineProcessor<>(new LineParser())
+				.submit(traceFile).getResult();
+
+		Map<String, String> sentenceMap = new SyntacticTokenizeLines(inputDir, true, false, order, false)
+				.submit(map).getResult();
+
+		return new FileLineProcessor<List<String>>(new LineMatcher(sentenceMap), true)
+				.submit(traceFile).getResult();
+	}
+
+	/**
+	 * Tokenizes the lines given by the trace file once with the AST based tokenizer and
+	 * returns the tokenized lines in the order of the trace file. Sentences for all numbers
+	 * of preceding and succeeding tokens up to the given maximum numbers can be generated
+	 * from the tokenized lines without tokenizing the source files again.
+	 * @param inputDir
+	 * the input main source directory, containing the Java source files
+	 * @param traceFile
+	 * the trace file based on which the sentences shall be generated (may be an
+	 * SBFL ranking file)
+	 * @param order
+	 * the n-gram order (only important for the length of the context)
+	 * @param abstractionDepth
+	 * the abstraction depth to use by the AST based tokenizer
+	 * @param includeParent
+	 * whether to include information about the parent node
+	 * @param childCountSteps
+	 * the grouping step width to use for grouping nodes based on their number of child nodes (log-based)
+	 * @param maxPreTokenCount
+	 * the maximum number of tokens to include that precede the actual line
+	 * @param maxPostTokenCount
+	 * the maximum number of tokens to include that succeed the actual line
+	 * @return
+	 * the tokenized lines in the order of the trace file; contains {@code null}
+	 * for each line that could not be tokenized
+	 */
+	public static List<TokenizedLine> getTokenizedLinesDefects4JElementSemantic(String inputDir, Path traceFile,
+			int order, int abstractionDepth, boolean includeParent, int childCountSteps,
+			int maxPreTokenCount, int maxPostTokenCount) {
+		Map<String, Set<ComparablePair<Integer, Integer>>> map = new FileLineProcessor<>(new LineParser())
+				.submit(traceFile).getResult();
+
+		SemanticTokenizeLines parser = new SemanticTokenizeLines(inputDir, true, false, order, false,
+				abstractionDepth, includeParent, childCountSteps, maxPreTokenCount, maxPostTokenCount);
+		parser.submit(map);
+		Map<String, TokenizedLine> tokenizedLineMap = parser.getTokenizedLines();
+
+		List<TokenizedLine> tokenizedLines = new ArrayList<>();
+		try {
+			for (String line : Files.readAllLines(traceFile, StandardCharsets.UTF_8)) {
+				try {
+					SourceCodeBlock block = SourceCodeBlock.getNewBlockFromString(line);
+					tokenizedLines.add(tokenizedLineMap.get(block.getFilePath() + ':' + block.getStartLineNumber()));
+				} catch (IllegalArgumentException e) {
+					Log.err(TokenizeLines.class, e);
+					tokenizedLines.add(null);
+				}
+			}
+		} catch (IOException e) {
+			Log.abort(TokenizeLines.class, e, "Could not read trace file '%s'.", traceFile);
+		}
+
+		return tokenizedLines;
+	}
+
 }
@@ -0,0 +1,88 @@
+/**
+ *
+ */
+package se.de.hu_berlin.informatik.javatokenizer.tokenizelines;
+
+import java.util.List;
+
+/**
+ * Holds the tokens of a single tokenized line together with the tokens that
+ * precede and succeed the line. Sentences with different numbers of preceding
+ * and succeeding tokens can be generated from a single tokenization, as long as
+ * the numbers do not exceed the numbers of tokens that were stored.
+ */
+public class TokenizedLine {
+
+	final private boolean useContext;
+	final private int contextLength;
+	final private List<String> context;
+	final private String line;
+	final private List<String> postTokens;
+
+	/**
+	 * Creates a new {@link TokenizedLine} object with the given parameters.
+	 * @param useContext
+	 * whether each sentence should contain a context of previous tokens
+	 * @param contextLength
+	 * the maximum number of context tokens
+	 * @param context
+	 * the tokens that precede the line; has to contain at least the last
+	 * (context length + maximum pre token count) tokens, if available
+	 * @param line
+	 * the tokens of the line itself, separated by spaces
+	 * @param postTokens
+	 * the tokens that succeed the line (maximum post token count)
+	 */
+	public TokenizedLine(boolean useContext, int contextLength,
+			List<String> context, String line, List<String> postTokens) {
+		this.useContext = useContext;
+		this.contextLength = contextLength;
+		this.context = context;
+		this.line = line;
+		this.postTokens = postTokens;
+	}
+
+	/**
+	 * Generates the sentence for the given numbers of preceding and succeeding tokens.
+	 * @param preTokenCount
+	 * the number of tokens to include that occur before the actual line
+	 * @param postTokenCount
+	 * the number of tokens to include that occur after the actual line
+	 * @return
+	 * the sentence
+	 */
+	public String getSentence(int preTokenCount, int postTokenCount) {
+		StringBuilder contextLine = new StringBuilder();
+
+		// add the context, if enabled
+		if (useContext) {
+			int index = context.size() - contextLength - preTokenCount;
+
+			int count = 0;
+			for (int i = index < 0 ? 0 : index; count < context.size() - preTokenCount
+					&& count < contextLength && i < context.size(); ++i, ++count) {
+				contextLine.append(context.get(i) + " ");
+			}
+			contextLine.append(TokenizeLines.CONTEXT_TOKEN + " ");
+		}
+
+		// add a number of tokens before the actual line, if specified
+		if (preTokenCount > 0) {
+			int preTokenIndex = context.size() - preTokenCount;
+			for (int i = preTokenIndex < 0 ? 0 : preTokenIndex; i < context.size(); ++i) {
+				contextLine.append(context.get(i) + " ");
+			}
+		}
+
+		// add the line itself
+		contextLine.append(line);
+
+		// add a number of tokens after the actual line, if specified
+		for (int i = 0; i < postTokenCount && i < postTokens.size(); ++i) {
+			contextLine.append(" " + postTokens.get(i));
+		}
+
+		return contextLine.toString();
+	}
+
+}
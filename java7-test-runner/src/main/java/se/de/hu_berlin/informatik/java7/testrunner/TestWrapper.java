@@ -19,6 +19,8 @@ public class TestWrapper {
 	
 	private final String identifier;
 	
+	private final Long timeout;
+	
 	public TestWrapper(String clazz, String method, ClassLoader customLoader) {
 		Objects.requireNonNull(clazz, "Test class name must not be null!");
 		Objects.requireNonNull(method, "Test method name must not be null!");
@@ -26,6 +28,22 @@ public class TestWrapper {
 		this.testClazzName = clazz;
 		this.testMethodName = method;
 		this.identifier = this.testClazzName + "::" + this.testMethodName;
+		this.timeout = null;
+	}
+	
+	/**
+	 * Creates a copy of the given test with an individual timeout.
+	 * @param testWrapper
+	 * the test to copy
+	 * @param timeout
+	 * the timeout (in seconds) for this test; {@code null} if the default timeout of the test runner shall be used
+	 */
+	public TestWrapper(TestWrapper testWrapper, Long timeout) {
+		this.customLoader = testWrapper.customLoader;
+		this.testClazzName = testWrapper.testClazzName;
+		this.testMethodName = testWrapper.testMethodName;
+		this.identifier = testWrapper.identifier;
+		this.timeout = timeout;
 	}
 	
 	public TestWrapper(String clazz, String method) {
@@ -48,6 +66,14 @@ public class TestWrapper {
 		return testMethodName;
 	}
 	
+	/**
+	 * @return
+	 * the timeout (in seconds) for this test; {@code null} if the default timeout of the test runner shall be used
+	 */
+	public Long getTimeout() {
+		return timeout;
+	}
+	
 	public TestRunFutureTask getTest() {
 		return new TestRunFutureTask(testClazzName, testMethodName, customLoader);
 	}
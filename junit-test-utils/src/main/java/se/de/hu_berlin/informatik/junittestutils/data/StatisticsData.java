@@ -7,6 +7,9 @@ public enum StatisticsData implements StatisticsAPI {
 	NODES("#nodes in spectra", StatisticType.COUNT, StatisticsOptions.PREF_NEW),
 	TEST_COUNT("tests executed", StatisticType.COUNT, StatisticsOptions.PREF_BIGGER),
 	SEPARATE_JVM("tests executed in separate JVM", StatisticType.COUNT, StatisticsOptions.PREF_BIGGER),
+	WORKER_JVM_STARTS("started worker JVMs", StatisticType.COUNT, StatisticsOptions.PREF_BIGGER),
+	REUSED_COVERAGE("tests with reused coverage", StatisticType.COUNT, StatisticsOptions.PREF_BIGGER),
+	ADAPTIVE_TIMEOUT("tests with adaptive timeout", StatisticType.COUNT, StatisticsOptions.PREF_BIGGER),
 	DURATION("test duration (ms)", StatisticType.DOUBLE_VALUE, StatisticsOptions.PREF_BIGGER),
 	WRONG_TEST_RESULT("tests with unexpected outcome", StatisticType.COUNT, StatisticsOptions.PREF_BIGGER),
 	COVERAGE_GENERATION_FAILED("coverage generation failed", StatisticType.COUNT, StatisticsOptions.PREF_BIGGER),
@@ -18,6 +21,7 @@ public enum StatisticsData implements StatisticsAPI {
 	COULD_BE_FINISHED("could be finished", StatisticType.COUNT, StatisticsOptions.PREF_BIGGER),
 	
 	FAILED_TEST_COVERAGE("failed test coverage", StatisticType.STRING, StatisticsOptions.CONCAT),
+	TEST_DURATIONS("durations of single tests (ms)", StatisticType.STRING, StatisticsOptions.CONCAT),
 	ERROR_MSG("error message(s)", StatisticType.STRING, StatisticsOptions.CONCAT);
 
 	final private String label;
@@ -0,0 +1,364 @@
+/**
+ *
+ */
+package se.de.hu_berlin.informatik.junittestutils.testlister.mining;
+
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+import org.objectweb.asm.Opcodes;
+
+import se.de.hu_berlin.informatik.java7.testrunner.TestWrapper;
+import se.de.hu_berlin.informatik.junittestutils.testlister.mining.ClassFileIndex.ClassFileInfo;
+import se.de.hu_berlin.informatik.junittestutils.testlister.mining.ClassFileIndex.MethodInfo;
+import se.de.hu_berlin.informatik.utils.miscellaneous.Log;
+import se.de.hu_berlin.informatik.utils.miscellaneous.Pair;
+import se.de.hu_berlin.informatik.utils.processors.AbstractProcessor;
+import se.de.hu_berlin.informatik.utils.processors.sockets.ProcessorSocket;
+
+/**
+ * Takes a list of test class names and mines all JUnit tests from the class files
+ * of the test classes, without loading or initializing any classes. Mirrors the
+ * rules of the {@link TestMinerProcessor}: JUnit 3 test classes extend {@code TestCase}
+ * and have public no-args methods (possibly inherited) with names starting with "test",
+ * JUnit 4 test classes have methods (possibly inherited) with a {@code @Test} annotation,
+ * and member classes are searched for tests, too. The test classes are mined in parallel,
+ * and the tests are produced in the order of the given list of test classes.
+ *
+ * <p>
+ * Tests of JUnit 4 classes with a custom runner or with a {@code suite()} method can
+ * not be determined from the class files. If a class loader is given, those classes
+ * are mined with the {@link TestMinerProcessor} afterwards. Otherwise, they are skipped.
+ */
+public class BytecodeTestMinerProcessor extends AbstractProcessor<List<String>, TestWrapper> {
+
+	private static final String TEST_CASE = "junit/framework/TestCase";
+	private static final String TEST_ANNOTATION = "Lorg/junit/Test;";
+	private static final String BEFORE_ANNOTATION = "Lorg/junit/Before;";
+	private static final String AFTER_ANNOTATION = "Lorg/junit/After;";
+	private static final String BEFORE_CLASS_ANNOTATION = "Lorg/junit/BeforeClass;";
+	private static final String AFTER_CLASS_ANNOTATION = "Lorg/junit/AfterClass;";
+	private static final String SUITE_METHOD_DESCRIPTOR = "()Ljunit/framework/Test;";
+
+	private static final Set<String> DEFAULT_RUNNERS = new HashSet<>();
+	static {
+		DEFAULT_RUNNERS.add("org/junit/runners/JUnit4");
+		DEFAULT_RUNNERS.add("org/junit/runners/BlockJUnit4ClassRunner");
+	}
+
+	/** same order as the default method sorter of JUnit 4 */
+	private static final Comparator<MethodInfo> DEFAULT_METHOD_ORDER =
+			Comparator.comparingInt((MethodInfo m) -> m.getName().hashCode())
+			.thenComparing(MethodInfo::getName);
+
+	final private ClassFileIndex classFileIndex;
+	final private ClassLoader testClassLoader;
+	final private boolean skipNonTests;
+
+	/**
+	 * Creates a new miner that reads class files from the given class path elements.
+	 * @param classPathElements
+	 * directories and jar files that contain the test classes and their super classes
+	 * @param testClassLoader
+	 * the class loader to use for the produced tests and for mining classes that can not
+	 * be mined from their class files; may be null
+	 * @param skipNonTests
+	 * whether to skip classes without tests
+	 */
+	public BytecodeTestMinerProcessor(List<Path> classPathElements, ClassLoader testClassLoader, boolean skipNonTests) {
+		super(testClassLoader);
+		this.classFileIndex = new ClassFileIndex(classPathElements);
+		this.testClassLoader = testClassLoader;
+		this.skipNonTests = skipNonTests;
+	}
+
+	@Override
+	public TestWrapper processItem(List<String> classNames, ProcessorSocket<List<String>, TestWrapper> socket) {
+		List<List<Pair<String, String>>> minedTests = classNames.parallelStream()
+				.map(this::getTestMethods)
+				.collect(Collectors.toList());
+
+		for (int i = 0; i < classNames.size(); ++i) {
+			List<Pair<String, String>> methods = minedTests.get(i);
+			if (methods == null) {
+				if (testClassLoader == null) {
+					Log.warn(this, "Can not mine tests of class '%s' without loading it. Skipping.", classNames.get(i));
+					continue;
+				}
+				// classes are loaded and initialized sequentially, as usual
+				methods = TestMinerProcessor.getTestMethods(classNames.get(i), testClassLoader);
+			}
+
+			if (skipNonTests && methods.isEmpty()) {
+				continue;
+			}
+
+			for (Pair<String, String> method : methods) {
+				socket.produce(new TestWrapper(method.first(), method.second(), testClassLoader));
+			}
+		}
+
+		return null;
+	}
+
+	/**
+	 * Mines the test methods of the class with the given name.
+	 * @param className
+	 * the name of the test class
+	 * @return
+	 * pairs of test class names and test method names; or null if the tests
+	 * can not be determined from the class files
+	 */
+	private List<Pair<String, String>> getTestMethods(String className) {
+		String internalName = className.replace('.', '/');
+		ClassFileInfo testClass = classFileIndex.getClass(internalName);
+		if (testClass == null) {
+			Log.err(this, "Class file of class '%s' not found.", className);
+			return Collections.emptyList();
+		}
+
+		try {
+			if (extendsTestCase(testClass)) {
+				return getJUnit3TestMethods(internalName, testClass, true);
+			} else {
+				return getJUnit4TestMethods(internalName, testClass, true);
+			}
+		} catch (CustomRunnerException e) {
+			return null;
+		}
+	}
+
+	private boolean extendsTestCase(ClassFileInfo testClass) {
+		ClassFileInfo currentClass = testClass;
+		while (currentClass != null && currentClass.getSuperName() != null) {
+			if (currentClass.getSuperName().equals(TEST_CASE)) {
+				return true;
+			}
+			currentClass = classFileIndex.getClass(currentClass.getSuperName());
+		}
+		return false;
+	}
+
+	/**
+	 * @return
+	 * the given class, followed by all of its super classes that could be found
+	 */
+	private List<ClassFileInfo> getClassHierarchy(ClassFileInfo testClass) {
+		List<ClassFileInfo> hierarchy = new ArrayList<>();
+		ClassFileInfo currentClass = testClass;
+		while (currentClass != null) {
+			hierarchy.add(currentClass);
+			currentClass = currentClass.getSuperName() == null ?
+					null : classFileIndex.getClass(currentClass.getSuperName());
+		}
+		return hierarchy;
+	}
+
+	private static String getClassName(String internalName) {
+		return internalName.replace('/', '.');
+	}
+
+	private static boolean isUnsuitableTestClass(ClassFileInfo testClass) {
+		return (testClass.getAccess() & (Opcodes.ACC_PRIVATE | Opcodes.ACC_ABSTRACT | Opcodes.ACC_INTERFACE)) != 0;
+	}
+
+	private static boolean isPublic(MethodInfo method) {
+		return (method.getAccess() & Opcodes.ACC_PUBLIC) != 0;
+	}
+
+	private static boolean isStatic(MethodInfo method) {
+		return (method.getAccess() & Opcodes.ACC_STATIC) != 0;
+	}
+
+	private static boolean isConstructor(MethodInfo method) {
+		return method.getName().equals("<init>");
+	}
+
+	private static boolean isUnsuitableJUnit3TestClass(ClassFileInfo testClass) {
+		// needs TestCase(String name) or TestCase() constructor!
+		for (MethodInfo method : testClass.getMethods()) {
+			if (isConstructor(method) && isPublic(method) && (method.getDescriptor().equals("()V")
+					|| method.getDescriptor().equals("(Ljava/lang/String;)V"))) {
+				return false;
+			}
+		}
+		return true;
+	}
+
+	private List<Pair<String, String>> getJUnit3TestMethods(String internalName, ClassFileInfo testClass,
+			boolean debug) {
+		List<Pair<String,String>> testMethods = new ArrayList<>();
+		String testClassName = getClassName(internalName);
+
+		// check if we have any inner classes that contain suitable test methods
+		for (String innerClassName : testClass.getMemberClasses()) {
+			ClassFileInfo innerClass = classFileIndex.getClass(innerClassName);
+			if (innerClass != null) {
+				testMethods.addAll(getJUnit3TestMethods(innerClassName, innerClass, false));
+			}
+		}
+
+		if (isUnsuitableTestClass(testClass)) {
+			// can't instantiate class (inner classes may have returned tests, though, I guess?)
+			return testMethods;
+		}
+
+		if (!extendsTestCase(testClass)) {
+			//a test we think is JUnit3 but does not extend TestCase. Can't really be a test.
+			return Collections.emptyList();
+		}
+
+		if (isUnsuitableJUnit3TestClass(testClass)) {
+			// can't instantiate class (inner classes may have returned tests, though, I guess?)
+			return testMethods;
+		}
+
+		// public no-args methods starting with "test", including inherited ones
+		Set<String> seenMethods = new HashSet<>();
+		for (ClassFileInfo currentClass : getClassHierarchy(testClass)) {
+			for (MethodInfo method : currentClass.getMethods()) {
+				if (method.getName().startsWith("test") && method.hasNoParameters() && isPublic(method)
+						&& seenMethods.add(method.getName())) {
+					testMethods.add(new Pair<>(testClassName, method.getName()));
+				}
+			}
+		}
+
+		if (debug) {
+			if (testMethods.isEmpty()) {
+				Log.warn(this, "No Tests in class '%s'.", testClassName);
+			}
+		}
+
+		return testMethods;
+	}
+
+	private List<Pair<String, String>> getJUnit4TestMethods(String internalName, ClassFileInfo testClass,
+			boolean debug) throws CustomRunnerException {
+		List<Pair<String,String>> testMethods = new ArrayList<>();
+		String testClassName = getClassName(internalName);
+
+		// check if we have any inner classes that contain suitable test methods
+		for (String innerClassName : testClass.getMemberClasses()) {
+			ClassFileInfo innerClass = classFileIndex.getClass(innerClassName);
+			if (innerClass != null) {
+				testMethods.addAll(getJUnit4TestMethods(innerClassName, innerClass, false));
+				testMethods.addAll(getJUnit3TestMethods(innerClassName, innerClass, false));
+			}
+		}
+
+		if (isUnsuitableTestClass(testClass)) {
+			// can't instantiate class (inner classes may have returned tests, though, I guess?)
+			return testMethods;
+		}
+
+		if (testClass.isIgnored()) {
+			// ignored classes are run by a runner without any tests
+			return testMethods;
+		}
+
+		List<ClassFileInfo> hierarchy = getClassHierarchy(testClass);
+		for (ClassFileInfo currentClass : hierarchy) {
+			// @RunWith is inherited
+			if (currentClass.getRunWith() != null) {
+				if (DEFAULT_RUNNERS.contains(currentClass.getRunWith())) {
+					break;
+				}
+				throw new CustomRunnerException();
+			}
+		}
+		// public static suite() methods are inherited, too
+		for (ClassFileInfo currentClass : hierarchy) {
+			for (MethodInfo method : currentClass.getMethods()) {
+				if (method.getName().equals("suite") && method.getDescriptor().equals(SUITE_METHOD_DESCRIPTOR)
+						&& isPublic(method) && isStatic(method)) {
+					throw new CustomRunnerException();
+				}
+			}
+		}
+
+		// collect the annotated methods like JUnit does; methods of sub classes shadow methods of super classes
+		Map<String, MethodInfo> tests = new LinkedHashMap<>();
+		boolean valid = true;
+		for (ClassFileInfo currentClass : hierarchy) {
+			List<MethodInfo> methods = new ArrayList<>(currentClass.getMethods());
+			String methodOrder = currentClass.getMethodOrder();
+			if (methodOrder == null || methodOrder.equals("DEFAULT")) {
+				methods.sort(DEFAULT_METHOD_ORDER);
+			} else if (methodOrder.equals("NAME_ASCENDING")) {
+				methods.sort(Comparator.comparing(MethodInfo::getName));
+			}
+			for (MethodInfo method : methods) {
+				if (method.hasAnnotation(TEST_ANNOTATION)) {
+					valid &= isValidJUnit4Method(method, false);
+					tests.putIfAbsent(method.getName() + method.getDescriptor(), method);
+				} else if (method.hasAnnotation(BEFORE_ANNOTATION) || method.hasAnnotation(AFTER_ANNOTATION)) {
+					valid &= isValidJUnit4Method(method, false);
+				} else if (method.hasAnnotation(BEFORE_CLASS_ANNOTATION) || method.hasAnnotation(AFTER_CLASS_ANNOTATION)) {
+					valid &= isValidJUnit4Method(method, true);
+				}
+			}
+		}
+
+		if (tests.isEmpty()) {
+			if (debug) {
+				Log.warn(this, "No Tests in class '%s'.", testClassName);
+			}
+			return testMethods;
+		}
+
+		if (!valid || testClass.isNonStaticMemberClass() || !hasOnlyOnePublicZeroArgConstructor(testClass)) {
+			if (debug) {
+				Log.err(this, "Test could not be initialized: initializationError(%s)", testClassName);
+			}
+			return testMethods;
+		}
+
+		for (MethodInfo method : tests.values()) {
+			testMethods.add(new Pair<>(testClassName, method.getName()));
+		}
+		return testMethods;
+	}
+
+	private static boolean isValidJUnit4Method(MethodInfo method, boolean isStatic) {
+		return isPublic(method) && isStatic(method) == isStatic
+				&& method.hasNoParameters() && method.returnsVoid();
+	}
+
+	private static boolean hasOnlyOnePublicZeroArgConstructor(ClassFileInfo testClass) {
+		MethodInfo publicConstructor = null;
+		for (MethodInfo method : testClass.getMethods()) {
+			if (isConstructor(method) && isPublic(method)) {
+				if (publicConstructor != null) {
+					return false;
+				}
+				publicConstructor = method;
+			}
+		}
+		return publicConstructor != null && publicConstructor.hasNoParameters();
+	}
+
+	@Override
+	public boolean finalShutdown() {
+		classFileIndex.close();
+		return super.finalShutdown();
+	}
+
+	/**
+	 * Signals that the tests of a class depend on a runner that has to be executed.
+	 */
+	private static class CustomRunnerException extends Exception {
+
+		private static final long serialVersionUID = 1L;
+
+	}
+
+}
@@ -0,0 +1,384 @@
+/**
+ *
+ */
+package se.de.hu_berlin.informatik.junittestutils.testlister.mining;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipFile;
+
+import org.objectweb.asm.AnnotationVisitor;
+import org.objectweb.asm.ClassReader;
+import org.objectweb.asm.ClassVisitor;
+import org.objectweb.asm.MethodVisitor;
+import org.objectweb.asm.Opcodes;
+import org.objectweb.asm.Type;
+
+import se.de.hu_berlin.informatik.utils.miscellaneous.Log;
+
+/**
+ * Reads the structure of classes from their class files without loading them.
+ * Class files are searched for in the given class path elements (directories
+ * and jar files) in the given order and, as a last resort, in the system class
+ * path. Each class file is parsed at most once, and the parsed information is
+ * cached. Classes may be requested concurrently.
+ */
+public class ClassFileIndex implements AutoCloseable {
+
+	/** placeholder for classes that could not be found or parsed */
+	final private static ClassFileInfo NOT_FOUND = new ClassFileInfo(null, 0, null);
+
+	final private List<Path> directories = new ArrayList<>();
+	final private List<ZipFile> jarFiles = new ArrayList<>();
+	final private Map<String, ClassFileInfo> classes = new ConcurrentHashMap<>();
+
+	/**
+	 * Creates a new index for the given class path elements.
+	 * @param classPathElements
+	 * directories and jar files that contain class files
+	 */
+	public ClassFileIndex(List<Path> classPathElements) {
+		for (Path element : classPathElements) {
+			if (Files.isDirectory(element)) {
+				directories.add(element);
+			} else if (Files.isRegularFile(element)) {
+				try {
+					jarFiles.add(new ZipFile(element.toFile()));
+				} catch (IOException e) {
+					Log.warn(this, "Could not open class path element '%s'.", element);
+				}
+			}
+		}
+	}
+
+	/**
+	 * Splits the given class path into its elements.
+	 * @param classPath
+	 * class path elements, separated by {@link File#pathSeparator}; may be null
+	 * @return
+	 * a list of the class path elements
+	 */
+	public static List<Path> parseClassPath(String classPath) {
+		List<Path> elements = new ArrayList<>();
+		if (classPath != null) {
+			for (String element : classPath.split(File.pathSeparator)) {
+				if (!element.isEmpty()) {
+					elements.add(new File(element).getAbsoluteFile().toPath());
+				}
+			}
+		}
+		return elements;
+	}
+
+	/**
+	 * Returns the information about the class with the given internal name
+	 * (e.g., {@code java/lang/Object}).
+	 * @param internalName
+	 * the internal name of the class
+	 * @return
+	 * the class information; or null if the class file could not be found or parsed
+	 */
+	public ClassFileInfo getClass(String internalName) {
+		ClassFileInfo info = classes.computeIfAbsent(internalName, this::readClass);
+		return info == NOT_FOUND ? null : info;
+	}
+
+	private ClassFileInfo readClass(String internalName) {
+		String fileName = internalName + ".class";
+		try (InputStream stream = openClassFile(fileName)) {
+			if (stream == null) {
+				return NOT_FOUND;
+			}
+			ClassFileInfoReader reader = new ClassFileInfoReader();
+			new ClassReader(stream).accept(reader,
+					ClassReader.SKIP_CODE | ClassReader.SKIP_DEBUG | ClassReader.SKIP_FRAMES);
+			return reader.getClassFileInfo();
+		} catch (IOException | RuntimeException e) {
+			Log.err(this, e, "Could not parse class file '%s'.", fileName);
+			return NOT_FOUND;
+		}
+	}
+
+	private InputStream openClassFile(String fileName) throws IOException {
+		for (Path directory : directories) {
+			Path classFile = directory.resolve(fileName);
+			if (Files.isRegularFile(classFile)) {
+				return Files.newInputStream(classFile);
+			}
+		}
+		for (ZipFile jarFile : jarFiles) {
+			ZipEntry entry = jarFile.getEntry(fileName);
+			if (entry != null) {
+				return jarFile.getInputStream(entry);
+			}
+		}
+		return ClassLoader.getSystemResourceAsStream(fileName);
+	}
+
+	@Override
+	public void close() {
+		for (ZipFile jarFile : jarFiles) {
+			try {
+				jarFile.close();
+			} catch (IOException e) {
+				// nothing to do here
+			}
+		}
+		jarFiles.clear();
+	}
+
+	/**
+	 * The structure of a class, as read from its class file.
+	 */
+	public static class ClassFileInfo {
+
+		final private String superName;
+		final private int access;
+		final private String runWith;
+		private int innerAccess = -1;
+		private String methodOrder = null;
+		private boolean ignored = false;
+		final private List<MethodInfo> methods = new ArrayList<>();
+		final private List<String> memberClasses = new ArrayList<>();
+
+		private ClassFileInfo(String superName, int access, String runWith) {
+			this.superName = superName;
+			this.access = access;
+			this.runWith = runWith;
+		}
+
+		/**
+		 * @return
+		 * the internal name of the super class; or null for {@code java/lang/Object}
+		 */
+		public String getSuperName() {
+			return superName;
+		}
+
+		/**
+		 * @return
+		 * the access flags of the class; for member classes, these are the
+		 * flags of the declaration in the enclosing class (as returned by {@link Class#getModifiers()})
+		 */
+		public int getAccess() {
+			return innerAccess == -1 ? access : innerAccess;
+		}
+
+		/**
+		 * @return
+		 * whether this class is a member class that is not static
+		 */
+		public boolean isNonStaticMemberClass() {
+			return innerAccess != -1 && (innerAccess & Opcodes.ACC_STATIC) == 0;
+		}
+
+		/**
+		 * @return
+		 * the internal name of the runner that is declared with {@code @RunWith}
+		 * on this class; or null
+		 */
+		public String getRunWith() {
+			return runWith;
+		}
+
+		/**
+		 * @return
+		 * the name of the method sorter that is declared with {@code @FixMethodOrder}
+		 * on this class; or null
+		 */
+		public String getMethodOrder() {
+			return methodOrder;
+		}
+
+		/**
+		 * @return
+		 * whether this class is annotated with {@code @Ignore}
+		 */
+		public boolean isIgnored() {
+			return ignored;
+		}
+
+		/**
+		 * @return
+		 * the methods (and constructors) declared in this class, in the order of the class file
+		 */
+		public List<MethodInfo> getMethods() {
+			return Collections.unmodifiableList(methods);
+		}
+
+		/**
+		 * @return
+		 * the internal names of the member classes declared in this class
+		 */
+		public List<String> getMemberClasses() {
+			return Collections.unmodifiableList(memberClasses);
+		}
+
+	}
+
+	/**
+	 * The signature and annotations of a method, as read from a class file.
+	 */
+	public static class MethodInfo {
+
+		final private String name;
+		final private String descriptor;
+		final private int access;
+		final private List<String> annotations = new ArrayList<>(1);
+
+		private MethodInfo(String name, String descriptor, int access) {
+			this.name = name;
+			this.descriptor = descriptor;
+			this.access = access;
+		}
+
+		/**
+		 * @return
+		 * the name of the method
+		 */
+		public String getName() {
+			return name;
+		}
+
+		/**
+		 * @return
+		 * the descriptor of the method (e.g., {@code ()V})
+		 */
+		public String getDescriptor() {
+			return descriptor;
+		}
+
+		/**
+		 * @return
+		 * the access flags of the method
+		 */
+		public int getAccess() {
+			return access;
+		}
+
+		/**
+		 * @param annotationDescriptor
+		 * the descriptor of an annotation type (e.g., {@code Lorg/junit/Test;})
+		 * @return
+		 * whether the method has a runtime visible annotation of the given type
+		 */
+		public boolean hasAnnotation(String annotationDescriptor) {
+			return annotations.contains(annotationDescriptor);
+		}
+
+		/**
+		 * @return
+		 * whether the method has no parameters
+		 */
+		public boolean hasNoParameters() {
+			return descriptor.startsWith("()");
+		}
+
+		/**
+		 * @return
+		 * whether the method has the return type void
+		 */
+		public boolean returnsVoid() {
+			return descriptor.endsWith(")V");
+		}
+
+	}
+
+	private static class ClassFileInfoReader extends ClassVisitor {
+
+		private String className;
+		private String superName;
+		private int access;
+		private String runWith;
+		private String methodOrder;
+		private boolean ignored = false;
+		private int innerAccess = -1;
+		final private List<MethodInfo> methods = new ArrayList<>();
+		final private List<String> memberClasses = new ArrayList<>();
+
+		private ClassFileInfoReader() {
+			super(Opcodes.ASM5);
+		}
+
+		@Override
+		public void visit(int version, int access, String name, String signature,
+				String superName, String[] interfaces) {
+			this.className = name;
+			this.access = access;
+			this.superName = superName;
+		}
+
+		@Override
+		public AnnotationVisitor visitAnnotation(String desc, boolean visible) {
+			if (desc.equals("Lorg/junit/Ignore;")) {
+				ignored = true;
+			} else if (desc.equals("Lorg/junit/runner/RunWith;")) {
+				return new AnnotationVisitor(Opcodes.ASM5) {
+					@Override
+					public void visit(String name, Object value) {
+						if (value instanceof Type) {
+							runWith = ((Type) value).getInternalName();
+						}
+					}
+				};
+			} else if (desc.equals("Lorg/junit/FixMethodOrder;")) {
+				// the default value is not stored in the class file
+				methodOrder = "DEFAULT";
+				return new AnnotationVisitor(Opcodes.ASM5) {
+					@Override
+					public void visitEnum(String name, String desc, String value) {
+						methodOrder = value;
+					}
+				};
+			}
+			return null;
+		}
+
+		@Override
+		public void visitInnerClass(String name, String outerName, String innerName, int access) {
+			if (name.equals(className)) {
+				innerAccess = access;
+			} else if (className.equals(outerName) && innerName != null
+					&& !memberClasses.contains(name)) {
+				memberClasses.add(name);
+			}
+		}
+
+		@Override
+		public MethodVisitor visitMethod(int access, String name, String desc,
+				String signature, String[] exceptions) {
+			final MethodInfo method = new MethodInfo(name, desc, access);
+			methods.add(method);
+			return new MethodVisitor(Opcodes.ASM5) {
+				@Override
+				public AnnotationVisitor visitAnnotation(String desc, boolean visible) {
+					if (visible) {
+						method.annotations.add(desc);
+					}
+					return null;
+				}
+			};
+		}
+
+		private ClassFileInfo getClassFileInfo() {
+			ClassFileInfo info = new ClassFileInfo(superName, access, runWith);
+			info.innerAccess = innerAccess;
+			info.methodOrder = methodOrder;
+			info.ignored = ignored;
+			info.methods.addAll(methods);
+			info.memberClasses.addAll(memberClasses);
+			return info;
+		}
+
+	}
+
+}
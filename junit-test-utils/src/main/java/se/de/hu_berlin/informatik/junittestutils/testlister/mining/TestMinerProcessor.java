@@ -32,6 +32,32 @@ public class TestMinerProcessor extends AbstractProcessor<String, TestWrapper> {
 
 	@Override
 	public TestWrapper processItem(String className, ProcessorSocket<String, TestWrapper> socket) {
+		List<Pair<String, String>> methods = getTestMethods(className, testClassLoader);
+
+		if (skipNonTests) {
+			if (methods.isEmpty()) {
+				return null;
+			}
+		}
+
+		for (Pair<String,String> method : methods) {
+			socket.produce(new TestWrapper(method.first(), method.second(), testClassLoader));
+		}
+
+		return null;
+	}
+
+	/**
+	 * Loads the class with the given name and mines all of its test methods
+	 * (including the test methods of inner classes) via reflection.
+	 * @param className
+	 * the name of the test class
+	 * @param testClassLoader
+	 * the class loader to load the class with; may be null
+	 * @return
+	 * pairs of test class names and test method names
+	 */
+	static List<Pair<String, String>> getTestMethods(String className, ClassLoader testClassLoader) {
 		boolean junit4;
 	    
 		try {
@@ -83,7 +109,7 @@ public class TestMinerProcessor extends AbstractProcessor<String, TestWrapper> {
 										true, testClassLoader);
 					}
 				} catch (final ClassNotFoundException e) {
-					Log.err(this, e, "class not found...");
+					Log.err(TestMinerProcessor.class, e, "class not found...");
 				}
 			}
 			junit4 = junit4TestAdapterClass != null;
@@ -97,22 +123,12 @@ public class TestMinerProcessor extends AbstractProcessor<String, TestWrapper> {
 				methods = getJUnit3TestMethods(testClass, true);
 			}
 			
-			if (skipNonTests) {
-				if (methods.isEmpty()) {
-					return null;
-				}
-			}		
-
-			for (Pair<String,String> method : methods) {
-				socket.produce(new TestWrapper(method.first(), method.second(), testClassLoader));
-			}
-
+			return methods;
 		} catch (final Throwable e) {
-			Log.err(this, e, "Exception while mining tests...");
+			Log.err(TestMinerProcessor.class, e, "Exception while mining tests...");
 		}
 
-		return null;
-
+		return Collections.emptyList();
 	}
 	
 	private static boolean isUnsuitableTestClass(Class<?> testClass) {
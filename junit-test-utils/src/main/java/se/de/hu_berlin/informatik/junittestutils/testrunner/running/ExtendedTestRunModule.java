@@ -74,11 +74,13 @@ public class ExtendedTestRunModule extends AbstractProcessor<TestWrapper, TestSt
 			OutputStreamManipulationUtilities.switchOffStdErr();
 		}
 		
+		// the test may have an individual timeout
+		Long testTimeout = testWrapper.getTimeout() == null ? timeout : testWrapper.getTimeout();
 		TestStatistics statistics = null;
 		for (int i = 0; i < repeatCount; ++i) {
 			//execute the test case with the given timeout (may be null for no timeout)
 			TestStatistics tempStatistics = runTest(testWrapper, 
-					testOutput + File.separator + testWrapper.toString().replace(':','_'), timeout);
+					testOutput + File.separator + testWrapper.toString().replace(':','_'), testTimeout);
 			if (statistics == null) {
 				statistics = tempStatistics;
 			} else {
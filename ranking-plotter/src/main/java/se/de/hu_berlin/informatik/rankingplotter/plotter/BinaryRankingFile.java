@@ -0,0 +1,284 @@
+package se.de.hu_berlin.informatik.rankingplotter.plotter;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.DoubleBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+import se.de.hu_berlin.informatik.stardust.localizer.SourceCodeBlock;
+import se.de.hu_berlin.informatik.utils.experiments.ranking.Ranking;
+import se.de.hu_berlin.informatik.utils.experiments.ranking.SimpleRanking;
+import se.de.hu_berlin.informatik.utils.miscellaneous.Log;
+
+/**
+ * Loads rankings that consist of a trace file (one node per line) and a file with
+ * one ranking value per line. The nodes of a trace file are parsed only once into
+ * a node table that is shared between all rankings of a bug. Each ranking gets its
+ * own copies of the nodes.
+ *
+ * <p>
+ * If a cache directory is set, the ranking values are stored in a binary file in the
+ * cache directory when a text file is read for the first time. Later, the values are
+ * read from the memory mapped binary file. The binary file is replaced if the text
+ * file changes. Without a cache directory, the text files are always parsed.
+ *
+ * <p>
+ * Binary file format: magic number, format version, size and last modification
+ * time of the text file, number of values, values (doubles).
+ */
+public class BinaryRankingFile {
+
+	public static final String EXTENSION = ".bin";
+
+	private static final int MAGIC = 0x524e4b42; // "RNKB"
+	private static final int VERSION = 1;
+	// magic, version, text file size, text file modification time, value count
+	private static final int HEADER_SIZE = 4 + 4 + 8 + 8 + 4;
+
+	// the number of node tables to keep in memory (i.e., the number of bugs)
+	private static final int MAX_NODE_TABLES = 32;
+
+	private static final Map<Path, NodeTable> NODE_TABLES = new LinkedHashMap<Path, NodeTable>(16, 0.75f, true) {
+		private static final long serialVersionUID = 1L;
+		@Override
+		protected boolean removeEldestEntry(Map.Entry<Path, NodeTable> eldest) {
+			return size() > MAX_NODE_TABLES;
+		}
+	};
+
+	private static volatile Path cacheDir = null;
+
+	private BinaryRankingFile() {
+		// prevent initialization
+	}
+
+	/**
+	 * Sets the directory to store the binary files in.
+	 * @param cacheDir
+	 * the cache directory; or null to disable the binary files
+	 */
+	public static void setCacheDir(Path cacheDir) {
+		BinaryRankingFile.cacheDir = cacheDir == null ? null : cacheDir.toAbsolutePath();
+	}
+
+	/**
+	 * Creates a ranking from the given trace file and the given file with ranking values.
+	 * @param traceFile
+	 * the trace file with one node per line
+	 * @param rankingFile
+	 * the ranking file with one ranking value per line (in the order of the trace file)
+	 * @return
+	 * the ranking
+	 */
+	public static Ranking<SourceCodeBlock> loadCompleteRanking(Path traceFile, Path rankingFile) {
+		NodeTable nodes = getNodeTable(traceFile);
+		double[] values = getRankingValues(rankingFile);
+
+		Ranking<SourceCodeBlock> ranking = new SimpleRanking<>(false);
+		int count = Math.min(nodes.size(), values.length);
+		for (int i = 0; i < count; ++i) {
+			ranking.add(nodes.getNewNode(i), values[i]);
+		}
+		return ranking;
+	}
+
+	/**
+	 * Returns the node table of the given trace file. Node tables are cached.
+	 * @param traceFile
+	 * the trace file with one node per line
+	 * @return
+	 * the node table
+	 */
+	public static NodeTable getNodeTable(Path traceFile) {
+		Path key = traceFile.toAbsolutePath().normalize();
+		long[] stamp = getStamp(key);
+		synchronized (NODE_TABLES) {
+			NodeTable table = NODE_TABLES.get(key);
+			if (table != null && Arrays.equals(table.stamp, stamp)) {
+				return table;
+			}
+		}
+
+		NodeTable table = new NodeTable(readLines(key), stamp);
+		synchronized (NODE_TABLES) {
+			NODE_TABLES.put(key, table);
+		}
+		return table;
+	}
+
+	/**
+	 * Returns the ranking values of the given ranking file. If a cache directory is set,
+	 * the values are read from the binary file, if it is up to date. Otherwise, the text
+	 * file is parsed and the binary file is (re)created.
+	 * @param rankingFile
+	 * the ranking file with one ranking value per line
+	 * @return
+	 * the ranking values
+	 */
+	public static double[] getRankingValues(Path rankingFile) {
+		Path binaryFile = getBinaryFile(rankingFile);
+		if (binaryFile == null) {
+			return parseRankingValues(readLines(rankingFile));
+		}
+		long[] stamp = getStamp(rankingFile);
+
+		double[] values = readBinaryFile(binaryFile, stamp);
+		if (values == null) {
+			values = parseRankingValues(readLines(rankingFile));
+			writeBinaryFile(binaryFile, stamp, values);
+		}
+		return values;
+	}
+
+	/**
+	 * @param rankingFile
+	 * a ranking file
+	 * @return
+	 * the binary file in the cache directory that belongs to the given ranking file;
+	 * or null if no cache directory is set
+	 */
+	public static Path getBinaryFile(Path rankingFile) {
+		Path dir = cacheDir;
+		if (dir == null) {
+			return null;
+		}
+		String absolutePath = rankingFile.toAbsolutePath().normalize().toString();
+		return dir.resolve(UUID.nameUUIDFromBytes(absolutePath.getBytes(StandardCharsets.UTF_8)) + EXTENSION);
+	}
+
+	private static double[] parseRankingValues(List<String> lines) {
+		double[] values = new double[lines.size()];
+		for (int i = 0; i < values.length; ++i) {
+			String rankingLine = lines.get(i);
+			if (rankingLine.equals("nan")) {
+				// rankingValue = Double.NaN;
+				values[i] = 0.0;
+			} else {
+				values[i] = Double.valueOf(rankingLine);
+			}
+		}
+		return values;
+	}
+
+	private static double[] readBinaryFile(Path binaryFile, long[] stamp) {
+		if (!Files.exists(binaryFile)) {
+			return null;
+		}
+		try (FileChannel channel = FileChannel.open(binaryFile, StandardOpenOption.READ)) {
+			if (channel.size() < HEADER_SIZE) {
+				return null;
+			}
+			MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+			if (buffer.getInt() != MAGIC || buffer.getInt() != VERSION
+					|| buffer.getLong() != stamp[0] || buffer.getLong() != stamp[1]) {
+				return null;
+			}
+			int count = buffer.getInt();
+			DoubleBuffer doubleBuffer = buffer.asDoubleBuffer();
+			if (count < 0 || doubleBuffer.remaining() != count) {
+				return null;
+			}
+			double[] values = new double[count];
+			doubleBuffer.get(values);
+			return values;
+		} catch (IOException e) {
+			Log.warn(BinaryRankingFile.class, "Could not read binary ranking file '%s'.", binaryFile);
+			return null;
+		}
+	}
+
+	private static void writeBinaryFile(Path binaryFile, long[] stamp, double[] values) {
+		ByteBuffer buffer = ByteBuffer.allocate(HEADER_SIZE + 8 * values.length);
+		buffer.putInt(MAGIC).putInt(VERSION).putLong(stamp[0]).putLong(stamp[1]).putInt(values.length);
+		buffer.asDoubleBuffer().put(values);
+		try {
+			Files.createDirectories(binaryFile.getParent());
+			// write to a temporary file first, such that other threads never read a partial file
+			Path tempFile = Files.createTempFile(binaryFile.getParent(), binaryFile.getFileName().toString(), ".tmp");
+			try {
+				Files.write(tempFile, buffer.array());
+				Files.move(tempFile, binaryFile, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+			} finally {
+				Files.deleteIfExists(tempFile);
+			}
+		} catch (IOException e) {
+			Log.warn(BinaryRankingFile.class, "Could not write binary ranking file '%s'.", binaryFile);
+		}
+	}
+
+	private static long[] getStamp(Path file) {
+		try {
+			return new long[] { Files.size(file), Files.getLastModifiedTime(file).toMillis() };
+		} catch (IOException e) {
+			Log.abort(BinaryRankingFile.class, e, "Could not access file '%s'.", file);
+			return null;
+		}
+	}
+
+	private static List<String> readLines(Path file) {
+		List<String> lines = new ArrayList<>();
+		try (BufferedReader reader = Files.newBufferedReader(file, StandardCharsets.UTF_8)) {
+			String line;
+			while ((line = reader.readLine()) != null) {
+				lines.add(line);
+			}
+		} catch (IOException e) {
+			Log.abort(BinaryRankingFile.class, e, "Could not read file '%s'.", file);
+		}
+		return lines;
+	}
+
+	/**
+	 * The parsed nodes of a trace file.
+	 */
+	public static class NodeTable {
+
+		private final SourceCodeBlock[] nodes;
+		private final long[] stamp;
+
+		private NodeTable(List<String> lines, long[] stamp) {
+			this.nodes = new SourceCodeBlock[lines.size()];
+			for (int i = 0; i < nodes.length; ++i) {
+				nodes[i] = SourceCodeBlock.getNewBlockFromString(lines.get(i));
+			}
+			this.stamp = stamp;
+		}
+
+		/**
+		 * @return
+		 * the number of nodes
+		 */
+		public int size() {
+			return nodes.length;
+		}
+
+		/**
+		 * Returns a new copy of a node. Nodes are mutable, so the shared nodes
+		 * are never handed out.
+		 * @param index
+		 * the index of a node (the line number in the trace file, starting with 0)
+		 * @return
+		 * a copy of the node
+		 */
+		public SourceCodeBlock getNewNode(int index) {
+			SourceCodeBlock node = nodes[index];
+			return new SourceCodeBlock(node.getPackageName(), node.getFilePath(), node.getMethodName(),
+					node.getStartLineNumber(), node.getEndLineNumber());
+		}
+
+	}
+
+}
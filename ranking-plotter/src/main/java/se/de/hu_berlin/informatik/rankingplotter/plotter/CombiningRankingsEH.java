@@ -3,12 +3,9 @@
  */
 package se.de.hu_berlin.informatik.rankingplotter.plotter;
 
-import java.util.List;
-import java.util.Map;
-
 import se.de.hu_berlin.informatik.benchmark.api.BuggyFixedEntity;
 import se.de.hu_berlin.informatik.benchmark.api.Entity;
-import se.de.hu_berlin.informatik.benchmark.modification.Modification;
+import se.de.hu_berlin.informatik.benchmark.modification.ModificationIndex;
 import se.de.hu_berlin.informatik.rankingplotter.plotter.Plotter.ParserStrategy;
 import se.de.hu_berlin.informatik.stardust.localizer.SourceCodeBlock;
 import se.de.hu_berlin.informatik.utils.experiments.ranking.Ranking;
@@ -66,7 +63,8 @@ public class CombiningRankingsEH extends AbstractProcessor<BuggyFixedEntity<?>,
 			ProcessorSocket<BuggyFixedEntity<?>, RankingFileWrapper> socket) {
 		Entity bug = entity.getBuggyVersion();
 
-		Map<String, List<Modification>> changeInformation = entity.loadChangesFromFile();
+		// the index is shared between all rankings of the bug
+		ModificationIndex changeIndex = ModificationIndex.getIndex(entity);
 
 		double[] ranking1percentages = { 0.0, 10.0, 20.0, 50.0, 75.0, 90.0, 100.0 };
 		if (ranking1Percentages != null) {
@@ -99,18 +97,18 @@ public class CombiningRankingsEH extends AbstractProcessor<BuggyFixedEntity<?>,
 		for (double percentage : ranking1percentages) {
 			socket.produce(
 					getRankingFileWrapperFromRankings(
-							ranking1, ranking2, changeInformation, percentage, strategy, project, bugId));
+							ranking1, ranking2, changeIndex, percentage, strategy, project, bugId));
 		}
 
 		return null;
 	}
 
 	public static RankingFileWrapper getRankingFileWrapperFromRankings(Ranking<SourceCodeBlock> ranking1,
-			Ranking<SourceCodeBlock> ranking2, Map<String, List<Modification>> changeInformation, double ranking1Percentage,
+			Ranking<SourceCodeBlock> ranking2, ModificationIndex changeIndex, double ranking1Percentage,
 			ParserStrategy parserStrategy, String project, int bugId) {
 		Ranking<SourceCodeBlock> combinedRanking = RankingUtils.getCombinedRanking(ranking1, ranking2, ranking1Percentage);
 
-		return new RankingFileWrapper(project, bugId, combinedRanking, ranking1Percentage, changeInformation,
+		return new RankingFileWrapper(project, bugId, combinedRanking, ranking1Percentage, changeIndex,
 				parserStrategy);
 	}
 
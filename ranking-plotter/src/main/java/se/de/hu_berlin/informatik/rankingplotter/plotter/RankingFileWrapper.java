@@ -8,8 +8,10 @@ import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Map.Entry;
+import java.util.Set;
 
 import se.de.hu_berlin.informatik.benchmark.modification.Modification;
+import se.de.hu_berlin.informatik.benchmark.modification.ModificationIndex;
 import se.de.hu_berlin.informatik.rankingplotter.plotter.Plotter.ParserStrategy;
 import se.de.hu_berlin.informatik.stardust.localizer.SourceCodeBlock;
 import se.de.hu_berlin.informatik.utils.experiments.ranking.MarkedRanking;
@@ -73,14 +75,14 @@ public class RankingFileWrapper implements Comparable<RankingFileWrapper> {
 	 * the combined ranking
 	 * @param sBFL
 	 * the percentage value of the SBFL ranking
-	 * @param changeInformation 
-	 * a map containing all modifications
+	 * @param changeIndex 
+	 * an index over all modifications
 	 * @param strategy
 	 * which strategy to use. May take the lowest or the highest ranking 
 	 * of a range of equal-value rankings or may compute the average
 	 */
 	public RankingFileWrapper(String project, int bugId, Ranking<SourceCodeBlock> combinedRanking, double sBFL,
-			Map<String, List<Modification>> changeInformation,
+			ModificationIndex changeIndex,
 			ParserStrategy strategy) {
 		super();
 		this.project = project;
@@ -102,7 +104,7 @@ public class RankingFileWrapper implements Comparable<RankingFileWrapper> {
 		}
 		
 		if (this.ranking != null) {
-			parseModLinesFile(changeInformation, strategy);
+			parseModLinesFile(changeIndex, strategy);
 		}
 	}
 	
@@ -112,21 +114,20 @@ public class RankingFileWrapper implements Comparable<RankingFileWrapper> {
 	
 	/**
 	 * Parses the modified lines file.
-	 * @param changeInformation 
-	 * a map containing all modifications (the keys are the file names/paths)
+	 * @param changeIndex 
+	 * an index over all modifications
 	 * @param strategy
 	 * which strategy to use. May take the lowest or the highest ranking 
 	 * of a range of equal-value rankings or may compute the average
 	 */
-	private void parseModLinesFile(Map<String, List<Modification>> changeInformation, 
+	private void parseModLinesFile(ModificationIndex changeIndex, 
 			ParserStrategy strategy) {
 		min_rank = Integer.MAX_VALUE;
 
-		List<Modification> ignoreList = new ArrayList<>();
+		Set<Modification> ignoreSet = ModificationIndex.newIgnoreSet();
 		for (SourceCodeBlock block : ranking.getElements()) {
-			List<Modification> list = Modification.getModifications(block.getFilePath(), 
-					block.getStartLineNumber(), block.getEndLineNumber(), true, 
-					changeInformation, ignoreList);
+			List<Modification> list = changeIndex.getModifications(block.getFilePath(), 
+					block.getStartLineNumber(), block.getEndLineNumber(), ignoreSet);
 			
 			//found changes for this line? then mark the line with the change(s)... 
 			if (list != null && !list.isEmpty()) {
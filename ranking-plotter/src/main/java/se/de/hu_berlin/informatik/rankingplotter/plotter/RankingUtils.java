@@ -1,9 +1,5 @@
 package se.de.hu_berlin.informatik.rankingplotter.plotter;
 
-import java.io.BufferedReader;
-import java.io.IOException;
-import java.nio.charset.StandardCharsets;
-import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
 import java.util.HashSet;
@@ -16,7 +12,6 @@ import se.de.hu_berlin.informatik.benchmark.api.Entity;
 import se.de.hu_berlin.informatik.stardust.localizer.SourceCodeBlock;
 import se.de.hu_berlin.informatik.utils.experiments.ranking.RankedElement;
 import se.de.hu_berlin.informatik.utils.experiments.ranking.Ranking;
-import se.de.hu_berlin.informatik.utils.experiments.ranking.SimpleRanking;
 import se.de.hu_berlin.informatik.utils.experiments.ranking.Ranking.RankingStrategy;
 import se.de.hu_berlin.informatik.utils.experiments.ranking.RankingMetric;
 import se.de.hu_berlin.informatik.utils.miscellaneous.Log;
@@ -161,27 +156,7 @@ public class RankingUtils {
 	} 
 
 	private static Ranking<SourceCodeBlock> createCompleteRanking(Path traceFile, Path globalRankingFile) {
-		Ranking<SourceCodeBlock> ranking = new SimpleRanking<>(false);
-		try (BufferedReader traceFileReader = Files.newBufferedReader(traceFile, StandardCharsets.UTF_8);
-				BufferedReader rankingFileReader = Files.newBufferedReader(globalRankingFile, StandardCharsets.UTF_8)) {
-			String traceLine;
-			String rankingLine;
-			while ((traceLine = traceFileReader.readLine()) != null
-					&& (rankingLine = rankingFileReader.readLine()) != null) {
-				double rankingValue;
-				if (rankingLine.equals("nan")) {
-					// rankingValue = Double.NaN;
-					rankingValue = 0.0;
-				} else {
-					rankingValue = Double.valueOf(rankingLine);
-				}
-				ranking.add(SourceCodeBlock.getNewBlockFromString(traceLine), rankingValue);
-			}
-		} catch (IOException e) {
-			Log.abort(RankingUtils.class, e, "Could not read trace file or lm ranking file.");
-		}
-
-		return ranking;
+		return BinaryRankingFile.loadCompleteRanking(traceFile, globalRankingFile);
 	}
 	
 	public static SourceCodeBlockRankingMetrics getSourceCodeBlockRankingMetrics(Ranking<SourceCodeBlock> ranking, SourceCodeBlock element) {
@@ -0,0 +1,105 @@
+package se.de.hu_berlin.informatik.rankingplotter.plotter;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.stream.Stream;
+
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import se.de.hu_berlin.informatik.stardust.localizer.SourceCodeBlock;
+import se.de.hu_berlin.informatik.utils.experiments.ranking.Ranking;
+
+public class BinaryRankingFileTest {
+
+	@Rule
+	public TemporaryFolder folder = new TemporaryFolder();
+
+	private Path traceFile;
+	private Path rankingFile;
+	private Path cacheDir;
+
+	@Before
+	public void setUp() throws IOException {
+		traceFile = folder.getRoot().toPath().resolve("trace.trc");
+		rankingFile = folder.getRoot().toPath().resolve("ranking_trace.rnk");
+		cacheDir = folder.getRoot().toPath().resolve("cache");
+		Files.write(traceFile, Arrays.asList(
+				"a.b:a/b/A.java:m:1:2", "a.b:a/b/A.java:m:3:3", "a.b:a/b/B.java:n:5:9", "a.b:a/b/B.java:n:10:10"));
+		Files.write(rankingFile, Arrays.asList("0.5", "nan", "NaN", "-7.25E-3"));
+	}
+
+	@After
+	public void tearDown() {
+		BinaryRankingFile.setCacheDir(null);
+	}
+
+	private static void assertEqualRankings(Ranking<SourceCodeBlock> expected, Ranking<SourceCodeBlock> actual) {
+		List<SourceCodeBlock> expectedElements = new ArrayList<>(expected.getElements());
+		List<SourceCodeBlock> actualElements = new ArrayList<>(actual.getElements());
+		Assert.assertEquals(expectedElements, actualElements);
+		for (SourceCodeBlock element : expectedElements) {
+			Assert.assertEquals(0, Double.compare(expected.getRankingValue(element), actual.getRankingValue(element)));
+		}
+	}
+
+	@Test
+	public void textAndBinaryFilesProduceEqualRankings() {
+		Ranking<SourceCodeBlock> textRanking = BinaryRankingFile.loadCompleteRanking(traceFile, rankingFile);
+		Assert.assertEquals(4, textRanking.getElements().size());
+		Assert.assertEquals(0.0, textRanking.getRankingValue(SourceCodeBlock.getNewBlockFromString("a.b:a/b/A.java:m:3:3")), 0);
+		Assert.assertTrue(Double.isNaN(textRanking.getRankingValue(SourceCodeBlock.getNewBlockFromString("a.b:a/b/B.java:n:5:9"))));
+
+		BinaryRankingFile.setCacheDir(cacheDir);
+		// creates the binary file
+		Ranking<SourceCodeBlock> firstRanking = BinaryRankingFile.loadCompleteRanking(traceFile, rankingFile);
+		Path binaryFile = BinaryRankingFile.getBinaryFile(rankingFile);
+		Assert.assertTrue(Files.exists(binaryFile));
+		Assert.assertTrue(binaryFile.startsWith(cacheDir));
+		// reads the binary file
+		Ranking<SourceCodeBlock> secondRanking = BinaryRankingFile.loadCompleteRanking(traceFile, rankingFile);
+
+		assertEqualRankings(textRanking, firstRanking);
+		assertEqualRankings(textRanking, secondRanking);
+	}
+
+	@Test
+	public void binaryFileIsReplacedIfTextFileChanges() throws IOException {
+		BinaryRankingFile.setCacheDir(cacheDir);
+		BinaryRankingFile.getRankingValues(rankingFile);
+
+		Files.write(rankingFile, Arrays.asList("1", "2", "3", "4"));
+		Files.setLastModifiedTime(rankingFile, FileTime.fromMillis(System.currentTimeMillis() + 10000));
+		Assert.assertArrayEquals(new double[] { 1, 2, 3, 4 }, BinaryRankingFile.getRankingValues(rankingFile), 0);
+	}
+
+	@Test
+	public void noBinaryFileWithoutCacheDir() throws IOException {
+		BinaryRankingFile.loadCompleteRanking(traceFile, rankingFile);
+		Assert.assertNull(BinaryRankingFile.getBinaryFile(rankingFile));
+		try (Stream<Path> files = Files.list(folder.getRoot().toPath())) {
+			Assert.assertEquals(2, files.count());
+		}
+	}
+
+	@Test
+	public void nodesAreNotSharedBetweenRankings() {
+		Ranking<SourceCodeBlock> firstRanking = BinaryRankingFile.loadCompleteRanking(traceFile, rankingFile);
+		Ranking<SourceCodeBlock> secondRanking = BinaryRankingFile.loadCompleteRanking(traceFile, rankingFile);
+
+		SourceCodeBlock firstNode = firstRanking.getElements().iterator().next();
+		SourceCodeBlock secondNode = secondRanking.getElements().iterator().next();
+		Assert.assertEquals(firstNode, secondNode);
+		Assert.assertNotSame(firstNode, secondNode);
+	}
+
+}
@@ -69,30 +69,26 @@ public class RankingModule<T> extends AbstractProcessor<ISpectra<T, ?>, ISpectra
 	public ISpectra<T, ?> processItem(final ISpectra<T, ?> spectra) {
 		final ProgressBarTracker tracker = new ProgressBarTracker(1, localizers.size());
 		
-		//calculate the SBFL rankings, if any localizers are given
-		for (final IFaultLocalizer<T> localizer : localizers) {
-			final String className = localizer.getClass().getSimpleName();
-			tracker.track("...calculating " + className + " ranking.");
-//			Log.out(this, "...calculating " + className + " ranking.");
-			generateRanking(spectra, localizer, className.toLowerCase(Locale.getDefault()));
+		//calculate all SBFL rankings in one pass over the nodes, if any localizers are given
+		final List<Ranking<INode<T>>> rankings = spectra.getLocalizer().localizeAll(localizers, strategy);
+		for (int i = 0; i < localizers.size(); ++i) {
+			final String className = localizers.get(i).getClass().getSimpleName();
+			tracker.track("...saving " + className + " ranking.");
+			saveRanking(rankings.get(i), className.toLowerCase(Locale.getDefault()));
 		}
 		
 		return spectra;
 	}
 
 	/**
-	 * Generates and saves a specific SBFL ranking. 
-	 * @param spectra
-	 * Cobertura line spectra
-	 * @param localizer
-	 * provides specific SBFL formulae
+	 * Saves a specific SBFL ranking. 
+	 * @param ranking
+	 * the ranking to save
 	 * @param subfolder
 	 * name of a subfolder to be used
 	 */
-	private void generateRanking(final ISpectra<T, ?> spectra, 
-			final IFaultLocalizer<T> localizer, final String subfolder) {
+	private void saveRanking(final Ranking<INode<T>> ranking, final String subfolder) {
 		try {
-			final Ranking<INode<T>> ranking = localizer.localize(spectra, strategy);
 			Paths.get(outputdir + File.separator + subfolder).toFile().mkdirs();
 			ranking.save(outputdir + File.separator + subfolder + File.separator + BugLoRDConstants.FILENAME_RANKING_FILE);
 		} catch (IOException e) {
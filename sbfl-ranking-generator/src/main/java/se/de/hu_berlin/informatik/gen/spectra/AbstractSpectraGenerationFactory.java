@@ -2,9 +2,19 @@ package se.de.hu_berlin.informatik.gen.spectra;
 
 import java.io.Serializable;
 import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Semaphore;
+import java.util.function.Function;
 
+import se.de.hu_berlin.informatik.gen.spectra.internal.RunAllTestsAndGenSpectra.CmdOptions;
 import se.de.hu_berlin.informatik.gen.spectra.modules.AbstractRunSingleTestAndReportModule;
+import se.de.hu_berlin.informatik.gen.spectra.modules.ParallelRunTestsAndReportModule;
+import se.de.hu_berlin.informatik.gen.spectra.modules.ReportToCompactTraceConverter;
 import se.de.hu_berlin.informatik.junittestutils.data.StatisticsData;
+import se.de.hu_berlin.informatik.stardust.localizer.SourceCodeBlock;
+import se.de.hu_berlin.informatik.stardust.provider.compact.CompactTrace;
+import se.de.hu_berlin.informatik.stardust.provider.compact.NodeIndex;
 import se.de.hu_berlin.informatik.utils.optionparser.OptionParser;
 import se.de.hu_berlin.informatik.utils.processors.AbstractConsumingProcessor;
 import se.de.hu_berlin.informatik.utils.processors.AbstractProcessor;
@@ -113,6 +123,109 @@ public abstract class AbstractSpectraGenerationFactory<T extends Serializable,R,
 	public abstract AbstractRunSingleTestAndReportModule<T,R> getTestRunnerModule(OptionParser options, 
 			ClassLoader testAndInstrumentClassLoader, String testClassPath, StatisticsCollector<StatisticsData> statisticsContainer);
 	
+	/**
+	 * Gets a module that runs a single test in a separate JVM and generates a coverage report
+	 * in the end. Modules with different worker indices have to be isolated from each other,
+	 * i.e., they may not share any output directories, data files or ports, such that they
+	 * can be used to run tests in parallel.
+	 * @param options
+	 * an object that holds options relevant to execution
+	 * @param testAndInstrumentClassLoader
+	 * a class loader that is used to run the test (loads the instrumented classes, specifically)
+	 * @param testClassPath
+	 * the class path that is necessary for execution of the test classes
+	 * @param statisticsContainer
+	 * a container for collecting statistics
+	 * @param workerIndex
+	 * the index of the worker that uses the module
+	 * @return
+	 * the test runner module
+	 */
+	public abstract AbstractRunSingleTestAndReportModule<T,R> getIsolatedTestRunnerModule(OptionParser options, 
+			ClassLoader testAndInstrumentClassLoader, String testClassPath, StatisticsCollector<StatisticsData> statisticsContainer,
+			int workerIndex);
+	
+	/**
+	 * Gets a module that runs a list of tests with the given number of isolated workers in parallel
+	 * and produces the generated coverage reports in the order of the tests.
+	 * @param options
+	 * an object that holds options relevant to execution
+	 * @param testAndInstrumentClassLoader
+	 * a class loader that is used to run the test (loads the instrumented classes, specifically)
+	 * @param testClassPath
+	 * the class path that is necessary for execution of the test classes
+	 * @param statisticsContainer
+	 * a container for collecting statistics
+	 * @param workerCount
+	 * the number of workers
+	 * @return
+	 * the test runner module
+	 */
+	public ParallelRunTestsAndReportModule<T,R,R> getParallelTestRunnerModule(OptionParser options, 
+			ClassLoader testAndInstrumentClassLoader, String testClassPath, StatisticsCollector<StatisticsData> statisticsContainer,
+			int workerCount) {
+		List<Function<R,R>> converters = new ArrayList<>(workerCount);
+		for (int i = 0; i < workerCount; ++i) {
+			converters.add(Function.identity());
+		}
+		return new ParallelRunTestsAndReportModule<>(getIsolatedTestRunnerModules(
+				options, testAndInstrumentClassLoader, testClassPath, statisticsContainer, workerCount), converters);
+	}
+	
+	/**
+	 * Gets a module that runs a list of tests with the given number of isolated workers in parallel
+	 * and converts the generated coverage reports to compact traces in the worker threads. The
+	 * compact traces are produced in the order of the tests.
+	 * @param options
+	 * an object that holds options relevant to execution
+	 * @param testAndInstrumentClassLoader
+	 * a class loader that is used to run the test (loads the instrumented classes, specifically)
+	 * @param testClassPath
+	 * the class path that is necessary for execution of the test classes
+	 * @param statisticsContainer
+	 * a container for collecting statistics
+	 * @param workerCount
+	 * the number of workers
+	 * @param nodeIndex
+	 * the node index that is shared by all converters
+	 * @return
+	 * the test runner module
+	 */
+	public ParallelRunTestsAndReportModule<T,R,CompactTrace> getParallelTestRunnerAndConverterModule(OptionParser options, 
+			ClassLoader testAndInstrumentClassLoader, String testClassPath, StatisticsCollector<StatisticsData> statisticsContainer,
+			int workerCount, NodeIndex<SourceCodeBlock> nodeIndex) {
+		List<ReportToCompactTraceConverter<R>> converters = new ArrayList<>(workerCount);
+		for (int i = 0; i < workerCount; ++i) {
+			converters.add(getReportToCompactTraceConverter(options, nodeIndex));
+		}
+		return new ParallelRunTestsAndReportModule<>(getIsolatedTestRunnerModules(
+				options, testAndInstrumentClassLoader, testClassPath, statisticsContainer, workerCount), converters);
+	}
+	
+	/**
+	 * Gets the output directory of the isolated worker with the given index.
+	 * The directory is removed after all tests have been run.
+	 * @param options
+	 * an object that holds options relevant to execution
+	 * @param workerIndex
+	 * the index of the worker
+	 * @return
+	 * the output directory of the worker
+	 */
+	public static Path getWorkerOutputDir(OptionParser options, int workerIndex) {
+		return options.isDirectory(CmdOptions.OUTPUT, false).resolve("__worker" + workerIndex);
+	}
+	
+	private List<AbstractRunSingleTestAndReportModule<T,R>> getIsolatedTestRunnerModules(OptionParser options, 
+			ClassLoader testAndInstrumentClassLoader, String testClassPath, StatisticsCollector<StatisticsData> statisticsContainer,
+			int workerCount) {
+		List<AbstractRunSingleTestAndReportModule<T,R>> workers = new ArrayList<>(workerCount);
+		for (int i = 0; i < workerCount; ++i) {
+			workers.add(getIsolatedTestRunnerModule(options, testAndInstrumentClassLoader, testClassPath, statisticsContainer, i));
+		}
+		return workers;
+	}
+	
 	/**
 	 * Gets a module that collects all the reports generated by running the tests and generates
 	 * a spectra at the end, when all tests have been run.
@@ -126,6 +239,39 @@ public abstract class AbstractSpectraGenerationFactory<T extends Serializable,R,
 	public abstract AbstractProcessor<R, S> getReportToSpectraProcessor(
 			OptionParser options, StatisticsCollector<StatisticsData> statisticsContainer);
 	
+	/**
+	 * Gets a converter that converts single coverage reports to compact traces. The converter
+	 * is used in the thread that runs the tests, directly after each test, such that the
+	 * reports can be released immediately.
+	 * @param options
+	 * an object that holds options relevant to execution
+	 * @param nodeIndex
+	 * the node index that is shared by all converters and the compact trace processor
+	 * @return
+	 * the converter (not thread-safe)
+	 */
+	public abstract ReportToCompactTraceConverter<R> getReportToCompactTraceConverter(
+			OptionParser options, NodeIndex<SourceCodeBlock> nodeIndex);
+	
+	/**
+	 * Gets a module that collects the compact traces generated by running the tests and
+	 * converting the reports, and generates a spectra at the end, when all tests have been run.
+	 * @param options
+	 * an object that holds options relevant to execution
+	 * @param nodeIndex
+	 * the node index that is shared by all converters and the compact trace processor
+	 * @param queuedTraces
+	 * permits for the traces that may be queued at the same time; a permit is released
+	 * for each received trace
+	 * @param statisticsContainer
+	 * a container for collecting statistics
+	 * @return
+	 * the module to generate a spectra from the given compact traces
+	 */
+	public abstract AbstractProcessor<CompactTrace, S> getCompactTraceToSpectraProcessor(
+			OptionParser options, NodeIndex<SourceCodeBlock> nodeIndex, Semaphore queuedTraces, 
+			StatisticsCollector<StatisticsData> statisticsContainer);
+	
 	/**
 	 * Gets a module that handles the resulting spectra after its creation. (Storing the spectra to disk, etc.)
 	 * @param options
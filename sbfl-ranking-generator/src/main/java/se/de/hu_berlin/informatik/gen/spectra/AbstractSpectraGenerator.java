@@ -63,6 +63,20 @@ public abstract class AbstractSpectraGenerator {
 	 * number of times to execute each test case; 1 by default if {@code null}
 	 * @param maxErrors
 	 * the maximum of test execution errors to tolerate
+	 * @param threadCount
+	 * the number of isolated workers that run the tests in parallel
+	 * @param coverageStoreDir
+	 * a directory that stores the coverage of single tests to be reused in later runs;
+	 * {@code null} if no coverage shall be stored
+	 * @param testDurationsFile
+	 * a file that stores the durations of single tests to schedule the tests in later runs;
+	 * {@code null} if no durations shall be stored
+	 * @param maxQueuedTraces
+	 * the maximum number of compact traces that may be queued for the spectra generation;
+	 * if not positive, the full reports are queued without limit
+	 * @param useBytecodeTestMining
+	 * whether the tests of the test classes shall be mined from the class files
+	 * without loading the test classes
 	 * @param agentPort
 	 * port to use by the java agent
 	 * @param failingtests
@@ -76,8 +90,8 @@ public abstract class AbstractSpectraGenerator {
 			String testClassDirOptionValue, String outputDirOptionValue,
 			String testClassPath, String testClassList, String testList,
 			final String javaHome, boolean useFullSpectra, boolean useSeparateJVM, boolean useJava7,
-			Long timeout, int testRepeatCount, int maxErrors, Integer agentPort, List<String> failingtests, 
-			String... pathsToBinaries) {
+			Long timeout, int testRepeatCount, int maxErrors, int threadCount, String coverageStoreDir, String testDurationsFile, 
+			int maxQueuedTraces, boolean useBytecodeTestMining, Integer agentPort, List<String> failingtests, String... pathsToBinaries) {
 		final Path projectDir = FileUtils.checkIfAnExistingDirectory(null, projectDirOptionValue);
 		final Path testClassDir = FileUtils.checkIfAnExistingDirectory(projectDir, testClassDirOptionValue);
 		final Path sourceDir = FileUtils.checkIfAnExistingDirectory(projectDir, sourceDirOptionValue);
@@ -154,8 +168,9 @@ public abstract class AbstractSpectraGenerator {
 		
 		runTestsAndGenerateSpectra(
 				factory, projectDirOptionValue, sourceDirOptionValue, testClassPath, testClassList, testList, javaHome,
-				useFullSpectra, useSeparateJVM, useJava7, timeout, testRepeatCount, maxErrors, agentPort, failingtests,
-				projectDir, testClassDir, outputDir, instrumentedDir, pathsToBinaries);
+				useFullSpectra, useSeparateJVM, useJava7, timeout, testRepeatCount, maxErrors, threadCount, coverageStoreDir, 
+				testDurationsFile, maxQueuedTraces, useBytecodeTestMining, agentPort, failingtests, projectDir, testClassDir, outputDir, 
+				instrumentedDir, pathsToBinaries);
 
 		
 		/* #====================================================================================
@@ -168,13 +183,15 @@ public abstract class AbstractSpectraGenerator {
 	private static void runTestsAndGenerateSpectra(AbstractSpectraGenerationFactory<?, ?, ?> factory, String projectDirOptionValue,
 			String sourceDirOptionValue, String testClassPath, String testClassList, String testList,
 			final String javaHome, boolean useFullSpectra, boolean useSeparateJVM, boolean useJava7, Long timeout,
-			int testRepeatCount, int maxErrors, Integer agentPort, List<String> failingtests, final Path projectDir,
+			int testRepeatCount, int maxErrors, int threadCount, String coverageStoreDir, String testDurationsFile, 
+			int maxQueuedTraces, boolean useBytecodeTestMining, Integer agentPort, List<String> failingtests, final Path projectDir,
 			final Path testClassDir, final String outputDir, final Path instrumentedDir, String... pathsToBinaries) {
 		
 		String[] newArgs = getArgs(factory.getStrategy(), factory.getSpecificArgsForMainTestRunner(),
 				projectDirOptionValue, sourceDirOptionValue, testClassDir, testClassPath, outputDir, instrumentedDir,
 				testClassList, testList, javaHome, useFullSpectra, useSeparateJVM, useJava7, timeout, testRepeatCount,
-				maxErrors, agentPort, failingtests, pathsToBinaries);
+				maxErrors, threadCount, coverageStoreDir, testDurationsFile, maxQueuedTraces, useBytecodeTestMining, agentPort, 
+				failingtests, pathsToBinaries);
 		
 		String systemClassPath = new ClassPathParser().parseSystemClasspath().getClasspath();
 		
@@ -194,7 +211,8 @@ public abstract class AbstractSpectraGenerator {
 	private static String[] getArgs(Strategy strategy, String[] specificArgs, String projectDirOptionValue, String sourceDirOptionValue, final Path testClassDir,
 			String testClassPath, final String outputDir, final Path instrumentedDir, String testClassList,
 			String testList, final String javaHome, boolean useFullSpectra, boolean useSeparateJVM, boolean useJava7,
-			Long timeout, int testRepeatCount, int maxErrors, Integer agentPort, List<String> failingtests, String... pathsToBinaries) {
+			Long timeout, int testRepeatCount, int maxErrors, int threadCount, String coverageStoreDir, String testDurationsFile, 
+			int maxQueuedTraces, boolean useBytecodeTestMining, Integer agentPort, List<String> failingtests, String... pathsToBinaries) {
 		//build arguments for the "real" application (running the tests...)
 		String[] newArgs = {
 				RunAllTestsAndGenSpectra.CmdOptions.PROJECT_DIR.asArg(), projectDirOptionValue, 
@@ -253,6 +271,29 @@ public abstract class AbstractSpectraGenerator {
 			newArgs = Misc.addToArrayAndReturnResult(newArgs, RunAllTestsAndGenSpectra.CmdOptions.MAX_ERRORS.asArg(), String.valueOf(maxErrors));
 		}
 		
+		if (threadCount > 1) {
+			newArgs = Misc.addToArrayAndReturnResult(newArgs, RunAllTestsAndGenSpectra.CmdOptions.THREAD_COUNT.asArg(), String.valueOf(threadCount));
+		}
+		
+		if (coverageStoreDir != null) {
+			newArgs = Misc.addToArrayAndReturnResult(newArgs, RunAllTestsAndGenSpectra.CmdOptions.COVERAGE_STORE.asArg(), 
+					Paths.get(coverageStoreDir).toAbsolutePath().toString());
+		}
+		
+		if (testDurationsFile != null) {
+			newArgs = Misc.addToArrayAndReturnResult(newArgs, RunAllTestsAndGenSpectra.CmdOptions.TEST_DURATIONS.asArg(), 
+					Paths.get(testDurationsFile).toAbsolutePath().toString());
+		}
+		
+		if (maxQueuedTraces > 0) {
+			newArgs = Misc.addToArrayAndReturnResult(newArgs, RunAllTestsAndGenSpectra.CmdOptions.MAX_QUEUED_TRACES.asArg(), 
+					String.valueOf(maxQueuedTraces));
+		}
+		
+		if (useBytecodeTestMining) {
+			newArgs = Misc.addToArrayAndReturnResult(newArgs, RunAllTestsAndGenSpectra.CmdOptions.BYTECODE_TEST_MINING.asArg());
+		}
+		
 		if (agentPort != null) {
 			newArgs = Misc.addToArrayAndReturnResult(newArgs, RunAllTestsAndGenSpectra.CmdOptions.AGENT_PORT.asArg(), String.valueOf(agentPort.intValue()));
 		}
@@ -284,6 +325,11 @@ public abstract class AbstractSpectraGenerator {
 		protected List<String> failingTests;
 		protected boolean useJava7;
 		protected int maxErrors = 0;
+		protected int threadCount = 1;
+		protected String coverageStoreDir;
+		protected String testDurationsFile;
+		protected int maxQueuedTraces = 0;
+		protected boolean useBytecodeTestMining = false;
 		
 		public AbstractBuilder setProjectDir(String projectDir) {
 			this.projectDir = projectDir;
@@ -371,6 +417,31 @@ public abstract class AbstractSpectraGenerator {
 			return this;
 		}
 		
+		public AbstractBuilder setThreadCount(int threadCount) {
+			this.threadCount = threadCount;
+			return this;
+		}
+		
+		public AbstractBuilder setCoverageStoreDir(String coverageStoreDir) {
+			this.coverageStoreDir = coverageStoreDir;
+			return this;
+		}
+		
+		public AbstractBuilder setTestDurationsFile(String testDurationsFile) {
+			this.testDurationsFile = testDurationsFile;
+			return this;
+		}
+		
+		public AbstractBuilder setMaxQueuedTraces(int maxQueuedTraces) {
+			this.maxQueuedTraces = maxQueuedTraces;
+			return this;
+		}
+		
+		public AbstractBuilder useBytecodeTestMining(boolean useBytecodeTestMining) {
+			this.useBytecodeTestMining = useBytecodeTestMining;
+			return this;
+		}
+		
 		public AbstractBuilder setFailingTests(List<String> failingTests) {
 			this.failingTests = failingTests;
 			return this;
@@ -383,7 +454,8 @@ public abstract class AbstractSpectraGenerator {
 					factory, projectDir, sourceDir, testClassDir, outputDir,
 					testClassPath, testClassList, testList, javaHome, 
 					useFullSpectra, useSeparateJVM, useJava7, timeout, testRepeatCount, 
-					maxErrors, agentPort, failingTests, (String[]) classesToInstrument);
+					maxErrors, threadCount, coverageStoreDir, testDurationsFile, maxQueuedTraces, useBytecodeTestMining, 
+					agentPort, failingTests, (String[]) classesToInstrument);
 		}
 		
 	}
@@ -1,8 +1,12 @@
 package se.de.hu_berlin.informatik.gen.spectra.cobertura;
 
 import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.util.concurrent.Semaphore;
 
 import net.sourceforge.cobertura.coveragedata.ProjectData;
 import se.de.hu_berlin.informatik.gen.spectra.AbstractInstrumenter;
@@ -14,10 +18,18 @@ import se.de.hu_berlin.informatik.gen.spectra.cobertura.modules.CoberturaRunSing
 import se.de.hu_berlin.informatik.gen.spectra.internal.RunTestsAndGenSpectraProcessor;
 import se.de.hu_berlin.informatik.gen.spectra.internal.RunAllTestsAndGenSpectra.CmdOptions;
 import se.de.hu_berlin.informatik.gen.spectra.modules.AbstractRunSingleTestAndReportModule;
+import se.de.hu_berlin.informatik.gen.spectra.modules.CompactTraceToSpectraModule;
+import se.de.hu_berlin.informatik.gen.spectra.modules.ReportToCompactTraceConverter;
 import se.de.hu_berlin.informatik.junittestutils.data.StatisticsData;
 import se.de.hu_berlin.informatik.stardust.localizer.SourceCodeBlock;
+import se.de.hu_berlin.informatik.stardust.provider.cobertura.report.CoberturaReportCompactTraceConverter;
+import se.de.hu_berlin.informatik.stardust.provider.compact.CompactTrace;
+import se.de.hu_berlin.informatik.stardust.provider.compact.CompactTraceCountProvider;
+import se.de.hu_berlin.informatik.stardust.provider.compact.NodeIndex;
 import se.de.hu_berlin.informatik.stardust.provider.cobertura.report.CoberturaReportWrapper;
 import se.de.hu_berlin.informatik.stardust.spectra.ISpectra;
+import se.de.hu_berlin.informatik.stardust.spectra.count.CountSpectra;
+import se.de.hu_berlin.informatik.utils.miscellaneous.Log;
 import se.de.hu_berlin.informatik.utils.optionparser.OptionParser;
 import se.de.hu_berlin.informatik.utils.processors.AbstractConsumingProcessor;
 import se.de.hu_berlin.informatik.utils.processors.AbstractProcessor;
@@ -68,10 +80,35 @@ public class CoberturaSpectraGenerationFactory
 	public AbstractRunSingleTestAndReportModule<ProjectData, CoberturaReportWrapper> getTestRunnerModule(
 			OptionParser options, ClassLoader testAndInstrumentClassLoader, String testClassPath,
 			StatisticsCollector<StatisticsData> statisticsContainer) {
+		final String outputDir = options.isDirectory(CmdOptions.OUTPUT, false).toString();
+		return newTestRunnerModule(options, testAndInstrumentClassLoader, testClassPath, statisticsContainer, 
+				coberturaDataFile.toPath().toAbsolutePath(), outputDir, options.hasOption(CmdOptions.SEPARATE_JVM));
+	}
+
+	@Override
+	public AbstractRunSingleTestAndReportModule<ProjectData, CoberturaReportWrapper> getIsolatedTestRunnerModule(
+			OptionParser options, ClassLoader testAndInstrumentClassLoader, String testClassPath,
+			StatisticsCollector<StatisticsData> statisticsContainer, int workerIndex) {
+		// each worker gets its own output directory with its own copy of the data file,
+		// since the data file gets overwritten when running tests with the Java 7 runner
+		final Path outputDir = getWorkerOutputDir(options, workerIndex);
+		outputDir.toFile().mkdirs();
+		Path dataFile = outputDir.resolve(coberturaDataFile.getName()).toAbsolutePath();
+		try {
+			Files.copy(coberturaDataFile.toPath(), dataFile, StandardCopyOption.REPLACE_EXISTING);
+		} catch (IOException e) {
+			Log.abort(this, e, "Could not copy Cobertura data file to '%s'.", dataFile);
+		}
+		return newTestRunnerModule(options, testAndInstrumentClassLoader, testClassPath, statisticsContainer, 
+				dataFile, outputDir.toString(), true);
+	}
+
+	private static CoberturaRunSingleTestAndReportModule newTestRunnerModule(OptionParser options, 
+			ClassLoader testAndInstrumentClassLoader, String testClassPath, 
+			StatisticsCollector<StatisticsData> statisticsContainer, Path dataFile, String outputDir, boolean useSeparateJVM) {
 		final Path projectDir = options.isDirectory(CmdOptions.PROJECT_DIR, true);
 		final Path srcDir = options.isDirectory(projectDir, CmdOptions.SOURCE_DIR, true);
-		final String outputDir = options.isDirectory(CmdOptions.OUTPUT, false).toString();
-		return new CoberturaRunSingleTestAndReportModule(coberturaDataFile.toPath().toAbsolutePath(), outputDir,
+		return new CoberturaRunSingleTestAndReportModule(dataFile, outputDir,
 				projectDir.toFile(), srcDir.toString(), options.hasOption(CmdOptions.FULL_SPECTRA),
 				RunTestsAndGenSpectraProcessor.TEST_DEBUG_OUTPUT,
 				options.hasOption(CmdOptions.TIMEOUT) ? Long.valueOf(options.getOptionValue(CmdOptions.TIMEOUT)) : null,
@@ -79,7 +116,7 @@ public class CoberturaSpectraGenerationFactory
 						? Integer.valueOf(options.getOptionValue(CmdOptions.REPEAT_TESTS)) : 1,
 				testClassPath, options.getOptionValue(CmdOptions.JAVA_HOME_DIR, null),
 				RunTestsAndGenSpectraProcessor.class.getResource("/testrunner.jar").getPath(),
-				options.hasOption(CmdOptions.SEPARATE_JVM), options.hasOption(CmdOptions.JAVA7),
+				useSeparateJVM, options.hasOption(CmdOptions.JAVA7),
 				options.getOptionValueAsInt(CmdOptions.MAX_ERRORS, 0),
 				options.getOptionValues(CmdOptions.FAILING_TESTS), statisticsContainer, testAndInstrumentClassLoader);
 	}
@@ -92,6 +129,24 @@ public class CoberturaSpectraGenerationFactory
 				statisticsContainer);
 	}
 
+	@Override
+	public ReportToCompactTraceConverter<CoberturaReportWrapper> getReportToCompactTraceConverter(
+			OptionParser options, NodeIndex<SourceCodeBlock> nodeIndex) {
+		return new ReportToCompactTraceConverter<>(
+				new CoberturaReportCompactTraceConverter(nodeIndex, options.hasOption(CmdOptions.FULL_SPECTRA)), 
+				CoberturaRunSingleTestAndReportModule.ERROR_WRAPPER);
+	}
+
+	@Override
+	public AbstractProcessor<CompactTrace, ISpectra<SourceCodeBlock, ?>> getCompactTraceToSpectraProcessor(
+			OptionParser options, NodeIndex<SourceCodeBlock> nodeIndex, Semaphore queuedTraces,
+			StatisticsCollector<StatisticsData> statisticsContainer) {
+		return new CompactTraceToSpectraModule(
+				new CompactTraceCountProvider<>(new CountSpectra<SourceCodeBlock>(), nodeIndex, 
+						options.hasOption(CmdOptions.FULL_SPECTRA)), 
+				queuedTraces, statisticsContainer);
+	}
+
 	@Override
 	public AbstractConsumingProcessor<ISpectra<SourceCodeBlock, ?>> getSpectraProcessor(OptionParser options) {
 		return new SpectraSaveProcessor(options);
@@ -6,8 +6,10 @@ package se.de.hu_berlin.informatik.gen.spectra.cobertura.modules;
 import java.io.File;
 import java.lang.reflect.Field;
 import java.nio.file.Path;
+import java.util.ArrayList;
 import java.util.Collection;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
 
 import net.sourceforge.cobertura.coveragedata.ClassData;
@@ -28,8 +30,8 @@ import se.de.hu_berlin.informatik.gen.spectra.modules.AbstractRunTestLocallyModu
 import se.de.hu_berlin.informatik.java7.testrunner.TestWrapper;
 import se.de.hu_berlin.informatik.junittestutils.data.StatisticsData;
 import se.de.hu_berlin.informatik.junittestutils.data.TestStatistics;
+import se.de.hu_berlin.informatik.stardust.provider.cobertura.coveragedata.CachedTouchCollector;
 import se.de.hu_berlin.informatik.stardust.provider.cobertura.coveragedata.LockableProjectData;
-import se.de.hu_berlin.informatik.stardust.provider.cobertura.coveragedata.MyTouchCollector;
 import se.de.hu_berlin.informatik.stardust.provider.cobertura.report.CoberturaReportWrapper;
 import se.de.hu_berlin.informatik.utils.miscellaneous.ClassPathParser;
 import se.de.hu_berlin.informatik.utils.miscellaneous.Log;
@@ -119,7 +121,7 @@ public class CoberturaRunSingleTestAndReportModule extends AbstractRunSingleTest
 		//so if we want to not have the full spectra, we have to reset this data here
 		if (!this.fullSpectra) {
 			initialProjectData = new LockableProjectData();
-			MyTouchCollector.resetTouchesOnProjectData2(registeredClasses, initialProjectData);
+			CachedTouchCollector.resetTouches(registeredClasses, CoberturaRunTestLocallyModule.MAX_RESET_TRY_COUNT);
 		}
 
 //		//initialize/reset the project data
@@ -171,6 +173,17 @@ public class CoberturaRunSingleTestAndReportModule extends AbstractRunSingleTest
 				testWrapper.toString(), testStatistics.wasSuccessful());
 	}
 
+	@Override
+	public Collection<String> getRecordedClasses(ProjectData data) {
+		List<String> recordedClasses = new ArrayList<>();
+		@SuppressWarnings("unchecked")
+		Collection<ClassData> classes = data.getClasses();
+		for (ClassData classData : classes) {
+			recordedClasses.add(classData.getName());
+		}
+		return recordedClasses;
+	}
+
 	@Override
 	public CoberturaReportWrapper getErrorReport() {
 		return ERROR_WRAPPER;
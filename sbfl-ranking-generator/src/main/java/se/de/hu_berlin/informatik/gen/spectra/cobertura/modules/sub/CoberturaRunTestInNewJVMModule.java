@@ -34,11 +34,14 @@ public class CoberturaRunTestInNewJVMModule extends AbstractRunTestInNewJVMModul
 
 	final private ExecuteMainClassInNewJVM executeModule;
 	final private String[] args;
+	final private Long timeout;
+	private int timeoutIndex = -1;
 	
 	public CoberturaRunTestInNewJVMModule(final String testOutput, 
 			final boolean debugOutput, final Long timeout, final int repeatCount, 
 			String instrumentedClassPath, final Path dataFile, final String javaHome, File projectDir) {
 		super(testOutput);
+		this.timeout = timeout;
 		dataFile.toFile();
 		
 		this.executeModule = new ExecuteMainClassInNewJVM(
@@ -74,7 +77,8 @@ public class CoberturaRunTestInNewJVMModule extends AbstractRunTestInNewJVMModul
 		
 		if (timeout != null) {
 			args[++argCounter] = TestRunner.CmdOptions.TIMEOUT.asArg();
-			args[++argCounter] = String.valueOf(timeout.longValue());
+			timeoutIndex = ++argCounter;
+			args[timeoutIndex] = String.valueOf(timeout.longValue());
 		}
 		if (!debugOutput) {
 			args[++argCounter] = OptionParser.DefaultCmdOptions.SILENCE_ALL.asArg();
@@ -89,9 +93,12 @@ public class CoberturaRunTestInNewJVMModule extends AbstractRunTestInNewJVMModul
 	}
 	
 	@Override
-	public String[] getArgs(String testClassName, String testMethodName) {	
+	public String[] getArgs(String testClassName, String testMethodName, Long timeout) {	
 		args[1] = testClassName;
 		args[3] = testMethodName;
+		if (timeoutIndex >= 0) {
+			args[timeoutIndex] = String.valueOf(timeout == null ? this.timeout.longValue() : timeout.longValue());
+		}
 		return args;
 	}
 
@@ -10,8 +10,8 @@ import net.sourceforge.cobertura.coveragedata.ProjectData;
 import se.de.hu_berlin.informatik.gen.spectra.modules.AbstractRunTestLocallyModule;
 import se.de.hu_berlin.informatik.java7.testrunner.TestWrapper;
 import se.de.hu_berlin.informatik.junittestutils.data.TestStatistics;
+import se.de.hu_berlin.informatik.stardust.provider.cobertura.coveragedata.CachedTouchCollector;
 import se.de.hu_berlin.informatik.stardust.provider.cobertura.coveragedata.LockableProjectData;
-import se.de.hu_berlin.informatik.stardust.provider.cobertura.coveragedata.MyTouchCollector;
 import se.de.hu_berlin.informatik.utils.miscellaneous.Pair;
 
 /**
@@ -26,6 +26,9 @@ import se.de.hu_berlin.informatik.utils.miscellaneous.Pair;
  */
 public class CoberturaRunTestLocallyModule extends AbstractRunTestLocallyModule<ProjectData> {
 
+	/** the maximum number of times to request the counters of a class until they stay reset */
+	final public static int MAX_RESET_TRY_COUNT = 1000;
+	
 	private Map<Class<?>, Integer> registeredClasses;
 
 	public CoberturaRunTestLocallyModule(final Path dataFile, final String testOutput, final boolean fullSpectra, 
@@ -38,7 +41,7 @@ public class CoberturaRunTestLocallyModule extends AbstractRunTestLocallyModule<
 	@Override
 	public Pair<TestStatistics, ProjectData> getResultAfterTest(TestWrapper testWrapper, TestStatistics testResult) {
 		ProjectData projectData = new LockableProjectData();
-		MyTouchCollector.applyTouchesOnProjectData2(registeredClasses, projectData);
+		CachedTouchCollector.applyTouchesOnProjectData(registeredClasses, projectData);
 		if (testResult.couldBeFinished()) {
 			return new Pair<>(testResult, projectData);
 		} else {
@@ -49,20 +52,7 @@ public class CoberturaRunTestLocallyModule extends AbstractRunTestLocallyModule<
 	@Override
 	public boolean prepareBeforeRunningTest() {
 		//sadly, we have to check if the coverage data has properly been reset...
-		boolean isResetted = false;
-		int maxTryCount = 3;
-		int tryCount = 0;
-		LockableProjectData projectData2 = null;
-		while (!isResetted && tryCount < maxTryCount) {
-			++tryCount;
-			projectData2 = new LockableProjectData();
-			MyTouchCollector.resetTouchesOnProjectData2(registeredClasses, projectData2);
-//			LockableProjectData.resetLines(projectData2);
-			if (!LockableProjectData.containsCoveredLines(projectData2)) {
-				isResetted = true;
-			}
-		}
-		return isResetted;
+		return CachedTouchCollector.resetTouches(registeredClasses, MAX_RESET_TRY_COUNT);
 	}
 
 }
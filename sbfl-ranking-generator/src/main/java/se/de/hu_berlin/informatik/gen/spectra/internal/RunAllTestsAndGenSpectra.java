@@ -46,6 +46,19 @@ public class RunAllTestsAndGenSpectra {
 				+ "these statements are included that are executed by at least one test case.", false),
 		SEPARATE_JVM("jvm", "separateJvm", false, "Set this if each test shall be run in a separate JVM.", false),
 		JAVA7("java7", "onlyJava7", false, "Set this if each test shall only be run in a separate JVM with Java 7 (if Java 7 home directory given).", false),
+		THREAD_COUNT("tc", "threadCount", true, "The number of isolated workers that run disjoint parts of the tests in parallel. "
+				+ "If greater than 1, each worker runs its tests in separate JVMs. Default: 1", false),
+		COVERAGE_STORE("cs", "coverageStore", true, "Path to a directory that stores the coverage of single tests. "
+				+ "Tests with stored coverage for unchanged classes are not executed again.", false),
+		TEST_DURATIONS("dur", "testDurations", true, "Path to a file that stores the durations of single tests. Tests with known durations "
+				+ "are run longest-first (if run in parallel) and with adaptive timeouts. The file is updated after each run.", false),
+		MAX_QUEUED_TRACES("mq", "maxQueuedTraces", true, "Convert the coverage report of each test to a compact trace directly "
+				+ "after running the test and queue at most the given number of traces for the spectra generation. Reduces the memory "
+				+ "usage for big projects. Default: 0 (reports are queued without limit)", false),
+		BYTECODE_TEST_MINING("btm", "bytecodeTestMining", false, "Mine the tests of the classes in the test class list "
+				+ "from their class files in parallel, without loading and initializing the test classes.", false),
+		WORKER_JVM_TESTS("wjt", "workerJvmTests", true, "JaCoCo only: Run the tests that need a separate JVM in a reused worker JVM "
+				+ "that is replaced after a failed test and after the given number of tests. Default: 0 (new JVM for each test)", false),
 //		JAVA7_RUNNER("j7r", "java7Runner", true, "The path to the java 7 runner jar.", false),
 		PROJECT_DIR("pd", "projectDir", true, "Path to the directory of the project under test.", true),
 		SOURCE_DIR("sd", "sourceDir", true, "Relative path to the main directory containing the sources from the project directory.", true),
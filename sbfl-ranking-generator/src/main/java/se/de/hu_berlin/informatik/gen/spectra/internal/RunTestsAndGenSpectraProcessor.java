@@ -13,13 +13,24 @@ import java.util.HashSet;
 import java.util.List;
 import java.util.Objects;
 import java.util.Set;
+import java.util.concurrent.Semaphore;
 
 import se.de.hu_berlin.informatik.java7.testrunner.TestWrapper;
 import se.de.hu_berlin.informatik.gen.spectra.AbstractSpectraGenerationFactory;
 import se.de.hu_berlin.informatik.gen.spectra.internal.RunAllTestsAndGenSpectra.CmdOptions;
 import se.de.hu_berlin.informatik.gen.spectra.main.JaCoCoSpectraGenerator;
+import se.de.hu_berlin.informatik.gen.spectra.modules.AbstractRunSingleTestAndReportModule;
+import se.de.hu_berlin.informatik.gen.spectra.modules.ParallelRunTestsAndReportModule;
+import se.de.hu_berlin.informatik.gen.spectra.modules.RunSingleTestAndConvertReportModule;
+import se.de.hu_berlin.informatik.gen.spectra.modules.TestCoverageStore;
+import se.de.hu_berlin.informatik.gen.spectra.modules.TestScheduler;
 import se.de.hu_berlin.informatik.junittestutils.data.StatisticsData;
+import se.de.hu_berlin.informatik.junittestutils.testlister.mining.BytecodeTestMinerProcessor;
+import se.de.hu_berlin.informatik.junittestutils.testlister.mining.ClassFileIndex;
 import se.de.hu_berlin.informatik.junittestutils.testlister.mining.TestMinerProcessor;
+import se.de.hu_berlin.informatik.stardust.localizer.SourceCodeBlock;
+import se.de.hu_berlin.informatik.stardust.provider.compact.CompactTrace;
+import se.de.hu_berlin.informatik.stardust.provider.compact.NodeIndex;
 import se.de.hu_berlin.informatik.utils.files.FileUtils;
 import se.de.hu_berlin.informatik.utils.files.processors.FileLineProcessor;
 import se.de.hu_berlin.informatik.utils.files.processors.FileLineProcessor.StringProcessor;
@@ -28,6 +39,8 @@ import se.de.hu_berlin.informatik.utils.miscellaneous.Log;
 import se.de.hu_berlin.informatik.utils.miscellaneous.ParentLastClassLoader;
 import se.de.hu_berlin.informatik.utils.optionparser.OptionParser;
 import se.de.hu_berlin.informatik.utils.processors.AbstractConsumingProcessor;
+import se.de.hu_berlin.informatik.utils.processors.AbstractProcessor;
+import se.de.hu_berlin.informatik.utils.processors.basics.ItemCollector;
 import se.de.hu_berlin.informatik.utils.processors.sockets.pipe.PipeLinker;
 import se.de.hu_berlin.informatik.utils.statistics.StatisticsCollector;
 
@@ -60,7 +73,6 @@ public class RunTestsAndGenSpectraProcessor<T extends Serializable,R,S> extends
 		
 		@SuppressWarnings("unused")
 		Path instrumentedDir = getPathAndAddToURLs(options.getOptionValue(CmdOptions.INSTRUMENTED_DIR), cpURLs);
-		@SuppressWarnings("unused")
 		Path testClassDir = getPathAndAddToURLs(options.getOptionValue(CmdOptions.TEST_CLASS_DIR), cpURLs);
 		for (String binaryPathString : pathsToBinaries) {
 			getPathAndAddToURLs(binaryPathString, cpURLs);
@@ -122,39 +134,40 @@ public class RunTestsAndGenSpectraProcessor<T extends Serializable,R,S> extends
 		PipeLinker linker = new PipeLinker();
 		
 		Path testFile = null;
+		// the item to submit to the linker (the test file or the list of test classes)
+		Object testInput = null;
 		// collect the tests
 		if (options.hasOption(CmdOptions.TEST_CLASS_LIST)) { //has option "tc"
 			testFile = options.isFile(CmdOptions.TEST_CLASS_LIST, true);
 			
-			linker.append(
-					new FileLineProcessor<String>(new StringProcessor<String>() {
-						private Set<String> seenClasses = new HashSet<>();
-						private String clazz = null;
-						@Override public boolean process(String clazz) {
-							// only consider top-level classes
-							// child classes will be searched for tests anyway
-							int pos = clazz.indexOf('$');
-							if (pos != -1) {
-								clazz = clazz.substring(0, pos);
-							}
-							// ignore duplicates
-							if (!seenClasses.contains(clazz)) {
-								seenClasses.add(clazz);
-								this.clazz = clazz;
-							} else {
-								this.clazz = null;
-							}
-							return true;
-						}
-						@Override public String getLineResult() {
-							String temp = clazz;
-							clazz = null;
-							return temp;
-						}
-					}),
-					new TestMinerProcessor(testClassLoader, false));
+			if (options.hasOption(CmdOptions.BYTECODE_TEST_MINING)) {
+				// collect all test classes first, such that they can be mined in parallel
+				ItemCollector<String> testClassCollector = new ItemCollector<>();
+				new PipeLinker().append(getTopLevelClassLineProcessor(), testClassCollector)
+				.submitAndShutdown(testFile);
+				testInput = testClassCollector.getCollectedItems();
+				
+				// read the class files without loading the test classes
+				List<Path> classPathElements = new ArrayList<>();
+				if (testClassDir != null) {
+					classPathElements.add(testClassDir);
+				}
+				for (String binaryPathString : pathsToBinaries) {
+					classPathElements.add(new File(binaryPathString).toPath().toAbsolutePath());
+				}
+				classPathElements.addAll(ClassFileIndex.parseClassPath(testClassPath));
+				
+				linker.append(new BytecodeTestMinerProcessor(classPathElements, testClassLoader, false));
+			} else {
+				testInput = testFile;
+				
+				linker.append(
+						getTopLevelClassLineProcessor(),
+						new TestMinerProcessor(testClassLoader, false));
+			}
 		} else { //has option "t"
 			testFile = options.isFile(CmdOptions.TEST_LIST, true);
+			testInput = testFile;
 			
 			linker.append(
 					new FileLineProcessor<TestWrapper>(testClassLoader, new StringProcessor<TestWrapper>() {
@@ -178,23 +191,110 @@ public class RunTestsAndGenSpectraProcessor<T extends Serializable,R,S> extends
 					}));
 		}
 		
+		// coverage of single tests from previous runs may be reused
+		TestCoverageStore<T> coverageStore = null;
+		if (options.hasOption(CmdOptions.COVERAGE_STORE)) {
+			List<Path> classDirs = new ArrayList<>();
+			for (String binaryPathString : pathsToBinaries) {
+				classDirs.add(new File(binaryPathString).toPath().toAbsolutePath());
+			}
+			if (testClassDir != null) {
+				classDirs.add(testClassDir);
+			}
+			coverageStore = new TestCoverageStore<>(
+					Paths.get(options.getOptionValue(CmdOptions.COVERAGE_STORE), factory.getStrategy().toString()), 
+					classDirs, testClassDir);
+		}
+		
+		// durations of single tests from previous runs may be used for scheduling
+		TestScheduler testScheduler = null;
+		if (options.hasOption(CmdOptions.TEST_DURATIONS)) {
+			testScheduler = new TestScheduler(Paths.get(options.getOptionValue(CmdOptions.TEST_DURATIONS)));
+		}
+		
+		// reports may be converted to compact traces directly after running each test
+		int maxQueuedTraces = options.getOptionValueAsInt(CmdOptions.MAX_QUEUED_TRACES, 0);
+		NodeIndex<SourceCodeBlock> nodeIndex = null;
+		Semaphore queuedTraces = null;
+		if (maxQueuedTraces > 0) {
+			nodeIndex = new NodeIndex<>();
+			queuedTraces = new Semaphore(maxQueuedTraces);
+		}
+		
 		// need a special class loader to run the tests...
 		ClassLoader testAndInstrumentClassLoader = testClassLoader;
 		
-		// run tests and collect reports based on used coverage tool
-		linker.append(
-				factory.getTestRunnerModule(options, testAndInstrumentClassLoader, changedTestClassPath, statisticsContainer)
-//				.asPipe(instrumentedClassesLoader)
-				.asPipe().enableTracking().allowOnlyForcedTracks(),
-				factory.getReportToSpectraProcessor(options, statisticsContainer),
-				// save the resulting spectra + reduced/filtered spectra
-				factory.getSpectraProcessor(options))
-		.submitAndShutdown(testFile);
+		int threadCount = options.getOptionValueAsInt(CmdOptions.THREAD_COUNT, 1);
+		if (threadCount > 1) {
+			// collect all tests first, such that they can be split among the workers
+			ItemCollector<TestWrapper> testCollector = new ItemCollector<>();
+			linker.append(testCollector).submitAndShutdown(testInput);
+			
+			List<TestWrapper> tests = testCollector.getCollectedItems();
+			if (testScheduler != null) {
+				// run the longest tests first to reduce the overall execution time
+				tests = testScheduler.sortLongestFirst(tests);
+			}
+			
+			if (nodeIndex != null) {
+				ParallelRunTestsAndReportModule<T, R, CompactTrace> testRunner = factory.getParallelTestRunnerAndConverterModule(
+						options, testAndInstrumentClassLoader, changedTestClassPath, statisticsContainer, threadCount, nodeIndex);
+				testRunner.setProducedItemsLimit(queuedTraces);
+				runTestsInParallel(testRunner, 
+						factory.getCompactTraceToSpectraProcessor(options, nodeIndex, queuedTraces, statisticsContainer), 
+						tests, threadCount, coverageStore, testScheduler, options);
+			} else {
+				ParallelRunTestsAndReportModule<T, R, R> testRunner = factory.getParallelTestRunnerModule(options, 
+						testAndInstrumentClassLoader, changedTestClassPath, statisticsContainer, threadCount);
+				runTestsInParallel(testRunner, 
+						factory.getReportToSpectraProcessor(options, statisticsContainer), 
+						tests, threadCount, coverageStore, testScheduler, options);
+			}
+		} else {
+			// tests are not sorted by their durations here, since the overall execution time of
+			// tests that run one after another does not depend on their order; this way, tests are
+			// run while they are still being collected, and the traces keep the order of the tests
+			AbstractRunSingleTestAndReportModule<T, R> testRunner = factory.getTestRunnerModule(options, 
+					testAndInstrumentClassLoader, changedTestClassPath, statisticsContainer);
+			if (coverageStore != null) {
+				testRunner.setCoverageStore(coverageStore);
+			}
+			if (testScheduler != null) {
+				testRunner.setTestScheduler(testScheduler);
+			}
+			
+			if (nodeIndex != null) {
+				// run tests, convert the reports to compact traces and collect the traces
+				linker.append(
+						new RunSingleTestAndConvertReportModule<>(testRunner, 
+								factory.getReportToCompactTraceConverter(options, nodeIndex), queuedTraces)
+						.asPipe().enableTracking().allowOnlyForcedTracks(),
+						factory.getCompactTraceToSpectraProcessor(options, nodeIndex, queuedTraces, statisticsContainer),
+						// save the resulting spectra + reduced/filtered spectra
+						factory.getSpectraProcessor(options))
+				.submitAndShutdown(testInput);
+			} else {
+				// run tests and collect reports based on used coverage tool
+				linker.append(
+						testRunner
+//						.asPipe(instrumentedClassesLoader)
+						.asPipe().enableTracking().allowOnlyForcedTracks(),
+						factory.getReportToSpectraProcessor(options, statisticsContainer),
+						// save the resulting spectra + reduced/filtered spectra
+						factory.getSpectraProcessor(options))
+				.submitAndShutdown(testInput);
+			}
+		}
+		
+		if (testScheduler != null) {
+			testScheduler.saveDurations();
+		}
 		
 		// print some statistics and stuff...
 		EnumSet<StatisticsData> stringDataEnum = EnumSet.noneOf(StatisticsData.class);
 		stringDataEnum.add(StatisticsData.ERROR_MSG);
 		stringDataEnum.add(StatisticsData.FAILED_TEST_COVERAGE);
+		stringDataEnum.add(StatisticsData.TEST_DURATIONS);
 		String statsWithoutStringData = statisticsContainer.printStatistics(EnumSet.complementOf(stringDataEnum));
 		
 		Log.out(this, statsWithoutStringData);
@@ -207,6 +307,58 @@ public class RunTestsAndGenSpectraProcessor<T extends Serializable,R,S> extends
 		}
 	}
 	
+	private static FileLineProcessor<String> getTopLevelClassLineProcessor() {
+		return new FileLineProcessor<String>(new StringProcessor<String>() {
+			private Set<String> seenClasses = new HashSet<>();
+			private String clazz = null;
+			@Override public boolean process(String clazz) {
+				// only consider top-level classes
+				// child classes will be searched for tests anyway
+				int pos = clazz.indexOf('$');
+				if (pos != -1) {
+					clazz = clazz.substring(0, pos);
+				}
+				// ignore duplicates
+				if (!seenClasses.contains(clazz)) {
+					seenClasses.add(clazz);
+					this.clazz = clazz;
+				} else {
+					this.clazz = null;
+				}
+				return true;
+			}
+			@Override public String getLineResult() {
+				String temp = clazz;
+				clazz = null;
+				return temp;
+			}
+		});
+	}
+	
+	private <O> void runTestsInParallel(ParallelRunTestsAndReportModule<T, R, O> testRunner, 
+			AbstractProcessor<O, S> spectraGenerator, List<TestWrapper> tests, int threadCount, 
+			TestCoverageStore<T> coverageStore, TestScheduler testScheduler, OptionParser options) {
+		if (coverageStore != null) {
+			testRunner.setCoverageStore(coverageStore);
+		}
+		if (testScheduler != null) {
+			testRunner.setTestScheduler(testScheduler);
+		}
+		
+		// run tests in parallel and collect reports (in the order of the tests) based on used coverage tool
+		new PipeLinker().append(
+				testRunner,
+				spectraGenerator,
+				// save the resulting spectra + reduced/filtered spectra
+				factory.getSpectraProcessor(options))
+		.submitAndShutdown(tests);
+		
+		// the output directories of the workers only hold temporary data
+		for (int i = 0; i < threadCount; ++i) {
+			FileUtils.delete(AbstractSpectraGenerationFactory.getWorkerOutputDir(options, i));
+		}
+	}
+	
 	private static Path getPathAndAddToURLs(String stringPath, List<URL> cpURLs) {
 		Path path = null;
 		if (stringPath != null) {
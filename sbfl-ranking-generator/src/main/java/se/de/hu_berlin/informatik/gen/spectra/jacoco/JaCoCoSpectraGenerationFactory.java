@@ -8,6 +8,7 @@ import java.net.UnknownHostException;
 import java.nio.file.Path;
 import java.nio.file.Paths;
 import java.util.Random;
+import java.util.concurrent.Semaphore;
 
 import org.jacoco.agent.AgentJar;
 import org.jacoco.core.runtime.AgentOptions;
@@ -23,10 +24,17 @@ import se.de.hu_berlin.informatik.gen.spectra.jacoco.modules.JaCoCoRunSingleTest
 import se.de.hu_berlin.informatik.gen.spectra.jacoco.modules.SerializableExecFileLoader;
 import se.de.hu_berlin.informatik.gen.spectra.main.JaCoCoSpectraGenerator;
 import se.de.hu_berlin.informatik.gen.spectra.modules.AbstractRunSingleTestAndReportModule;
+import se.de.hu_berlin.informatik.gen.spectra.modules.CompactTraceToSpectraModule;
+import se.de.hu_berlin.informatik.gen.spectra.modules.ReportToCompactTraceConverter;
 import se.de.hu_berlin.informatik.junittestutils.data.StatisticsData;
 import se.de.hu_berlin.informatik.stardust.localizer.SourceCodeBlock;
+import se.de.hu_berlin.informatik.stardust.provider.jacoco.report.JaCoCoReportCompactTraceConverter;
+import se.de.hu_berlin.informatik.stardust.provider.compact.CompactTrace;
+import se.de.hu_berlin.informatik.stardust.provider.compact.CompactTraceProvider;
+import se.de.hu_berlin.informatik.stardust.provider.compact.NodeIndex;
 import se.de.hu_berlin.informatik.stardust.provider.jacoco.report.JaCoCoReportWrapper;
 import se.de.hu_berlin.informatik.stardust.spectra.ISpectra;
+import se.de.hu_berlin.informatik.stardust.spectra.hit.HitSpectra;
 import se.de.hu_berlin.informatik.utils.miscellaneous.Log;
 import se.de.hu_berlin.informatik.utils.optionparser.OptionParser;
 import se.de.hu_berlin.informatik.utils.processors.AbstractConsumingProcessor;
@@ -45,9 +53,23 @@ public class JaCoCoSpectraGenerationFactory extends
 
 	private File jacocoAgentJar = null;
 	private Integer agentPort;
+	private int workerJvmTests;
 
 	public JaCoCoSpectraGenerationFactory(Integer agentPort) {
+		this(agentPort, 0);
+	}
+
+	/**
+	 * @param agentPort
+	 * port to use by the java agent
+	 * @param workerJvmTests
+	 * the number of tests to run in a reused worker JVM before it is replaced,
+	 * if a test has to be run in a separate JVM; 0 if a new JVM shall be
+	 * used for each such test
+	 */
+	public JaCoCoSpectraGenerationFactory(Integer agentPort, int workerJvmTests) {
 		this.agentPort = agentPort;
+		this.workerJvmTests = workerJvmTests;
 		try {
 			jacocoAgentJar = AgentJar.extractToTempLocation();
 		} catch (IOException e) {
@@ -109,6 +131,9 @@ public class JaCoCoSpectraGenerationFactory extends
 
 	@Override
 	public String[] getSpecificArgsForMainTestRunner() {
+		if (workerJvmTests > 0) {
+			return new String[] { CmdOptions.WORKER_JVM_TESTS.asArg(), String.valueOf(workerJvmTests) };
+		}
 		return null;
 	}
 
@@ -116,10 +141,25 @@ public class JaCoCoSpectraGenerationFactory extends
 	public AbstractRunSingleTestAndReportModule<SerializableExecFileLoader, JaCoCoReportWrapper> getTestRunnerModule(
 			OptionParser options, ClassLoader testAndInstrumentClassLoader, String testClassPath,
 			StatisticsCollector<StatisticsData> statisticsContainer) {
-		final Path projectDir = options.isDirectory(CmdOptions.PROJECT_DIR, true);
-		final Path srcDir = options.isDirectory(projectDir, CmdOptions.SOURCE_DIR, true);
 		final String outputDir = options.isDirectory(CmdOptions.OUTPUT, false).toString();
+		return newTestRunnerModule(options, testAndInstrumentClassLoader, testClassPath, statisticsContainer, 
+				outputDir, getAgentPort(options), options.hasOption(CmdOptions.SEPARATE_JVM));
+	}
+
+	@Override
+	public AbstractRunSingleTestAndReportModule<SerializableExecFileLoader, JaCoCoReportWrapper> getIsolatedTestRunnerModule(
+			OptionParser options, ClassLoader testAndInstrumentClassLoader, String testClassPath,
+			StatisticsCollector<StatisticsData> statisticsContainer, int workerIndex) {
+		// each worker gets its own output directory (with its own execution data file)
+		final Path outputDir = getWorkerOutputDir(options, workerIndex);
+		outputDir.toFile().mkdirs();
+		// each test runner module uses up to three ports, starting with the given port
+		int port = getAgentPort(options) + 3 * (workerIndex + 1);
+		return newTestRunnerModule(options, testAndInstrumentClassLoader, testClassPath, statisticsContainer, 
+				outputDir.toString(), port, true);
+	}
 
+	private static int getAgentPort(OptionParser options) {
 		int port = AgentOptions.DEFAULT_PORT;
 		if (options.hasOption(CmdOptions.AGENT_PORT)) {
 			try {
@@ -130,6 +170,14 @@ public class JaCoCoSpectraGenerationFactory extends
 						options.getOptionValue(CmdOptions.AGENT_PORT));
 			}
 		}
+		return port;
+	}
+
+	private static JaCoCoRunSingleTestAndReportModule newTestRunnerModule(OptionParser options, 
+			ClassLoader testAndInstrumentClassLoader, String testClassPath, 
+			StatisticsCollector<StatisticsData> statisticsContainer, String outputDir, int port, boolean useSeparateJVM) {
+		final Path projectDir = options.isDirectory(CmdOptions.PROJECT_DIR, true);
+		final Path srcDir = options.isDirectory(projectDir, CmdOptions.SOURCE_DIR, true);
 
 		return new JaCoCoRunSingleTestAndReportModule(Paths.get(outputDir, "__jacoco.exec").toAbsolutePath(), outputDir,
 				projectDir.toFile(), srcDir.toString(), options.getOptionValues(CmdOptions.ORIGINAL_CLASSES_DIRS), port,
@@ -141,9 +189,10 @@ public class JaCoCoSpectraGenerationFactory extends
 				// File.pathSeparator +
 				testClassPath, options.getOptionValue(CmdOptions.JAVA_HOME_DIR, null),
 				RunTestsAndGenSpectraProcessor.class.getResource("/testrunner.jar").getPath(),
-				options.hasOption(CmdOptions.SEPARATE_JVM), options.hasOption(CmdOptions.JAVA7),
+				useSeparateJVM, options.hasOption(CmdOptions.JAVA7),
 				options.getOptionValueAsInt(CmdOptions.MAX_ERRORS, 0),
-				options.getOptionValues(CmdOptions.FAILING_TESTS), statisticsContainer, testAndInstrumentClassLoader);
+				options.getOptionValues(CmdOptions.FAILING_TESTS), statisticsContainer, testAndInstrumentClassLoader,
+				options.getOptionValueAsInt(CmdOptions.WORKER_JVM_TESTS, 0));
 	}
 
 	@Override
@@ -154,6 +203,24 @@ public class JaCoCoSpectraGenerationFactory extends
 				statisticsContainer);
 	}
 
+	@Override
+	public ReportToCompactTraceConverter<JaCoCoReportWrapper> getReportToCompactTraceConverter(
+			OptionParser options, NodeIndex<SourceCodeBlock> nodeIndex) {
+		return new ReportToCompactTraceConverter<>(
+				new JaCoCoReportCompactTraceConverter(nodeIndex, options.hasOption(CmdOptions.FULL_SPECTRA)), 
+				JaCoCoRunSingleTestAndReportModule.ERROR_WRAPPER);
+	}
+
+	@Override
+	public AbstractProcessor<CompactTrace, ISpectra<SourceCodeBlock, ?>> getCompactTraceToSpectraProcessor(
+			OptionParser options, NodeIndex<SourceCodeBlock> nodeIndex, Semaphore queuedTraces,
+			StatisticsCollector<StatisticsData> statisticsContainer) {
+		return new CompactTraceToSpectraModule(
+				new CompactTraceProvider<>(new HitSpectra<SourceCodeBlock>(), nodeIndex, 
+						options.hasOption(CmdOptions.FULL_SPECTRA)), 
+				queuedTraces, statisticsContainer);
+	}
+
 	private static int getFreePort(final int startPort) {
 		InetAddress inetAddress;
 		try {
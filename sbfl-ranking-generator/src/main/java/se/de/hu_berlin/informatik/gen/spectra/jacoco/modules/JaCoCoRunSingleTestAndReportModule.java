@@ -11,29 +11,29 @@ import java.util.Collection;
 import java.util.List;
 
 import org.jacoco.agent.AgentJar;
-import org.jacoco.core.analysis.Analyzer;
-import org.jacoco.core.analysis.CoverageBuilder;
-import org.jacoco.core.analysis.IBundleCoverage;
-import org.jacoco.core.analysis.IClassCoverage;
+import org.jacoco.core.data.ExecutionData;
 import org.jacoco.core.data.ExecutionDataStore;
 
 import se.de.hu_berlin.informatik.gen.spectra.jacoco.JaCoCoSpectraGenerationFactory;
 import se.de.hu_berlin.informatik.gen.spectra.jacoco.modules.sub.JaCoCoRunTestInNewJVMModule;
 import se.de.hu_berlin.informatik.gen.spectra.jacoco.modules.sub.JaCoCoRunTestInNewJVMModuleWithJava7Runner;
+import se.de.hu_berlin.informatik.gen.spectra.jacoco.modules.sub.JaCoCoRunTestInWorkerJVMModule;
 import se.de.hu_berlin.informatik.gen.spectra.jacoco.modules.sub.JaCoCoRunTestLocallyModule;
 import se.de.hu_berlin.informatik.gen.spectra.main.JaCoCoSpectraGenerator;
 import se.de.hu_berlin.informatik.gen.spectra.modules.AbstractRunSingleTestAndReportModule;
-import se.de.hu_berlin.informatik.gen.spectra.modules.AbstractRunTestInNewJVMModule;
 import se.de.hu_berlin.informatik.gen.spectra.modules.AbstractRunTestInNewJVMModuleWithJava7Runner;
 import se.de.hu_berlin.informatik.gen.spectra.modules.AbstractRunTestLocallyModule;
 import se.de.hu_berlin.informatik.java7.testrunner.TestWrapper;
 import se.de.hu_berlin.informatik.junittestutils.data.StatisticsData;
 import se.de.hu_berlin.informatik.junittestutils.data.TestStatistics;
+import se.de.hu_berlin.informatik.stardust.provider.jacoco.report.JaCoCoProbeTable;
 import se.de.hu_berlin.informatik.stardust.provider.jacoco.report.JaCoCoReportWrapper;
 import se.de.hu_berlin.informatik.utils.miscellaneous.ClassPathParser;
 import se.de.hu_berlin.informatik.utils.miscellaneous.Log;
 import se.de.hu_berlin.informatik.utils.miscellaneous.Misc;
+import se.de.hu_berlin.informatik.utils.miscellaneous.Pair;
 import se.de.hu_berlin.informatik.utils.miscellaneous.SimpleServerFramework;
+import se.de.hu_berlin.informatik.utils.processors.AbstractProcessor;
 import se.de.hu_berlin.informatik.utils.statistics.StatisticsCollector;
 
 /**
@@ -47,6 +47,7 @@ public class JaCoCoRunSingleTestAndReportModule extends AbstractRunSingleTestAnd
 
 	// location of Java class files
 	private List<File> classfiles = new ArrayList<File>();
+	private JaCoCoProbeTable probeTable = null;
 
 	private Path dataFile;
 	private String testOutput;
@@ -59,11 +60,12 @@ public class JaCoCoRunSingleTestAndReportModule extends AbstractRunSingleTestAnd
 	private String javaHome;
 	private ClassLoader cl;
 	private String java7RunnerJar;
+	private int workerJvmTests;
 
 	public JaCoCoRunSingleTestAndReportModule(final Path dataFile, final String testOutput, File projectDir, final String srcDir, String[] originalClasses, int port,
 			final boolean debugOutput, Long timeout, final int repeatCount, String instrumentedClassPath,
 			final String javaHome, final String java7RunnerJar, boolean useSeparateJVMalways, boolean alwaysUseJava7, int maxErrors, String[] failingtests,
-			final StatisticsCollector<StatisticsData> statisticsContainer, ClassLoader cl) {
+			final StatisticsCollector<StatisticsData> statisticsContainer, ClassLoader cl, int workerJvmTests) {
 		super(testOutput, debugOutput, timeout, repeatCount, useSeparateJVMalways, alwaysUseJava7, 
 				maxErrors, failingtests, statisticsContainer, cl);
 		this.dataFile = dataFile;
@@ -77,6 +79,7 @@ public class JaCoCoRunSingleTestAndReportModule extends AbstractRunSingleTestAnd
 		this.javaHome = javaHome;
 		this.java7RunnerJar = java7RunnerJar;
 		this.cl = cl;
+		this.workerJvmTests = workerJvmTests;
 		
 //		this.sourcefiles.add(new File(srcDir));
 		for (String classDirFile : originalClasses) {
@@ -89,45 +92,53 @@ public class JaCoCoRunSingleTestAndReportModule extends AbstractRunSingleTestAnd
 	public JaCoCoReportWrapper generateReport(TestWrapper testWrapper, TestStatistics testStatistics,
 			SerializableExecFileLoader data) {
 		if (data.getExecFileLoader() != null) {
-			// generate the report
-			IBundleCoverage bundle = null;
-			try {
-				bundle = analyze(data.getExecFileLoader().getExecutionDataStore());
-			} catch (IOException e) {
-				Log.abort(this, e, "Analysis failed.");
-			}
-			// try {
-			// writeReports(bundle, execFileLoader);
-			// } catch (IOException e) {
-			// Log.abort(this, e, "Writing reports failed.");
-			// }
+			// map the raw probes to lines with the probe table instead of analyzing all classes again
+			ExecutionDataStore executionData = data.getExecFileLoader().getExecutionDataStore();
+			JaCoCoProbeTable table = getProbeTable();
+			printNoMatchWarning(table, executionData.getContents());
 
-			return new JaCoCoReportWrapper(bundle, testWrapper.toString(), testStatistics.wasSuccessful());
+			return new JaCoCoReportWrapper(executionData, table, testWrapper.toString(), testStatistics.wasSuccessful());
 		} else {
 			return null;
 		}
 	}
 	
-	private IBundleCoverage analyze(final ExecutionDataStore data) throws IOException {
-		final CoverageBuilder builder = new CoverageBuilder();
-		final Analyzer analyzer = new Analyzer(data, builder);
-		for (final File f : classfiles) {
-			analyzer.analyzeAll(f);
+	private JaCoCoProbeTable getProbeTable() {
+		if (probeTable == null) {
+			try {
+				probeTable = new JaCoCoProbeTable(classfiles);
+			} catch (IOException | IllegalStateException e) {
+				Log.abort(this, e, "Analysis failed.");
+			}
 		}
-		printNoMatchWarning(builder.getNoMatchClasses());
-		return builder.getBundle("JaCoCo Report");
+		return probeTable;
 	}
 
-	private void printNoMatchWarning(final Collection<IClassCoverage> nomatch) {
-		if (!nomatch.isEmpty()) {
-			Log.err(this, "Some classes do not match with execution data.");
-			Log.err(this, "For report generation, the same class files must be used as at runtime.");
-			for (final IClassCoverage c : nomatch) {
-				Log.err(this, "Execution data for class %s does not match.", c.getName());
+	private void printNoMatchWarning(final JaCoCoProbeTable table, final Collection<ExecutionData> executionData) {
+		boolean first = true;
+		for (final ExecutionData data : executionData) {
+			if (table.isNoMatch(data)) {
+				if (first) {
+					Log.err(this, "Some classes do not match with execution data.");
+					Log.err(this, "For report generation, the same class files must be used as at runtime.");
+					first = false;
+				}
+				Log.err(this, "Execution data for class %s does not match.", data.getName());
 			}
 		}
 	}
 
+	@Override
+	public Collection<String> getRecordedClasses(SerializableExecFileLoader data) {
+		List<String> recordedClasses = new ArrayList<>();
+		if (data.getExecFileLoader() != null) {
+			for (ExecutionData executionData : data.getExecFileLoader().getExecutionDataStore().getContents()) {
+				recordedClasses.add(executionData.getName().replace('/', '.'));
+			}
+		}
+		return recordedClasses;
+	}
+
 	@Override
 	public JaCoCoReportWrapper getErrorReport() {
 		return ERROR_WRAPPER;
@@ -140,10 +151,14 @@ public class JaCoCoRunSingleTestAndReportModule extends AbstractRunSingleTestAnd
 	}
 	
 	@Override
-	public AbstractRunTestInNewJVMModule<SerializableExecFileLoader> newTestRunInNewJVMModule() {
+	public AbstractProcessor<TestWrapper, Pair<TestStatistics, SerializableExecFileLoader>> newTestRunInNewJVMModule() {
+		String classPath = instrumentedClassPath + File.pathSeparator + new ClassPathParser().parseSystemClasspath().getClasspath();
+		if (workerJvmTests > 0) {
+			return new JaCoCoRunTestInWorkerJVMModule(testOutput, debugOutput, timeout, repeatCount,
+					classPath, projectDir, port+1, workerJvmTests);
+		}
 		return new JaCoCoRunTestInNewJVMModule(testOutput, debugOutput, timeout, repeatCount,
-				instrumentedClassPath + File.pathSeparator + new ClassPathParser().parseSystemClasspath().getClasspath(), 
-				javaHome, projectDir, port+1);
+				classPath, javaHome, projectDir, port+1);
 	}
 
 	@Override
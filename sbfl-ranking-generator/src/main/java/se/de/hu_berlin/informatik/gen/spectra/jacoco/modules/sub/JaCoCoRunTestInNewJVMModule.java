@@ -47,51 +47,18 @@ public class JaCoCoRunTestInNewJVMModule extends AbstractRunTestInNewJVMModuleWi
 	final private ExecuteMainClassInNewJVM executeModule;
 
 	final private String[] args;
+	final private Long timeout;
+	private int timeoutIndex = -1;
 	
 	public JaCoCoRunTestInNewJVMModule(final String testOutput, 
 			final boolean debugOutput, final Long timeout, final int repeatCount, 
 			String instrumentedClassPath, final String javaHome, File projectDir, int port) {
 		super(testOutput);
+		this.timeout = timeout;
 
 		int freePort = SimpleServerFramework.getFreePort(port);
 		
-		if (JaCoCoSpectraGenerationFactory.OFFLINE_INSTRUMENTATION) {
-			this.executeModule = new ExecuteMainClassInNewJVM(
-					//javaHome,
-					null, 
-					TestRunner.class,
-					instrumentedClassPath,
-					projectDir,
-					"-Djacoco-agent.dumponexit=false", 
-					"-Djacoco-agent.output=tcpserver",
-					"-Djacoco-agent.excludes=*",
-					"-Djacoco-agent.port=" + freePort
-					)
-					.setEnvVariable("LC_ALL","en_US.UTF-8")
-					.setEnvVariable("TZ", "America/Los_Angeles");
-		} else {
-			File jacocoAgentJar = null; 
-			try {
-				jacocoAgentJar = AgentJar.extractToTempLocation();
-			} catch (IOException e) {
-				Log.abort(JaCoCoSpectraGenerator.class, e, "Could not create JaCoCo agent jar file.");
-			}
-			
-			this.executeModule = new ExecuteMainClassInNewJVM(
-					//javaHome,
-					null, 
-					TestRunner.class,
-					instrumentedClassPath,
-					projectDir,
-					"-javaagent:" + jacocoAgentJar.getAbsolutePath() 
-					+ "=dumponexit=false,"
-					+ "output=tcpserver,"
-					+ "excludes=se.de.hu_berlin.informatik.*:org.junit.*,"
-					+ "port=" + freePort
-					)
-					.setEnvVariable("LC_ALL","en_US.UTF-8")
-					.setEnvVariable("TZ", "America/Los_Angeles");
-		}
+		this.executeModule = newExecuteModule(TestRunner.class, instrumentedClassPath, projectDir, freePort);
 		
 		int arrayLength = 10;
 		if (timeout != null) {
@@ -119,13 +86,70 @@ public class JaCoCoRunTestInNewJVMModule extends AbstractRunTestInNewJVMModuleWi
 		
 		if (timeout != null) {
 			args[++argCounter] = TestRunner.CmdOptions.TIMEOUT.asArg();
-			args[++argCounter] = String.valueOf(timeout.longValue());
+			timeoutIndex = ++argCounter;
+			args[timeoutIndex] = String.valueOf(timeout.longValue());
 		}
 		if (!debugOutput) {
 			args[++argCounter] = OptionParser.DefaultCmdOptions.SILENCE_ALL.asArg();
 		}
 	}
 	
+	/**
+	 * Creates a module that executes the main method of the given class in a new JVM
+	 * with an attached JaCoCo agent (or the properties for the offline instrumented classes)
+	 * that listens for dump commands on the given port.
+	 * @param mainClass
+	 * the class with the main method to execute
+	 * @param instrumentedClassPath
+	 * the class path to use
+	 * @param projectDir
+	 * the directory to execute the JVM in
+	 * @param agentPort
+	 * the port of the JaCoCo agent
+	 * @return
+	 * the module
+	 */
+	static ExecuteMainClassInNewJVM newExecuteModule(Class<?> mainClass, String instrumentedClassPath, 
+			File projectDir, int agentPort) {
+		if (JaCoCoSpectraGenerationFactory.OFFLINE_INSTRUMENTATION) {
+			return new ExecuteMainClassInNewJVM(
+					//javaHome,
+					null, 
+					mainClass,
+					instrumentedClassPath,
+					projectDir,
+					"-Djacoco-agent.dumponexit=false", 
+					"-Djacoco-agent.output=tcpserver",
+					"-Djacoco-agent.excludes=*",
+					"-Djacoco-agent.port=" + agentPort
+					)
+					.setEnvVariable("LC_ALL","en_US.UTF-8")
+					.setEnvVariable("TZ", "America/Los_Angeles");
+		} else {
+			File jacocoAgentJar = null; 
+			try {
+				jacocoAgentJar = AgentJar.extractToTempLocation();
+			} catch (IOException e) {
+				Log.abort(JaCoCoSpectraGenerator.class, e, "Could not create JaCoCo agent jar file.");
+			}
+			
+			return new ExecuteMainClassInNewJVM(
+					//javaHome,
+					null, 
+					mainClass,
+					instrumentedClassPath,
+					projectDir,
+					"-javaagent:" + jacocoAgentJar.getAbsolutePath() 
+					+ "=dumponexit=false,"
+					+ "output=tcpserver,"
+					+ "excludes=se.de.hu_berlin.informatik.*:org.junit.*,"
+					+ "port=" + agentPort
+					)
+					.setEnvVariable("LC_ALL","en_US.UTF-8")
+					.setEnvVariable("TZ", "America/Los_Angeles");
+		}
+	}
+	
 	@Override
 	public boolean prepareBeforeRunningTest() {
 		//not necessary
@@ -133,9 +157,12 @@ public class JaCoCoRunTestInNewJVMModule extends AbstractRunTestInNewJVMModuleWi
 	}
 	
 	@Override
-	public String[] getArgs(String testClassName, String testMethodName) {	
+	public String[] getArgs(String testClassName, String testMethodName, Long timeout) {	
 		args[1] = testClassName;
 		args[3] = testMethodName;
+		if (timeoutIndex >= 0) {
+			args[timeoutIndex] = String.valueOf(timeout == null ? this.timeout.longValue() : timeout.longValue());
+		}
 		return args;
 	}
 
@@ -264,7 +291,7 @@ public class JaCoCoRunTestInNewJVMModule extends AbstractRunTestInNewJVMModuleWi
 			
 		}
 		
-		private static ExecFileLoader dump(final int port) throws IOException {
+		static ExecFileLoader dump(final int port) throws IOException {
 			final ExecFileLoader loader = new ExecFileLoader();
 			final Socket socket = tryConnect(port);
 			try {
@@ -0,0 +1,402 @@
+/**
+ *
+ */
+package se.de.hu_berlin.informatik.gen.spectra.jacoco.modules.sub;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.net.InetAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+import org.apache.commons.cli.Option;
+import org.jacoco.core.tools.ExecFileLoader;
+
+import se.de.hu_berlin.informatik.gen.spectra.jacoco.modules.SerializableExecFileLoader;
+import se.de.hu_berlin.informatik.java7.testrunner.TestWrapper;
+import se.de.hu_berlin.informatik.junittestutils.data.StatisticsData;
+import se.de.hu_berlin.informatik.junittestutils.data.TestStatistics;
+import se.de.hu_berlin.informatik.junittestutils.testrunner.running.ExtendedTestRunModule;
+import se.de.hu_berlin.informatik.utils.miscellaneous.Log;
+import se.de.hu_berlin.informatik.utils.miscellaneous.Pair;
+import se.de.hu_berlin.informatik.utils.miscellaneous.SimpleServerFramework;
+import se.de.hu_berlin.informatik.utils.optionparser.OptionParser;
+import se.de.hu_berlin.informatik.utils.optionparser.OptionWrapper;
+import se.de.hu_berlin.informatik.utils.optionparser.OptionWrapperInterface;
+import se.de.hu_berlin.informatik.utils.processors.AbstractProcessor;
+import se.de.hu_berlin.informatik.utils.processors.basics.ExecuteMainClassInNewJVM;
+import se.de.hu_berlin.informatik.utils.processors.sockets.ProcessorSocket;
+import se.de.hu_berlin.informatik.utils.statistics.Statistics;
+
+/**
+ * Runs single tests inside a long-lived worker JVM and generates statistics. The worker
+ * receives the tests over a socket connection and runs them one after another. After each
+ * test, the coverage data of the JaCoCo agent is dumped and reset. The worker JVM is replaced
+ * by a new one after a failed test execution and after a set number of tests. A timeout may
+ * be set such that each executed test that runs longer than this timeout will be aborted
+ * and will count as failing. Each test is executed the given number of times, and the
+ * coverage of all executions is combined.
+ *
+ * <p> Each module uses one worker JVM at a time, since the tests are submitted one after
+ * another. When running tests in parallel, each parallel test runner uses its own module
+ * and, thus, its own worker JVM.
+ *
+ * <p> The worker uses a single connection in both directions, and reading the results is
+ * bounded by the timeout of the test. So {@link SimpleServerFramework} is not used here.
+ * It only receives single objects over a new connection each time, and it can not detect a
+ * worker JVM that hangs or dies while the JVM is still expected to send results.
+ *
+ * <p> Since the worker JVM is reused, static initializers are only covered by the first test
+ * in each worker JVM that uses the respective class.
+ *
+ * <p> if the test can't be run at all, this information is given in the
+ * returned statistics, together with an error message.
+ */
+public class JaCoCoRunTestInWorkerJVMModule extends AbstractProcessor<TestWrapper, Pair<TestStatistics, SerializableExecFileLoader>> {
+
+	/** time (in seconds) to wait for a new worker JVM to connect */
+	final private static int WORKER_STARTUP_TIMEOUT = 60;
+	/** time (in seconds) to wait for a worker JVM to shut down */
+	final private static int WORKER_SHUTDOWN_TIMEOUT = 10;
+	/** additional time (in seconds) to wait for the results of a test with a timeout */
+	final private static int RESULT_GRACE_PERIOD = 60;
+
+	final private ExecuteMainClassInNewJVM executeModule;
+	final private String[] args;
+	final private Path resultOutputFile;
+	final private ServerSocket serverSocket;
+	final private Long timeout;
+	final private int maxTestsPerWorker;
+
+	final private ExecutorService processExecutor = Executors.newSingleThreadExecutor();
+	private Future<Integer> workerProcess;
+	private Socket workerSocket;
+	private ObjectOutputStream toWorker;
+	private ObjectInputStream fromWorker;
+	private int workerTestCounter;
+
+	public JaCoCoRunTestInWorkerJVMModule(final String testOutput,
+			final boolean debugOutput, final Long timeout, final int repeatCount,
+			String instrumentedClassPath, File projectDir, int port, int maxTestsPerWorker) {
+		super();
+		this.timeout = timeout;
+		this.maxTestsPerWorker = maxTestsPerWorker;
+		this.resultOutputFile = Paths.get(testOutput).resolve("__workerTestResult.stats.csv").toAbsolutePath();
+
+		ServerSocket server = null;
+		try {
+			server = new ServerSocket(0, 1, InetAddress.getLoopbackAddress());
+		} catch (IOException e) {
+			Log.abort(this, e, "Unable to establish server.");
+		}
+		this.serverSocket = server;
+
+		int freePort = SimpleServerFramework.getFreePort(port);
+
+		this.executeModule = JaCoCoRunTestInNewJVMModule.newExecuteModule(
+				WorkerRunner.class, instrumentedClassPath, projectDir, freePort);
+
+		int arrayLength = 8;
+		if (timeout != null) {
+			++arrayLength;
+			++arrayLength;
+		}
+		if (!debugOutput) {
+			++arrayLength;
+		}
+
+		args = new String[arrayLength];
+
+		int argCounter = -1;
+		args[++argCounter] = WorkerRunner.CmdOptions.OUTPUT.asArg();
+		args[++argCounter] = resultOutputFile.toString();
+
+		args[++argCounter] = WorkerRunner.CmdOptions.PORT.asArg();
+		args[++argCounter] = String.valueOf(serverSocket.getLocalPort());
+
+		args[++argCounter] = WorkerRunner.CmdOptions.AGENT_PORT.asArg();
+		args[++argCounter] = String.valueOf(freePort);
+
+		args[++argCounter] = WorkerRunner.CmdOptions.REPEAT_COUNT.asArg();
+		args[++argCounter] = String.valueOf(repeatCount);
+
+		if (timeout != null) {
+			args[++argCounter] = WorkerRunner.CmdOptions.TIMEOUT.asArg();
+			args[++argCounter] = String.valueOf(timeout.longValue());
+		}
+		if (!debugOutput) {
+			args[++argCounter] = OptionParser.DefaultCmdOptions.SILENCE_ALL.asArg();
+		}
+	}
+
+	/*
+	 * (non-Javadoc)
+	 * @see
+	 * se.de.hu_berlin.informatik.utils.tm.ITransmitter#processItem(java.lang.
+	 * Object)
+	 */
+	@Override
+	public Pair<TestStatistics, SerializableExecFileLoader> processItem(final TestWrapper testWrapper,
+			ProcessorSocket<TestWrapper, Pair<TestStatistics, SerializableExecFileLoader>> socket) {
+		socket.forceTrack(testWrapper.toString());
+
+		boolean startedWorker = false;
+		if (workerSocket == null) {
+			if (!startWorker()) {
+				return getErrorResult(testWrapper, "Starting worker JVM failed.");
+			}
+			startedWorker = true;
+		}
+
+		// the test may have an individual timeout
+		Long testTimeout = testWrapper.getTimeout() == null ? timeout : testWrapper.getTimeout();
+		SerializableExecFileLoader data;
+		try {
+			if (testTimeout != null) {
+				workerSocket.setSoTimeout((int) TimeUnit.SECONDS.toMillis(testTimeout.longValue() + RESULT_GRACE_PERIOD));
+			}
+			toWorker.writeBoolean(true);
+			toWorker.writeUTF(testWrapper.getTestClassName());
+			toWorker.writeUTF(testWrapper.getTestMethodName());
+			toWorker.writeLong(testTimeout == null ? -1 : testTimeout.longValue());
+			toWorker.flush();
+			data = (SerializableExecFileLoader) fromWorker.readObject();
+		} catch (IOException | ClassNotFoundException e) {
+			Log.err(this, e, "Communication with worker JVM failed.");
+			stopWorker();
+			return getErrorResult(testWrapper, "Running test in worker JVM failed.");
+		}
+
+		TestStatistics statistics = new TestStatistics(
+				Statistics.loadAndMergeFromCSV(StatisticsData.class, resultOutputFile));
+		if (startedWorker) {
+			statistics.addStatisticsElement(StatisticsData.WORKER_JVM_STARTS, 1);
+		}
+
+		// replace the worker after a failure (e.g., a timeout), since it may be in an inconsistent state
+		if (data.getExecFileLoader() == null) {
+			stopWorker();
+			return new Pair<>(statistics, null);
+		}
+
+		if (++workerTestCounter >= maxTestsPerWorker) {
+			stopWorker();
+		}
+
+		return new Pair<>(statistics, data);
+	}
+
+	private static Pair<TestStatistics, SerializableExecFileLoader> getErrorResult(
+			TestWrapper testWrapper, String errorMessage) {
+		TestStatistics statistics = new TestStatistics();
+		statistics.addStatisticsElement(StatisticsData.ERROR_MSG, testWrapper + ": " + errorMessage);
+		statistics.addStatisticsElement(StatisticsData.COVERAGE_GENERATION_FAILED, 1);
+		return new Pair<>(statistics, null);
+	}
+
+	private boolean startWorker() {
+		workerTestCounter = 0;
+		workerProcess = processExecutor.submit(() -> executeModule.submit(args).getResult());
+		try {
+			serverSocket.setSoTimeout((int) TimeUnit.SECONDS.toMillis(WORKER_STARTUP_TIMEOUT));
+			workerSocket = serverSocket.accept();
+			toWorker = new ObjectOutputStream(workerSocket.getOutputStream());
+			toWorker.flush();
+			fromWorker = new ObjectInputStream(workerSocket.getInputStream());
+			return true;
+		} catch (IOException e) {
+			Log.err(this, e, "Could not connect to worker JVM.");
+			stopWorker();
+			return false;
+		}
+	}
+
+	private void stopWorker() {
+		if (workerSocket != null) {
+			try {
+				// tell the worker to shut down
+				toWorker.writeBoolean(false);
+				toWorker.flush();
+			} catch (IOException e) {
+				// the worker shuts down anyway when the connection is closed
+			}
+			try {
+				workerSocket.close();
+			} catch (IOException e) {
+				// nothing to do
+			}
+		}
+		if (workerProcess != null) {
+			try {
+				workerProcess.get(WORKER_SHUTDOWN_TIMEOUT, TimeUnit.SECONDS);
+			} catch (TimeoutException e) {
+				Log.warn(this, "Worker JVM did not shut down in time.");
+				workerProcess.cancel(true);
+			} catch (ExecutionException e) {
+				Log.err(this, e, "Worker JVM execution failed.");
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+			}
+		}
+		workerProcess = null;
+		workerSocket = null;
+		toWorker = null;
+		fromWorker = null;
+	}
+
+	@Override
+	public boolean finalShutdown() {
+		stopWorker();
+		processExecutor.shutdownNow();
+		try {
+			serverSocket.close();
+		} catch (IOException e) {
+			// nothing to do
+		}
+		return super.finalShutdown();
+	}
+
+	public final static class WorkerRunner {
+
+		private WorkerRunner() {
+			//disallow instantiation
+		}
+
+		public static enum CmdOptions implements OptionWrapperInterface {
+			/* add options here according to your needs */
+			TIMEOUT("tm", "timeout", true, "A timeout (in seconds) for the execution of each test. Tests that run "
+					+ "longer than the timeout will abort and will count as failing.", false),
+			PORT("p", "port", true, "The port to connect to for receiving tests and sending the execution data.", true),
+			AGENT_PORT("ap", "agentPort", true, "The port to use for connecting to the JaCoCo Java agent.", true),
+			REPEAT_COUNT("rc", "repeatCount", true, "The number of times to execute each test. Default: 1", false),
+			OUTPUT("o", "output", true, "Path to result statistics file.", true);
+
+			/* the following code blocks should not need to be changed */
+			final private OptionWrapper option;
+
+			//adds an option that is not part of any group
+			CmdOptions(final String opt, final String longOpt,
+					final boolean hasArg, final String description, final boolean required) {
+				this.option = new OptionWrapper(
+						Option.builder(opt).longOpt(longOpt).required(required).
+						hasArg(hasArg).desc(description).build(), NO_GROUP);
+			}
+
+			//adds an option that is part of the group with the specified index (positive integer)
+			//a negative index means that this option is part of no group
+			//this option will not be required, however, the group itself will be
+			CmdOptions(final String opt, final String longOpt,
+					final boolean hasArg, final String description, final int groupId) {
+				this.option = new OptionWrapper(
+						Option.builder(opt).longOpt(longOpt).required(false).
+						hasArg(hasArg).desc(description).build(), groupId);
+			}
+
+			//adds the given option that will be part of the group with the given id
+			CmdOptions(final Option option, final int groupId) {
+				this.option = new OptionWrapper(option, groupId);
+			}
+
+			//adds the given option that will be part of no group
+			CmdOptions(final Option option) {
+				this(option, NO_GROUP);
+			}
+
+			@Override public String toString() { return option.getOption().getOpt(); }
+			@Override public OptionWrapper getOptionWrapper() { return option; }
+		}
+
+		/**
+		 * @param args
+		 * command line arguments
+		 */
+		public static void main(final String[] args) {
+
+			final OptionParser options = OptionParser.getOptions("WorkerRunner", false, CmdOptions.class, args);
+
+			final Path outputFile = options.isFile(CmdOptions.OUTPUT, false);
+
+			Integer port = options.getOptionValueAsInt(CmdOptions.PORT);
+			if (port == null) {
+				Log.abort(WorkerRunner.class, "Given port '%s' can not be parsed as an integer.", options.getOptionValue(CmdOptions.PORT));
+			}
+
+			Integer agentPort = options.getOptionValueAsInt(CmdOptions.AGENT_PORT);
+			if (agentPort == null) {
+				Log.abort(WorkerRunner.class, "Given agent port '%s' can not be parsed as an integer.", options.getOptionValue(CmdOptions.AGENT_PORT));
+			}
+
+			ExtendedTestRunModule testRunner = new ExtendedTestRunModule(outputFile.getParent().toString(),
+					true, options.hasOption(CmdOptions.TIMEOUT) ? Long.valueOf(options.getOptionValue(CmdOptions.TIMEOUT)) : null,
+					options.getOptionValueAsInt(CmdOptions.REPEAT_COUNT, 1), null);
+
+			int exitCode = 0;
+			try (Socket socket = new Socket(InetAddress.getLoopbackAddress(), port)) {
+				ObjectOutputStream out = new ObjectOutputStream(socket.getOutputStream());
+				out.flush();
+				ObjectInputStream in = new ObjectInputStream(socket.getInputStream());
+
+				// discard the coverage that was produced while starting up
+				JaCoCoRunTestInNewJVMModule.TestRunner.dump(agentPort);
+
+				// run tests until the shut down signal is received
+				while (in.readBoolean()) {
+					final String testClazz = in.readUTF();
+					final String testName = in.readUTF();
+					final long testTimeout = in.readLong();
+
+					TestStatistics statistics = testRunner
+							.submit(new TestWrapper(new TestWrapper(testClazz, testName), testTimeout < 0 ? null : testTimeout))
+							.getResult();
+
+					ExecFileLoader loader = null;
+					// see if the test was executed and finished execution normally
+					if (statistics.couldBeFinished()) {
+						// wait for some milliseconds
+						try {
+							Thread.sleep(50);
+						} catch (InterruptedException e) {
+							// do nothing
+						}
+						// get execution data and reset it for the next test
+						try {
+							loader = JaCoCoRunTestInNewJVMModule.TestRunner.dump(agentPort);
+						} catch (IOException e) {
+							loader = null;
+							statistics.addStatisticsElement(StatisticsData.COVERAGE_GENERATION_FAILED, 1);
+							Log.err(
+									WorkerRunner.class, e,
+									testClazz + ": Could not request execution data after running test " + testName + ".");
+						}
+					}
+
+					statistics.saveToCSV(outputFile);
+
+					out.writeObject(new SerializableExecFileLoader(loader));
+					out.flush();
+					// do not keep references to the sent objects
+					out.reset();
+				}
+			} catch (IOException e) {
+				Log.err(WorkerRunner.class, e, "Communication with main JVM failed.");
+				exitCode = 1;
+			}
+
+			testRunner.finalShutdown();
+
+			Runtime.getRuntime().exit(exitCode);
+		}
+
+	}
+
+}
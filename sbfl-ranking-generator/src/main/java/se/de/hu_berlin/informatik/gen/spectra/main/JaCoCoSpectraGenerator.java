@@ -36,6 +36,19 @@ final public class JaCoCoSpectraGenerator extends AbstractSpectraGenerator {
 		REPEAT_TESTS("r", "repeatTests", true, "Execute each test a set amount of times to (hopefully) "
 				+ "generate correct coverage data. Default is '1'.", false),
 		MAX_ERRORS("maxErr", "maxErrors", true, "The maximum of test execution errors to tolerate. Default: 0", false),
+		THREAD_COUNT("tc", "threadCount", true, "The number of isolated workers that run disjoint parts of the tests in parallel. "
+				+ "If greater than 1, each worker runs its tests in separate JVMs. Default: 1", false),
+		WORKER_JVM_TESTS("wjt", "workerJvmTests", true, "JaCoCo only: Run the tests that need a separate JVM in a reused worker JVM "
+				+ "that is replaced after a failed test and after the given number of tests. Default: 0 (new JVM for each test)", false),
+		COVERAGE_STORE("cs", "coverageStore", true, "Path to a directory that stores the coverage of single tests. "
+				+ "Tests with stored coverage for unchanged classes are not executed again.", false),
+		TEST_DURATIONS("dur", "testDurations", true, "Path to a file that stores the durations of single tests. Tests with known durations "
+				+ "are run longest-first (if run in parallel) and with adaptive timeouts. The file is updated after each run.", false),
+		MAX_QUEUED_TRACES("mq", "maxQueuedTraces", true, "Convert the coverage report of each test to a compact trace directly "
+				+ "after running the test and queue at most the given number of traces for the spectra generation. Reduces the memory "
+				+ "usage for big projects. Default: 0 (reports are queued without limit)", false),
+		BYTECODE_TEST_MINING("btm", "bytecodeTestMining", false, "Mine the tests of the classes in the test class list "
+				+ "from their class files in parallel, without loading and initializing the test classes.", false),
 		FULL_SPECTRA("f", "fullSpectra", false, "Set this if a full spectra should be generated with all executable statements. Otherwise, only "
 				+ "these statements are included that are executed by at least one test case.", false),
 		SEPARATE_JVM("jvm", "separateJvm", false, "Set this if each test shall be run in a separate JVM.", false),
@@ -116,6 +129,18 @@ final public class JaCoCoSpectraGenerator extends AbstractSpectraGenerator {
 		
 		int maxErrors = options.getOptionValueAsInt(CmdOptions.MAX_ERRORS, 0);
 		
+		int threadCount = options.getOptionValueAsInt(CmdOptions.THREAD_COUNT, 1);
+		
+		String coverageStoreDir = options.getOptionValue(CmdOptions.COVERAGE_STORE, null);
+		
+		String testDurationsFile = options.getOptionValue(CmdOptions.TEST_DURATIONS, null);
+		
+		int maxQueuedTraces = options.getOptionValueAsInt(CmdOptions.MAX_QUEUED_TRACES, 0);
+		
+		boolean useBytecodeTestMining = options.hasOption(CmdOptions.BYTECODE_TEST_MINING);
+		
+		int workerJvmTests = options.getOptionValueAsInt(CmdOptions.WORKER_JVM_TESTS, 0);
+		
 		Integer agentPort = options.getOptionValueAsInt(CmdOptions.AGENT_PORT);
 		
 //		AbstractSpectraGenerationFactory<?, ?> factory = new JaCoCoSpectraGenerationFactory(agentPort);
@@ -127,6 +152,7 @@ final public class JaCoCoSpectraGenerator extends AbstractSpectraGenerator {
 		
 		new Builder()
 		.setAgentPort(agentPort)
+		.setWorkerJvmTests(workerJvmTests)
 		.setProjectDir(projectDir)
 		.setSourceDir(sourceDir)
 		.setTestClassDir(testClassDir)
@@ -141,6 +167,11 @@ final public class JaCoCoSpectraGenerator extends AbstractSpectraGenerator {
 		.setTimeout(timeout)
 		.setTestRepeatCount(testRepeatCount)
 		.setMaxErrors(maxErrors)
+		.setThreadCount(threadCount)
+		.setCoverageStoreDir(coverageStoreDir)
+		.setTestDurationsFile(testDurationsFile)
+		.setMaxQueuedTraces(maxQueuedTraces)
+		.useBytecodeTestMining(useBytecodeTestMining)
 		.setPathsToBinaries(classesToInstrument)
 		.run();
 
@@ -150,15 +181,21 @@ final public class JaCoCoSpectraGenerator extends AbstractSpectraGenerator {
 	public static class Builder extends AbstractBuilder {
 		
 		private Integer agentPort;
+		private int workerJvmTests = 0;
 		
 		public Builder setAgentPort(int agentPort) {
 			this.agentPort = agentPort;
 			return this;
 		}
 		
+		public Builder setWorkerJvmTests(int workerJvmTests) {
+			this.workerJvmTests = workerJvmTests;
+			return this;
+		}
+		
 		@Override
 		public void run() {
-			AbstractSpectraGenerationFactory<?, ?, ?> factory = new JaCoCoSpectraGenerationFactory(agentPort);
+			AbstractSpectraGenerationFactory<?, ?, ?> factory = new JaCoCoSpectraGenerationFactory(agentPort, workerJvmTests);
 			super.run(factory, agentPort);
 		}
 		
@@ -4,8 +4,10 @@
 package se.de.hu_berlin.informatik.gen.spectra.modules;
 
 import java.io.Serializable;
+import java.util.Collection;
 import java.util.HashSet;
 import java.util.Set;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import se.de.hu_berlin.informatik.java7.testrunner.TestWrapper;
 import se.de.hu_berlin.informatik.junittestutils.data.StatisticsData;
@@ -29,22 +31,27 @@ public abstract class AbstractRunSingleTestAndReportModule<T extends Serializabl
 	final private static int UNFINISHED_EXECUTION = 1;
 	final private static int WRONG_COVERAGE = 2;
 	final private static int CORRECT_EXECUTION = 3;
+	final private static int TIMEOUT_REACHED = 4;
 
 	private int currentState = UNDEFINED_COVERAGE;
 	
 	final private boolean alwaysUseSeparateJVM;
 	private boolean alwaysUseJava7;
+	final private Long timeout;
 	
 	private int testCounter = 0;
 	
 	final private Set<String> knownFailingtests;
-	private int failedTestCounter = 0;
+	private AtomicInteger failedTestCounter = new AtomicInteger(0);
 	private boolean testErrorOccurred = false;
-	private int testErrorCounter = 0;
+	private AtomicInteger testErrorCounter = new AtomicInteger(0);
 	
 	private AbstractRunTestLocallyModule<T> testRunLocallyModule;
-	private AbstractRunTestInNewJVMModule<T> testRunInNewJVMModule;
+	private AbstractProcessor<TestWrapper, Pair<TestStatistics, T>> testRunInNewJVMModule;
 	private AbstractRunTestInNewJVMModuleWithJava7Runner<T> testRunInNewJVMModuleWithJava7Runner;
+	
+	private TestCoverageStore<T> coverageStore = null;
+	private TestScheduler testScheduler = null;
 
 	private int maxErrors;
 
@@ -67,6 +74,43 @@ public abstract class AbstractRunSingleTestAndReportModule<T extends Serializabl
 		
 		this.alwaysUseJava7 = alwaysUseJava7;
 		
+		this.timeout = timeout;
+	}
+	
+	/**
+	 * Lets this module share the counters of failed tests and test execution errors
+	 * with the given module. This is used if multiple modules run disjoint parts of
+	 * the same list of tests, such that the maximum number of errors and the number
+	 * of known failing tests apply to all tests combined.
+	 * @param other
+	 * the module to share the counters with
+	 */
+	void shareCountersWith(AbstractRunSingleTestAndReportModule<T, R> other) {
+		this.failedTestCounter = other.failedTestCounter;
+		this.testErrorCounter = other.testErrorCounter;
+	}
+	
+	/**
+	 * Sets a store that holds the coverage data of previous test runs. Tests with
+	 * stored coverage data for unchanged classes are not run again, and the coverage
+	 * data of all other successfully executed tests is added to the store.
+	 * @param coverageStore
+	 * the coverage store (may be shared between modules that run tests in parallel)
+	 */
+	public void setCoverageStore(TestCoverageStore<T> coverageStore) {
+		this.coverageStore = coverageStore;
+	}
+	
+	/**
+	 * Sets a scheduler that holds the durations of the tests in previous runs. Tests with a
+	 * known duration are first run with an adaptive timeout (and with the default timeout
+	 * again after a failed execution), and the durations of all tests are recorded. Tests
+	 * that already reached the default timeout are not run again.
+	 * @param testScheduler
+	 * the test scheduler (may be shared between modules that run tests in parallel)
+	 */
+	public void setTestScheduler(TestScheduler testScheduler) {
+		this.testScheduler = testScheduler;
 	}
 	
 	private AbstractRunTestLocallyModule<T> getTestRunLocallyModule() {
@@ -76,7 +120,7 @@ public abstract class AbstractRunSingleTestAndReportModule<T extends Serializabl
 		return testRunLocallyModule;
 	}
 	
-	private AbstractRunTestInNewJVMModule<T> getTestRunInNewJVMModule() {
+	private AbstractProcessor<TestWrapper, Pair<TestStatistics, T>> getTestRunInNewJVMModule() {
 		if (testRunInNewJVMModule == null) {
 			testRunInNewJVMModule = newTestRunInNewJVMModule();
 		}
@@ -90,11 +134,26 @@ public abstract class AbstractRunSingleTestAndReportModule<T extends Serializabl
 		return testRunInNewJVMModuleWithJava7Runner;
 	}
 	
-	public abstract AbstractRunTestInNewJVMModule<T> newTestRunInNewJVMModule();
+	/**
+	 * @return
+	 * a module that runs single tests in a separate JVM, e.g., an {@link AbstractRunTestInNewJVMModule}
+	 */
+	public abstract AbstractProcessor<TestWrapper, Pair<TestStatistics, T>> newTestRunInNewJVMModule();
 	
 	public abstract AbstractRunTestLocallyModule<T> newTestRunLocallyModule();
 	
 	public abstract AbstractRunTestInNewJVMModuleWithJava7Runner<T> newTestRunInNewJVMModuleWithJava7Runner();	
+	
+	/**
+	 * @param data
+	 * coverage data of a single test
+	 * @return
+	 * the (binary) names of all classes that are contained in the coverage data,
+	 * including classes that have not been covered by the test; the coverage data
+	 * is stored as a whole, such that reports of reused tests contain the same
+	 * (uncovered) lines as reports of executed tests
+	 */
+	public abstract Collection<String> getRecordedClasses(T data);
 
 	private void addKnownFailingTests(String[] failingtests) {
 		for (String failingTest : failingtests) {
@@ -118,18 +177,43 @@ public abstract class AbstractRunSingleTestAndReportModule<T extends Serializabl
 		++testCounter;
 //		Log.out(this, "Now processing: '%s'.", testWrapper);
 
-		if (testErrorCounter <= maxErrors) {
+		if (testErrorCounter.get() <= maxErrors) {
 			TestStatistics testStatistics = new TestStatistics();
+			
+			if (coverageStore != null) {
+				Pair<TestStatistics, T> storedResult = coverageStore.load(testWrapper);
+				if (storedResult != null) {
+					testStatistics.mergeWith(storedResult.first());
+					// the expected outcome of the test may have changed
+					if (!testResultErrorOccurred(testWrapper, testStatistics, false)) {
+						testStatistics.addStatisticsElement(StatisticsData.REUSED_COVERAGE, 1);
+						if (testScheduler != null) {
+							testScheduler.addDuration(testWrapper, testStatistics, timeout);
+						}
+						addStatistics(testStatistics);
+						return generateReport(testWrapper, testStatistics, storedResult.second());
+					}
+					testStatistics = new TestStatistics();
+				}
+			}
 
 			currentState = UNDEFINED_COVERAGE;
+			
+			// tests with known durations may be run with an adaptive timeout
+			TestWrapper scheduledTest = testScheduler == null ? testWrapper : 
+				testScheduler.getTestWithAdaptiveTimeout(testWrapper, timeout, testStatistics);
 
 			T projectData;
 			if (alwaysUseJava7) {
-				projectData = runTestInJVMWithJava7(testWrapper, testStatistics, false);
+				projectData = runTestInJVMWithJava7(scheduledTest, testStatistics, false);
 			} else if (alwaysUseSeparateJVM) {
-				projectData = runTestInJVM(testWrapper, testStatistics, false);
+				projectData = runTestInJVM(scheduledTest, testStatistics, false);
 			} else {
-				projectData = runTestLocally(testWrapper, testStatistics);
+				projectData = runTestLocally(scheduledTest, testStatistics);
+			}
+			
+			if (testScheduler != null) {
+				testScheduler.addDuration(testWrapper, testStatistics, timeout);
 			}
 
 			// check for successful test execution
@@ -137,7 +221,7 @@ public abstract class AbstractRunSingleTestAndReportModule<T extends Serializabl
 			testErrorOccurred |= errorOccurred;
 
 			if (errorOccurred) {
-				++testErrorCounter;
+				testErrorCounter.incrementAndGet();
 			}
 
 			boolean testResultError = testResultErrorOccurred(testWrapper, testStatistics, true);
@@ -146,14 +230,16 @@ public abstract class AbstractRunSingleTestAndReportModule<T extends Serializabl
 				Log.err(this, testStatistics.getErrorMsg());
 			}
 
-			if (statisticsContainer != null) {
-				statisticsContainer.addStatistics(testStatistics);
-			}
+			addStatistics(testStatistics);
 
 			//don't produce reports for wrong test data or tests with unexpected outcome
 			if (testResultError || !isCorrectData(projectData)) {
 				return null;
 			} else {
+				if (coverageStore != null && !errorOccurred) {
+					coverageStore.store(testWrapper, testStatistics, 
+							projectData, getRecordedClasses(projectData));
+				}
 				return generateReport(testWrapper, testStatistics, projectData);
 			}
 		} else {
@@ -161,12 +247,21 @@ public abstract class AbstractRunSingleTestAndReportModule<T extends Serializabl
 			if (statisticsContainer != null) {
 				TestStatistics testStatistics = new TestStatistics();
 				testStatistics.addStatisticsElement(StatisticsData.SKIPPED, 1);
-				statisticsContainer.addStatistics(testStatistics);
+				addStatistics(testStatistics);
 			}
 			return null;
 		}
 	}
 
+	private void addStatistics(TestStatistics testStatistics) {
+		if (statisticsContainer != null) {
+			// the container may be shared between modules that run in parallel
+			synchronized (statisticsContainer) {
+				statisticsContainer.addStatistics(testStatistics);
+			}
+		}
+	}
+
 	public abstract R generateReport(TestWrapper testWrapper, TestStatistics testStatistics, T data);
 
 	private boolean testResultErrorOccurred(final TestWrapper testWrapper, TestStatistics testStatistics, boolean log) {
@@ -186,7 +281,7 @@ public abstract class AbstractRunSingleTestAndReportModule<T extends Serializabl
 						}
 					} else {
 						if (knownFailingtests.contains(testName)) {
-							++failedTestCounter;
+							failedTestCounter.incrementAndGet();
 						} else {
 							if (log) {
 								testStatistics.addStatisticsElement(StatisticsData.ERROR_MSG, 
@@ -257,8 +352,11 @@ public abstract class AbstractRunSingleTestAndReportModule<T extends Serializabl
 		
 		projectData = runTestWithRunner(testWrapper, testStatistics, getTestRunLocallyModule());
 		
+		if (reachedDefaultTimeout(testWrapper)) {
+			return projectData;
+		}
 		if(!isCorrectData(projectData) || testResultErrorOccurred(testWrapper, testStatistics, false)) {
-			projectData = runTestInJVM(testWrapper, testStatistics, true);
+			projectData = runTestInJVM(withDefaultTimeout(testWrapper), testStatistics, true);
 		}
 		
 		return projectData;
@@ -275,8 +373,11 @@ public abstract class AbstractRunSingleTestAndReportModule<T extends Serializabl
 		projectData = runTestWithRunner(testWrapper, testStatistics, getTestRunInNewJVMModule());
 		testStatistics.addStatisticsElement(StatisticsData.SEPARATE_JVM, 1);
 
+		if (reachedDefaultTimeout(testWrapper)) {
+			return projectData;
+		}
 		if(!isCorrectData(projectData) || testResultErrorOccurred(testWrapper, testStatistics, false)) {
-			projectData = runTestInJVMWithJava7(testWrapper, testStatistics, true);
+			projectData = runTestInJVMWithJava7(withDefaultTimeout(testWrapper), testStatistics, true);
 		}
 
 		return projectData;
@@ -296,6 +397,16 @@ public abstract class AbstractRunSingleTestAndReportModule<T extends Serializabl
 		return projectData;
 	}
 	
+	private boolean reachedDefaultTimeout(TestWrapper testWrapper) {
+		// with a scheduler, a test that had a timeout with the default timeout is not run again
+		return testScheduler != null && !testScheduler.mayRunAgain(testWrapper, currentState == TIMEOUT_REACHED);
+	}
+	
+	private static TestWrapper withDefaultTimeout(TestWrapper testWrapper) {
+		// after a failed execution, the test is run again with the default timeout
+		return testWrapper.getTimeout() == null ? testWrapper : new TestWrapper(testWrapper, null);
+	}
+	
 	private T runTestWithRunner(TestWrapper testWrapper, TestStatistics testStatistics, AbstractProcessor<TestWrapper, Pair<TestStatistics, T>> testrunner) {
 		T projectData = null;
 //		FileUtils.delete(dataFile);
@@ -312,6 +423,8 @@ public abstract class AbstractRunSingleTestAndReportModule<T extends Serializabl
 				projectData = testResult.second();
 				currentState = CORRECT_EXECUTION;
 			}
+		} else if (testResult.first().timeoutOccurred()) {
+			currentState = TIMEOUT_REACHED;
 		} else {
 			currentState = UNFINISHED_EXECUTION;
 		}
@@ -323,14 +436,14 @@ public abstract class AbstractRunSingleTestAndReportModule<T extends Serializabl
 	@Override
 	public R getResultFromCollectedItems() {
 		// in the end, check if number of failing tests is correct (if given)
-		if (testErrorCounter > maxErrors) {
+		if (testErrorCounter.get() > maxErrors) {
 			Log.err(this, "Some tests were not successfully executed! (> %d)", maxErrors);
 			return getErrorReport();
 		}
 		if (knownFailingtests != null) {
-			if (knownFailingtests.size() > failedTestCounter) {
+			if (knownFailingtests.size() > failedTestCounter.get()) {
 				Log.err(this, "Not all specified failing tests have been executed! Expected: %d, Actual: %d", 
-						knownFailingtests.size(), failedTestCounter);
+						knownFailingtests.size(), failedTestCounter.get());
 				return getErrorReport();
 			}
 		}
@@ -54,7 +54,7 @@ public abstract class AbstractRunTestInNewJVMModule<T extends Serializable>
 		// Log.out(this, "Now processing: '%s'.", testWrapper);
 		int result = -1;
 
-		String[] args = getArgs(testWrapper.getTestClassName(), testWrapper.getTestMethodName());
+		String[] args = getArgs(testWrapper.getTestClassName(), testWrapper.getTestMethodName(), testWrapper.getTimeout());
 		
 		boolean preparationSucceeded = prepareBeforeRunningTest();
 
@@ -75,7 +75,18 @@ public abstract class AbstractRunTestInNewJVMModule<T extends Serializable>
 	
 	public abstract boolean prepareBeforeRunningTest();
 
-	public abstract String[] getArgs(String testClassName, String testMethodName);
+	/**
+	 * @param testClassName
+	 * the name of the test class
+	 * @param testMethodName
+	 * the name of the test method
+	 * @param timeout
+	 * an individual timeout (in seconds) for the test; {@code null} if the default timeout shall be used
+	 * (an individual timeout is only applied if a default timeout has been set)
+	 * @return
+	 * the arguments for the main class that runs the test
+	 */
+	public abstract String[] getArgs(String testClassName, String testMethodName, Long timeout);
 
 	public abstract ExecuteMainClassInNewJVM getMain();
 
@@ -31,12 +31,14 @@ public abstract class AbstractRunTestInNewJVMModuleWithJava7Runner<T extends Ser
 	final private ExecuteMainClassInNewJVM executeModule;
 
 	final private String[] args;
+	final private Long timeout;
 	
 	public AbstractRunTestInNewJVMModuleWithJava7Runner(final String testOutput, 
 			final boolean debugOutput, final Long timeout, final int repeatCount, 
 			String instrumentedClassPath, final Path dataFile, final String javaHome, File projectDir,
 			String... properties) {
 		super(testOutput);
+		this.timeout = timeout;
 		
 		this.executeModule = new ExecuteMainClassInNewJVM(
 				javaHome,
@@ -66,9 +68,12 @@ public abstract class AbstractRunTestInNewJVMModuleWithJava7Runner<T extends Ser
 	}
 	
 	@Override
-	public String[] getArgs(String testClassName, String testMethodName) {	
+	public String[] getArgs(String testClassName, String testMethodName, Long timeout) {	
 		args[0] = testClassName;
 		args[1] = testMethodName;
+		if (this.timeout != null) {
+			args[3] = String.valueOf(timeout == null ? this.timeout : timeout);
+		}
 		return args;
 	}
 
@@ -0,0 +1,86 @@
+/**
+ *
+ */
+package se.de.hu_berlin.informatik.gen.spectra.modules;
+
+import java.util.concurrent.Semaphore;
+
+import se.de.hu_berlin.informatik.junittestutils.data.StatisticsData;
+import se.de.hu_berlin.informatik.stardust.localizer.SourceCodeBlock;
+import se.de.hu_berlin.informatik.stardust.provider.compact.CompactTrace;
+import se.de.hu_berlin.informatik.stardust.provider.compact.CompactTraceProvider;
+import se.de.hu_berlin.informatik.stardust.spectra.ISpectra;
+import se.de.hu_berlin.informatik.utils.miscellaneous.Log;
+import se.de.hu_berlin.informatik.utils.processors.AbstractProcessor;
+import se.de.hu_berlin.informatik.utils.statistics.StatisticsCollector;
+
+/**
+ * Adds compact traces to a provider and generates the spectra in the end. Releases a
+ * permit of the given semaphore for each received trace, such that the producing
+ * module may queue the next trace.
+ *
+ * @see RunSingleTestAndConvertReportModule
+ */
+public class CompactTraceToSpectraModule extends AbstractProcessor<CompactTrace, ISpectra<SourceCodeBlock, ?>> {
+
+	final private CompactTraceProvider<SourceCodeBlock, ?> provider;
+	final private Semaphore queuedTraces;
+	StatisticsCollector<StatisticsData> statisticsContainer;
+	private boolean errorState = false;
+
+	/**
+	 * @param provider
+	 * the provider to add the traces to
+	 * @param queuedTraces
+	 * permits for the traces that may be queued at the same time
+	 * @param statisticsContainer
+	 * a container for collecting statistics
+	 */
+	public CompactTraceToSpectraModule(CompactTraceProvider<SourceCodeBlock, ?> provider, 
+			Semaphore queuedTraces, StatisticsCollector<StatisticsData> statisticsContainer) {
+		super();
+		this.provider = provider;
+		this.queuedTraces = queuedTraces;
+		this.statisticsContainer = statisticsContainer;
+	}
+
+	/* (non-Javadoc)
+	 * @see se.de.hu_berlin.informatik.utils.tm.ITransmitter#processItem(java.lang.Object)
+	 */
+	@Override
+	public ISpectra<SourceCodeBlock, ?> processItem(final CompactTrace trace) {
+		queuedTraces.release();
+
+		if (trace == CompactTrace.ERROR) {
+			errorState = true;
+			return null;
+		}
+
+		if (!provider.addData(trace)) {
+			Log.err(this, "Could not add trace '%s'.", trace.getIdentifier());
+			throw new IllegalStateException("Adding a trace failed. Can not provide correct spectra.");
+		}
+
+		return null;
+	}
+
+	@Override
+	public ISpectra<SourceCodeBlock, ?> getResultFromCollectedItems() {
+		if (errorState) {
+			Log.err(this, "Providing the spectra failed.");
+			return null;
+		}
+
+		try {
+			ISpectra<SourceCodeBlock, ?> spectra = provider.loadSpectra();
+			if (statisticsContainer != null && spectra != null) {
+				statisticsContainer.addStatisticsElement(StatisticsData.NODES, spectra.getNodes().size());
+			}
+			return spectra;
+		} catch (IllegalStateException e) {
+			Log.err(this, e, "Providing the spectra failed.");
+		}
+		return null;
+	}
+
+}
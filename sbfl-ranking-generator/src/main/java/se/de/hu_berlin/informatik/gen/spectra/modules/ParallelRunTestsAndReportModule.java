@@ -0,0 +1,217 @@
+/**
+ *
+ */
+package se.de.hu_berlin.informatik.gen.spectra.modules;
+
+import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+
+import se.de.hu_berlin.informatik.java7.testrunner.TestWrapper;
+import se.de.hu_berlin.informatik.utils.miscellaneous.Log;
+import se.de.hu_berlin.informatik.utils.processors.AbstractProcessor;
+import se.de.hu_berlin.informatik.utils.processors.sockets.ProcessorSocket;
+
+/**
+ * Runs a list of tests with multiple isolated test runner modules in parallel.
+ * Each worker runs in its own thread and takes the next test from the list as
+ * soon as it has finished its previous test, such that the workers are kept busy
+ * if the tests have different durations (e.g., if the list of tests is sorted
+ * longest-first). The generated reports are converted in the worker threads with
+ * the converter of the respective worker and are produced in the order of the given
+ * list of tests, independent of the order in which the workers finish.
+ *
+ * <p>
+ * The workers have to be isolated from each other, i.e., they have to run the
+ * tests in separate JVMs and use their own output directories, data files and
+ * ports.
+ *
+ * <p>
+ * If a semaphore for the produced items is set, a permit is acquired for each
+ * produced item, and the module that consumes the items has to release it.
+ *
+ *
+ * @param <T>
+ * the type of coverage data object that is collected
+ * @param <R>
+ * the type of coverage report object that is generated by the workers
+ * @param <O>
+ * the type of the produced (converted) reports
+ */
+public class ParallelRunTestsAndReportModule<T extends Serializable, R, O> extends AbstractProcessor<List<TestWrapper>, O> {
+
+	/** the maximum number of reports that each worker may compute in advance */
+	final private static int REPORTS_IN_FLIGHT_PER_WORKER = 4;
+
+	final private List<AbstractRunSingleTestAndReportModule<T, R>> workers;
+	final private List<? extends Function<R, O>> converters;
+	private Semaphore producedItems = null;
+
+	/**
+	 * Creates a new module that distributes the tests among the given workers.
+	 * @param workers
+	 * the isolated test runner modules
+	 * @param converters
+	 * a converter for the reports of each worker
+	 */
+	public ParallelRunTestsAndReportModule(List<AbstractRunSingleTestAndReportModule<T, R>> workers,
+			List<? extends Function<R, O>> converters) {
+		super();
+		if (workers.isEmpty()) {
+			Log.abort(this, "No test runner modules given.");
+		}
+		if (converters.size() != workers.size()) {
+			Log.abort(this, "Number of converters (%d) does not match number of workers (%d).", 
+					converters.size(), workers.size());
+		}
+		this.workers = workers;
+		this.converters = converters;
+		for (int i = 1; i < workers.size(); ++i) {
+			workers.get(i).shareCountersWith(workers.get(0));
+		}
+	}
+
+	/**
+	 * Sets a store that holds the coverage data of previous test runs for all workers.
+	 * @param coverageStore
+	 * the coverage store
+	 * @see AbstractRunSingleTestAndReportModule#setCoverageStore(TestCoverageStore)
+	 */
+	public void setCoverageStore(TestCoverageStore<T> coverageStore) {
+		for (AbstractRunSingleTestAndReportModule<T, R> worker : workers) {
+			worker.setCoverageStore(coverageStore);
+		}
+	}
+
+	/**
+	 * Sets a scheduler that holds the durations of the tests in previous runs for all workers.
+	 * @param testScheduler
+	 * the test scheduler
+	 * @see AbstractRunSingleTestAndReportModule#setTestScheduler(TestScheduler)
+	 */
+	public void setTestScheduler(TestScheduler testScheduler) {
+		for (AbstractRunSingleTestAndReportModule<T, R> worker : workers) {
+			worker.setTestScheduler(testScheduler);
+		}
+	}
+
+	/**
+	 * Limits the number of produced items that have not been consumed yet. The module
+	 * that consumes the items has to release a permit of the given semaphore for each
+	 * received item.
+	 * @param producedItems
+	 * permits for the items that may be queued at the same time
+	 */
+	public void setProducedItemsLimit(Semaphore producedItems) {
+		this.producedItems = producedItems;
+	}
+
+	/* (non-Javadoc)
+	 * @see se.de.hu_berlin.informatik.utils.tm.ITransmitter#processItem(java.lang.Object)
+	 */
+	@Override
+	public O processItem(final List<TestWrapper> tests, ProcessorSocket<List<TestWrapper>, O> socket) {
+		int workerCount = workers.size();
+		List<CompletableFuture<O>> results = new ArrayList<>(tests.size());
+		for (int i = 0; i < tests.size(); ++i) {
+			results.add(new CompletableFuture<>());
+		}
+		// limits the number of reports that are computed in advance
+		Semaphore reportsInFlight = new Semaphore(workerCount * REPORTS_IN_FLIGHT_PER_WORKER);
+		AtomicInteger nextTest = new AtomicInteger(0);
+
+		ExecutorService executor = Executors.newFixedThreadPool(workerCount);
+		try {
+			for (int i = 0; i < workerCount; ++i) {
+				final AbstractRunSingleTestAndReportModule<T, R> worker = workers.get(i);
+				final Function<R, O> converter = converters.get(i);
+				executor.submit(() -> runTests(worker, converter, tests, nextTest, reportsInFlight, results));
+			}
+
+			// collect the reports in the order of the tests
+			for (int i = 0; i < tests.size(); ++i) {
+				O report;
+				try {
+					report = results.get(i).get();
+				} catch (ExecutionException e) {
+					Log.abort(this, e.getCause(), "Running test '%s' failed.", tests.get(i));
+					return null;
+				}
+				if (report != null) {
+					acquireProducedItem();
+					socket.produce(report);
+				}
+				reportsInFlight.release();
+			}
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			Log.abort(this, e, "Interrupted while waiting for test results.");
+		} finally {
+			executor.shutdownNow();
+		}
+
+		return null;
+	}
+
+	private void acquireProducedItem() throws InterruptedException {
+		if (producedItems != null) {
+			producedItems.acquire();
+		}
+	}
+
+	private static <T extends Serializable, R, O> void runTests(AbstractRunSingleTestAndReportModule<T, R> worker,
+			Function<R, O> converter, List<TestWrapper> tests, AtomicInteger nextTest, Semaphore reportsInFlight, 
+			List<CompletableFuture<O>> results) {
+		try {
+			while (true) {
+				reportsInFlight.acquire();
+				int i = nextTest.getAndIncrement();
+				if (i >= tests.size()) {
+					reportsInFlight.release();
+					return;
+				}
+				try {
+					results.get(i).complete(converter.apply(worker.submit(tests.get(i)).getResult()));
+				} catch (RuntimeException | Error e) {
+					// this worker does not run any more tests
+					results.get(i).completeExceptionally(e);
+					return;
+				}
+			}
+		} catch (InterruptedException e) {
+			// the results are not needed anymore
+			Thread.currentThread().interrupt();
+		}
+	}
+
+	@Override
+	public O getResultFromCollectedItems() {
+		// all workers share the same counters, so it suffices to check the first one
+		O result = converters.get(0).apply(workers.get(0).getResultFromCollectedItems());
+		if (result != null) {
+			try {
+				acquireProducedItem();
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+				Log.abort(this, e, "Interrupted while waiting for produced items to be consumed.");
+			}
+		}
+		return result;
+	}
+
+	@Override
+	public boolean finalShutdown() {
+		for (AbstractRunSingleTestAndReportModule<T, R> worker : workers) {
+			worker.finalShutdown();
+		}
+		return super.finalShutdown();
+	}
+
+}
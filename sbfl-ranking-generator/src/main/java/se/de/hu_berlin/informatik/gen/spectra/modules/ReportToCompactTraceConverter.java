@@ -0,0 +1,57 @@
+/**
+ *
+ */
+package se.de.hu_berlin.informatik.gen.spectra.modules;
+
+import java.util.function.Function;
+
+import se.de.hu_berlin.informatik.stardust.provider.compact.AbstractCompactTraceConverter;
+import se.de.hu_berlin.informatik.stardust.provider.compact.CompactTrace;
+import se.de.hu_berlin.informatik.utils.miscellaneous.Log;
+
+/**
+ * Converts the coverage reports of single tests to compact traces, such that the
+ * reports can be released directly after the respective test has been run.
+ * The error report of a test runner module is converted to {@link CompactTrace#ERROR}.
+ *
+ * <p>
+ * A converter is not thread-safe, so each test runner module needs its own converter.
+ *
+ *
+ * @param <R>
+ * the type of coverage report object
+ */
+public class ReportToCompactTraceConverter<R> implements Function<R, CompactTrace> {
+
+	final private AbstractCompactTraceConverter<?, R> converter;
+	final private R errorReport;
+
+	/**
+	 * @param converter
+	 * the converter to use for the reports
+	 * @param errorReport
+	 * the report that denotes an error in the test runner module
+	 */
+	public ReportToCompactTraceConverter(AbstractCompactTraceConverter<?, R> converter, R errorReport) {
+		super();
+		this.converter = converter;
+		this.errorReport = errorReport;
+	}
+
+	@Override
+	public CompactTrace apply(R report) {
+		if (report == null) {
+			return null;
+		}
+		if (report == errorReport) {
+			return CompactTrace.ERROR;
+		}
+		CompactTrace trace = converter.convert(report);
+		if (trace == null) {
+			Log.err(this, "Could not convert report.");
+			throw new IllegalStateException("Converting a report failed. Can not provide correct spectra.");
+		}
+		return trace;
+	}
+
+}
@@ -0,0 +1,83 @@
+/**
+ *
+ */
+package se.de.hu_berlin.informatik.gen.spectra.modules;
+
+import java.io.Serializable;
+import java.util.concurrent.Semaphore;
+import java.util.function.Function;
+
+import se.de.hu_berlin.informatik.java7.testrunner.TestWrapper;
+import se.de.hu_berlin.informatik.stardust.provider.compact.CompactTrace;
+import se.de.hu_berlin.informatik.utils.miscellaneous.Log;
+import se.de.hu_berlin.informatik.utils.processors.AbstractProcessor;
+import se.de.hu_berlin.informatik.utils.processors.sockets.ProcessorSocket;
+
+/**
+ * Runs single tests with the given test runner module and converts each generated
+ * report to a compact trace directly after the test has been run, in the same thread.
+ * The reports can thus be released immediately, and only the (small) compact traces
+ * are passed on to the next module.
+ *
+ * <p>
+ * A permit of the given semaphore is acquired for each produced trace, and the module
+ * that consumes the traces has to release it. If the consumer falls behind, this
+ * module blocks until a trace has been consumed, such that the number of queued traces
+ * is bounded.
+ */
+public class RunSingleTestAndConvertReportModule<T extends Serializable, R> extends AbstractProcessor<TestWrapper, CompactTrace> {
+
+	final private AbstractRunSingleTestAndReportModule<T, R> testRunner;
+	final private Function<R, CompactTrace> converter;
+	final private Semaphore queuedTraces;
+
+	/**
+	 * @param testRunner
+	 * the test runner module
+	 * @param converter
+	 * the converter for the generated reports
+	 * @param queuedTraces
+	 * permits for the traces that may be queued at the same time
+	 */
+	public RunSingleTestAndConvertReportModule(AbstractRunSingleTestAndReportModule<T, R> testRunner,
+			Function<R, CompactTrace> converter, Semaphore queuedTraces) {
+		super();
+		this.testRunner = testRunner;
+		this.converter = converter;
+		this.queuedTraces = queuedTraces;
+	}
+
+	/* (non-Javadoc)
+	 * @see se.de.hu_berlin.informatik.utils.tm.ITransmitter#processItem(java.lang.Object)
+	 */
+	@Override
+	public CompactTrace processItem(final TestWrapper testWrapper, ProcessorSocket<TestWrapper, CompactTrace> socket) {
+		socket.allowOnlyForcedTracks();
+		socket.forceTrack(testWrapper.toString());
+		return enqueue(converter.apply(testRunner.submit(testWrapper).getResult()));
+	}
+
+	private CompactTrace enqueue(CompactTrace trace) {
+		if (trace != null) {
+			try {
+				queuedTraces.acquire();
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+				Log.abort(this, e, "Interrupted while waiting for queued traces to be processed.");
+			}
+		}
+		return trace;
+	}
+
+	@Override
+	public CompactTrace getResultFromCollectedItems() {
+		return enqueue(converter.apply(testRunner.getResultFromCollectedItems()));
+	}
+
+	@Override
+	public boolean finalShutdown() {
+		testRunner.finalShutdown();
+		return super.finalShutdown();
+	}
+
+}
@@ -0,0 +1,287 @@
+/**
+ *
+ */
+package se.de.hu_berlin.informatik.gen.spectra.modules;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.io.Serializable;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.Map.Entry;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.TreeSet;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import se.de.hu_berlin.informatik.java7.testrunner.TestWrapper;
+import se.de.hu_berlin.informatik.junittestutils.data.TestStatistics;
+import se.de.hu_berlin.informatik.junittestutils.testlister.mining.ClassFileIndex;
+import se.de.hu_berlin.informatik.junittestutils.testlister.mining.ClassFileIndex.ClassFileInfo;
+import se.de.hu_berlin.informatik.utils.miscellaneous.Log;
+import se.de.hu_berlin.informatik.utils.miscellaneous.Pair;
+
+/**
+ * A persistent store for the coverage data of single tests. Each entry holds the
+ * outcome and the complete coverage data of a test together with hashes of the class
+ * files of all classes recorded in the coverage data, of the test class and its super
+ * classes, and a fingerprint of the whole test class directory. An entry is only
+ * reused as long as all of these files are unchanged, such that only new or affected
+ * tests have to be executed again when a spectra is regenerated. Since the test classes
+ * that are used by a test (e.g., helper classes) are not recorded, any change in the
+ * test class directory invalidates all entries.
+ *
+ * <p>
+ * The store may be shared between modules that run tests in parallel. It should
+ * only be used for a single coverage tool and with the same settings, since the
+ * stored coverage data is not checked for compatibility.
+ *
+ *
+ * @param <T>
+ * the type of coverage data object that is stored
+ */
+public class TestCoverageStore<T extends Serializable> {
+
+	final private static String MISSING_CLASS = "";
+	final private static int FORMAT_VERSION = 2;
+
+	final private Path storeDir;
+	final private List<Path> classDirs;
+	final private Path testClassDir;
+	final private ClassFileIndex classFileIndex;
+	final private Map<String, String> classHashes = new ConcurrentHashMap<>();
+	private volatile String testClassDirHash = null;
+
+	/**
+	 * @param storeDir
+	 * the directory to store the coverage data in
+	 * @param classDirs
+	 * the directories that contain the original (not instrumented) classes and the test classes
+	 * @param testClassDir
+	 * the directory that contains the test classes; may be null
+	 */
+	public TestCoverageStore(Path storeDir, List<Path> classDirs, Path testClassDir) {
+		this.storeDir = storeDir;
+		this.classDirs = classDirs;
+		this.testClassDir = testClassDir;
+		this.classFileIndex = new ClassFileIndex(classDirs);
+		storeDir.toFile().mkdirs();
+	}
+
+	/**
+	 * Loads the stored result of the given test, if all relevant classes are unchanged.
+	 * @param testWrapper
+	 * the test
+	 * @return
+	 * the statistics and the coverage data of the test; or null if no (valid) entry exists
+	 */
+	public Pair<TestStatistics, T> load(TestWrapper testWrapper) {
+		File entryFile = getEntryFile(testWrapper);
+		if (!entryFile.exists()) {
+			return null;
+		}
+		try (ObjectInputStream in = new ObjectInputStream(
+				new BufferedInputStream(new FileInputStream(entryFile)))) {
+			if (in.readInt() != FORMAT_VERSION || !testWrapper.toString().equals(in.readUTF())) {
+				return null;
+			}
+			if (!in.readUTF().equals(getTestClassDirHash())) {
+				// any test class may have changed
+				return null;
+			}
+			boolean successful = in.readBoolean();
+			long duration = in.readLong();
+			int classCount = in.readInt();
+			for (int i = 0; i < classCount; ++i) {
+				String className = in.readUTF();
+				String hash = in.readUTF();
+				if (!hash.equals(getClassHash(className))) {
+					// a relevant class has changed
+					return null;
+				}
+			}
+			@SuppressWarnings("unchecked")
+			T data = (T) in.readObject();
+			return new Pair<>(new TestStatistics(duration, successful, false, false, false, true, null), data);
+		} catch (IOException | ClassNotFoundException | ClassCastException e) {
+			Log.warn(this, "Could not load stored coverage of test '%s'.", testWrapper);
+			return null;
+		}
+	}
+
+	/**
+	 * Stores the result of the given test. Nothing is stored if the class file of
+	 * any recorded class or of the test class can not be found.
+	 * @param testWrapper
+	 * the test
+	 * @param testStatistics
+	 * the statistics of the (finished) test
+	 * @param data
+	 * the complete coverage data of the test
+	 * @param recordedClasses
+	 * the (binary) names of all classes that are contained in the coverage data,
+	 * including classes that have not been covered by the test
+	 */
+	public void store(TestWrapper testWrapper, TestStatistics testStatistics,
+			T data, Collection<String> recordedClasses) {
+		Set<String> relevantClasses = new TreeSet<>(recordedClasses);
+		relevantClasses.add(testWrapper.getTestClassName());
+		Map<String, String> hashes = new TreeMap<>();
+		for (String className : relevantClasses) {
+			String hash = getClassHash(className);
+			if (MISSING_CLASS.equals(hash)) {
+				return;
+			}
+			hashes.put(className, hash);
+		}
+		// super classes of the test class in the class directories (e.g., abstract test cases)
+		for (String superClass : getSuperClasses(testWrapper.getTestClassName())) {
+			String hash = getClassHash(superClass);
+			if (!MISSING_CLASS.equals(hash)) {
+				hashes.put(superClass, hash);
+			}
+		}
+		String testDirHash = getTestClassDirHash();
+		if (testDirHash == null) {
+			return;
+		}
+
+		File entryFile = getEntryFile(testWrapper);
+		File tempFile = new File(entryFile.getPath() + ".tmp");
+		try (ObjectOutputStream out = new ObjectOutputStream(
+				new BufferedOutputStream(new FileOutputStream(tempFile)))) {
+			out.writeInt(FORMAT_VERSION);
+			out.writeUTF(testWrapper.toString());
+			out.writeUTF(testDirHash);
+			out.writeBoolean(testStatistics.wasSuccessful());
+			out.writeLong(testStatistics.getTestDuration());
+			out.writeInt(hashes.size());
+			for (Entry<String, String> entry : hashes.entrySet()) {
+				out.writeUTF(entry.getKey());
+				out.writeUTF(entry.getValue());
+			}
+			out.writeObject(data);
+		} catch (IOException e) {
+			Log.err(this, e, "Could not store coverage of test '%s'.", testWrapper);
+			tempFile.delete();
+			return;
+		}
+
+		try {
+			// replace old entries as a whole
+			Files.move(tempFile.toPath(), entryFile.toPath(), StandardCopyOption.REPLACE_EXISTING);
+		} catch (IOException e) {
+			Log.err(this, e, "Could not store coverage of test '%s'.", testWrapper);
+			tempFile.delete();
+		}
+	}
+
+	private File getEntryFile(TestWrapper testWrapper) {
+		return storeDir.resolve(
+				toHexString(getDigest().digest(testWrapper.toString().getBytes(StandardCharsets.UTF_8))) + ".ser")
+				.toFile();
+	}
+
+	/**
+	 * Returns the (binary) names of all super classes of the given class,
+	 * as far as their class files can be found.
+	 */
+	private List<String> getSuperClasses(String className) {
+		List<String> superClasses = new ArrayList<>();
+		ClassFileInfo info = classFileIndex.getClass(className.replace('.', '/'));
+		while (info != null && info.getSuperName() != null) {
+			superClasses.add(info.getSuperName().replace('/', '.'));
+			info = classFileIndex.getClass(info.getSuperName());
+		}
+		return superClasses;
+	}
+
+	/**
+	 * Returns a hash over the paths and contents of all files in the test class
+	 * directory. It is computed once, since the directory must not change during a run.
+	 * @return
+	 * the hash; or null if the directory could not be read
+	 */
+	private String getTestClassDirHash() {
+		if (testClassDirHash == null) {
+			synchronized (this) {
+				if (testClassDirHash == null) {
+					testClassDirHash = computeTestClassDirHash();
+				}
+			}
+		}
+		return MISSING_CLASS.equals(testClassDirHash) ? null : testClassDirHash;
+	}
+
+	private String computeTestClassDirHash() {
+		MessageDigest digest = getDigest();
+		if (testClassDir == null || !Files.isDirectory(testClassDir)) {
+			return toHexString(digest.digest());
+		}
+		try (Stream<Path> stream = Files.walk(testClassDir)) {
+			List<Path> files = stream.filter(Files::isRegularFile).sorted().collect(Collectors.toList());
+			for (Path file : files) {
+				digest.update(testClassDir.relativize(file).toString().getBytes(StandardCharsets.UTF_8));
+				digest.update((byte) 0);
+				digest.update(getDigest().digest(Files.readAllBytes(file)));
+			}
+			return toHexString(digest.digest());
+		} catch (IOException | UncheckedIOException e) {
+			Log.err(this, e, "Could not read test class directory '%s'.", testClassDir);
+			return MISSING_CLASS;
+		}
+	}
+
+	private String getClassHash(String className) {
+		return classHashes.computeIfAbsent(className, k -> {
+			String classFile = k.replace('.', File.separatorChar) + ".class";
+			for (Path classDir : classDirs) {
+				File file = classDir.resolve(classFile).toFile();
+				if (file.isFile()) {
+					try {
+						return toHexString(getDigest().digest(Files.readAllBytes(file.toPath())));
+					} catch (IOException e) {
+						Log.err(this, e, "Could not read class file '%s'.", file);
+						return MISSING_CLASS;
+					}
+				}
+			}
+			return MISSING_CLASS;
+		});
+	}
+
+	private static MessageDigest getDigest() {
+		try {
+			return MessageDigest.getInstance("SHA-1");
+		} catch (NoSuchAlgorithmException e) {
+			// every Java platform has to support SHA-1
+			throw new IllegalStateException(e);
+		}
+	}
+
+	private static String toHexString(byte[] bytes) {
+		StringBuilder builder = new StringBuilder(bytes.length * 2);
+		for (byte b : bytes) {
+			builder.append(String.format("%02x", b));
+		}
+		return builder.toString();
+	}
+
+}
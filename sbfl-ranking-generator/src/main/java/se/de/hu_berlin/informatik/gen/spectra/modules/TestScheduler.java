@@ -0,0 +1,180 @@
+/**
+ *
+ */
+package se.de.hu_berlin.informatik.gen.spectra.modules;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.Map.Entry;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+import se.de.hu_berlin.informatik.java7.testrunner.TestWrapper;
+import se.de.hu_berlin.informatik.junittestutils.data.StatisticsData;
+import se.de.hu_berlin.informatik.junittestutils.data.TestStatistics;
+import se.de.hu_berlin.informatik.utils.miscellaneous.Log;
+
+/**
+ * Schedules tests based on their durations in previous runs. The durations are read
+ * from a file that holds one line per test in the format
+ * {@code qualified.class.name::TestMethodName,duration}, with the duration in milliseconds.
+ * Tests may be sorted such that the longest tests are run first, and each test with a
+ * known duration may get an adaptive timeout that is derived from this duration.
+ *
+ * <p>
+ * The durations of the current run are collected and can be saved to the same file
+ * afterwards. Durations of tests that have not been run again are kept.
+ */
+public class TestScheduler {
+
+	/** factor to apply to the previous duration of a test to get its adaptive timeout */
+	final private static long TIMEOUT_FACTOR = 5;
+	/** the minimal adaptive timeout (in seconds) */
+	final private static long MIN_TIMEOUT = 10;
+
+	final private Path durationsFile;
+	final private Map<String, Long> previousDurations = new ConcurrentHashMap<>();
+	final private Map<String, Long> durations = new ConcurrentHashMap<>();
+
+	/**
+	 * @param durationsFile
+	 * the file to read the durations of previous runs from (if it exists)
+	 * and to save the durations of the current run to
+	 */
+	public TestScheduler(Path durationsFile) {
+		this.durationsFile = durationsFile;
+		if (Files.exists(durationsFile)) {
+			try {
+				for (String line : Files.readAllLines(durationsFile, StandardCharsets.UTF_8)) {
+					int pos = line.lastIndexOf(',');
+					if (pos == -1) {
+						Log.warn(this, "Wrong test duration format: '%s'.", line);
+						continue;
+					}
+					try {
+						previousDurations.put(line.substring(0, pos), Long.valueOf(line.substring(pos + 1)));
+					} catch (NumberFormatException e) {
+						Log.warn(this, "Wrong test duration format: '%s'.", line);
+					}
+				}
+			} catch (IOException e) {
+				Log.err(this, e, "Could not read test durations from '%s'.", durationsFile);
+			}
+		}
+	}
+
+	/**
+	 * Sorts the given tests by their durations in previous runs, longest first.
+	 * Tests without a known duration are put in front of all other tests, since
+	 * they may run long. Tests with equal durations keep their relative order.
+	 * @param tests
+	 * the tests to sort
+	 * @return
+	 * a sorted copy of the given list of tests
+	 */
+	public List<TestWrapper> sortLongestFirst(List<TestWrapper> tests) {
+		List<TestWrapper> sortedTests = new ArrayList<>(tests);
+		sortedTests.sort(Comparator.comparingLong(
+				(TestWrapper test) -> previousDurations.getOrDefault(test.toString(), Long.MAX_VALUE))
+				.reversed());
+		return sortedTests;
+	}
+
+	/**
+	 * Returns the given test with an adaptive timeout, if the test has a known duration
+	 * from a previous run. The adaptive timeout is a multiple of this duration, but it
+	 * is never larger than the given default timeout.
+	 * @param testWrapper
+	 * the test
+	 * @param timeout
+	 * the default timeout (in seconds); adaptive timeouts are only used if this is not {@code null}
+	 * @param testStatistics
+	 * statistics to record the use of an adaptive timeout in
+	 * @return
+	 * the test with an adaptive timeout; or the given test, if the default timeout shall be used
+	 */
+	public TestWrapper getTestWithAdaptiveTimeout(TestWrapper testWrapper, Long timeout, TestStatistics testStatistics) {
+		Long duration = previousDurations.get(testWrapper.toString());
+		if (timeout == null || duration == null) {
+			return testWrapper;
+		}
+		long adaptiveTimeout = Math.max(MIN_TIMEOUT,
+				TimeUnit.MILLISECONDS.toSeconds(duration.longValue() * TIMEOUT_FACTOR) + 1);
+		if (adaptiveTimeout >= timeout.longValue()) {
+			return testWrapper;
+		}
+		testStatistics.addStatisticsElement(StatisticsData.ADAPTIVE_TIMEOUT, 1);
+		return new TestWrapper(testWrapper, adaptiveTimeout);
+	}
+
+	/**
+	 * Decides whether a test shall be run again (with the default timeout) after a
+	 * failed execution. A test that reached the default timeout is not run again,
+	 * since it would only run into the same timeout again. A test that reached an
+	 * adaptive timeout is run again, since the adaptive timeout may be too short.
+	 * @param executedTest
+	 * the test as it has been executed, possibly with an adaptive timeout
+	 * @param timeoutReached
+	 * whether the execution of the test has reached its timeout
+	 * @return
+	 * whether the test may be run again
+	 */
+	public boolean mayRunAgain(TestWrapper executedTest, boolean timeoutReached) {
+		return !timeoutReached || executedTest.getTimeout() != null;
+	}
+
+	/**
+	 * Records the duration of the given (finished) test. A test that could not be
+	 * finished due to a timeout is recorded with the duration of the given timeout.
+	 * The duration is also added to the given statistics, such that the durations
+	 * of all tests are part of the collected statistics.
+	 * @param testWrapper
+	 * the test
+	 * @param testStatistics
+	 * the statistics of the test
+	 * @param timeout
+	 * the timeout (in seconds) of the last execution of the test; may be {@code null}
+	 */
+	public void addDuration(TestWrapper testWrapper, TestStatistics testStatistics, Long timeout) {
+		Long duration;
+		if (testStatistics.couldBeFinished()) {
+			duration = Long.valueOf(testStatistics.getTestDuration());
+		} else if (testStatistics.timeoutOccurred() && timeout != null) {
+			duration = TimeUnit.SECONDS.toMillis(timeout.longValue());
+		} else {
+			return;
+		}
+		durations.put(testWrapper.toString(), duration);
+		testStatistics.addStatisticsElement(StatisticsData.TEST_DURATIONS, testWrapper + "," + duration);
+	}
+
+	/**
+	 * Saves the recorded durations together with the durations of all tests
+	 * from previous runs that have not been run again.
+	 */
+	public void saveDurations() {
+		Map<String, Long> allDurations = new TreeMap<>(previousDurations);
+		allDurations.putAll(durations);
+		List<String> lines = new ArrayList<>(allDurations.size());
+		for (Entry<String, Long> entry : allDurations.entrySet()) {
+			lines.add(entry.getKey() + "," + entry.getValue());
+		}
+		try {
+			Path parent = durationsFile.toAbsolutePath().getParent();
+			if (parent != null) {
+				Files.createDirectories(parent);
+			}
+			Files.write(durationsFile, lines, StandardCharsets.UTF_8);
+		} catch (IOException e) {
+			Log.err(this, e, "Could not write test durations to '%s'.", durationsFile);
+		}
+	}
+
+}
@@ -0,0 +1,156 @@
+package se.de.hu_berlin.informatik.gen.spectra.modules;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import se.de.hu_berlin.informatik.java7.testrunner.TestWrapper;
+import se.de.hu_berlin.informatik.junittestutils.data.StatisticsData;
+import se.de.hu_berlin.informatik.junittestutils.data.TestStatistics;
+
+public class TestSchedulerTest {
+
+	@Rule
+	public TemporaryFolder folder = new TemporaryFolder();
+
+	private Path durationsFile;
+
+	@Before
+	public void setUp() throws IOException {
+		durationsFile = folder.getRoot().toPath().resolve("testDurations");
+		Files.write(durationsFile, Arrays.asList(
+				"test.A::fast,100",
+				"test.A::slow,30000",
+				"test.B::medium,2000",
+				"test.B::alsoFast,100",
+				"wrong format"), StandardCharsets.UTF_8);
+	}
+
+	private static TestWrapper test(String identifier) {
+		String[] parts = identifier.split("::");
+		return new TestWrapper(parts[0], parts[1], null);
+	}
+
+	private static List<String> toIdentifiers(List<TestWrapper> tests) {
+		List<String> identifiers = new ArrayList<>(tests.size());
+		for (TestWrapper test : tests) {
+			identifiers.add(test.toString());
+		}
+		return identifiers;
+	}
+
+	@Test
+	public void sortLongestFirst() {
+		TestScheduler scheduler = new TestScheduler(durationsFile);
+		List<TestWrapper> tests = Arrays.asList(test("test.A::fast"), test("test.B::medium"),
+				test("test.B::alsoFast"), test("test.C::unknown"), test("test.A::slow"));
+
+		// unknown tests first, tests with equal durations keep their order
+		Assert.assertEquals(Arrays.asList("test.C::unknown", "test.A::slow", "test.B::medium",
+				"test.A::fast", "test.B::alsoFast"), toIdentifiers(scheduler.sortLongestFirst(tests)));
+		Assert.assertEquals("test.A::fast", tests.get(0).toString());
+	}
+
+	@Test
+	public void keepOrderWithoutDurations() {
+		TestScheduler scheduler = new TestScheduler(folder.getRoot().toPath().resolve("missingDurations"));
+		List<TestWrapper> tests = Arrays.asList(test("test.A::fast"), test("test.A::slow"), test("test.B::medium"));
+
+		Assert.assertEquals(toIdentifiers(tests), toIdentifiers(scheduler.sortLongestFirst(tests)));
+	}
+
+	@Test
+	public void adaptiveTimeouts() {
+		TestScheduler scheduler = new TestScheduler(durationsFile);
+		TestStatistics testStatistics = new TestStatistics();
+
+		// 2 seconds * 5 (plus one) is less than the default timeout
+		Assert.assertEquals(Long.valueOf(11),
+				scheduler.getTestWithAdaptiveTimeout(test("test.B::medium"), 60L, testStatistics).getTimeout());
+		// minimal adaptive timeout
+		Assert.assertEquals(Long.valueOf(10),
+				scheduler.getTestWithAdaptiveTimeout(test("test.A::fast"), 60L, testStatistics).getTimeout());
+		// adaptive timeout would not be shorter than the default timeout
+		Assert.assertNull(scheduler.getTestWithAdaptiveTimeout(test("test.A::slow"), 60L, testStatistics).getTimeout());
+		Assert.assertNull(scheduler.getTestWithAdaptiveTimeout(test("test.C::unknown"), 60L, testStatistics).getTimeout());
+		Assert.assertNull(scheduler.getTestWithAdaptiveTimeout(test("test.B::medium"), null, testStatistics).getTimeout());
+		Assert.assertEquals(2, testStatistics.getElement(StatisticsData.ADAPTIVE_TIMEOUT).getValueAsInteger());
+	}
+
+	@Test
+	public void skipTestsThatReachedTheDefaultTimeout() {
+		TestScheduler scheduler = new TestScheduler(durationsFile);
+		TestWrapper adaptiveTest = scheduler.getTestWithAdaptiveTimeout(
+				test("test.B::medium"), 60L, new TestStatistics());
+		TestWrapper defaultTest = scheduler.getTestWithAdaptiveTimeout(
+				test("test.C::unknown"), 60L, new TestStatistics());
+
+		// the default timeout would only be reached again
+		Assert.assertFalse(scheduler.mayRunAgain(defaultTest, true));
+		// the adaptive timeout may have been too short
+		Assert.assertTrue(scheduler.mayRunAgain(adaptiveTest, true));
+		// other errors may be resolved by running the test again
+		Assert.assertTrue(scheduler.mayRunAgain(defaultTest, false));
+		Assert.assertTrue(scheduler.mayRunAgain(adaptiveTest, false));
+	}
+
+	@Test
+	public void recordDurations() throws IOException {
+		TestScheduler scheduler = new TestScheduler(durationsFile);
+		TestStatistics finished = new TestStatistics(1234, false, false, false, false, true, null);
+		scheduler.addDuration(test("test.A::fast"), finished, null);
+		TestStatistics timedOut = new TestStatistics(0, false, true, false, false, false, null);
+		scheduler.addDuration(test("test.B::medium"), timedOut, 11L);
+		// without a timeout, the duration of an unfinished test is unknown
+		TestStatistics timedOutWithoutTimeout = new TestStatistics(0, false, true, false, false, false, null);
+		scheduler.addDuration(test("test.C::unknown"), timedOutWithoutTimeout, null);
+		TestStatistics interrupted = new TestStatistics(0, false, false, false, true, false, null);
+		scheduler.addDuration(test("test.C::interrupted"), interrupted, 60L);
+		scheduler.saveDurations();
+
+		Assert.assertEquals("test.A::fast,1234", finished.getElement(StatisticsData.TEST_DURATIONS).getValueAsString());
+		Assert.assertEquals("test.B::medium,11000", timedOut.getElement(StatisticsData.TEST_DURATIONS).getValueAsString());
+		Assert.assertNull(timedOutWithoutTimeout.getElement(StatisticsData.TEST_DURATIONS));
+		Assert.assertNull(interrupted.getElement(StatisticsData.TEST_DURATIONS));
+		Assert.assertEquals(Arrays.asList(
+				"test.A::fast,1234",
+				"test.A::slow,30000",
+				"test.B::alsoFast,100",
+				"test.B::medium,11000"), Files.readAllLines(durationsFile, StandardCharsets.UTF_8));
+	}
+
+	@Test
+	public void saveDurations() throws IOException {
+		TestScheduler scheduler = new TestScheduler(durationsFile);
+		TestStatistics finished = new TestStatistics(500, true, false, false, false, true, null);
+		scheduler.addDuration(test("test.A::slow"), finished, 60L);
+		TestStatistics timedOut = new TestStatistics(0, false, true, false, false, false, null);
+		scheduler.addDuration(test("test.C::unknown"), timedOut, 60L);
+		scheduler.saveDurations();
+
+		Assert.assertEquals("test.A::slow,500", finished.getElement(StatisticsData.TEST_DURATIONS).getValueAsString());
+		Assert.assertEquals(Arrays.asList(
+				"test.A::fast,100",
+				"test.A::slow,500",
+				"test.B::alsoFast,100",
+				"test.B::medium,2000",
+				"test.C::unknown,60000"), Files.readAllLines(durationsFile, StandardCharsets.UTF_8));
+
+		// the saved durations are used in the next run
+		TestScheduler nextScheduler = new TestScheduler(durationsFile);
+		Assert.assertEquals(Arrays.asList("test.C::unknown", "test.B::medium", "test.A::slow"),
+				toIdentifiers(nextScheduler.sortLongestFirst(Arrays.asList(
+						test("test.A::slow"), test("test.B::medium"), test("test.C::unknown")))));
+	}
+
+}
@@ -4,6 +4,7 @@
 package se.de.hu_berlin.informatik.gen.spectra.spectra;
 
 import static org.junit.Assert.*;
+import static se.de.hu_berlin.informatik.gen.spectra.spectra.SpectraGenerationTestUtils.assertEqualSpectra;
 
 import java.io.File;
 import java.nio.file.Files;
@@ -11,6 +12,7 @@ import java.nio.file.Path;
 import java.nio.file.Paths;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.function.Consumer;
 
 import org.junit.After;
 import org.junit.AfterClass;
@@ -21,7 +23,9 @@ import org.junit.Test;
 import org.junit.contrib.java.lang.system.ExpectedSystemExit;
 import org.junit.rules.ExpectedException;
 
+import se.de.hu_berlin.informatik.gen.spectra.AbstractSpectraGenerator.AbstractBuilder;
 import se.de.hu_berlin.informatik.gen.spectra.main.CoberturaSpectraGenerator;
+import se.de.hu_berlin.informatik.junittestutils.data.StatisticsData;
 import se.de.hu_berlin.informatik.stardust.localizer.SourceCodeBlock;
 import se.de.hu_berlin.informatik.stardust.spectra.ISpectra;
 import se.de.hu_berlin.informatik.stardust.util.SpectraFileUtils;
@@ -115,6 +119,20 @@ public class CoberturaToSpectraTest extends TestSettings {
 		}
 	}
 	
+	private void testExecution(TestProject project, String outputDirName, 
+			Consumer<AbstractBuilder> options, boolean successful) {
+		SpectraGenerationTestUtils.testOnProject(new CoberturaSpectraGenerator.Builder(), project, 
+				Paths.get(extraTestOutput, outputDirName), options, successful);
+	}
+	
+	private static ISpectra<SourceCodeBlock, ?> loadSpectra(String outputDirName) {
+		return SpectraGenerationTestUtils.loadSpectra(Paths.get(extraTestOutput, outputDirName));
+	}
+	
+	private static int getStatisticsCount(String outputDirName, StatisticsData statistic) {
+		return SpectraGenerationTestUtils.getStatisticsCount(Paths.get(extraTestOutput, outputDirName), statistic);
+	}
+	
 	private void testOnProjectWithTestClassList(TestProject project, String outputDirName, 
 			long timeout, int testrepeatCount, boolean fullSpectra, 
 			boolean separateJVM, boolean useJava7, boolean successful, String testClassListPath) {
@@ -250,6 +268,99 @@ public class CoberturaToSpectraTest extends TestSettings {
 		assertEquals(spectra.getTraces().size()-1, spectra.getSuccessfulTraces().size());
 	}
 	
+	/**
+	 * Test method for {@link se.de.hu_berlin.informatik.gen.spectra.main.CoberturaSpectraGenerator#main(java.lang.String[])}.
+	 */
+	@Test
+	public void testMainRankingGenerationParallelForCoberturaTestProject() {
+		TestProject project = new TestProjects.CoberturaTestProject();
+		testNormalExecution(project, "reportCoberturaTestProjectSequential", true);
+		testExecution(project, "reportCoberturaTestProjectParallel", builder -> builder.setThreadCount(3), true);
+		
+		// running the tests in parallel has to result in exactly the same spectra
+		assertEqualSpectra(loadSpectra("reportCoberturaTestProjectSequential"), 
+				loadSpectra("reportCoberturaTestProjectParallel"));
+	}
+	
+	/**
+	 * Test method for {@link se.de.hu_berlin.informatik.gen.spectra.main.CoberturaSpectraGenerator#main(java.lang.String[])}.
+	 */
+	@Test
+	public void testMainRankingGenerationWithCoverageStoreForCoberturaTestProject() {
+		TestProject project = new TestProjects.CoberturaTestProject();
+		for (boolean fullSpectra : new boolean[] { false, true }) {
+			String suffix = fullSpectra ? "Full" : "";
+			String coverageStoreDir = extraTestOutput + File.separator + "coverageStore" + suffix;
+			testExecution(project, "reportCoberturaTestProjectStoring" + suffix, 
+					builder -> builder.useFullSpectra(fullSpectra).setCoverageStoreDir(coverageStoreDir), true);
+			testExecution(project, "reportCoberturaTestProjectReusing" + suffix, 
+					builder -> builder.useFullSpectra(fullSpectra).setCoverageStoreDir(coverageStoreDir), true);
+
+			ISpectra<SourceCodeBlock, ?> spectra = loadSpectra("reportCoberturaTestProjectStoring" + suffix);
+			// reused coverage has to result in exactly the same spectra, including uncovered nodes
+			assertEqualSpectra(spectra, loadSpectra("reportCoberturaTestProjectReusing" + suffix));
+			assertEquals(0, getStatisticsCount("reportCoberturaTestProjectStoring" + suffix, StatisticsData.REUSED_COVERAGE));
+			assertEquals(spectra.getTraces().size(), 
+					getStatisticsCount("reportCoberturaTestProjectReusing" + suffix, StatisticsData.REUSED_COVERAGE));
+		}
+	}
+	
+	/**
+	 * Test method for {@link se.de.hu_berlin.informatik.gen.spectra.main.CoberturaSpectraGenerator#main(java.lang.String[])}.
+	 */
+	@Test
+	public void testMainRankingGenerationWithTestDurationsForCoberturaTestProject() {
+		TestProject project = new TestProjects.CoberturaTestProject();
+		String testDurationsFile = extraTestOutput + File.separator + "testDurations";
+		testExecution(project, "reportCoberturaTestProjectUnscheduled", 
+				builder -> builder.setThreadCount(3).setTestDurationsFile(testDurationsFile), true);
+		assertTrue(Files.exists(Paths.get(testDurationsFile)));
+		testExecution(project, "reportCoberturaTestProjectScheduled", 
+				builder -> builder.setThreadCount(3).setTestDurationsFile(testDurationsFile), true);
+		
+		ISpectra<SourceCodeBlock, ?> spectra = loadSpectra("reportCoberturaTestProjectUnscheduled");
+		ISpectra<SourceCodeBlock, ?> scheduledSpectra = loadSpectra("reportCoberturaTestProjectScheduled");
+		assertEquals(spectra.getNodes().size(), scheduledSpectra.getNodes().size());
+		assertEquals(spectra.getTraces().size(), scheduledSpectra.getTraces().size());
+		assertEquals(spectra.getFailingTraces().size(), scheduledSpectra.getFailingTraces().size());
+	}
+	
+	/**
+	 * Test method for {@link se.de.hu_berlin.informatik.gen.spectra.main.CoberturaSpectraGenerator#main(java.lang.String[])}.
+	 */
+	@Test
+	public void testMainRankingGenerationWithQueuedTracesForCoberturaTestProject() {
+		TestProject project = new TestProjects.CoberturaTestProject();
+		testExecution(project, "reportCoberturaTestProjectUnqueued", builder -> builder.setMaxQueuedTraces(0), true);
+		testExecution(project, "reportCoberturaTestProjectQueued", builder -> builder.setMaxQueuedTraces(2), true);
+		testExecution(project, "reportCoberturaTestProjectQueuedParallel", 
+				builder -> builder.setThreadCount(3).setMaxQueuedTraces(2), true);
+		
+		ISpectra<SourceCodeBlock, ?> spectra = loadSpectra("reportCoberturaTestProjectUnqueued");
+		for (String outputDirName : new String[] { "reportCoberturaTestProjectQueued", "reportCoberturaTestProjectQueuedParallel" }) {
+			// converting the reports to compact traces has to result in exactly the same spectra
+			assertEqualSpectra(spectra, loadSpectra(outputDirName));
+		}
+	}
+	
+	/**
+	 * Test method for {@link se.de.hu_berlin.informatik.gen.spectra.main.CoberturaSpectraGenerator#main(java.lang.String[])}.
+	 */
+	@Test
+	public void testMainRankingGenerationWithBytecodeTestMiningForCoberturaTestProject() {
+		TestProject project = new TestProjects.CoberturaTestProject();
+		testExecution(project, "reportCoberturaTestProjectReflectionMining", builder -> builder.useBytecodeTestMining(false), true);
+		testExecution(project, "reportCoberturaTestProjectBytecodeMining", builder -> builder.useBytecodeTestMining(true), true);
+		testExecution(project, "reportCoberturaTestProjectBytecodeMiningParallel", 
+				builder -> builder.setThreadCount(3).useBytecodeTestMining(true), true);
+		
+		ISpectra<SourceCodeBlock, ?> spectra = loadSpectra("reportCoberturaTestProjectReflectionMining");
+		for (String outputDirName : new String[] { "reportCoberturaTestProjectBytecodeMining", "reportCoberturaTestProjectBytecodeMiningParallel" }) {
+			// both miners have to find the same tests, resulting in exactly the same spectra
+			assertEqualSpectra(spectra, loadSpectra(outputDirName));
+		}
+	}
+	
 	/**
 	 * Test method for {@link se.de.hu_berlin.informatik.gen.spectra.main.CoberturaSpectraGenerator#main(java.lang.String[])}.
 	 */
@@ -4,6 +4,7 @@
 package se.de.hu_berlin.informatik.gen.spectra.spectra;
 
 import static org.junit.Assert.*;
+import static se.de.hu_berlin.informatik.gen.spectra.spectra.SpectraGenerationTestUtils.assertEqualSpectra;
 
 import java.io.File;
 import java.nio.file.Files;
@@ -11,6 +12,7 @@ import java.nio.file.Path;
 import java.nio.file.Paths;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.function.Consumer;
 
 import org.junit.After;
 import org.junit.AfterClass;
@@ -21,7 +23,9 @@ import org.junit.Test;
 import org.junit.contrib.java.lang.system.ExpectedSystemExit;
 import org.junit.rules.ExpectedException;
 
+import se.de.hu_berlin.informatik.gen.spectra.AbstractSpectraGenerator.AbstractBuilder;
 import se.de.hu_berlin.informatik.gen.spectra.main.JaCoCoSpectraGenerator;
+import se.de.hu_berlin.informatik.junittestutils.data.StatisticsData;
 import se.de.hu_berlin.informatik.stardust.localizer.SourceCodeBlock;
 import se.de.hu_berlin.informatik.stardust.spectra.ISpectra;
 import se.de.hu_berlin.informatik.stardust.util.SpectraFileUtils;
@@ -115,6 +119,20 @@ private static String extraTestOutput = "target" + File.separator + "testoutputJ
 		}
 	}
 	
+	private void testExecution(TestProject project, String outputDirName, 
+			Consumer<AbstractBuilder> options, boolean successful) {
+		SpectraGenerationTestUtils.testOnProject(new JaCoCoSpectraGenerator.Builder(), project, 
+				Paths.get(extraTestOutput, outputDirName), options, successful);
+	}
+	
+	private static ISpectra<SourceCodeBlock, ?> loadSpectra(String outputDirName) {
+		return SpectraGenerationTestUtils.loadSpectra(Paths.get(extraTestOutput, outputDirName));
+	}
+	
+	private static int getStatisticsCount(String outputDirName, StatisticsData statistic) {
+		return SpectraGenerationTestUtils.getStatisticsCount(Paths.get(extraTestOutput, outputDirName), statistic);
+	}
+	
 	private void testOnProjectWithTestClassList(TestProject project, String outputDirName, 
 			long timeout, int testrepeatCount, boolean fullSpectra, 
 			boolean separateJVM, boolean useJava7, boolean successful, String testClassListPath) {
@@ -251,6 +269,131 @@ private static String extraTestOutput = "target" + File.separator + "testoutputJ
 		assertEquals(spectra.getTraces().size()-1, spectra.getSuccessfulTraces().size());
 	}
 	
+	/**
+	 * Test method for {@link se.de.hu_berlin.informatik.gen.spectra.main.JaCoCoSpectraGenerator#main(java.lang.String[])}.
+	 */
+	@Test
+	public void testMainRankingGenerationParallelForJaCoCoTestProject() {
+		TestProject project = new TestProjects.CoberturaTestProject();
+		testNormalExecution(project, "reportJaCoCoTestProjectSequential", true);
+		testExecution(project, "reportJaCoCoTestProjectParallel", builder -> builder.setThreadCount(3), true);
+		
+		// running the tests in parallel has to result in exactly the same spectra
+		assertEqualSpectra(loadSpectra("reportJaCoCoTestProjectSequential"), 
+				loadSpectra("reportJaCoCoTestProjectParallel"));
+	}
+	
+	/**
+	 * Test method for {@link se.de.hu_berlin.informatik.gen.spectra.main.JaCoCoSpectraGenerator#main(java.lang.String[])}.
+	 */
+	@Test
+	public void testMainRankingGenerationWithCoverageStoreForJaCoCoTestProject() {
+		TestProject project = new TestProjects.CoberturaTestProject();
+		for (boolean fullSpectra : new boolean[] { false, true }) {
+			String suffix = fullSpectra ? "Full" : "";
+			String coverageStoreDir = extraTestOutput + File.separator + "coverageStore" + suffix;
+			testExecution(project, "reportJaCoCoTestProjectStoring" + suffix, 
+					builder -> builder.useFullSpectra(fullSpectra).setCoverageStoreDir(coverageStoreDir), true);
+			testExecution(project, "reportJaCoCoTestProjectReusing" + suffix, 
+					builder -> builder.useFullSpectra(fullSpectra).setCoverageStoreDir(coverageStoreDir), true);
+
+			ISpectra<SourceCodeBlock, ?> spectra = loadSpectra("reportJaCoCoTestProjectStoring" + suffix);
+			// reused coverage has to result in exactly the same spectra, including uncovered nodes
+			assertEqualSpectra(spectra, loadSpectra("reportJaCoCoTestProjectReusing" + suffix));
+			assertEquals(0, getStatisticsCount("reportJaCoCoTestProjectStoring" + suffix, StatisticsData.REUSED_COVERAGE));
+			assertEquals(spectra.getTraces().size(), 
+					getStatisticsCount("reportJaCoCoTestProjectReusing" + suffix, StatisticsData.REUSED_COVERAGE));
+		}
+	}
+	
+	/**
+	 * Test method for {@link se.de.hu_berlin.informatik.gen.spectra.main.JaCoCoSpectraGenerator#main(java.lang.String[])}.
+	 */
+	@Test
+	public void testMainRankingGenerationWithTestDurationsForJaCoCoTestProject() {
+		TestProject project = new TestProjects.CoberturaTestProject();
+		String testDurationsFile = extraTestOutput + File.separator + "testDurations";
+		testExecution(project, "reportJaCoCoTestProjectUnscheduled", 
+				builder -> builder.setThreadCount(3).setTestDurationsFile(testDurationsFile), true);
+		assertTrue(Files.exists(Paths.get(testDurationsFile)));
+		testExecution(project, "reportJaCoCoTestProjectScheduled", 
+				builder -> builder.setThreadCount(3).setTestDurationsFile(testDurationsFile), true);
+		
+		ISpectra<SourceCodeBlock, ?> spectra = loadSpectra("reportJaCoCoTestProjectUnscheduled");
+		ISpectra<SourceCodeBlock, ?> scheduledSpectra = loadSpectra("reportJaCoCoTestProjectScheduled");
+		assertEquals(spectra.getNodes().size(), scheduledSpectra.getNodes().size());
+		assertEquals(spectra.getTraces().size(), scheduledSpectra.getTraces().size());
+		assertEquals(spectra.getFailingTraces().size(), scheduledSpectra.getFailingTraces().size());
+	}
+	
+	/**
+	 * Test method for {@link se.de.hu_berlin.informatik.gen.spectra.main.JaCoCoSpectraGenerator#main(java.lang.String[])}.
+	 */
+	@Test
+	public void testMainRankingGenerationWithQueuedTracesForJaCoCoTestProject() {
+		TestProject project = new TestProjects.CoberturaTestProject();
+		testExecution(project, "reportJaCoCoTestProjectUnqueued", builder -> builder.setMaxQueuedTraces(0), true);
+		testExecution(project, "reportJaCoCoTestProjectQueued", builder -> builder.setMaxQueuedTraces(2), true);
+		testExecution(project, "reportJaCoCoTestProjectQueuedParallel", 
+				builder -> builder.setThreadCount(3).setMaxQueuedTraces(2), true);
+		
+		ISpectra<SourceCodeBlock, ?> spectra = loadSpectra("reportJaCoCoTestProjectUnqueued");
+		for (String outputDirName : new String[] { "reportJaCoCoTestProjectQueued", "reportJaCoCoTestProjectQueuedParallel" }) {
+			// converting the reports to compact traces has to result in exactly the same spectra
+			assertEqualSpectra(spectra, loadSpectra(outputDirName));
+		}
+	}
+	
+	/**
+	 * Test method for {@link se.de.hu_berlin.informatik.gen.spectra.main.JaCoCoSpectraGenerator#main(java.lang.String[])}.
+	 */
+	@Test
+	public void testMainRankingGenerationWithBytecodeTestMiningForJaCoCoTestProject() {
+		TestProject project = new TestProjects.CoberturaTestProject();
+		testExecution(project, "reportJaCoCoTestProjectReflectionMining", builder -> builder.useBytecodeTestMining(false), true);
+		testExecution(project, "reportJaCoCoTestProjectBytecodeMining", builder -> builder.useBytecodeTestMining(true), true);
+		testExecution(project, "reportJaCoCoTestProjectBytecodeMiningParallel", 
+				builder -> builder.setThreadCount(3).useBytecodeTestMining(true), true);
+		
+		ISpectra<SourceCodeBlock, ?> spectra = loadSpectra("reportJaCoCoTestProjectReflectionMining");
+		for (String outputDirName : new String[] { "reportJaCoCoTestProjectBytecodeMining", "reportJaCoCoTestProjectBytecodeMiningParallel" }) {
+			// both miners have to find the same tests, resulting in exactly the same spectra
+			assertEqualSpectra(spectra, loadSpectra(outputDirName));
+		}
+	}
+	
+	/**
+	 * Test method for {@link se.de.hu_berlin.informatik.gen.spectra.main.JaCoCoSpectraGenerator#main(java.lang.String[])}.
+	 */
+	@Test
+	public void testMainRankingGenerationWithWorkerJVMForJaCoCoTestProject() {
+		TestProject project = new TestProjects.CoberturaTestProject();
+		testExecution(project, "reportJaCoCoTestProjectNewJVM", builder -> builder.useSeparateJVM(true), true);
+		// a new worker JVM has to be started for each test
+		testExecution(project, "reportJaCoCoTestProjectWorkerJVM", builder -> ((JaCoCoSpectraGenerator.Builder) builder)
+				.setWorkerJvmTests(1).useSeparateJVM(true), true);
+		// each test is executed twice in the worker JVM
+		testExecution(project, "reportJaCoCoTestProjectWorkerJVMRepeated", builder -> ((JaCoCoSpectraGenerator.Builder) builder)
+				.setWorkerJvmTests(1).useSeparateJVM(true).setTestRepeatCount(2), true);
+
+		ISpectra<SourceCodeBlock, ?> spectra = loadSpectra("reportJaCoCoTestProjectNewJVM");
+		for (String outputDirName : new String[] { "reportJaCoCoTestProjectWorkerJVM", "reportJaCoCoTestProjectWorkerJVMRepeated" }) {
+			// fresh worker JVMs have to result in exactly the same spectra as new JVMs
+			assertEqualSpectra(spectra, loadSpectra(outputDirName));
+			assertEquals(spectra.getTraces().size(), getStatisticsCount(outputDirName, StatisticsData.WORKER_JVM_STARTS));
+		}
+		assertEquals(0, getStatisticsCount("reportJaCoCoTestProjectNewJVM", StatisticsData.WORKER_JVM_STARTS));
+
+		// the worker JVM is replaced after two tests
+		testExecution(project, "reportJaCoCoTestProjectReusedWorkerJVM", builder -> ((JaCoCoSpectraGenerator.Builder) builder)
+				.setWorkerJvmTests(2).useSeparateJVM(true), true);
+		ISpectra<SourceCodeBlock, ?> reusedWorkerSpectra = loadSpectra("reportJaCoCoTestProjectReusedWorkerJVM");
+		assertEquals(spectra.getTraces().size(), reusedWorkerSpectra.getTraces().size());
+		assertEquals(spectra.getFailingTraces().size(), reusedWorkerSpectra.getFailingTraces().size());
+		assertEquals((spectra.getTraces().size() + 1) / 2,
+				getStatisticsCount("reportJaCoCoTestProjectReusedWorkerJVM", StatisticsData.WORKER_JVM_STARTS));
+	}
+
 	/**
 	 * Test method for {@link se.de.hu_berlin.informatik.gen.spectra.main.CoberturaSpectraGenerator#main(java.lang.String[])}.
 	 */
@@ -0,0 +1,119 @@
+package se.de.hu_berlin.informatik.gen.spectra.spectra;
+
+import static org.junit.Assert.*;
+
+import java.io.IOException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.HashSet;
+import java.util.Set;
+import java.util.function.Consumer;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import se.de.hu_berlin.informatik.gen.spectra.AbstractSpectraGenerator.AbstractBuilder;
+import se.de.hu_berlin.informatik.junittestutils.data.StatisticsData;
+import se.de.hu_berlin.informatik.stardust.localizer.SourceCodeBlock;
+import se.de.hu_berlin.informatik.stardust.spectra.INode;
+import se.de.hu_berlin.informatik.stardust.spectra.ISpectra;
+import se.de.hu_berlin.informatik.stardust.spectra.ITrace;
+import se.de.hu_berlin.informatik.stardust.util.SpectraFileUtils;
+
+/**
+ * Helper methods that are shared by the spectra generation tests of the different coverage tools.
+ */
+final class SpectraGenerationTestUtils {
+
+	private SpectraGenerationTestUtils() {
+		// prevent initialization
+	}
+
+	/**
+	 * Generates a spectra for the given project with the default options of the tests
+	 * (no full spectra, timeout of 10 seconds) and checks whether a spectra file exists.
+	 * @param builder
+	 * a builder of the spectra generator to use
+	 * @param project
+	 * the project
+	 * @param outputDir
+	 * the output directory
+	 * @param options
+	 * sets additional options (or overrides the default options) of the builder
+	 * @param successful
+	 * whether the generation is expected to be successful
+	 */
+	static void testOnProject(AbstractBuilder builder, TestProject project, Path outputDir,
+			Consumer<AbstractBuilder> options, boolean successful) {
+		builder
+		.setProjectDir(project.getProjectMainDir())
+		.setSourceDir(project.getSrcDir())
+		.setTestClassDir(project.getBinTestDir())
+		.setTestClassPath(project.getTestCP())
+		.setPathsToBinaries(project.getBinDir())
+		.setOutputDir(outputDir.toString())
+		.setTestClassList(project.getTestClassListPath())
+		.setFailingTests(project.getFailingTests())
+		.useFullSpectra(false)
+		.setTimeout(10L);
+		options.accept(builder);
+		builder.run();
+
+		Path spectraZipFile = outputDir.resolve("spectraCompressed.zip");
+		if (successful) {
+			assertTrue(Files.exists(spectraZipFile));
+		} else {
+			assertFalse(Files.exists(spectraZipFile));
+		}
+		// the temporary output directories of parallel workers have to be removed
+		assertFalse(Files.exists(outputDir.resolve("__worker0")));
+	}
+
+	static ISpectra<SourceCodeBlock, ?> loadSpectra(Path outputDir) {
+		return SpectraFileUtils.loadBlockSpectraFromZipFile(outputDir.resolve("spectraCompressed.zip"));
+	}
+
+	/**
+	 * Checks whether the given spectra contain the same nodes and traces, with the same
+	 * results and the same involved nodes.
+	 */
+	static void assertEqualSpectra(ISpectra<SourceCodeBlock, ?> expected, ISpectra<SourceCodeBlock, ?> actual) {
+		assertEquals(getNodeIdentifiers(expected), getNodeIdentifiers(actual));
+		assertEquals(expected.getTraces().size(), actual.getTraces().size());
+		for (ITrace<SourceCodeBlock> trace : expected.getTraces()) {
+			ITrace<SourceCodeBlock> actualTrace = actual.getTrace(trace.getIdentifier());
+			assertNotNull(actualTrace);
+			assertEquals(trace.isSuccessful(), actualTrace.isSuccessful());
+			assertEquals(new HashSet<>(trace.getInvolvedNodes()), new HashSet<>(actualTrace.getInvolvedNodes()));
+		}
+	}
+
+	private static Set<SourceCodeBlock> getNodeIdentifiers(ISpectra<SourceCodeBlock, ?> spectra) {
+		Set<SourceCodeBlock> identifiers = new HashSet<>();
+		for (INode<SourceCodeBlock> node : spectra.getNodes()) {
+			identifiers.add(node.getIdentifier());
+		}
+		return identifiers;
+	}
+
+	/**
+	 * Returns the value of the given count statistic from the statistics file in the given output directory.
+	 */
+	static int getStatisticsCount(Path outputDir, StatisticsData statistic) {
+		Pattern countPattern = Pattern.compile("(\\d+)\\D*$");
+		try (DirectoryStream<Path> statsFiles = Files.newDirectoryStream(outputDir, "*_stats")) {
+			for (Path statsFile : statsFiles) {
+				for (String line : Files.readAllLines(statsFile)) {
+					Matcher matcher = countPattern.matcher(line);
+					if (line.contains(statistic.getLabel()) && matcher.find()) {
+						return Integer.parseInt(matcher.group(1));
+					}
+				}
+			}
+		} catch (IOException e) {
+			fail("Could not read statistics: " + e);
+		}
+		return 0;
+	}
+
+}
@@ -6,6 +6,9 @@
 
 package se.de.hu_berlin.informatik.stardust.localizer.sbfl;
 
+import java.util.ArrayList;
+import java.util.List;
+
 import se.de.hu_berlin.informatik.stardust.localizer.IFaultLocalizer;
 import se.de.hu_berlin.informatik.stardust.localizer.sbfl.AbstractSpectrumBasedFaultLocalizer.ComputationStrategies;
 import se.de.hu_berlin.informatik.stardust.spectra.INode;
@@ -39,6 +42,26 @@ public interface ILocalizer<T> {
 	 */
 	Ranking<INode<T>> localize(IFaultLocalizer<T> localizer, ComputationStrategies strategy);
 	
+	/**
+	 * Creates fault location rankings for all nodes with each of the given
+	 * localizers. Implementations may compute the rankings of all localizers
+	 * at once, which is usually a lot faster than computing each ranking on
+	 * its own.
+	 * 
+	 * @param localizers
+	 * the localizers to use
+	 * @param strategy
+	 * the strategy to use for computation
+	 * @return a list of rankings, in the same order as the given localizers
+	 */
+	default List<Ranking<INode<T>>> localizeAll(List<IFaultLocalizer<T>> localizers, ComputationStrategies strategy) {
+		List<Ranking<INode<T>>> rankings = new ArrayList<>(localizers.size());
+		for (IFaultLocalizer<T> localizer : localizers) {
+			rankings.add(localize(localizer, strategy));
+		}
+		return rankings;
+	}
+	
 	/**
 	 * Returns the amount of traces the node was not involved in, but passed.
 	 * @param node
@@ -0,0 +1,261 @@
+/*
+ * This file is part of the "STARDUST" project. (c) Fabian Keller
+ * <hello@fabian-keller.de> For the full copyright and license information,
+ * please view the LICENSE file that was distributed with this source code.
+ */
+
+package se.de.hu_berlin.informatik.stardust.localizer.sbfl;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.IntConsumer;
+
+import se.de.hu_berlin.informatik.stardust.spectra.INode;
+import se.de.hu_berlin.informatik.stardust.spectra.ISpectra;
+import se.de.hu_berlin.informatik.stardust.spectra.ITrace;
+import se.de.hu_berlin.informatik.stardust.spectra.hit.BitSetHitSpectra;
+import se.de.hu_berlin.informatik.stardust.spectra.hit.BitSetHitTrace;
+
+/**
+ * Holds the EF, EP, NF and NP counts of all nodes of a spectra in primitive
+ * arrays. All counts are computed in a single sweep over the traces of the
+ * spectra, visiting only the involved nodes of each trace. Traces of a
+ * {@link BitSetHitSpectra} that share their involvement (see
+ * {@link BitSetHitSpectra#internInvolvements()}) are only visited once and
+ * weighted by their multiplicity.
+ *
+ * <p>
+ * Objects of this class are immutable snapshots of the spectra at the time of
+ * their creation and may be shared between threads.
+ *
+ * @param <T>
+ * type used to identify nodes in the system.
+ */
+public class InvolvementCounts<T> {
+
+	/** Holds all nodes in the order of their indices */
+	private final List<INode<T>> nodes;
+
+	/** Maps node identifiers to indices (null for bit set spectra) */
+	private final Map<T, Integer> nodeIndices;
+
+	/** Maps node indices of a bit set spectra to indices (null otherwise) */
+	private final int[] bitSetIndices;
+
+	/** The bit set spectra the indices belong to (null otherwise) */
+	private final BitSetHitSpectra<T> bitSetSpectra;
+
+	private final int[] ef;
+	private final int[] ep;
+
+	private int failingTraceCount = 0;
+	private int successfulTraceCount = 0;
+
+	/**
+	 * Computes the counts for all nodes of the given spectra.
+	 * @param spectra
+	 * the spectra
+	 */
+	@SuppressWarnings("unchecked")
+	public InvolvementCounts(final ISpectra<T, ? extends ITrace<T>> spectra) {
+		this.nodes = new ArrayList<>(spectra.getNodes());
+		this.ef = new int[nodes.size()];
+		this.ep = new int[nodes.size()];
+
+		if (spectra instanceof BitSetHitSpectra) {
+			this.bitSetSpectra = (BitSetHitSpectra<T>) spectra;
+			this.nodeIndices = null;
+			this.bitSetIndices = new int[bitSetSpectra.getNodeIndexCount()];
+			Arrays.fill(bitSetIndices, -1);
+			for (int i = 0; i < nodes.size(); ++i) {
+				bitSetIndices[bitSetSpectra.getIndexOfNode(nodes.get(i))] = i;
+			}
+		} else {
+			this.bitSetSpectra = null;
+			this.bitSetIndices = null;
+			this.nodeIndices = new HashMap<>();
+			for (int i = 0; i < nodes.size(); ++i) {
+				nodeIndices.put(nodes.get(i).getIdentifier(), i);
+			}
+		}
+
+		for (final List<? extends ITrace<T>> group : getTraceGroups(spectra)) {
+			final int failing = countFailingTraces(group);
+			addTraces(group.get(0), failing, group.size() - failing);
+		}
+	}
+
+	/**
+	 * Groups the traces of the given spectra, such that all traces of a group
+	 * are guaranteed to have identical involvement. Traces of a
+	 * {@link BitSetHitSpectra} are grouped by their shared involvement (see
+	 * {@link BitSetHitSpectra#getTraceGroups()}); all other traces form groups
+	 * of their own.
+	 * @param spectra
+	 * the spectra
+	 * @return the groups of traces
+	 * @param <T>
+	 * type used to identify nodes in the system.
+	 */
+	@SuppressWarnings("unchecked")
+	static <T> Collection<? extends List<? extends ITrace<T>>> getTraceGroups(
+			final ISpectra<T, ? extends ITrace<T>> spectra) {
+		if (spectra instanceof BitSetHitSpectra) {
+			return ((BitSetHitSpectra<T>) spectra).getTraceGroups();
+		}
+		final List<List<? extends ITrace<T>>> groups = new ArrayList<>(spectra.getTraces().size());
+		for (final ITrace<T> trace : spectra.getTraces()) {
+			groups.add(Collections.singletonList(trace));
+		}
+		return groups;
+	}
+
+	/**
+	 * @param traces
+	 * a collection of traces
+	 * @return the number of failing traces in the collection
+	 * @param <T>
+	 * type used to identify nodes in the system.
+	 */
+	static <T> int countFailingTraces(final Collection<? extends ITrace<T>> traces) {
+		int failing = 0;
+		for (final ITrace<T> trace : traces) {
+			if (!trace.isSuccessful()) {
+				++failing;
+			}
+		}
+		return failing;
+	}
+
+	/**
+	 * Adds the involvement of the given trace to the counts, weighted by the
+	 * given numbers of failing and successful traces with that involvement.
+	 */
+	private void addTraces(final ITrace<T> trace, final int failing, final int successful) {
+		failingTraceCount += failing;
+		successfulTraceCount += successful;
+		forEachInvolvedIndex(trace, index -> {
+			ef[index] += failing;
+			ep[index] += successful;
+		});
+	}
+
+	/**
+	 * Applies the given action to the indices of all nodes involved in the
+	 * given trace.
+	 * @param trace
+	 * a trace of the spectra
+	 * @param action
+	 * the action to apply to each index
+	 */
+	void forEachInvolvedIndex(final ITrace<T> trace, final IntConsumer action) {
+		if (bitSetSpectra != null && trace instanceof BitSetHitTrace) {
+			BitSetHitTrace<T> bitSetTrace = (BitSetHitTrace<T>) trace;
+			for (int i = bitSetTrace.nextInvolvedIndex(0); i >= 0; i = bitSetTrace.nextInvolvedIndex(i + 1)) {
+				if (i < bitSetIndices.length && bitSetIndices[i] >= 0) {
+					action.accept(bitSetIndices[i]);
+				}
+			}
+		} else {
+			for (final T identifier : trace.getInvolvedNodes()) {
+				int index = getIndex(identifier);
+				if (index >= 0) {
+					action.accept(index);
+				}
+			}
+		}
+	}
+
+	/**
+	 * @param node
+	 * a node
+	 * @return the index of the given node, or -1 if the node was not part of
+	 * the spectra when the counts were computed
+	 */
+	public int getIndex(final INode<T> node) {
+		if (bitSetSpectra != null) {
+			int index = bitSetSpectra.getIndexOfNode(node);
+			return index >= 0 && index < bitSetIndices.length ? bitSetIndices[index] : -1;
+		}
+		return getIndex(node.getIdentifier());
+	}
+
+	private int getIndex(final T identifier) {
+		if (bitSetSpectra != null) {
+			int index = bitSetSpectra.getIndexOfNode(identifier);
+			return index >= 0 && index < bitSetIndices.length ? bitSetIndices[index] : -1;
+		}
+		Integer index = nodeIndices.get(identifier);
+		return index == null ? -1 : index;
+	}
+
+	/**
+	 * @return all nodes in the order of their indices
+	 */
+	public List<INode<T>> getNodes() {
+		return Collections.unmodifiableList(nodes);
+	}
+
+	/**
+	 * @return the number of nodes
+	 */
+	public int getNodeCount() {
+		return nodes.size();
+	}
+
+	/**
+	 * @return the number of failing traces
+	 */
+	public int getFailingTraceCount() {
+		return failingTraceCount;
+	}
+
+	/**
+	 * @return the number of successful traces
+	 */
+	public int getSuccessfulTraceCount() {
+		return successfulTraceCount;
+	}
+
+	/**
+	 * @param index
+	 * the index of a node
+	 * @return the amount of traces where the node was executed and which failed
+	 */
+	public int getEF(final int index) {
+		return ef[index];
+	}
+
+	/**
+	 * @param index
+	 * the index of a node
+	 * @return the amount of traces where the node was executed and which passed
+	 */
+	public int getEP(final int index) {
+		return ep[index];
+	}
+
+	/**
+	 * @param index
+	 * the index of a node
+	 * @return the amount of traces the node was not involved in and failed
+	 */
+	public int getNF(final int index) {
+		return failingTraceCount - ef[index];
+	}
+
+	/**
+	 * @param index
+	 * the index of a node
+	 * @return the amount of traces the node was not involved in, but passed
+	 */
+	public int getNP(final int index) {
+		return successfulTraceCount - ep[index];
+	}
+
+}
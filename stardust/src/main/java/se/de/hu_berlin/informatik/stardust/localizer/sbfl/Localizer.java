@@ -6,17 +6,23 @@
 
 package se.de.hu_berlin.informatik.stardust.localizer.sbfl;
 
-import java.util.Collection;
+import java.util.ArrayList;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
 import java.util.function.Predicate;
 
 import se.de.hu_berlin.informatik.stardust.localizer.IFaultLocalizer;
+import se.de.hu_berlin.informatik.stardust.localizer.SBFLRanking;
 import se.de.hu_berlin.informatik.stardust.localizer.sbfl.AbstractSpectrumBasedFaultLocalizer.ComputationStrategies;
 import se.de.hu_berlin.informatik.stardust.spectra.INode;
 import se.de.hu_berlin.informatik.stardust.spectra.ISpectra;
 import se.de.hu_berlin.informatik.stardust.spectra.ITrace;
+import se.de.hu_berlin.informatik.stardust.spectra.SimilarityMatrix;
 import se.de.hu_berlin.informatik.utils.experiments.ranking.Ranking;
+import se.de.hu_berlin.informatik.utils.experiments.ranking.Ranking.RankingStrategy;
 import se.de.hu_berlin.informatik.utils.miscellaneous.Log;
 
 /**
@@ -25,6 +31,9 @@ import se.de.hu_berlin.informatik.utils.miscellaneous.Log;
  */
 public class Localizer<T> implements ILocalizer<T> {
 
+	/** Number of nodes below which the scores are computed sequentially */
+	private static final int SEQUENTIAL_THRESHOLD = 1024;
+
 	/** The spectra this node belongs to */
 	private final ISpectra<T,? extends ITrace<T>> spectra;
 
@@ -34,14 +43,19 @@ public class Localizer<T> implements ILocalizer<T> {
 	 */
 	private int __cacheTraceCount = -1;
 	
-	// TODO: arrays instead of maps
-	/** cache EF */
+	/** cache for EF, EP, NF and NP values of all nodes (standard strategy) */
+	private InvolvementCounts<T> __counts;
+	
+	/** cache for EF, EP, NF and NP values of all nodes (similarity strategy) */
+	private SimilarityCounts<T> __similarityCounts;
+
+	/** cache EF (nodes not contained in the spectra) */
 	private Map<T, Double> __cacheEF;
-	/** cache EP */
+	/** cache EP (nodes not contained in the spectra) */
 	private Map<T, Double> __cacheEP;
-	/** cache NF */
+	/** cache NF (nodes not contained in the spectra) */
 	private Map<T, Double> __cacheNF;
-	/** cache NP */
+	/** cache NP (nodes not contained in the spectra) */
 	private Map<T, Double> __cacheNP;
 
 	/**
@@ -65,28 +79,19 @@ public class Localizer<T> implements ILocalizer<T> {
 			return count;
 		}
 		case SIMILARITY_SBFL: {
-			Collection<? extends ITrace<T>> failingTraces = this.spectra.getFailingTraces();
-			int failingTracesCount = failingTraces.size();
-			if (failingTracesCount == 0) {
-				return 0; // reevaluate this
-			}
-
+			// sum up the average similarities to all failing traces
+			SimilarityMatrix<T, ? extends ITrace<T>> similarities = this.spectra.getSimilarities();
 			double count = 0.0;
-			// have to compute a value for each failing trace
-			for (final ITrace<T> failingTrace : failingTraces) {
-				for (final ITrace<T> trace : this.spectra.getTraces()) {
-					if (predicate.test(trace)) {
-						// get the similarity score (ranges from 0 to 1)
-						Double similarityScore = this.spectra.getSimilarityMap(failingTrace).get(trace);
-						if (similarityScore == null) {
-							Log.abort(this, "Similarity Score is null.");
-						}
-						count += similarityScore;
+			for (final ITrace<T> trace : this.spectra.getTraces()) {
+				if (predicate.test(trace)) {
+					// get the similarity score (ranges from 0 to 1)
+					Double similarityScore = similarities.getAverageSimilarity(trace);
+					if (similarityScore == null) {
+						Log.abort(this, "Similarity Score is null.");
 					}
+					count += similarityScore;
 				}
 			}
-			// average over all failing traces
-			count /= failingTracesCount;
 
 			return count;
 		}
@@ -100,6 +105,14 @@ public class Localizer<T> implements ILocalizer<T> {
 		if (this.cacheOutdated()) {
 			resetCache();
 		}
+		int index = getCounts().getIndex(node);
+		if (index >= 0) {
+			if (strategy == ComputationStrategies.STANDARD_SBFL) {
+				return __counts.getNP(index);
+			} else if (strategy == ComputationStrategies.SIMILARITY_SBFL) {
+				return getSimilarityCounts().getNP(index);
+			}
+		}
 		Double np = this.__cacheNP.get(node.getIdentifier());
 		if (np == null) {
 			np = computeValue(strategy, trace -> (trace.isSuccessful() && !trace.isInvolved(node)));
@@ -113,6 +126,14 @@ public class Localizer<T> implements ILocalizer<T> {
 		if (this.cacheOutdated()) {
 			resetCache();
 		}
+		int index = getCounts().getIndex(node);
+		if (index >= 0) {
+			if (strategy == ComputationStrategies.STANDARD_SBFL) {
+				return __counts.getNF(index);
+			} else if (strategy == ComputationStrategies.SIMILARITY_SBFL) {
+				return getSimilarityCounts().getNF(index);
+			}
+		}
 		Double nf = this.__cacheNF.get(node.getIdentifier());
 		if (nf == null) {
 			nf = computeValue(strategy, trace -> (!trace.isSuccessful() && !trace.isInvolved(node)));
@@ -126,6 +147,14 @@ public class Localizer<T> implements ILocalizer<T> {
 		if (this.cacheOutdated()) {
 			resetCache();
 		}
+		int index = getCounts().getIndex(node);
+		if (index >= 0) {
+			if (strategy == ComputationStrategies.STANDARD_SBFL) {
+				return __counts.getEP(index);
+			} else if (strategy == ComputationStrategies.SIMILARITY_SBFL) {
+				return getSimilarityCounts().getEP(index);
+			}
+		}
 		Double ep = this.__cacheEP.get(node.getIdentifier());
 		if (ep == null) {
 			ep = computeValue(strategy, trace -> (trace.isSuccessful() && trace.isInvolved(node)));
@@ -139,13 +168,55 @@ public class Localizer<T> implements ILocalizer<T> {
 		if (this.cacheOutdated()) {
 			resetCache();
 		}
+		int index = getCounts().getIndex(node);
+		if (index >= 0) {
+			if (strategy == ComputationStrategies.STANDARD_SBFL) {
+				return __counts.getEF(index);
+			} else if (strategy == ComputationStrategies.SIMILARITY_SBFL) {
+				return getSimilarityCounts().getEF(index);
+			}
+		}
 		Double ef = this.__cacheEF.get(node.getIdentifier());
 		if (ef == null) {
 			ef = computeValue(strategy, trace -> (!trace.isSuccessful() && trace.isInvolved(node)));
+			this.__cacheEF.put(node.getIdentifier(), ef);
 		}
 		return ef;
 	}
 
+	/**
+	 * Returns the EF, EP, NF and NP counts of all nodes for the standard
+	 * computation strategy. The counts are computed in a single sweep over all
+	 * traces and are cached until the next change of the spectra.
+	 * 
+	 * @return the counts of all nodes
+	 */
+	public InvolvementCounts<T> getCounts() {
+		if (this.cacheOutdated()) {
+			resetCache();
+		}
+		if (this.__counts == null) {
+			this.__counts = new InvolvementCounts<>(this.spectra);
+		}
+		return this.__counts;
+	}
+
+	/**
+	 * Returns the similarity weighted EF, EP, NF and NP values of all nodes,
+	 * using the node indices of {@link #getCounts()}. The values are computed
+	 * in a single sweep over all traces and are cached until the next change
+	 * of the spectra.
+	 * 
+	 * @return the similarity weighted values of all nodes
+	 */
+	public SimilarityCounts<T> getSimilarityCounts() {
+		InvolvementCounts<T> counts = getCounts();
+		if (this.__similarityCounts == null) {
+			this.__similarityCounts = new SimilarityCounts<>(this.spectra, counts);
+		}
+		return this.__similarityCounts;
+	}
+
 	/**
 	 * Check if the cache is outdated
 	 *
@@ -157,10 +228,17 @@ public class Localizer<T> implements ILocalizer<T> {
 
 	@Override
 	public void invalidateCachedValues() {
-		resetCache();
+		// only reset the cache if anything has been cached at all, since this
+		// is called for every single change of a node's involvement
+		if (this.__counts != null || this.__similarityCounts != null || this.__cacheTraceCount < 0 || !this.__cacheEF.isEmpty()
+				|| !this.__cacheEP.isEmpty() || !this.__cacheNF.isEmpty() || !this.__cacheNP.isEmpty()) {
+			resetCache();
+		}
 	}
 
 	private void resetCache() {
+		this.__counts = null;
+		this.__similarityCounts = null;
 		this.__cacheEF = new HashMap<>();
 		this.__cacheEP = new HashMap<>();
 		this.__cacheNF = new HashMap<>();
@@ -173,4 +251,169 @@ public class Localizer<T> implements ILocalizer<T> {
 		return localizer.localize(this.spectra, strategy);
 	}
 
+	/**
+	 * {@inheritDoc}
+	 * 
+	 * <p>
+	 * For the standard and the similarity strategy, the scores of all spectrum
+	 * based fault localizers are computed in a single loop over the nodes,
+	 * based on the cached counts. The nodes are split across the common
+	 * fork-join pool. Other localizers compute their rankings on their own.
+	 */
+	@Override
+	public List<Ranking<INode<T>>> localizeAll(List<IFaultLocalizer<T>> localizers, ComputationStrategies strategy) {
+		if (strategy != ComputationStrategies.STANDARD_SBFL && strategy != ComputationStrategies.SIMILARITY_SBFL) {
+			return ILocalizer.super.localizeAll(localizers, strategy);
+		}
+
+		// collect all spectrum based fault localizers
+		List<IFaultLocalizer<T>> formulas = new ArrayList<>(localizers.size());
+		for (IFaultLocalizer<T> localizer : localizers) {
+			if (localizer instanceof AbstractSpectrumBasedFaultLocalizer) {
+				formulas.add(localizer);
+			}
+		}
+
+		InvolvementCounts<T> counts = getCounts();
+		SimilarityCounts<T> similarityCounts = strategy == ComputationStrategies.SIMILARITY_SBFL
+				? getSimilarityCounts() : null;
+		double[][] scores = new double[formulas.size()][counts.getNodeCount()];
+		if (!formulas.isEmpty()) {
+			ForkJoinPool.commonPool().invoke(
+					new ScoringTask<>(counts, similarityCounts, formulas, scores, strategy, 0, counts.getNodeCount()));
+		}
+
+		List<Ranking<INode<T>>> rankings = new ArrayList<>(localizers.size());
+		int formulaIndex = 0;
+		for (IFaultLocalizer<T> localizer : localizers) {
+			if (localizer instanceof AbstractSpectrumBasedFaultLocalizer) {
+				rankings.add(createRanking(counts.getNodes(), scores[formulaIndex++]));
+			} else {
+				rankings.add(localizer.localize(this.spectra, strategy));
+			}
+		}
+		return rankings;
+	}
+
+	private static <T> Ranking<INode<T>> createRanking(List<INode<T>> nodes, double[] scores) {
+		final Ranking<INode<T>> ranking = new SBFLRanking<>();
+		for (int i = 0; i < scores.length; ++i) {
+			ranking.add(nodes.get(i), scores[i]);
+		}
+
+		// treats NaN values as being negative infinity
+		return Ranking.getRankingWithStrategies(
+				ranking, RankingStrategy.NEGATIVE_INFINITY, RankingStrategy.INFINITY,
+				RankingStrategy.NEGATIVE_INFINITY);
+	}
+
+	/**
+	 * Computes the scores of all given localizers for a range of nodes and
+	 * splits the range further if it is too large.
+	 */
+	private static class ScoringTask<T> extends RecursiveAction {
+
+		private static final long serialVersionUID = 1L;
+
+		private final InvolvementCounts<T> counts;
+		private final SimilarityCounts<T> similarityCounts;
+		private final List<IFaultLocalizer<T>> formulas;
+		private final double[][] scores;
+		private final ComputationStrategies strategy;
+		private final int from;
+		private final int to;
+
+		private ScoringTask(InvolvementCounts<T> counts, SimilarityCounts<T> similarityCounts,
+				List<IFaultLocalizer<T>> formulas, double[][] scores, ComputationStrategies strategy, int from, int to) {
+			this.counts = counts;
+			this.similarityCounts = similarityCounts;
+			this.formulas = formulas;
+			this.scores = scores;
+			this.strategy = strategy;
+			this.from = from;
+			this.to = to;
+		}
+
+		@Override
+		protected void compute() {
+			if (to - from <= SEQUENTIAL_THRESHOLD) {
+				CountNode<T> countNode = new CountNode<>();
+				for (int i = from; i < to; ++i) {
+					countNode.set(counts, similarityCounts, i);
+					for (int j = 0; j < formulas.size(); ++j) {
+						scores[j][i] = formulas.get(j).suspiciousness(countNode, strategy);
+					}
+				}
+			} else {
+				int middle = (from + to) >>> 1;
+				invokeAll(
+						new ScoringTask<>(counts, similarityCounts, formulas, scores, strategy, from, middle),
+						new ScoringTask<>(counts, similarityCounts, formulas, scores, strategy, middle, to));
+			}
+		}
+	}
+
+	/**
+	 * A node that directly returns the counts of the node with a given index,
+	 * without any lookups. Used during batch computation of scores.
+	 */
+	private static class CountNode<T> implements INode<T> {
+
+		private T identifier;
+		private double ef;
+		private double ep;
+		private double nf;
+		private double np;
+
+		private void set(InvolvementCounts<T> counts, SimilarityCounts<T> similarityCounts, int index) {
+			this.identifier = counts.getNodes().get(index).getIdentifier();
+			if (similarityCounts == null) {
+				this.ef = counts.getEF(index);
+				this.ep = counts.getEP(index);
+				this.nf = counts.getNF(index);
+				this.np = counts.getNP(index);
+			} else {
+				this.ef = similarityCounts.getEF(index);
+				this.ep = similarityCounts.getEP(index);
+				this.nf = similarityCounts.getNF(index);
+				this.np = similarityCounts.getNP(index);
+			}
+		}
+
+		@Override
+		public T getIdentifier() {
+			return identifier;
+		}
+
+		@Override
+		public double getNP(ComputationStrategies strategy) {
+			return np;
+		}
+
+		@Override
+		public double getNF(ComputationStrategies strategy) {
+			return nf;
+		}
+
+		@Override
+		public double getEP(ComputationStrategies strategy) {
+			return ep;
+		}
+
+		@Override
+		public double getEF(ComputationStrategies strategy) {
+			return ef;
+		}
+
+		@Override
+		public void invalidateCachedValues() {
+			// nothing to invalidate
+		}
+
+		@Override
+		public String toString() {
+			return String.valueOf(identifier);
+		}
+	}
+
 }
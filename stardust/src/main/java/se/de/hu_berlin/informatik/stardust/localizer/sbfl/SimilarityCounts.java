@@ -0,0 +1,106 @@
+/*
+ * This file is part of the "STARDUST" project. (c) Fabian Keller
+ * <hello@fabian-keller.de> For the full copyright and license information,
+ * please view the LICENSE file that was distributed with this source code.
+ */
+
+package se.de.hu_berlin.informatik.stardust.localizer.sbfl;
+
+import java.util.List;
+
+import se.de.hu_berlin.informatik.stardust.spectra.ISpectra;
+import se.de.hu_berlin.informatik.stardust.spectra.ITrace;
+import se.de.hu_berlin.informatik.stardust.spectra.SimilarityMatrix;
+import se.de.hu_berlin.informatik.utils.miscellaneous.Log;
+
+/**
+ * Holds the similarity weighted EF, EP, NF and NP values of all nodes of a
+ * spectra. Each trace counts with its average similarity to all failing
+ * traces, so all values are computed in a single sweep over the traces, using
+ * the node indices of the given {@link InvolvementCounts}. Like there, traces
+ * that share their involvement are only visited once.
+ *
+ * @param <T>
+ * type used to identify nodes in the system.
+ */
+public class SimilarityCounts<T> {
+
+	private final double[] ef;
+	private final double[] ep;
+
+	private double failingTraceWeight = 0;
+	private double successfulTraceWeight = 0;
+
+	/**
+	 * Computes the similarity weighted values for all nodes of the given
+	 * spectra.
+	 * @param spectra
+	 * the spectra
+	 * @param counts
+	 * the counts of the spectra, providing the node indices
+	 */
+	public SimilarityCounts(final ISpectra<T, ? extends ITrace<T>> spectra, final InvolvementCounts<T> counts) {
+		this.ef = new double[counts.getNodeCount()];
+		this.ep = new double[counts.getNodeCount()];
+
+		SimilarityMatrix<T, ? extends ITrace<T>> similarities = spectra.getSimilarities();
+		// traces with identical involvement have identical similarities
+		for (final List<? extends ITrace<T>> group : InvolvementCounts.getTraceGroups(spectra)) {
+			// get the similarity score (ranges from 0 to 1)
+			Double similarityScore = similarities.getAverageSimilarity(group.get(0));
+			if (similarityScore == null) {
+				Log.abort(this, "Similarity Score is null.");
+			}
+			final int failing = InvolvementCounts.countFailingTraces(group);
+			final double failingWeight = failing * similarityScore;
+			final double successfulWeight = (group.size() - failing) * similarityScore;
+			failingTraceWeight += failingWeight;
+			successfulTraceWeight += successfulWeight;
+			counts.forEachInvolvedIndex(group.get(0), index -> {
+				ef[index] += failingWeight;
+				ep[index] += successfulWeight;
+			});
+		}
+	}
+
+	/**
+	 * @param index
+	 * the index of a node
+	 * @return the similarity weighted amount of failing traces where the node
+	 * was executed
+	 */
+	public double getEF(final int index) {
+		return ef[index];
+	}
+
+	/**
+	 * @param index
+	 * the index of a node
+	 * @return the similarity weighted amount of successful traces where the
+	 * node was executed
+	 */
+	public double getEP(final int index) {
+		return ep[index];
+	}
+
+	/**
+	 * @param index
+	 * the index of a node
+	 * @return the similarity weighted amount of failing traces where the node
+	 * was not executed
+	 */
+	public double getNF(final int index) {
+		return failingTraceWeight - ef[index];
+	}
+
+	/**
+	 * @param index
+	 * the index of a node
+	 * @return the similarity weighted amount of successful traces where the
+	 * node was not executed
+	 */
+	public double getNP(final int index) {
+		return successfulTraceWeight - ep[index];
+	}
+
+}
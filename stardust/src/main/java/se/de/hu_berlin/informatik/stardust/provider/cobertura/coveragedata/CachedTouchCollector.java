@@ -0,0 +1,259 @@
+package se.de.hu_berlin.informatik.stardust.provider.cobertura.coveragedata;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.reflect.Method;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Map.Entry;
+
+import net.sourceforge.cobertura.coveragedata.LightClassmapListener;
+import net.sourceforge.cobertura.coveragedata.ProjectData;
+import net.sourceforge.cobertura.instrument.pass3.AbstractCodeProvider;
+import se.de.hu_berlin.informatik.utils.miscellaneous.Log;
+
+/**
+ * Collects the hit counters of classes that have been instrumented by Cobertura. In contrast
+ * to {@link MyTouchCollector}, the 'get and reset counters' method of each class is resolved
+ * only once to a cached {@link MethodHandle}, and the class map (which line belongs to which
+ * counter) is only requested once per class. The raw counter arrays can then be mapped to lines
+ * without any further reflection and without a global lock.
+ *
+ * <p>
+ * The lines are still added to Cobertura's project data, since the coverage store, the report
+ * wrappers and the Cobertura report loaders are based on it. The class map is converted to flat
+ * arrays once, such that all lines of a class are added at once.
+ */
+public class CachedTouchCollector {
+
+	private static final ClassCounters INVALID = new ClassCounters();
+
+	/**
+	 * The counters are attached to the instrumented classes themselves, such that
+	 * classes (and their class loaders) can still be garbage collected after a run.
+	 */
+	private static final ClassValue<ClassCounters> CLASS_COUNTERS = new ClassValue<ClassCounters>() {
+		@Override
+		protected ClassCounters computeValue(Class<?> c) {
+			try {
+				return new ClassCounters(c);
+			} catch (Throwable e) {
+				Log.err(CachedTouchCollector.class, e, "Cannot access counters of class '%s'.", c.getName());
+				return INVALID;
+			}
+		}
+	};
+
+	private CachedTouchCollector() {
+		//disallow instantiation
+	}
+
+	/**
+	 * Gets and resets the hit counters of all given classes.
+	 * @param registeredClasses
+	 * the instrumented classes
+	 * @return
+	 * the raw counter arrays of all classes that could be accessed
+	 */
+	public static Map<Class<?>, int[]> getAndResetCounters(Map<Class<?>, Integer> registeredClasses) {
+		Map<Class<?>, int[]> counters = new HashMap<>();
+		for (Class<?> c : registeredClasses.keySet()) {
+			ClassCounters classCounters = getClassCounters(c);
+			if (classCounters != INVALID) {
+				counters.put(c, classCounters.getAndResetCounters());
+			}
+		}
+		return counters;
+	}
+
+	/**
+	 * Adds the lines of the given classes with the hits from the given
+	 * raw counter arrays to the given project data.
+	 * @param counters
+	 * the raw counter arrays of the classes
+	 * @param projectData
+	 * the project data to add the lines to
+	 */
+	public static void applyCountersOnProjectData(Map<Class<?>, int[]> counters, ProjectData projectData) {
+		for (Entry<Class<?>, int[]> entry : counters.entrySet()) {
+			ClassCounters classCounters = getClassCounters(entry.getKey());
+			if (classCounters == INVALID) {
+				continue;
+			}
+			MyClassData classData = (MyClassData) projectData.getOrCreateClassData(entry.getKey().getName());
+			classCounters.applyTo(classData, entry.getValue());
+		}
+	}
+
+	/**
+	 * Gets and resets the hit counters of all given classes and adds the
+	 * corresponding lines to the given project data.
+	 * @param registeredClasses
+	 * the instrumented classes
+	 * @param projectData
+	 * the project data to add the lines to
+	 */
+	public static void applyTouchesOnProjectData(Map<Class<?>, Integer> registeredClasses, ProjectData projectData) {
+		applyCountersOnProjectData(getAndResetCounters(registeredClasses), projectData);
+	}
+
+	/**
+	 * Resets the hit counters of all given classes. Since other threads may still
+	 * touch lines, the counters of each class are requested until no line has
+	 * been touched since the last request, or until the maximum try count is reached.
+	 * @param registeredClasses
+	 * the instrumented classes
+	 * @param maxTryCount
+	 * the maximum number of tries per class
+	 * @return
+	 * whether the line counters of all classes have been reset
+	 */
+	public static boolean resetTouches(Map<Class<?>, Integer> registeredClasses, int maxTryCount) {
+		boolean isResetted = true;
+		for (Class<?> c : registeredClasses.keySet()) {
+			ClassCounters classCounters = getClassCounters(c);
+			if (classCounters == INVALID) {
+				continue;
+			}
+			// the first request returns the hits of the last test
+			classCounters.getAndResetCounters();
+			int tryCount = 0;
+			while (classCounters.hasTouchedLines(classCounters.getAndResetCounters())) {
+				if (++tryCount >= maxTryCount) {
+					isResetted = false;
+					break;
+				}
+			}
+		}
+		return isResetted;
+	}
+
+	private static ClassCounters getClassCounters(Class<?> c) {
+		return CLASS_COUNTERS.get(c);
+	}
+
+	/**
+	 * Holds the resolved 'get and reset counters' method of a class together
+	 * with the class map, i.e., the line touch points of the class.
+	 */
+	private static class ClassCounters {
+
+		private final MethodHandle getAndResetCounters;
+		private String source = null;
+
+		// the line touch points of the class map
+		private final String[] methodNamesAndDescriptors;
+		private final int[] classLines;
+		private final int[] counterIds;
+
+		private ClassCounters() {
+			getAndResetCounters = null;
+			methodNamesAndDescriptors = new String[0];
+			classLines = new int[0];
+			counterIds = new int[0];
+		}
+
+		private ClassCounters(Class<?> c) throws Exception {
+			Method m0 = c.getDeclaredMethod(AbstractCodeProvider.COBERTURA_GET_AND_RESET_COUNTERS_METHOD_NAME);
+			m0.setAccessible(true);
+			getAndResetCounters = MethodHandles.lookup().unreflect(m0);
+
+			Method m = c.getDeclaredMethod(
+					AbstractCodeProvider.COBERTURA_CLASSMAP_METHOD_NAME,
+					LightClassmapListener.class);
+			m.setAccessible(true);
+			ClassMapListener listener = new ClassMapListener();
+			m.invoke(null, listener);
+
+			int lineCount = listener.lines.size();
+			methodNamesAndDescriptors = new String[lineCount];
+			classLines = new int[lineCount];
+			counterIds = new int[lineCount];
+			for (int i = 0; i < lineCount; ++i) {
+				LineTouchPoint line = listener.lines.get(i);
+				// equal strings are shared between the lines of a method
+				methodNamesAndDescriptors[i] = (line.methodName + line.methodDescription).intern();
+				classLines[i] = line.classLine;
+				counterIds[i] = line.counterId;
+			}
+		}
+
+		private int[] getAndResetCounters() {
+			try {
+				return (int[]) getAndResetCounters.invokeExact();
+			} catch (Throwable e) {
+				throw new IllegalStateException("Cannot get and reset counters.", e);
+			}
+		}
+
+		private boolean hasTouchedLines(int[] counters) {
+			for (int counterId : counterIds) {
+				if (counters[counterId] != 0) {
+					return true;
+				}
+			}
+			return false;
+		}
+
+		private void applyTo(MyClassData classData, int[] counters) {
+			if (source != null) {
+				classData.setSourceFileName(source);
+			}
+			classData.addLines(methodNamesAndDescriptors, classLines, counterIds, counters);
+		}
+
+		private class ClassMapListener implements LightClassmapListener {
+
+			private final List<LineTouchPoint> lines = new ArrayList<>();
+
+			@Override
+			public void setSource(String source) {
+				ClassCounters.this.source = source;
+			}
+
+			@Override
+			public void setClazz(Class<?> clazz) {
+			}
+
+			@Override
+			public void setClazz(String clazz) {
+			}
+
+			@Override
+			public void putLineTouchPoint(int classLine, int counterId,
+					String methodName, String methodDescription) {
+				lines.add(new LineTouchPoint(classLine, counterId, methodName, methodDescription));
+			}
+
+			@Override
+			public void putSwitchTouchPoint(int classLine, int maxBranches,
+					int... counterIds) {
+				//do nothing
+			}
+
+			@Override
+			public void putJumpTouchPoint(int classLine, int trueCounterId,
+					int falseCounterId) {
+				//do nothing
+			}
+		}
+	}
+
+	private static class LineTouchPoint {
+
+		private final int classLine;
+		private final int counterId;
+		private final String methodName;
+		private final String methodDescription;
+
+		private LineTouchPoint(int classLine, int counterId, String methodName, String methodDescription) {
+			this.classLine = classLine;
+			this.counterId = counterId;
+			this.methodName = methodName;
+			this.methodDescription = methodDescription;
+		}
+	}
+
+}
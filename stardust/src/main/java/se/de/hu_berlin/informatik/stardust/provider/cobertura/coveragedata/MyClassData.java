@@ -49,6 +49,35 @@ public class MyClassData extends ClassData {
 		}
 	}
 	
+	/**
+	 * Adds the given lines with the hits of their counters. In contrast to
+	 * adding each line separately, the lock is only acquired once.
+	 * @param methodNamesAndDescriptors
+	 * the method name and descriptor of each line
+	 * @param classLines
+	 * the line numbers
+	 * @param counterIds
+	 * the counter ID of each line
+	 * @param counters
+	 * the hit counters, indexed by counter ID
+	 */
+	public void addLines(String[] methodNamesAndDescriptors, int[] classLines, int[] counterIds, int[] counters) {
+		lock.lock();
+		try {
+			for (int i = 0; i < classLines.length; ++i) {
+				Set<CoverageData> lines = coverageMap.get(methodNamesAndDescriptors[i]);
+				if (lines == null) {
+					lines = new HashSet<>();
+					coverageMap.put(methodNamesAndDescriptors[i], lines);
+					this.methodNamesAndDescriptors.add(methodNamesAndDescriptors[i]);
+				}
+				lines.add(new MyLineData(classLines[i], counters[counterIds[i]]));
+			}
+		} finally {
+			lock.unlock();
+		}
+	}
+	
 	@Override
 	public Collection<CoverageData> getLines(String methodNameAndDescriptor) {
 		lock.lock();
@@ -1,8 +1,12 @@
 package se.de.hu_berlin.informatik.stardust.provider.cobertura.coveragedata;
 
+import java.io.Serializable;
+
 import net.sourceforge.cobertura.coveragedata.CoverageData;
 
-public class MyLineData implements Comparable<Object>, CoverageData {
+public class MyLineData implements Comparable<Object>, CoverageData, Serializable {
+
+	private static final long serialVersionUID = -5185213432817474612L;
 
 	final private int lineNumber;
 	private long hits;
@@ -0,0 +1,48 @@
+/**
+ *
+ */
+package se.de.hu_berlin.informatik.stardust.provider.cobertura.report;
+
+import se.de.hu_berlin.informatik.stardust.localizer.SourceCodeBlock;
+import se.de.hu_berlin.informatik.stardust.provider.compact.AbstractCompactTraceConverter;
+import se.de.hu_berlin.informatik.stardust.provider.compact.NodeIndex;
+import se.de.hu_berlin.informatik.stardust.provider.loader.ICoverageDataLoader;
+import se.de.hu_berlin.informatik.stardust.provider.loader.cobertura.report.CoberturaReportLoader;
+import se.de.hu_berlin.informatik.stardust.spectra.ISpectra;
+import se.de.hu_berlin.informatik.stardust.spectra.hit.HitTrace;
+
+/**
+ * Converts Cobertura reports to compact traces, preserving the hit counts of all lines.
+ */
+public class CoberturaReportCompactTraceConverter 
+		extends AbstractCompactTraceConverter<SourceCodeBlock, CoberturaReportWrapper> {
+
+	private ICoverageDataLoader<SourceCodeBlock, HitTrace<SourceCodeBlock>, CoberturaReportWrapper> loader;
+
+	public CoberturaReportCompactTraceConverter(NodeIndex<SourceCodeBlock> nodeIndex, boolean fullSpectra) {
+		super(nodeIndex, fullSpectra);
+
+		loader = new CoberturaReportLoader<SourceCodeBlock, HitTrace<SourceCodeBlock>>() {
+
+			@Override
+			public SourceCodeBlock getIdentifier(String packageName, String sourceFilePath, String methodNameAndSig,
+					int lineNumber) {
+				return new SourceCodeBlock(packageName, sourceFilePath, methodNameAndSig, lineNumber);
+			}
+
+			@Override
+			protected void onNewLine(String packageName, String classFilePath, String methodName,
+					SourceCodeBlock lineIdentifier, ISpectra<SourceCodeBlock, HitTrace<SourceCodeBlock>> lineSpectra,
+					HitTrace<SourceCodeBlock> currentTrace, boolean fullSpectra, long numberOfHits) {
+				addLine(lineIdentifier, numberOfHits);
+			}
+
+		};
+	}
+
+	@Override
+	protected ICoverageDataLoader<SourceCodeBlock, HitTrace<SourceCodeBlock>, CoberturaReportWrapper> getLoader() {
+		return loader;
+	}
+
+}
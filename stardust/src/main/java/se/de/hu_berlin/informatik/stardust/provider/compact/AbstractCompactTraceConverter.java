@@ -0,0 +1,95 @@
+/**
+ *
+ */
+package se.de.hu_berlin.informatik.stardust.provider.compact;
+
+import java.util.Arrays;
+
+import se.de.hu_berlin.informatik.stardust.provider.loader.ICoverageDataLoader;
+import se.de.hu_berlin.informatik.stardust.spectra.ISpectra;
+import se.de.hu_berlin.informatik.stardust.spectra.hit.HitSpectra;
+import se.de.hu_berlin.informatik.stardust.spectra.hit.HitTrace;
+
+/**
+ * Converts single coverage data objects to {@link CompactTrace} objects. Implementations
+ * use a coverage data loader that reports each line to {@link #addLine(Object, long)}
+ * instead of adding it to a spectra, such that the coverage data object may be released
+ * directly after the conversion.
+ *
+ * <p>
+ * A converter is not thread-safe, but multiple converters may share the same
+ * {@link NodeIndex}.
+ *
+ *
+ * @param <T>
+ * the type of nodes in the spectra to provide
+ * @param <D>
+ * the type of the coverage data that is used
+ */
+public abstract class AbstractCompactTraceConverter<T, D> {
+
+	final private NodeIndex<T> nodeIndex;
+	final private boolean fullSpectra;
+
+	private int[] nodeIndices = new int[1024];
+	private int[] hits = new int[1024];
+	private int size = 0;
+
+	/**
+	 * @param nodeIndex
+	 * the index to get the indices of the nodes from
+	 * @param fullSpectra
+	 * whether to add all nodes contained in the data or only the covered nodes
+	 */
+	public AbstractCompactTraceConverter(NodeIndex<T> nodeIndex, boolean fullSpectra) {
+		super();
+		this.nodeIndex = nodeIndex;
+		this.fullSpectra = fullSpectra;
+	}
+
+	/**
+	 * @return
+	 * a loader that calls {@link #addLine(Object, long)} for each line in the coverage data
+	 */
+	protected abstract ICoverageDataLoader<T, HitTrace<T>, D> getLoader();
+
+	/**
+	 * Converts the given coverage data object.
+	 * @param data
+	 * a coverage data object
+	 * @return
+	 * the compact trace; or null if the data could not be loaded
+	 */
+	public CompactTrace convert(final D data) {
+		size = 0;
+		// only holds the trace, not the nodes
+		ISpectra<T, HitTrace<T>> traceSpectra = new HitSpectra<>();
+		if (!getLoader().loadSingleCoverageData(traceSpectra, data, fullSpectra)) {
+			return null;
+		}
+		HitTrace<T> trace = traceSpectra.getTraces().iterator().next();
+		return new CompactTrace(trace.getIdentifier(), trace.isSuccessful(), 
+				Arrays.copyOf(nodeIndices, size), Arrays.copyOf(hits, size));
+	}
+
+	/**
+	 * Adds a line to the current trace.
+	 * @param lineIdentifier
+	 * the identifier of the line
+	 * @param numberOfHits
+	 * the number of hits of the line
+	 */
+	protected void addLine(T lineIdentifier, long numberOfHits) {
+		if (numberOfHits <= 0 && !fullSpectra) {
+			return;
+		}
+		if (size == nodeIndices.length) {
+			nodeIndices = Arrays.copyOf(nodeIndices, 2 * size);
+			hits = Arrays.copyOf(hits, 2 * size);
+		}
+		nodeIndices[size] = nodeIndex.getIndex(lineIdentifier);
+		hits[size] = numberOfHits > Integer.MAX_VALUE ? Integer.MAX_VALUE : (int) Math.max(0, numberOfHits);
+		++size;
+	}
+
+}
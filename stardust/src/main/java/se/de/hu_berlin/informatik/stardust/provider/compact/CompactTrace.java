@@ -0,0 +1,81 @@
+/**
+ *
+ */
+package se.de.hu_berlin.informatik.stardust.provider.compact;
+
+/**
+ * A compact representation of a single execution trace. Instead of the
+ * complete coverage data, it only holds the indices of the nodes (in a
+ * {@link NodeIndex}) that are part of the trace, together with their hit
+ * counts, in the order in which they were encountered in the coverage data.
+ */
+public class CompactTrace {
+
+	/**
+	 * Denotes that the generation of the traces failed.
+	 */
+	public static final CompactTrace ERROR = new CompactTrace(null, false, new int[0], new int[0]);
+
+	final private String identifier;
+	final private boolean successful;
+	final private int[] nodeIndices;
+	final private int[] hits;
+
+	/**
+	 * @param identifier
+	 * the identifier of the trace (usually the test case name); may be null
+	 * @param successful
+	 * whether the trace originates from a successful execution
+	 * @param nodeIndices
+	 * the indices of the nodes of the trace
+	 * @param hits
+	 * the numbers of hits of the nodes with the respective indices; nodes
+	 * with 0 hits are not involved in the trace
+	 */
+	public CompactTrace(String identifier, boolean successful, int[] nodeIndices, int[] hits) {
+		if (nodeIndices.length != hits.length) {
+			throw new IllegalArgumentException("Number of node indices and hit counts differ.");
+		}
+		this.identifier = identifier;
+		this.successful = successful;
+		this.nodeIndices = nodeIndices;
+		this.hits = hits;
+	}
+
+	public String getIdentifier() {
+		return identifier;
+	}
+
+	public boolean isSuccessful() {
+		return successful;
+	}
+
+	/**
+	 * @return
+	 * the number of nodes in this trace
+	 */
+	public int size() {
+		return nodeIndices.length;
+	}
+
+	/**
+	 * @param i
+	 * a position in this trace
+	 * @return
+	 * the node index at the given position
+	 */
+	public int getNodeIndex(int i) {
+		return nodeIndices[i];
+	}
+
+	/**
+	 * @param i
+	 * a position in this trace
+	 * @return
+	 * the number of hits of the node at the given position
+	 */
+	public int getHits(int i) {
+		return hits[i];
+	}
+
+}
@@ -0,0 +1,26 @@
+/**
+ *
+ */
+package se.de.hu_berlin.informatik.stardust.provider.compact;
+
+import se.de.hu_berlin.informatik.stardust.provider.loader.compact.CompactTraceCountLoader;
+import se.de.hu_berlin.informatik.stardust.spectra.ISpectra;
+import se.de.hu_berlin.informatik.stardust.spectra.count.CountTrace;
+
+/**
+ * Loads {@link CompactTrace} objects to {@link ISpectra} objects with
+ * count traces, i.e., the hit counts of the nodes are preserved.
+ *
+ *
+ * @param <T>
+ * the type of nodes in the spectra to provide
+ * @param <K>
+ * the type of traces in the specra
+ */
+public class CompactTraceCountProvider<T, K extends CountTrace<T>> extends CompactTraceProvider<T, K> {
+
+	public CompactTraceCountProvider(ISpectra<T, K> lineSpectra, NodeIndex<T> nodeIndex, boolean fullSpectra) {
+		super(lineSpectra, new CompactTraceCountLoader<>(nodeIndex), fullSpectra);
+	}
+
+}
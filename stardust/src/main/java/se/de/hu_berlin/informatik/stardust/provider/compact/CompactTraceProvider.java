@@ -0,0 +1,42 @@
+/**
+ *
+ */
+package se.de.hu_berlin.informatik.stardust.provider.compact;
+
+import se.de.hu_berlin.informatik.stardust.provider.AbstractSpectraProvider;
+import se.de.hu_berlin.informatik.stardust.provider.loader.ICoverageDataLoader;
+import se.de.hu_berlin.informatik.stardust.provider.loader.compact.CompactTraceLoader;
+import se.de.hu_berlin.informatik.stardust.spectra.ISpectra;
+import se.de.hu_berlin.informatik.stardust.spectra.ITrace;
+
+/**
+ * Loads {@link CompactTrace} objects to {@link ISpectra} objects where each node
+ * is represented by its identifier in the given {@link NodeIndex} and each
+ * compact trace represents one trace in the resulting spectra.
+ *
+ *
+ * @param <T>
+ * the type of nodes in the spectra to provide
+ * @param <K>
+ * the type of traces in the specra
+ */
+public class CompactTraceProvider<T, K extends ITrace<T>> extends AbstractSpectraProvider<T, K, CompactTrace> {
+
+	private ICoverageDataLoader<T, K, CompactTrace> loader;
+
+	public CompactTraceProvider(ISpectra<T, K> lineSpectra, NodeIndex<T> nodeIndex, boolean fullSpectra) {
+		this(lineSpectra, new CompactTraceLoader<>(nodeIndex), fullSpectra);
+	}
+
+	protected CompactTraceProvider(ISpectra<T, K> lineSpectra, 
+			ICoverageDataLoader<T, K, CompactTrace> loader, boolean fullSpectra) {
+		super(lineSpectra, fullSpectra);
+		this.loader = loader;
+	}
+
+	@Override
+	protected ICoverageDataLoader<T, K, CompactTrace> getLoader() {
+		return loader;
+	}
+
+}
@@ -0,0 +1,71 @@
+/**
+ *
+ */
+package se.de.hu_berlin.informatik.stardust.provider.compact;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Assigns a unique, consecutive index to each node identifier. The index may be
+ * shared between multiple threads that convert coverage data to {@link CompactTrace}
+ * objects, such that each identifier has to be stored only once, independent of
+ * the number of traces that contain the respective node.
+ *
+ *
+ * @param <T>
+ * the type of node identifiers
+ */
+public class NodeIndex<T> {
+
+	final private Map<T, Integer> indices = new ConcurrentHashMap<>();
+	final private List<T> identifiers = new ArrayList<>();
+
+	/**
+	 * Returns the index of the given identifier. Assigns a new index
+	 * if the identifier has not been seen before.
+	 * @param identifier
+	 * the node identifier
+	 * @return
+	 * the index of the identifier
+	 */
+	public int getIndex(T identifier) {
+		Integer index = indices.get(identifier);
+		if (index == null) {
+			synchronized (identifiers) {
+				index = indices.get(identifier);
+				if (index == null) {
+					index = identifiers.size();
+					identifiers.add(identifier);
+					indices.put(identifier, index);
+				}
+			}
+		}
+		return index;
+	}
+
+	/**
+	 * @param index
+	 * an index that has been assigned by this node index
+	 * @return
+	 * the node identifier with the given index
+	 */
+	public T getIdentifier(int index) {
+		synchronized (identifiers) {
+			return identifiers.get(index);
+		}
+	}
+
+	/**
+	 * @return
+	 * the number of indexed identifiers
+	 */
+	public int size() {
+		synchronized (identifiers) {
+			return identifiers.size();
+		}
+	}
+
+}
@@ -0,0 +1,544 @@
+/**
+ *
+ */
+package se.de.hu_berlin.informatik.stardust.provider.jacoco.report;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.IdentityHashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import org.jacoco.core.analysis.Analyzer;
+import org.jacoco.core.analysis.CoverageBuilder;
+import org.jacoco.core.analysis.IClassCoverage;
+import org.jacoco.core.analysis.ICounter;
+import org.jacoco.core.analysis.IMethodCoverage;
+import org.jacoco.core.data.ExecutionData;
+import org.jacoco.core.data.ExecutionDataStore;
+import org.jacoco.core.internal.flow.ClassProbesAdapter;
+import org.jacoco.core.internal.flow.ClassProbesVisitor;
+import org.jacoco.core.internal.flow.IFrame;
+import org.jacoco.core.internal.flow.LabelInfo;
+import org.jacoco.core.internal.flow.MethodProbesVisitor;
+import org.objectweb.asm.ClassReader;
+import org.objectweb.asm.Handle;
+import org.objectweb.asm.Label;
+
+/**
+ * Maps the probes of JaCoCo execution data directly to the lines of the
+ * analyzed classes. The classes are analyzed only once, and the lines that
+ * are covered by each single probe are computed on demand for each class
+ * that has execution data. A line is covered by a set of probes iff it is
+ * covered by at least one of the probes, so the coverage of a test can be
+ * computed from the raw probe arrays without analyzing the classes again.
+ *
+ * <p>
+ * The probe table of a class is computed with a single pass over the class,
+ * following the control flow model of JaCoCo's analysis: each probe covers
+ * the instruction it belongs to and all (transitive) predecessors of this
+ * instruction.
+ */
+public class JaCoCoProbeTable {
+
+	final private Map<String, List<ClassEntry>> packages = new LinkedHashMap<>();
+	final private Map<Long, ClassEntry> classes = new HashMap<>();
+	final private Set<String> classNames = new HashSet<>();
+	private int lineCount = 0;
+
+	/**
+	 * Analyzes the given class files or directories/archives containing class files.
+	 * @param classFiles
+	 * the class files, directories or archives
+	 * @throws IOException
+	 * if a class can not be read
+	 */
+	public JaCoCoProbeTable(Collection<File> classFiles) throws IOException {
+		final List<byte[]> classBytes = new ArrayList<>();
+		final Analyzer collector = new Analyzer(new ExecutionDataStore(), new CoverageBuilder()) {
+			@Override
+			public void analyzeClass(ClassReader reader) {
+				classBytes.add(reader.b);
+			}
+		};
+		for (final File f : classFiles) {
+			collector.analyzeAll(f);
+		}
+
+		Map<String, Long> classIds = new HashMap<>();
+		for (byte[] bytes : classBytes) {
+			IClassCoverage classData = analyze(bytes, null);
+			// classes without code (e.g., interfaces) are not reported
+			if (classData == null) {
+				continue;
+			}
+			Long previousId = classIds.put(classData.getName(), classData.getId());
+			if (previousId != null) {
+				if (previousId.longValue() != classData.getId()) {
+					// same check as in JaCoCo's coverage builder
+					throw new IllegalStateException("Can't add different class with same name: " + classData.getName());
+				}
+				// same class file in multiple locations
+				continue;
+			}
+			ClassEntry entry = new ClassEntry(classData, bytes, lineCount);
+			lineCount += entry.getLineCount();
+			classes.put(entry.getId(), entry);
+			classNames.add(classData.getName());
+			packages.computeIfAbsent(entry.getPackageName(), k -> new ArrayList<>()).add(entry);
+		}
+	}
+
+	/**
+	 * @return
+	 * the analyzed classes, grouped by (dot-separated) package names
+	 */
+	public Map<String, List<ClassEntry>> getPackages() {
+		return packages;
+	}
+
+	/**
+	 * @return
+	 * the overall number of lines in all analyzed classes
+	 */
+	public int getLineCount() {
+		return lineCount;
+	}
+
+	/**
+	 * @param executionData
+	 * execution data of a class
+	 * @return
+	 * whether a class with the given name has been analyzed, but with different
+	 * class files than the ones used at runtime
+	 */
+	public boolean isNoMatch(ExecutionData executionData) {
+		return !classes.containsKey(executionData.getId()) && classNames.contains(executionData.getName());
+	}
+
+	private static IClassCoverage analyze(byte[] bytes, ExecutionData executionData) {
+		ExecutionDataStore store = new ExecutionDataStore();
+		if (executionData != null) {
+			store.put(executionData);
+		}
+		CoverageBuilder builder = new CoverageBuilder();
+		try {
+			new Analyzer(store, builder).analyzeClass(bytes, null);
+		} catch (IOException e) {
+			// can not happen, since the class has been analyzed before
+			throw new IllegalStateException(e);
+		}
+		Collection<IClassCoverage> classCoverage = builder.getClasses();
+		return classCoverage.isEmpty() ? null : classCoverage.iterator().next();
+	}
+
+	public static class ClassEntry {
+
+		final private long id;
+		final private String name;
+		final private String packageName;
+		final private String sourceFilePath;
+		final private List<MethodEntry> methods = new ArrayList<>();
+		final private Map<String, MethodEntry> methodsByNameAndSig = new HashMap<>();
+		final private int firstLineIndex;
+		final private int lineCount;
+
+		private byte[] bytes;
+		private int[][] probeLines = null;
+
+		private ClassEntry(IClassCoverage classData, byte[] bytes, int firstLineIndex) {
+			this.id = classData.getId();
+			this.name = classData.getName();
+			this.bytes = bytes;
+			this.firstLineIndex = firstLineIndex;
+			this.packageName = classData.getPackageName().replace('/', '.');
+
+			String actualClassPath = classData.getName();
+			int pos = actualClassPath.indexOf('$');
+			if (pos != -1) {
+				actualClassPath = actualClassPath.substring(0, pos);
+			}
+			String sourceFileName = classData.getSourceFileName();
+			if (sourceFileName != null && !sourceFileName.equals("")) {
+				int pos2 = actualClassPath.lastIndexOf('/');
+				if (pos2 != -1) {
+					this.sourceFilePath = actualClassPath.substring(0, pos2 + 1) + sourceFileName;
+				} else {
+					this.sourceFilePath = sourceFileName;
+				}
+			} else {
+				this.sourceFilePath = actualClassPath + ".java";
+			}
+
+			int lineIndex = 0;
+			for (IMethodCoverage method : classData.getMethods()) {
+				MethodEntry methodEntry = new MethodEntry(actualClassPath, method, lineIndex);
+				lineIndex += methodEntry.getLineNumbers().length;
+				methods.add(methodEntry);
+				methodsByNameAndSig.put(methodEntry.getMethodNameAndSig(), methodEntry);
+			}
+			this.lineCount = lineIndex;
+		}
+
+		public long getId() {
+			return id;
+		}
+
+		public String getPackageName() {
+			return packageName;
+		}
+
+		public String getSourceFilePath() {
+			return sourceFilePath;
+		}
+
+		/**
+		 * @return
+		 * the methods of the class; the lines of the methods are numbered
+		 * consecutively in this order, starting at 0
+		 */
+		public List<MethodEntry> getMethods() {
+			return methods;
+		}
+
+		/**
+		 * @return
+		 * the index of the first line of this class in the table
+		 */
+		public int getFirstLineIndex() {
+			return firstLineIndex;
+		}
+
+		public int getLineCount() {
+			return lineCount;
+		}
+
+		/**
+		 * Returns the (class relative) indices of the lines that are covered
+		 * by each probe. The table is computed once, when it is requested for
+		 * the first time, with a single pass over the class.
+		 * @param probeCount
+		 * the number of probes of the class, as given by its execution data
+		 * @return
+		 * the indices of the covered lines for each probe
+		 */
+		public synchronized int[][] getProbeLines(int probeCount) {
+			if (probeLines == null) {
+				ProbeLineAnalyzer analyzer = new ProbeLineAnalyzer(this);
+				new ClassReader(bytes).accept(new ClassProbesAdapter(analyzer, false), 0);
+				probeLines = analyzer.getProbeLines();
+				// the class files are not needed anymore
+				bytes = null;
+			}
+			if (probeLines.length != probeCount) {
+				throw new IllegalStateException("Execution data for class " + name + " does not match.");
+			}
+			return probeLines;
+		}
+	}
+
+	/**
+	 * Computes the lines that are covered by each single probe of a class. As in
+	 * JaCoCo's analysis, each instruction has at most one predecessor, and a covered
+	 * instruction marks its predecessors as covered.
+	 */
+	private static class ProbeLineAnalyzer extends ClassProbesVisitor {
+
+		final private ClassEntry classEntry;
+		final private Map<Integer, List<Instruction>> probeInstructions = new HashMap<>();
+		private int probeCount = 0;
+
+		private ProbeLineAnalyzer(ClassEntry classEntry) {
+			this.classEntry = classEntry;
+		}
+
+		@Override
+		public MethodProbesVisitor visitMethod(int access, String name, String desc, 
+				String signature, String[] exceptions) {
+			// lines of methods that are not part of the coverage (e.g., synthetic methods) are ignored
+			return new MethodProbeLineAnalyzer(classEntry.methodsByNameAndSig.get(name + desc));
+		}
+
+		@Override
+		public void visitTotalProbeCount(int count) {
+			probeCount = count;
+		}
+
+		private int[][] getProbeLines() {
+			int[][] probeLines = new int[probeCount][];
+			int[] lineStamps = new int[classEntry.lineCount];
+			Arrays.fill(lineStamps, -1);
+			int[] coveredLines = new int[classEntry.lineCount];
+			for (int probe = 0; probe < probeCount; ++probe) {
+				int count = 0;
+				List<Instruction> instructions = probeInstructions.get(probe);
+				if (instructions != null) {
+					for (Instruction instruction : instructions) {
+						// stop at instructions that are already covered by this probe (loops)
+						for (Instruction i = instruction; i != null && i.probe != probe; i = i.predecessor) {
+							i.probe = probe;
+							if (i.lineIndex >= 0 && lineStamps[i.lineIndex] != probe) {
+								lineStamps[i.lineIndex] = probe;
+								coveredLines[count++] = i.lineIndex;
+							}
+						}
+					}
+				}
+				probeLines[probe] = Arrays.copyOf(coveredLines, count);
+			}
+			return probeLines;
+		}
+
+		private class MethodProbeLineAnalyzer extends MethodProbesVisitor {
+
+			final private MethodEntry methodEntry;
+			final private List<Label> currentLabels = new ArrayList<>(2);
+			final private Map<Label, Instruction> labelInstructions = new IdentityHashMap<>();
+			final private List<Instruction> jumpSources = new ArrayList<>();
+			final private List<Label> jumpTargets = new ArrayList<>();
+			private int currentLine = -1;
+			private Instruction lastInsn = null;
+
+			private MethodProbeLineAnalyzer(MethodEntry methodEntry) {
+				this.methodEntry = methodEntry;
+			}
+
+			@Override
+			public void visitLabel(Label label) {
+				currentLabels.add(label);
+				if (!LabelInfo.isSuccessor(label)) {
+					lastInsn = null;
+				}
+			}
+
+			@Override
+			public void visitLineNumber(int line, Label start) {
+				currentLine = line;
+			}
+
+			private void visitInsn() {
+				int lineIndex = -1;
+				if (methodEntry != null) {
+					int i = Arrays.binarySearch(methodEntry.getLineNumbers(), currentLine);
+					if (i >= 0) {
+						lineIndex = methodEntry.getFirstLineIndex() + i;
+					}
+				}
+				Instruction insn = new Instruction(lineIndex);
+				if (lastInsn != null) {
+					insn.predecessor = lastInsn;
+				}
+				for (Label label : currentLabels) {
+					labelInstructions.put(label, insn);
+				}
+				currentLabels.clear();
+				lastInsn = insn;
+			}
+
+			private void addJump(Label target) {
+				jumpSources.add(lastInsn);
+				jumpTargets.add(target);
+			}
+
+			private void addProbe(int probeId) {
+				probeInstructions.computeIfAbsent(probeId, k -> new ArrayList<>(1)).add(lastInsn);
+			}
+
+			@Override
+			public void visitInsn(int opcode) {
+				visitInsn();
+			}
+
+			@Override
+			public void visitIntInsn(int opcode, int operand) {
+				visitInsn();
+			}
+
+			@Override
+			public void visitVarInsn(int opcode, int var) {
+				visitInsn();
+			}
+
+			@Override
+			public void visitTypeInsn(int opcode, String type) {
+				visitInsn();
+			}
+
+			@Override
+			public void visitFieldInsn(int opcode, String owner, String name, String desc) {
+				visitInsn();
+			}
+
+			@Override
+			public void visitMethodInsn(int opcode, String owner, String name, String desc, boolean itf) {
+				visitInsn();
+			}
+
+			@Override
+			public void visitInvokeDynamicInsn(String name, String desc, Handle bsm, Object... bsmArgs) {
+				visitInsn();
+			}
+
+			@Override
+			public void visitJumpInsn(int opcode, Label label) {
+				visitInsn();
+				addJump(label);
+			}
+
+			@Override
+			public void visitLdcInsn(Object cst) {
+				visitInsn();
+			}
+
+			@Override
+			public void visitIincInsn(int var, int increment) {
+				visitInsn();
+			}
+
+			@Override
+			public void visitTableSwitchInsn(int min, int max, Label dflt, Label... labels) {
+				visitSwitchInsn(dflt, labels);
+			}
+
+			@Override
+			public void visitLookupSwitchInsn(Label dflt, int[] keys, Label[] labels) {
+				visitSwitchInsn(dflt, labels);
+			}
+
+			@Override
+			public void visitMultiANewArrayInsn(String desc, int dims) {
+				visitInsn();
+			}
+
+			@Override
+			public void visitProbe(int probeId) {
+				addProbe(probeId);
+				lastInsn = null;
+			}
+
+			@Override
+			public void visitJumpInsnWithProbe(int opcode, Label label, int probeId, IFrame frame) {
+				visitInsn();
+				addProbe(probeId);
+			}
+
+			@Override
+			public void visitInsnWithProbe(int opcode, int probeId) {
+				visitInsn();
+				addProbe(probeId);
+			}
+
+			@Override
+			public void visitTableSwitchInsnWithProbes(int min, int max, Label dflt, Label[] labels, IFrame frame) {
+				visitSwitchInsnWithProbes(dflt, labels);
+			}
+
+			@Override
+			public void visitLookupSwitchInsnWithProbes(Label dflt, int[] keys, Label[] labels, IFrame frame) {
+				visitSwitchInsnWithProbes(dflt, labels);
+			}
+
+			private void visitSwitchInsn(Label dflt, Label[] labels) {
+				visitInsn();
+				addJump(dflt);
+				for (Label label : labels) {
+					addJump(label);
+				}
+			}
+
+			private void visitSwitchInsnWithProbes(Label dflt, Label[] labels) {
+				visitInsn();
+				visitSwitchTarget(dflt);
+				for (Label label : labels) {
+					visitSwitchTarget(label);
+				}
+			}
+
+			private void visitSwitchTarget(Label label) {
+				int probeId = LabelInfo.getProbeId(label);
+				if (probeId == LabelInfo.NO_PROBE) {
+					addJump(label);
+				} else {
+					addProbe(probeId);
+				}
+			}
+
+			@Override
+			public void visitEnd() {
+				// jumps are the predecessors of their targets
+				for (int i = 0; i < jumpSources.size(); ++i) {
+					Instruction target = labelInstructions.get(jumpTargets.get(i));
+					if (target != null) {
+						target.predecessor = jumpSources.get(i);
+					}
+				}
+			}
+		}
+	}
+
+	private static class Instruction {
+
+		final private int lineIndex;
+		private Instruction predecessor = null;
+		private int probe = -1;
+
+		private Instruction(int lineIndex) {
+			this.lineIndex = lineIndex;
+		}
+	}
+
+	public static class MethodEntry {
+
+		final private String methodNameAndSig;
+		final private String methodIdentifier;
+		final private int[] lineNumbers;
+		final private int firstLineIndex;
+
+		private MethodEntry(String actualClassPath, IMethodCoverage method, int firstLineIndex) {
+			this.methodNameAndSig = method.getName() + method.getDesc();
+			this.methodIdentifier = String.format("%s:%s", actualClassPath, methodNameAndSig);
+			this.firstLineIndex = firstLineIndex;
+
+			int[] lines = new int[Math.max(0, method.getLastLine() - method.getFirstLine() + 1)];
+			int count = 0;
+			for (int i = method.getFirstLine(); i <= method.getLastLine(); ++i) {
+				if (method.getLine(i).getStatus() != ICounter.EMPTY) {
+					lines[count++] = i;
+				}
+			}
+			this.lineNumbers = Arrays.copyOf(lines, count);
+		}
+
+		public String getMethodNameAndSig() {
+			return methodNameAndSig;
+		}
+
+		public String getMethodIdentifier() {
+			return methodIdentifier;
+		}
+
+		/**
+		 * @return
+		 * the numbers of all lines of the method that contain code
+		 */
+		public int[] getLineNumbers() {
+			return lineNumbers;
+		}
+
+		/**
+		 * @return
+		 * the (class relative) index of the first line of this method
+		 */
+		public int getFirstLineIndex() {
+			return firstLineIndex;
+		}
+	}
+
+}
@@ -0,0 +1,48 @@
+/**
+ *
+ */
+package se.de.hu_berlin.informatik.stardust.provider.jacoco.report;
+
+import se.de.hu_berlin.informatik.stardust.localizer.SourceCodeBlock;
+import se.de.hu_berlin.informatik.stardust.provider.compact.AbstractCompactTraceConverter;
+import se.de.hu_berlin.informatik.stardust.provider.compact.NodeIndex;
+import se.de.hu_berlin.informatik.stardust.provider.loader.ICoverageDataLoader;
+import se.de.hu_berlin.informatik.stardust.provider.loader.jacoco.report.JaCoCoReportLoader;
+import se.de.hu_berlin.informatik.stardust.spectra.ISpectra;
+import se.de.hu_berlin.informatik.stardust.spectra.hit.HitTrace;
+
+/**
+ * Converts JaCoCo reports to compact traces. Covered lines have a hit count of 1.
+ */
+public class JaCoCoReportCompactTraceConverter 
+		extends AbstractCompactTraceConverter<SourceCodeBlock, JaCoCoReportWrapper> {
+
+	private ICoverageDataLoader<SourceCodeBlock, HitTrace<SourceCodeBlock>, JaCoCoReportWrapper> loader;
+
+	public JaCoCoReportCompactTraceConverter(NodeIndex<SourceCodeBlock> nodeIndex, boolean fullSpectra) {
+		super(nodeIndex, fullSpectra);
+
+		loader = new JaCoCoReportLoader<SourceCodeBlock, HitTrace<SourceCodeBlock>>() {
+
+			@Override
+			public SourceCodeBlock getIdentifier(String packageName, String sourceFilePath, String methodNameAndSig,
+					int lineNumber) {
+				return new SourceCodeBlock(packageName, sourceFilePath, methodNameAndSig, lineNumber);
+			}
+
+			@Override
+			protected void onNewLine(String packageName, String classFilePath, String methodName,
+					SourceCodeBlock lineIdentifier, ISpectra<SourceCodeBlock, HitTrace<SourceCodeBlock>> lineSpectra,
+					HitTrace<SourceCodeBlock> currentTrace, boolean fullSpectra, long numberOfHits) {
+				addLine(lineIdentifier, numberOfHits);
+			}
+
+		};
+	}
+
+	@Override
+	protected ICoverageDataLoader<SourceCodeBlock, HitTrace<SourceCodeBlock>, JaCoCoReportWrapper> getLoader() {
+		return loader;
+	}
+
+}
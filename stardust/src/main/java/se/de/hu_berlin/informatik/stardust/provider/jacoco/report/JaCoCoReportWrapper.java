@@ -4,6 +4,7 @@
 package se.de.hu_berlin.informatik.stardust.provider.jacoco.report;
 
 import org.jacoco.core.analysis.IBundleCoverage;
+import org.jacoco.core.data.ExecutionDataStore;
 
 /**
  * @author Simon
@@ -12,11 +13,36 @@ import org.jacoco.core.analysis.IBundleCoverage;
 public class JaCoCoReportWrapper {
 	
 	final private IBundleCoverage report;
+	final private ExecutionDataStore executionData;
+	final private JaCoCoProbeTable probeTable;
 	final private boolean successful;
 	final String testIdentifier;
 	
 	public JaCoCoReportWrapper(final IBundleCoverage report, final String testIdentifier, final boolean successful) {
 		this.report = report;
+		this.executionData = null;
+		this.probeTable = null;
+		this.successful = successful;
+		this.testIdentifier = testIdentifier;
+	}
+	
+	/**
+	 * Wraps raw execution data that is mapped to lines with the given probe table,
+	 * without analyzing the classes again.
+	 * @param executionData
+	 * the execution data of a test
+	 * @param probeTable
+	 * the probe table of the analyzed classes
+	 * @param testIdentifier
+	 * the identifier of the test
+	 * @param successful
+	 * whether the test was successful
+	 */
+	public JaCoCoReportWrapper(final ExecutionDataStore executionData, final JaCoCoProbeTable probeTable, 
+			final String testIdentifier, final boolean successful) {
+		this.report = null;
+		this.executionData = executionData;
+		this.probeTable = probeTable;
 		this.successful = successful;
 		this.testIdentifier = testIdentifier;
 	}
@@ -25,6 +51,14 @@ public class JaCoCoReportWrapper {
 		return report;
 	}
 	
+	public ExecutionDataStore getExecutionData() {
+		return executionData;
+	}
+	
+	public JaCoCoProbeTable getProbeTable() {
+		return probeTable;
+	}
+	
 	public String getIdentifier() {
 		return testIdentifier;
 	}
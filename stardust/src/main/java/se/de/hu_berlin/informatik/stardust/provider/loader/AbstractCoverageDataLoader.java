@@ -5,6 +5,20 @@ import se.de.hu_berlin.informatik.stardust.spectra.ITrace;
 
 public abstract class AbstractCoverageDataLoader<T, K extends ITrace<T>, D> implements ICoverageDataLoader<T, K, D> {
 
+	/**
+	 * Provides an identifier of type T, generated from the given parameters.
+	 * @param packageName
+	 * a package name
+	 * @param sourceFilePath
+	 * a source file path
+	 * @param methodNameAndSig
+	 * a method name and signature
+	 * @param lineNumber
+	 * a line number
+	 * @return an identifier (object) of type T
+	 */
+	public abstract T getIdentifier(String packageName, String sourceFilePath, String methodNameAndSig, int lineNumber);
+
 	protected void onNewPackage(String packageName, K currentTrace) {
 		// nothing to do
 	}
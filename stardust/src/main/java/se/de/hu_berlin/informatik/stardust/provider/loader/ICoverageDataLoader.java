@@ -19,18 +19,4 @@ public interface ICoverageDataLoader<T, K extends ITrace<T>, D> {
 	 */
 	public boolean loadSingleCoverageData(ISpectra<T, K> lineSpectra, final D coverageData, final boolean fullSpectra);
 
-	/**
-	 * Provides an identifier of type T, generated from the given parameters.
-	 * @param packageName
-	 * a package name
-	 * @param sourceFilePath
-	 * a source file path
-	 * @param methodNameAndSig
-	 * a method name and signature
-	 * @param lineNumber
-	 * a line number
-	 * @return an identifier (object) of type T
-	 */
-	public T getIdentifier(String packageName, String sourceFilePath, String methodNameAndSig, int lineNumber);
-
 }
@@ -0,0 +1,22 @@
+package se.de.hu_berlin.informatik.stardust.provider.loader.compact;
+
+import se.de.hu_berlin.informatik.stardust.provider.compact.NodeIndex;
+import se.de.hu_berlin.informatik.stardust.spectra.ISpectra;
+import se.de.hu_berlin.informatik.stardust.spectra.count.CountTrace;
+
+public class CompactTraceCountLoader<T, K extends CountTrace<T>> extends CompactTraceLoader<T, K> {
+
+	public CompactTraceCountLoader(NodeIndex<T> nodeIndex) {
+		super(nodeIndex);
+	}
+
+	@Override
+	protected void onNewNode(T identifier, ISpectra<T, K> lineSpectra, K currentTrace, 
+			boolean fullSpectra, long numberOfHits) {
+		super.onNewNode(identifier, lineSpectra, currentTrace, fullSpectra, numberOfHits);
+		if (numberOfHits > 0) {
+			currentTrace.setHits(identifier, numberOfHits);
+		}
+	}
+
+}
@@ -0,0 +1,60 @@
+package se.de.hu_berlin.informatik.stardust.provider.loader.compact;
+
+import se.de.hu_berlin.informatik.stardust.provider.compact.CompactTrace;
+import se.de.hu_berlin.informatik.stardust.provider.compact.NodeIndex;
+import se.de.hu_berlin.informatik.stardust.provider.loader.ICoverageDataLoader;
+import se.de.hu_berlin.informatik.stardust.spectra.ISpectra;
+import se.de.hu_berlin.informatik.stardust.spectra.ITrace;
+
+/**
+ * Loads {@link CompactTrace} objects. The node identifiers are taken from the
+ * given {@link NodeIndex}, such that no identifiers have to be generated.
+ *
+ * @param <T>
+ * the type of node identifiers
+ * @param <K>
+ * the type of traces
+ */
+public class CompactTraceLoader<T, K extends ITrace<T>> implements ICoverageDataLoader<T, K, CompactTrace> {
+
+	int traceCount = 0;
+
+	final private NodeIndex<T> nodeIndex;
+
+	public CompactTraceLoader(NodeIndex<T> nodeIndex) {
+		super();
+		this.nodeIndex = nodeIndex;
+	}
+
+	@Override
+	public boolean loadSingleCoverageData(ISpectra<T, K> lineSpectra, final CompactTrace compactTrace,
+			final boolean fullSpectra) {
+		if (compactTrace == null || compactTrace == CompactTrace.ERROR) {
+			return false;
+		}
+
+		K trace = null;
+		if (compactTrace.getIdentifier() == null) {
+			trace = lineSpectra.addTrace(String.valueOf(++traceCount), compactTrace.isSuccessful());
+		} else {
+			trace = lineSpectra.addTrace(compactTrace.getIdentifier(), compactTrace.isSuccessful());
+		}
+
+		// nodes are added in the order of the original coverage data
+		for (int i = 0; i < compactTrace.size(); ++i) {
+			onNewNode(nodeIndex.getIdentifier(compactTrace.getNodeIndex(i)), lineSpectra, trace,
+					fullSpectra, compactTrace.getHits(i));
+		}
+		return true;
+	}
+
+	protected void onNewNode(T identifier, ISpectra<T, K> lineSpectra, K currentTrace, 
+			boolean fullSpectra, long numberOfHits) {
+		if (numberOfHits > 0) {
+			currentTrace.setInvolvement(identifier, true);
+		} else if (fullSpectra) {
+			lineSpectra.getOrCreateNode(identifier);
+		}
+	}
+
+}
@@ -45,4 +45,11 @@ public abstract class HierarchicalJaCoCoReportLoader<T, K extends ITrace<T>> ext
 		methodSpectra.setParent(methodName, lineIdentifier);
 	}
 
+	@Override
+	protected void onNewLineIdentifier(String packageName, String sourceFilePath, String methodIdentifier,
+			T lineIdentifier) {
+		super.onNewLineIdentifier(packageName, sourceFilePath, methodIdentifier, lineIdentifier);
+		methodSpectra.setParent(methodIdentifier, lineIdentifier);
+	}
+
 }
@@ -6,7 +6,11 @@
 
 package se.de.hu_berlin.informatik.stardust.provider.loader.jacoco.report;
 
+import java.util.ArrayList;
+import java.util.Collections;
 import java.util.Iterator;
+import java.util.List;
+import java.util.Map.Entry;
 
 import org.jacoco.core.analysis.IBundleCoverage;
 import org.jacoco.core.analysis.IClassCoverage;
@@ -14,7 +18,12 @@ import org.jacoco.core.analysis.ICounter;
 import org.jacoco.core.analysis.ILine;
 import org.jacoco.core.analysis.IMethodCoverage;
 import org.jacoco.core.analysis.IPackageCoverage;
+import org.jacoco.core.data.ExecutionData;
+import org.jacoco.core.data.ExecutionDataStore;
 
+import se.de.hu_berlin.informatik.stardust.provider.jacoco.report.JaCoCoProbeTable;
+import se.de.hu_berlin.informatik.stardust.provider.jacoco.report.JaCoCoProbeTable.ClassEntry;
+import se.de.hu_berlin.informatik.stardust.provider.jacoco.report.JaCoCoProbeTable.MethodEntry;
 import se.de.hu_berlin.informatik.stardust.provider.jacoco.report.JaCoCoReportWrapper;
 import se.de.hu_berlin.informatik.stardust.provider.loader.AbstractCoverageDataLoader;
 import se.de.hu_berlin.informatik.stardust.spectra.ITrace;
@@ -25,6 +34,10 @@ public abstract class JaCoCoReportLoader<T, K extends ITrace<T>>
 
 	int traceCount = 0;
 
+	// line identifiers of the last used probe table, indexed by their positions in the table
+	private JaCoCoProbeTable identifierTable = null;
+	private List<T> identifiers = null;
+
 	@Override
 	public boolean loadSingleCoverageData(ISpectra<T, K> lineSpectra, final JaCoCoReportWrapper reportWrapper,
 			final boolean fullSpectra) {
@@ -32,19 +45,19 @@ public abstract class JaCoCoReportLoader<T, K extends ITrace<T>>
 			return false;
 		}
 
+		if (reportWrapper.getProbeTable() != null && reportWrapper.getExecutionData() != null) {
+			loadFromProbes(lineSpectra, addTrace(lineSpectra, reportWrapper), 
+					reportWrapper.getExecutionData(), reportWrapper.getProbeTable(), fullSpectra);
+			return true;
+		}
+
 		IBundleCoverage projectData = reportWrapper.getCoverageBundle();
 
 		if (projectData == null) {
 			return false;
 		}
 
-		K trace = null;
-
-		if (reportWrapper.getIdentifier() == null) {
-			trace = lineSpectra.addTrace(String.valueOf(++traceCount), reportWrapper.isSuccessful());
-		} else {
-			trace = lineSpectra.addTrace(reportWrapper.getIdentifier(), reportWrapper.isSuccessful());
-		}
+		K trace = addTrace(lineSpectra, reportWrapper);
 
 		// loop over all packages
 		Iterator<IPackageCoverage> itPackages = projectData.getPackages().iterator();
@@ -120,4 +133,119 @@ public abstract class JaCoCoReportLoader<T, K extends ITrace<T>>
 		return true;
 	}
 
+	private K addTrace(ISpectra<T, K> lineSpectra, final JaCoCoReportWrapper reportWrapper) {
+		if (reportWrapper.getIdentifier() == null) {
+			return lineSpectra.addTrace(String.valueOf(++traceCount), reportWrapper.isSuccessful());
+		} else {
+			return lineSpectra.addTrace(reportWrapper.getIdentifier(), reportWrapper.isSuccessful());
+		}
+	}
+
+	/**
+	 * Sets the involvements of the given trace by mapping the raw probes of the 
+	 * execution data to lines with the given probe table. The line identifiers 
+	 * are only created once and are reused for subsequent traces, and each of them
+	 * is passed once to {@link #onNewLineIdentifier(String, String, String, Object)}.
+	 * Lines that are not covered are only reported if a full spectra shall be generated.
+	 */
+	private void loadFromProbes(ISpectra<T, K> lineSpectra, K trace, ExecutionDataStore executionData, 
+			JaCoCoProbeTable probeTable, final boolean fullSpectra) {
+		if (identifierTable != probeTable) {
+			identifierTable = probeTable;
+			identifiers = new ArrayList<>(Collections.nCopies(probeTable.getLineCount(), (T) null));
+			for (List<ClassEntry> classes : probeTable.getPackages().values()) {
+				for (ClassEntry classEntry : classes) {
+					for (MethodEntry methodEntry : classEntry.getMethods()) {
+						int tableIndex = classEntry.getFirstLineIndex() + methodEntry.getFirstLineIndex();
+						for (int lineNumber : methodEntry.getLineNumbers()) {
+							T lineIdentifier = getIdentifier(classEntry.getPackageName(), 
+									classEntry.getSourceFilePath(), methodEntry.getMethodNameAndSig(), lineNumber);
+							identifiers.set(tableIndex++, lineIdentifier);
+							onNewLineIdentifier(classEntry.getPackageName(), classEntry.getSourceFilePath(), 
+									methodEntry.getMethodIdentifier(), lineIdentifier);
+						}
+					}
+				}
+			}
+		}
+
+		// loop over all packages
+		for (Entry<String, List<ClassEntry>> packageEntry : probeTable.getPackages().entrySet()) {
+			final String packageName = packageEntry.getKey();
+
+			onNewPackage(packageName, trace);
+
+			// loop over all classes of the package
+			for (ClassEntry classEntry : packageEntry.getValue()) {
+				final String sourceFilePath = classEntry.getSourceFilePath();
+
+				// mark the lines that are covered by at least one of the executed probes
+				boolean[] coveredLines = null;
+				ExecutionData data = executionData.get(classEntry.getId());
+				if (data != null) {
+					boolean[] probes = data.getProbes();
+					int[][] probeLines = classEntry.getProbeLines(probes.length);
+					for (int probe = 0; probe < probes.length; ++probe) {
+						if (probes[probe]) {
+							if (coveredLines == null) {
+								coveredLines = new boolean[classEntry.getLineCount()];
+							}
+							for (int line : probeLines[probe]) {
+								coveredLines[line] = true;
+							}
+						}
+					}
+				}
+
+				onNewClass(packageName, sourceFilePath, trace);
+
+				// loop over all methods of the class
+				for (MethodEntry methodEntry : classEntry.getMethods()) {
+					final String methodIdentifier = methodEntry.getMethodIdentifier();
+
+					onNewMethod(packageName, sourceFilePath, methodIdentifier, trace);
+
+					// only covered lines are reported, unless all lines are needed for a full spectra
+					if (coveredLines != null || fullSpectra) {
+						int lineIndex = methodEntry.getFirstLineIndex();
+						int tableIndex = classEntry.getFirstLineIndex() + lineIndex;
+						for (int i = 0; i < methodEntry.getLineNumbers().length; ++i) {
+							boolean covered = coveredLines != null && coveredLines[lineIndex + i];
+							if (covered || fullSpectra) {
+								onNewLine(
+										packageName, sourceFilePath, methodIdentifier, identifiers.get(tableIndex + i), 
+										lineSpectra, trace, fullSpectra, covered ? 1 : 0);
+							}
+						}
+					}
+
+					onLeavingMethod(packageName, sourceFilePath, methodIdentifier, lineSpectra, trace);
+				}
+
+				onLeavingClass(packageName, sourceFilePath, lineSpectra, trace);
+			}
+
+			onLeavingPackage(packageName, lineSpectra, trace);
+		}
+	}
+
+	/**
+	 * Called once for each line of a probe table, independently of whether the line
+	 * is covered by any trace. Uncovered lines are not passed to {@link #onNewLine} 
+	 * if no full spectra shall be generated, so information about all lines, like
+	 * the hierarchy of the nodes, has to be registered here.
+	 * @param packageName
+	 * the name of the package that contains the line
+	 * @param sourceFilePath
+	 * the path of the source file that contains the line
+	 * @param methodIdentifier
+	 * the identifier of the method that contains the line
+	 * @param lineIdentifier
+	 * the identifier of the line
+	 */
+	protected void onNewLineIdentifier(String packageName, String sourceFilePath, String methodIdentifier,
+			T lineIdentifier) {
+		// nothing to do
+	}
+
 }
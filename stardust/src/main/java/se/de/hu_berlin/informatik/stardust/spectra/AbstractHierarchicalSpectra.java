@@ -78,7 +78,10 @@ public abstract class AbstractHierarchicalSpectra<P, C, K extends ITrace<P>> ext
      *            the child node to be added under the parent node
      */
     public void setParent(final INode<P> parentNode, final INode<C> childNode) {
-        this.childrenOf(parentNode).add(childNode);
+        if (this.childrenOf(parentNode).add(childNode)) {
+        	//the involvement of the parent node may have changed for any trace
+        	invalidateCachedValues();
+        }
     }
 
     /**
@@ -11,9 +11,12 @@ package se.de.hu_berlin.informatik.stardust.spectra;
 
 import java.util.ArrayList;
 import java.util.Collection;
+import java.util.Collections;
 import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
 
 import se.de.hu_berlin.informatik.stardust.localizer.sbfl.ILocalizer;
 import se.de.hu_berlin.informatik.stardust.localizer.sbfl.Localizer;
@@ -52,7 +55,8 @@ public abstract class AbstractSpectra<T,K extends ITrace<T>> implements Cloneabl
     /** Holds all traces belonging to this spectra */
     private final Map<String,K> traces = new HashMap<>();
     
-    private Map<K, Map<K, Double>> similarities = null;
+    /** Holds the similarities of failing traces to all traces, if computed */
+    private SimilarityMatrix<T,K> similarities = null;
 
 	private Localizer<T> localizer;
 
@@ -89,15 +93,77 @@ public abstract class AbstractSpectra<T,K extends ITrace<T>> implements Cloneabl
     public boolean removeNode(final T identifier) {
     	INode<T> node = nodes.remove(identifier);
     	if (node != null) {
+    		if (similarities != null) {
+    			//update the similarities before removing the involvement
+    			List<K> involvedTraces = new ArrayList<>();
+    			for (K trace : traces.values()) {
+    				if (trace.isInvolved(node)) {
+    					involvedTraces.add(trace);
+    				}
+    			}
+    			similarities.removeNode(involvedTraces);
+    		}
     		//remove node from traces
-    		for (K trace : traces.values()) {
-    			trace.setInvolvement(node, false);
+    		removeInvolvement(Collections.singletonList(node));
+    		//the node may not have been involved in any trace
+    		node.invalidateCachedValues();
+    	}
+    	return true;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public boolean removeNodes(final Collection<T> identifiers) {
+    	Set<T> removedIdentifiers = new HashSet<>();
+    	List<INode<T>> removedNodes = new ArrayList<>();
+    	for (T identifier : identifiers) {
+    		INode<T> node = nodes.get(identifier);
+    		if (node != null && removedIdentifiers.add(identifier)) {
+    			removedNodes.add(node);
+    		}
+    	}
+    	if (removedNodes.isEmpty()) {
+    		return true;
+    	}
+    	if (similarities != null) {
+    		//update the similarities before removing the involvement
+    		for (INode<T> node : removedNodes) {
+    			List<K> involvedTraces = new ArrayList<>();
+    			for (K trace : traces.values()) {
+    				if (trace.isInvolved(node)) {
+    					involvedTraces.add(trace);
+    				}
+    			}
+    			similarities.removeNode(involvedTraces);
     		}
     	}
-    	invalidateCachedValues();
+    	//remove nodes from the spectra first, such that traces do not report the removal as a change
+    	nodes.keySet().removeAll(removedIdentifiers);
+    	removeInvolvement(removedNodes);
+    	//the nodes may not have been involved in any trace
+    	getLocalizer().invalidateCachedValues();
     	return true;
     }
 
+    /**
+     * Removes the involvement of the given nodes from all traces. Called by
+     * {@link #removeNode(Object)} and {@link #removeNodes(Collection)} after the
+     * nodes were removed from the spectra.
+     * @param removedNodes
+     * the removed nodes
+     */
+    protected void removeInvolvement(final Collection<INode<T>> removedNodes) {
+    	Set<T> identifiers = new HashSet<>();
+    	for (INode<T> node : removedNodes) {
+    		identifiers.add(node.getIdentifier());
+    	}
+    	for (K trace : traces.values()) {
+    		trace.removeInvolvement(identifiers);
+    	}
+    }
+
     /**
      * {@inheritDoc}
      */
@@ -152,7 +218,9 @@ public abstract class AbstractSpectra<T,K extends ITrace<T>> implements Cloneabl
     	} else {
     		final K trace = createNewTrace(identifier, successful);
     		traces.put(identifier, trace);
-    		invalidateCachedValues();
+    		if (similarities != null) {
+    			similarities.addTrace(trace);
+    		}
     		return trace;
     	}
     }
@@ -232,31 +300,15 @@ public abstract class AbstractSpectra<T,K extends ITrace<T>> implements Cloneabl
 		if (failingTrace.isSuccessful()) {
 			return null;
 		}
+		return getSimilarities().getSimilarityMap(failingTrace);
+	}
+
+	@Override
+	public SimilarityMatrix<T,K> getSimilarities() {
 		if (similarities == null) {
-			computeSimilarities();
+			similarities = new SimilarityMatrix<>(this.getTraces());
 		}
-		return similarities.get(failingTrace);
-	}
-	
-	private void computeSimilarities() {
-		similarities = new HashMap<>();
-		//have to compute a value for each failing trace
-    	for (final K failingTrace : this.getFailingTraces()) {
-    		Map<K, Double> similarityScores = new HashMap<>();
-    		similarities.put(failingTrace, similarityScores);
-    		
-    		double failingTraceSize = failingTrace.getInvolvedNodes().size();
-    		//for every trace, compute a similarity score to the current failing trace
-    		for (final K trace : this.getTraces()) {
-    			int equallyInvolvedNodes = 0;
-                for (final T identifier : failingTrace.getInvolvedNodes()) {
-                	if (trace.isInvolved(identifier)) {
-                		++equallyInvolvedNodes;
-                	}
-                }
-                similarityScores.put(trace, (double)equallyInvolvedNodes / failingTraceSize);
-            }
-        }
+		return similarities;
 	}
 
 	@Override
@@ -264,6 +316,13 @@ public abstract class AbstractSpectra<T,K extends ITrace<T>> implements Cloneabl
 		similarities = null;
 	}
 
+	@Override
+	public void invalidateCachedValues(ITrace<T> trace) {
+		if (similarities != null) {
+			similarities.invalidateTrace(trace);
+		}
+	}
+
 	@Override
 	public ILocalizer<T> getLocalizer() {
 		if (localizer == null) {
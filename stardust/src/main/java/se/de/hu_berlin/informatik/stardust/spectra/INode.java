@@ -38,6 +38,39 @@ public interface INode<T> {
 		/** NF &gt; 0 */
 		NF_GT_ZERO;
 
+		/**
+		 * Checks whether the given node is of this type (at this moment).
+		 * @param node
+		 * the node to check
+		 * @return true if the node is of this type, false otherwise
+		 */
+		public boolean isTypeOf(INode<?> node) {
+			switch (this) {
+			case EF_EQUALS_ZERO:
+				return node.getEF() == 0;
+			case EF_GT_ZERO:
+				return node.getEF() > 0;
+			case EP_EQUALS_ZERO:
+				return node.getEP() == 0;
+			case EP_GT_ZERO:
+				return node.getEP() > 0;
+			case EXECUTED:
+				return node.getEP() + node.getEF() > 0;
+			case NF_EQUALS_ZERO:
+				return node.getNF() == 0;
+			case NF_GT_ZERO:
+				return node.getNF() > 0;
+			case NOT_EXECUTED:
+				return node.getEP() + node.getEF() == 0;
+			case NP_EQUALS_ZERO:
+				return node.getNP() == 0;
+			case NP_GT_ZERO:
+				return node.getNP() > 0;
+			default:
+				throw new UnsupportedOperationException("Not implemented.");
+			}
+		}
+
 		@Override
 		public String toString() {
 			switch (this) {
@@ -9,9 +9,11 @@
 
 package se.de.hu_berlin.informatik.stardust.spectra;
 
+import java.util.ArrayList;
 import java.util.Collection;
 import java.util.List;
 import java.util.Map;
+import java.util.function.Predicate;
 
 import se.de.hu_berlin.informatik.stardust.localizer.sbfl.ILocalizer;
 import se.de.hu_berlin.informatik.stardust.util.SpectraUtils;
@@ -55,6 +57,52 @@ public interface ISpectra<T, K extends ITrace<T>> {
      */
     public boolean removeNode(T identifier);
 
+    /**
+     * Removes (deletes) all nodes with the given identifiers from the spectra.
+     * In contrast to removing each node separately, each trace is only updated
+     * once.
+     *
+     * @param identifiers
+     *            the identifiers of the nodes to remove
+     * @return true if successful, false otherwise
+     */
+    public boolean removeNodes(Collection<T> identifiers);
+
+    /**
+     * Removes all nodes from this spectra that satisfy the given predicate (at this moment).
+     * The predicate is evaluated for all nodes before any node is removed, so that
+     * EF, EP, NF and NP values used by the predicate are computed only once. All nodes are
+     * then removed at once.
+     *
+     * @param predicate
+     *            the predicate that the nodes to remove satisfy
+     * @return
+     * this spectra (modified)
+     */
+    default public ISpectra<T,K> removeNodes(Predicate<? super INode<T>> predicate) {
+    	List<T> identifiers = new ArrayList<>();
+    	for (INode<T> node : getNodes()) {
+    		if (predicate.test(node)) {
+    			identifiers.add(node.getIdentifier());
+    		}
+    	}
+    	removeNodes(identifiers);
+    	return this;
+    }
+
+    /**
+     * Removes all nodes from this spectra that do not satisfy the given predicate (at this moment).
+     *
+     * @param predicate
+     *            the predicate that the nodes to keep satisfy
+     * @return
+     * this spectra (modified)
+     * @see #removeNodes(Predicate)
+     */
+    default public ISpectra<T,K> retainNodes(Predicate<? super INode<T>> predicate) {
+    	return removeNodes(node -> !predicate.test(node));
+    }
+
     /**
      * Checks whether the node with the given identifier is present in the current spectra.
      *
@@ -125,6 +173,15 @@ public interface ISpectra<T, K extends ITrace<T>> {
     }
 
 	public Map<K, Double> getSimilarityMap(ITrace<T> failingTrace);
+
+	/**
+	 * Returns the similarities of all failing traces to all traces of this
+	 * spectra. The matrix is computed on first access and then kept up to date
+	 * when traces are added or nodes are removed.
+	 * @return
+	 * the similarity matrix
+	 */
+	public SimilarityMatrix<T,K> getSimilarities();
 	
 	public ILocalizer<T> getLocalizer();
 	
@@ -133,4 +190,13 @@ public interface ISpectra<T, K extends ITrace<T>> {
 	 */
 	public void invalidateCachedValues();
 
+	/**
+	 * Invalidates any cached values that depend on the involvement of the given
+	 * trace. Has to be called by traces of this spectra if their involvement of
+	 * nodes of this spectra changes.
+	 * @param trace
+	 * a trace of this spectra
+	 */
+	public void invalidateCachedValues(ITrace<T> trace);
+
 }
\ No newline at end of file
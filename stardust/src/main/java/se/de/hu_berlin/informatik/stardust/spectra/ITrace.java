@@ -11,6 +11,7 @@ package se.de.hu_berlin.informatik.stardust.spectra;
 
 import java.util.Collection;
 import java.util.Map;
+import java.util.Set;
 
 /**
  * A basic execution trace that provides read-only access.
@@ -64,6 +65,14 @@ public interface ITrace<T> {
      */
     public abstract void setInvolvementForNodes(Map<INode<T>, Boolean> involvement);
 
+    /**
+     * Removes the involvement of all nodes belonging to the given set of identifiers
+     *
+     * @param identifiers
+     *            the identifiers of the nodes that are no longer involved
+     */
+    public abstract void removeInvolvement(Set<T> identifiers);
+
     /**
      * Checks whether the given node is involved in the current trace.
      *
@@ -0,0 +1,340 @@
+/*
+ * This file is part of the "STARDUST" project. (c) Fabian Keller
+ * <hello@fabian-keller.de> For the full copyright and license information,
+ * please view the LICENSE file that was distributed with this source code.
+ */
+
+package se.de.hu_berlin.informatik.stardust.spectra;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.IntStream;
+
+import se.de.hu_berlin.informatik.stardust.spectra.hit.BitSetHitTrace;
+
+/**
+ * Holds the similarity scores of all failing traces to all traces of a
+ * spectra. The similarity of a trace t to a failing trace f is the number of
+ * nodes involved in both traces, divided by the number of nodes involved in f.
+ *
+ * <p>
+ * Internally, the numbers of commonly involved nodes are stored in one dense
+ * integer row per failing trace. For bit set based traces, these numbers are
+ * computed by counting the set bits of the intersected involvement words. Rows
+ * are computed in parallel.
+ *
+ * <p>
+ * The matrix is updated incrementally: added traces are stored and integrated
+ * as new rows and columns at the next access (when their involvement has been
+ * set), and removed nodes are subtracted from the counts of the traces that
+ * involved them. If the involvement of an integrated trace changes otherwise,
+ * its row and column are computed again at the next access (see
+ * {@link #invalidateTrace(ITrace)}).
+ *
+ * @param <T>
+ * type used to identify nodes in the system.
+ * @param <K>
+ * type of traces
+ */
+public class SimilarityMatrix<T, K extends ITrace<T>> {
+
+	/** Holds all integrated traces by their column index */
+	private final List<K> traces = new ArrayList<>();
+
+	/** Maps traces to their column indices */
+	private final Map<ITrace<T>, Integer> traceIndices = new HashMap<>();
+
+	/** Holds all integrated failing traces by their row index */
+	private final List<K> failingTraces = new ArrayList<>();
+
+	/** Maps failing traces to their row indices */
+	private final Map<ITrace<T>, Integer> failingTraceIndices = new HashMap<>();
+
+	/** Holds the number of commonly involved nodes for each failing trace (row) and trace (column) */
+	private int[][] intersections = new int[0][];
+
+	/** Holds the number of involved nodes of each failing trace */
+	private int[] failingTraceSizes = new int[0];
+
+	/** Holds traces that have been added, but not yet integrated */
+	private final List<K> pendingTraces = new ArrayList<>();
+
+	/** Marks the columns of integrated traces whose involvement has changed */
+	private final BitSet changedColumns = new BitSet();
+
+	/** Caches the average similarity of each trace to all failing traces */
+	private double[] averageSimilarities = null;
+
+	/**
+	 * Creates a similarity matrix for the given traces.
+	 * @param traces
+	 * the traces
+	 */
+	public SimilarityMatrix(final Collection<K> traces) {
+		super();
+		pendingTraces.addAll(traces);
+	}
+
+	/**
+	 * Adds a trace to the matrix. The similarity scores for the trace are
+	 * computed at the next access.
+	 * @param trace
+	 * the trace to add
+	 */
+	public synchronized void addTrace(final K trace) {
+		pendingTraces.add(trace);
+		averageSimilarities = null;
+	}
+
+	/**
+	 * Marks the given trace as changed. The similarity scores for the trace
+	 * are computed again at the next access.
+	 * @param trace
+	 * a trace whose involvement has changed
+	 */
+	public synchronized void invalidateTrace(final ITrace<T> trace) {
+		Integer column = traceIndices.get(trace);
+		if (column != null) {
+			changedColumns.set(column);
+			averageSimilarities = null;
+		}
+	}
+
+	/**
+	 * Updates the matrix for the removal of a node. Has to be called before
+	 * the involvement of the node is removed from the traces.
+	 * @param involvedTraces
+	 * all traces that involve the node to be removed
+	 */
+	public synchronized void removeNode(final Collection<? extends ITrace<T>> involvedTraces) {
+		update();
+		List<Integer> involvedColumns = new ArrayList<>(involvedTraces.size());
+		for (ITrace<T> trace : involvedTraces) {
+			Integer column = traceIndices.get(trace);
+			if (column != null) {
+				involvedColumns.add(column);
+			}
+		}
+		for (ITrace<T> trace : involvedTraces) {
+			Integer row = failingTraceIndices.get(trace);
+			if (row != null) {
+				--failingTraceSizes[row];
+				int[] rowIntersections = intersections[row];
+				for (int column : involvedColumns) {
+					--rowIntersections[column];
+				}
+			}
+		}
+		averageSimilarities = null;
+	}
+
+	/**
+	 * @param failingTrace
+	 * a failing trace
+	 * @param trace
+	 * a trace
+	 * @return the similarity of the trace to the failing trace, ranging from 0
+	 * to 1, or null if one of the traces is not part of the matrix
+	 */
+	public synchronized Double getSimilarity(final ITrace<T> failingTrace, final ITrace<T> trace) {
+		update();
+		Integer row = failingTraceIndices.get(failingTrace);
+		Integer column = traceIndices.get(trace);
+		if (row == null || column == null) {
+			return null;
+		}
+		return (double) intersections[row][column] / failingTraceSizes[row];
+	}
+
+	/**
+	 * @param failingTrace
+	 * a failing trace
+	 * @return a map of all traces to their similarity to the given failing
+	 * trace, or null if the trace is not a failing trace of the matrix
+	 */
+	public synchronized Map<K, Double> getSimilarityMap(final ITrace<T> failingTrace) {
+		update();
+		Integer row = failingTraceIndices.get(failingTrace);
+		if (row == null) {
+			return null;
+		}
+		int[] rowIntersections = intersections[row];
+		double failingTraceSize = failingTraceSizes[row];
+		Map<K, Double> similarityScores = new HashMap<>();
+		for (int column = 0; column < traces.size(); ++column) {
+			similarityScores.put(traces.get(column), rowIntersections[column] / failingTraceSize);
+		}
+		return similarityScores;
+	}
+
+	/**
+	 * Returns the average similarity of the given trace to all failing traces.
+	 * @param trace
+	 * a trace
+	 * @return the average similarity, 0 if there are no failing traces, or
+	 * null if the trace is not part of the matrix
+	 */
+	public synchronized Double getAverageSimilarity(final ITrace<T> trace) {
+		update();
+		Integer column = traceIndices.get(trace);
+		if (column == null) {
+			return null;
+		}
+		if (averageSimilarities == null) {
+			averageSimilarities = computeAverageSimilarities();
+		}
+		return averageSimilarities[column];
+	}
+
+	private double[] computeAverageSimilarities() {
+		double[] result = new double[traces.size()];
+		if (failingTraces.isEmpty()) {
+			return result;
+		}
+		for (int row = 0; row < failingTraces.size(); ++row) {
+			int[] rowIntersections = intersections[row];
+			double failingTraceSize = failingTraceSizes[row];
+			for (int column = 0; column < result.length; ++column) {
+				result[column] += rowIntersections[column] / failingTraceSize;
+			}
+		}
+		for (int column = 0; column < result.length; ++column) {
+			result[column] /= failingTraces.size();
+		}
+		return result;
+	}
+
+	private void update() {
+		updateChangedTraces();
+		integratePendingTraces();
+	}
+
+	private void updateChangedTraces() {
+		if (changedColumns.isEmpty()) {
+			return;
+		}
+		averageSimilarities = null;
+		Involvement<T>[] involvements = getInvolvements();
+		// rows of changed failing traces need all columns
+		BitSet changedRows = new BitSet(failingTraces.size());
+		for (int column = changedColumns.nextSetBit(0); column >= 0; column = changedColumns.nextSetBit(column + 1)) {
+			Integer row = failingTraceIndices.get(traces.get(column));
+			if (row != null) {
+				changedRows.set(row);
+				failingTraceSizes[row] = involvements[column].size();
+			}
+		}
+
+		IntStream.range(0, failingTraces.size()).parallel().forEach(row -> {
+			int[] rowIntersections = intersections[row];
+			Involvement<T> failingInvolvement = involvements[traceIndices.get(failingTraces.get(row))];
+			BitSet columns = changedColumns;
+			if (changedRows.get(row)) {
+				columns = new BitSet(traces.size());
+				columns.set(0, traces.size());
+			}
+			for (int column = columns.nextSetBit(0); column >= 0; column = columns.nextSetBit(column + 1)) {
+				rowIntersections[column] = failingInvolvement.intersect(involvements[column], traces.get(column));
+			}
+		});
+		changedColumns.clear();
+	}
+
+	private void integratePendingTraces() {
+		if (pendingTraces.isEmpty()) {
+			return;
+		}
+		averageSimilarities = null;
+		int oldTraceCount = traces.size();
+		int oldFailingTraceCount = failingTraces.size();
+		for (K trace : pendingTraces) {
+			traceIndices.put(trace, traces.size());
+			traces.add(trace);
+			if (!trace.isSuccessful()) {
+				failingTraceIndices.put(trace, failingTraces.size());
+				failingTraces.add(trace);
+			}
+		}
+		pendingTraces.clear();
+
+		Involvement<T>[] involvements = getInvolvements();
+		failingTraceSizes = Arrays.copyOf(failingTraceSizes, failingTraces.size());
+		intersections = Arrays.copyOf(intersections, failingTraces.size());
+
+		// existing rows only need the new columns, new rows need all columns
+		IntStream.range(0, failingTraces.size()).parallel().forEach(row -> {
+			int fromColumn = row < oldFailingTraceCount ? oldTraceCount : 0;
+			int[] rowIntersections = row < oldFailingTraceCount
+					? Arrays.copyOf(intersections[row], traces.size()) : new int[traces.size()];
+			Involvement<T> failingInvolvement = involvements[traceIndices.get(failingTraces.get(row))];
+			if (row >= oldFailingTraceCount) {
+				failingTraceSizes[row] = failingInvolvement.size();
+			}
+			for (int column = fromColumn; column < rowIntersections.length; ++column) {
+				rowIntersections[column] = failingInvolvement.intersect(involvements[column], traces.get(column));
+			}
+			intersections[row] = rowIntersections;
+		});
+	}
+
+	@SuppressWarnings("unchecked")
+	private Involvement<T>[] getInvolvements() {
+		Involvement<T>[] involvements = new Involvement[traces.size()];
+		for (int i = 0; i < involvements.length; ++i) {
+			involvements[i] = new Involvement<>(traces.get(i));
+		}
+		return involvements;
+	}
+
+	/**
+	 * Holds the involvement of a trace in the most efficient available form.
+	 */
+	private static class Involvement<T> {
+
+		private final ITrace<T> trace;
+		private final long[] words;
+
+		private Involvement(final ITrace<T> trace) {
+			this.trace = trace;
+			this.words = trace instanceof BitSetHitTrace ? ((BitSetHitTrace<T>) trace).getInvolvementWords() : null;
+		}
+
+		private int size() {
+			if (words != null) {
+				int size = 0;
+				for (long word : words) {
+					size += Long.bitCount(word);
+				}
+				return size;
+			}
+			return trace.getInvolvedNodes().size();
+		}
+
+		/**
+		 * @return the number of nodes that are involved in both traces
+		 */
+		private int intersect(final Involvement<T> other, final ITrace<T> otherTrace) {
+			if (words != null && other.words != null) {
+				int count = 0;
+				int length = Math.min(words.length, other.words.length);
+				for (int i = 0; i < length; ++i) {
+					count += Long.bitCount(words[i] & other.words[i]);
+				}
+				return count;
+			}
+			int count = 0;
+			for (final T identifier : trace.getInvolvedNodes()) {
+				if (otherTrace.isInvolved(identifier)) {
+					++count;
+				}
+			}
+			return count;
+		}
+	}
+
+}
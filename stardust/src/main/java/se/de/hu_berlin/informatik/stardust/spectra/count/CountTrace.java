@@ -11,6 +11,7 @@ package se.de.hu_berlin.informatik.stardust.spectra.count;
 
 import java.util.HashMap;
 import java.util.Map;
+import java.util.Set;
 
 import se.de.hu_berlin.informatik.stardust.spectra.INode;
 import se.de.hu_berlin.informatik.stardust.spectra.ISpectra;
@@ -82,6 +83,12 @@ public class CountTrace<T> extends HitTrace<T> {
 		}
 	}
 
+	@Override
+	public void removeInvolvement(Set<T> identifiers) {
+		super.removeInvolvement(identifiers);
+		hitCountMap.keySet().removeAll(identifiers);
+	}
+
 	public int getHits(T identifier) {
     	Integer hits = hitCountMap.get(identifier);
     	if (hits == null) {
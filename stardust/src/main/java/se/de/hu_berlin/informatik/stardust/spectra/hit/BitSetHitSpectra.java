@@ -0,0 +1,252 @@
+/*
+ * This file is part of the "STARDUST" project. (c) Fabian Keller
+ * <hello@fabian-keller.de> For the full copyright and license information,
+ * please view the LICENSE file that was distributed with this source code.
+ */
+
+package se.de.hu_berlin.informatik.stardust.spectra.hit;
+
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+
+import se.de.hu_berlin.informatik.stardust.spectra.INode;
+import se.de.hu_berlin.informatik.stardust.spectra.ISpectra;
+import se.de.hu_berlin.informatik.stardust.spectra.ITrace;
+import se.de.hu_berlin.informatik.stardust.spectra.Node;
+
+/**
+ * A hit spectra that assigns a dense integer index to each node and stores the
+ * involvement of each trace as a bit set over these indices.
+ *
+ * <p>
+ * This spectra can be used as a drop-in replacement for {@link HitSpectra},
+ * since all of its traces are {@link HitTrace} objects. Compared to the
+ * original implementation, each trace only needs one bit per node instead of
+ * a hash set entry per involved node, and checking the involvement of a node
+ * of this spectra is a simple bit lookup.
+ *
+ * <p>
+ * Node indices are never reused. Removing a node clears its bit in all traces
+ * and leaves an unused slot behind, so that node objects which are still
+ * referenced elsewhere can not suddenly point to the involvement of another
+ * node.
+ *
+ * <p>
+ * Large test suites often produce many traces with identical involvement.
+ * Calling {@link #internInvolvements()} lets these traces share a single bit
+ * set, while each trace keeps its identifier and success state. Computations
+ * that only depend on the involvement may then process each group of traces
+ * from {@link #getTraceGroups()} once, weighted by the size of the group.
+ * The groups are stored with the spectra when saving it to a file and are
+ * restored when loading it.
+ *
+ * @param <T>
+ * type used to identify nodes in the system.
+ */
+public class BitSetHitSpectra<T> extends HitSpectra<T> {
+
+	/** Holds all nodes that were ever created in this spectra by their index */
+	private final List<INode<T>> indexedNodes = new ArrayList<>();
+
+	/**
+	 * Creates a new spectra.
+	 */
+	public BitSetHitSpectra() {
+		super();
+	}
+
+	@Override
+	public INode<T> getOrCreateNode(final T identifier) {
+		INode<T> node = nodes.get(identifier);
+		if (node == null) {
+			node = new IndexedNode<>(identifier, this, indexedNodes.size());
+			indexedNodes.add(node);
+			nodes.put(identifier, node);
+		}
+		return node;
+	}
+
+	@Override
+	public boolean removeNode(final T identifier) {
+		int index = getIndexOfNode(identifier);
+		boolean result = super.removeNode(identifier);
+		if (index >= 0) {
+			indexedNodes.set(index, null);
+		}
+		return result;
+	}
+
+	@Override
+	public boolean removeNodes(final Collection<T> identifiers) {
+		List<Integer> indices = new ArrayList<>();
+		for (T identifier : identifiers) {
+			int index = getIndexOfNode(identifier);
+			if (index >= 0) {
+				indices.add(index);
+			}
+		}
+		boolean result = super.removeNodes(identifiers);
+		for (int index : indices) {
+			indexedNodes.set(index, null);
+		}
+		return result;
+	}
+
+	@Override
+	protected void removeInvolvement(final Collection<INode<T>> removedNodes) {
+		BitSet removed = new BitSet(indexedNodes.size());
+		for (INode<T> node : removedNodes) {
+			int index = getIndexOfNode(node);
+			if (index >= 0) {
+				removed.set(index);
+			}
+		}
+		// the nodes are removed from all traces, and all traces of a group
+		// share their bit set, so it suffices to update each group once
+		for (List<HitTrace<T>> group : getTraceGroups()) {
+			((BitSetHitTrace<T>) group.get(0)).getInvolvement().andNot(removed);
+		}
+		getLocalizer().invalidateCachedValues();
+	}
+
+	/**
+	 * Lets all traces with identical involvement share a single bit set. The
+	 * involvement of each trace stays unchanged; if a trace's involvement is
+	 * changed afterwards, it gets its own copy of the bit set again.
+	 * @return the number of distinct involvement bit sets
+	 */
+	public int internInvolvements() {
+		Map<BitSet, BitSet> distinctInvolvements = new HashMap<>();
+		for (HitTrace<T> trace : getTraces()) {
+			BitSetHitTrace<T> bitSetTrace = (BitSetHitTrace<T>) trace;
+			BitSet involvement = distinctInvolvements.computeIfAbsent(
+					bitSetTrace.getInvolvement(), k -> k);
+			bitSetTrace.shareInvolvement(involvement);
+		}
+		return distinctInvolvements.size();
+	}
+
+	/**
+	 * Lets the given trace share the involvement of the given template trace,
+	 * replacing the current involvement of the trace. Can be used to restore
+	 * shared involvements without comparing the involvement of all traces,
+	 * e.g., when loading a spectra that was stored with trace groups.
+	 * @param trace
+	 * a trace of this spectra
+	 * @param template
+	 * another trace of this spectra
+	 * @throws IllegalArgumentException
+	 * if one of the traces does not belong to this spectra
+	 */
+	public void shareInvolvement(final HitTrace<T> trace, final HitTrace<T> template)
+			throws IllegalArgumentException {
+		if (getTrace(trace.getIdentifier()) != trace || getTrace(template.getIdentifier()) != template) {
+			throw new IllegalArgumentException("Traces do not belong to this spectra.");
+		}
+		BitSetHitTrace<T> bitSetTemplate = (BitSetHitTrace<T>) template;
+		// the template has to copy the bit set before changing it, too
+		bitSetTemplate.shareInvolvement(bitSetTemplate.getInvolvement());
+		((BitSetHitTrace<T>) trace).shareInvolvement(bitSetTemplate.getInvolvement());
+		getLocalizer().invalidateCachedValues();
+		invalidateCachedValues(trace);
+	}
+
+	/**
+	 * Groups the traces of this spectra by their involvement bit sets. Traces
+	 * only end up in the same group if they share the same bit set (see
+	 * {@link #internInvolvements()}), so that all traces of a group are
+	 * guaranteed to have identical involvement.
+	 * @return the groups of traces
+	 */
+	public Collection<List<HitTrace<T>>> getTraceGroups() {
+		Map<BitSet, List<HitTrace<T>>> groups = new IdentityHashMap<>();
+		for (HitTrace<T> trace : getTraces()) {
+			groups.computeIfAbsent(((BitSetHitTrace<T>) trace).getInvolvement(), k -> new ArrayList<>(1))
+					.add(trace);
+		}
+		return groups.values();
+	}
+
+	@Override
+	protected HitTrace<T> createNewTrace(String identifier, boolean successful) {
+		return new BitSetHitTrace<>(this, identifier, successful);
+	}
+
+	/**
+	 * Returns the index of the given node in this spectra.
+	 * @param node
+	 * a node
+	 * @return the index of the node, or -1 if no node with the node's
+	 * identifier exists in this spectra
+	 */
+	public int getIndexOfNode(final INode<T> node) {
+		if (node == null) {
+			return -1;
+		}
+		if (node instanceof IndexedNode && ((IndexedNode<T>) node).spectra == this) {
+			return ((IndexedNode<T>) node).index;
+		}
+		return getIndexOfNode(node.getIdentifier());
+	}
+
+	/**
+	 * Returns the index of the node with the given identifier.
+	 * @param identifier
+	 * the identifier of a node
+	 * @return the index of the node, or -1 if no node with the given identifier
+	 * exists in this spectra
+	 */
+	public int getIndexOfNode(final T identifier) {
+		INode<T> node = nodes.get(identifier);
+		if (node instanceof IndexedNode) {
+			return ((IndexedNode<T>) node).index;
+		}
+		return -1;
+	}
+
+	/**
+	 * @param index
+	 * the index of a node
+	 * @return the node with the given index, or null if the node was removed
+	 * from the spectra
+	 */
+	public INode<T> getNodeWithIndex(final int index) {
+		return indexedNodes.get(index);
+	}
+
+	/**
+	 * @return the number of node indices used so far (including indices of
+	 * removed nodes); all node indices lie in the range [0, count)
+	 */
+	public int getNodeIndexCount() {
+		return indexedNodes.size();
+	}
+
+	/**
+	 * A node that additionally stores its index in the spectra.
+	 *
+	 * @param <T>
+	 * type used to identify nodes in the system.
+	 */
+	private static class IndexedNode<T> extends Node<T> {
+
+		/** The spectra this node belongs to */
+		private final ISpectra<T, ? extends ITrace<T>> spectra;
+
+		/** The index of this node */
+		private final int index;
+
+		private IndexedNode(final T identifier, final ISpectra<T, ? extends ITrace<T>> spectra, final int index) {
+			super(identifier, spectra);
+			this.spectra = spectra;
+			this.index = index;
+		}
+
+	}
+
+}
@@ -0,0 +1,218 @@
+/*
+ * This file is part of the "STARDUST" project. (c) Fabian Keller
+ * <hello@fabian-keller.de> For the full copyright and license information,
+ * please view the LICENSE file that was distributed with this source code.
+ */
+
+package se.de.hu_berlin.informatik.stardust.spectra.hit;
+
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.Collection;
+import java.util.List;
+import java.util.Set;
+
+import se.de.hu_berlin.informatik.stardust.spectra.INode;
+
+/**
+ * This class represents a single execution trace and its success state. The
+ * involvement of nodes is stored in a bit set over the node indices of the
+ * associated {@link BitSetHitSpectra}.
+ *
+ * <p>
+ * Traces with identical involvement may share a single bit set (see
+ * {@link BitSetHitSpectra#internInvolvements()}). A shared bit set is copied
+ * before the involvement of the trace is changed.
+ *
+ * @param <T>
+ * type used to identify nodes in the system.
+ */
+public class BitSetHitTrace<T> extends HitTrace<T> {
+
+	/** Holds the spectra this trace belongs to */
+	private final BitSetHitSpectra<T> spectra;
+
+	/**
+	 * Stores the involvement of all nodes for this trace. A set bit at position
+	 * i marks the node with index i as involved.
+	 */
+	private BitSet involvement;
+
+	/** Whether the involvement bit set may be shared with other traces */
+	private boolean shared = false;
+
+	/**
+	 * Create a trace for a spectra.
+	 * @param spectra
+	 * the spectra that the trace belongs to
+	 * @param identifier
+	 * the identifier of the trace (usually the test case name)
+	 * @param successful
+	 * true if the trace originates from a successful execution, false otherwise
+	 */
+	protected BitSetHitTrace(final BitSetHitSpectra<T> spectra, final String identifier, final boolean successful) {
+		super(spectra, identifier, successful);
+		this.spectra = spectra;
+		this.involvement = new BitSet(spectra.getNodeIndexCount());
+	}
+
+	/** {@inheritDoc} */
+	@Override
+	public void setInvolvement(final T identifier, final boolean involved) {
+		setInvolvement(spectra.getOrCreateNode(identifier), involved);
+	}
+
+	/** {@inheritDoc} */
+	@Override
+	public void setInvolvement(INode<T> node, final boolean involved) {
+		int index = spectra.getIndexOfNode(node);
+		if (index < 0 || spectra.getNodeWithIndex(index) == null) {
+			// node is not (or no longer) part of the spectra
+			if (!involved) {
+				return;
+			}
+			node = spectra.getOrCreateNode(node.getIdentifier());
+			index = spectra.getIndexOfNode(node);
+		}
+		if (involvement.get(index) != involved) {
+			getWritableInvolvement().set(index, involved);
+			spectra.invalidateCachedValues(this);
+			node.invalidateCachedValues();
+		}
+	}
+
+	/** {@inheritDoc} */
+	@Override
+	public void removeInvolvement(final Set<T> identifiers) {
+		BitSet removed = new BitSet(involvement.length());
+		for (T identifier : identifiers) {
+			int index = spectra.getIndexOfNode(identifier);
+			if (index >= 0 && involvement.get(index)) {
+				removed.set(index);
+			}
+		}
+		if (!removed.isEmpty()) {
+			getWritableInvolvement().andNot(removed);
+			spectra.getLocalizer().invalidateCachedValues();
+			spectra.invalidateCachedValues(this);
+		}
+	}
+
+	/** {@inheritDoc} */
+	@Override
+	public boolean isInvolved(final INode<T> node) {
+		int index = spectra.getIndexOfNode(node);
+		return index >= 0 && involvement.get(index);
+	}
+
+	/** {@inheritDoc} */
+	@Override
+	public boolean isInvolved(final T identifier) {
+		int index = spectra.getIndexOfNode(identifier);
+		return index >= 0 && involvement.get(index);
+	}
+
+	@Override
+	public int involvedNodesCount() {
+		return involvement.cardinality();
+	}
+
+	@Override
+	public Collection<T> getInvolvedNodes() {
+		List<T> nodes = new ArrayList<>(involvement.cardinality());
+		for (int i = involvement.nextSetBit(0); i >= 0; i = involvement.nextSetBit(i + 1)) {
+			nodes.add(spectra.getNodeWithIndex(i).getIdentifier());
+		}
+		return nodes;
+	}
+
+	/**
+	 * Returns the index of the first involved node that has an index equal to
+	 * or greater than the given index. Can be used to iterate over all involved
+	 * nodes without the need to create any objects:
+	 *
+	 * <pre>
+	 * for (int i = trace.nextInvolvedIndex(0); i &gt;= 0; i = trace.nextInvolvedIndex(i + 1)) {
+	 *     // node with index i is involved
+	 * }
+	 * </pre>
+	 *
+	 * @param fromIndex
+	 * the index to start checking from (inclusive)
+	 * @return the index of the next involved node, or -1 if there is no such
+	 * node
+	 */
+	public int nextInvolvedIndex(final int fromIndex) {
+		return involvement.nextSetBit(fromIndex);
+	}
+
+	/**
+	 * @param index
+	 * the index of a node in the associated spectra
+	 * @return true if the node with the given index is involved in this trace,
+	 * false otherwise
+	 */
+	public boolean isInvolvedAtIndex(final int index) {
+		return involvement.get(index);
+	}
+
+	/**
+	 * Marks the nodes with the given indices as involved in this trace. In
+	 * contrast to setting the involvement of each node separately, the cached
+	 * values are only invalidated once.
+	 * @param indices
+	 * an array holding the indices of nodes in the associated spectra
+	 * @param count
+	 * the number of indices to use, starting from the beginning of the array
+	 */
+	public void setInvolvedIndices(final int[] indices, final int count) {
+		BitSet involvement = getWritableInvolvement();
+		for (int i = 0; i < count; ++i) {
+			if (spectra.getNodeWithIndex(indices[i]) == null) {
+				throw new IllegalArgumentException("No node with index " + indices[i] + " in spectra.");
+			}
+			involvement.set(indices[i]);
+		}
+		spectra.getLocalizer().invalidateCachedValues();
+		spectra.invalidateCachedValues(this);
+	}
+
+	/**
+	 * Returns the involvement of all nodes as words of 64 bits each, where bit
+	 * i of word w corresponds to the node with index 64 * w + i. The returned
+	 * array is a copy and may be modified.
+	 *
+	 * @return the involvement words
+	 */
+	public long[] getInvolvementWords() {
+		return involvement.toLongArray();
+	}
+
+	/**
+	 * @return the bit set holding the involvement of this trace; must not be
+	 * modified, since it may be shared with other traces
+	 */
+	BitSet getInvolvement() {
+		return involvement;
+	}
+
+	/**
+	 * Replaces the involvement of this trace with the given (equal) bit set,
+	 * which may be shared with other traces.
+	 * @param sharedInvolvement
+	 * a bit set equal to the current involvement of this trace
+	 */
+	void shareInvolvement(final BitSet sharedInvolvement) {
+		involvement = sharedInvolvement;
+		shared = true;
+	}
+
+	private BitSet getWritableInvolvement() {
+		if (shared) {
+			involvement = (BitSet) involvement.clone();
+			shared = false;
+		}
+		return involvement;
+	}
+
+}
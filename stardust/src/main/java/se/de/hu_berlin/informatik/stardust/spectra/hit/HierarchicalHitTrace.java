@@ -4,6 +4,7 @@ import java.util.ArrayList;
 import java.util.Collection;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
 
 import se.de.hu_berlin.informatik.stardust.spectra.AbstractHierarchicalSpectra;
 import se.de.hu_berlin.informatik.stardust.spectra.INode;
@@ -97,4 +98,9 @@ public class HierarchicalHitTrace<P, C> extends HitTrace<P> {
 		throw new UnsupportedOperationException("Not able to set involvement in hierarchical spectra.");
 	}
 
+	@Override
+	public void removeInvolvement(Set<P> identifiers) {
+		throw new UnsupportedOperationException("Not able to set involvement in hierarchical spectra.");
+	}
+
 }
@@ -7,6 +7,7 @@
 package se.de.hu_berlin.informatik.stardust.spectra.hit;
 
 import java.util.Collection;
+import java.util.Collections;
 import java.util.HashSet;
 import java.util.Map;
 import java.util.Objects;
@@ -37,9 +38,11 @@ public class HitTrace<T> implements ITrace<T> {
 
 	/**
 	 * Stores the involvement of all nodes for this trace. Use
-	 * {@link HitSpectra#getNodes()} to get all nodes.
+	 * {@link HitSpectra#getNodes()} to get all nodes. The set is only created
+	 * when the first node is involved, such that subclasses that store the
+	 * involvement differently do not allocate it.
 	 */
-	private final Set<T> involvement = new HashSet<>();
+	private Set<T> involvement = null;
 
 	/**
 	 * Create a trace for a spectra.
@@ -67,12 +70,14 @@ public class HitTrace<T> implements ITrace<T> {
 	public void setInvolvement(final T identifier, final boolean involved) {
 		INode<T> node = spectra.getOrCreateNode(identifier);
 		if (involved) {
-			if (involvement.add(identifier)) {
+			if (getOrCreateInvolvement().add(identifier)) {
 				node.invalidateCachedValues();
+				spectra.invalidateCachedValues(this);
 			}
-		} else if (involvement.contains(identifier)) {
+		} else if (isInvolved(identifier)) {
 			involvement.remove(identifier);
 			node.invalidateCachedValues();
+			spectra.invalidateCachedValues(this);
 		}
 	}
 
@@ -80,12 +85,14 @@ public class HitTrace<T> implements ITrace<T> {
 	@Override
 	public void setInvolvement(final INode<T> node, final boolean involved) {
 		if (involved) {
-			if (involvement.add(node.getIdentifier())) {
+			if (getOrCreateInvolvement().add(node.getIdentifier())) {
 				node.invalidateCachedValues();
+				involvementChanged(node.getIdentifier());
 			}
-		} else if (involvement.contains(node.getIdentifier())) {
+		} else if (isInvolved(node.getIdentifier())) {
 			involvement.remove(node.getIdentifier());
 			node.invalidateCachedValues();
+			involvementChanged(node.getIdentifier());
 		}
 	}
 
@@ -105,16 +112,44 @@ public class HitTrace<T> implements ITrace<T> {
 		}
 	}
 
+	/** {@inheritDoc} */
+	@Override
+	public void removeInvolvement(final Set<T> identifiers) {
+		if (involvement != null && involvement.removeAll(identifiers)) {
+			spectra.getLocalizer().invalidateCachedValues();
+			for (T identifier : identifiers) {
+				if (spectra.hasNode(identifier)) {
+					spectra.invalidateCachedValues(this);
+					break;
+				}
+			}
+		}
+	}
+
+	private Set<T> getOrCreateInvolvement() {
+		if (involvement == null) {
+			involvement = new HashSet<>();
+		}
+		return involvement;
+	}
+
+	private void involvementChanged(final T identifier) {
+		// the spectra itself keeps track of nodes that it removes
+		if (spectra.hasNode(identifier)) {
+			spectra.invalidateCachedValues(this);
+		}
+	}
+
 	/** {@inheritDoc} */
 	@Override
 	public boolean isInvolved(final INode<T> node) {
-		return involvement.contains(node.getIdentifier());
+		return isInvolved(node.getIdentifier());
 	}
 
 	/** {@inheritDoc} */
 	@Override
 	public boolean isInvolved(final T identifier) {
-		return involvement.contains(identifier);
+		return involvement != null && involvement.contains(identifier);
 	}
 
 	@Override
@@ -124,12 +159,12 @@ public class HitTrace<T> implements ITrace<T> {
 
 	@Override
 	public int involvedNodesCount() {
-		return involvement.size();
+		return involvement == null ? 0 : involvement.size();
 	}
 
 	@Override
 	public Collection<T> getInvolvedNodes() {
-		return involvement;
+		return involvement == null ? Collections.<T>emptySet() : involvement;
 	}
 
 	@Override
@@ -1,10 +1,16 @@
 /**
- * 
+ *
  */
 package se.de.hu_berlin.informatik.stardust.spectra.manipulation;
 
+import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.SplittableRandom;
+
 import se.de.hu_berlin.informatik.stardust.localizer.SourceCodeBlock;
 import se.de.hu_berlin.informatik.stardust.spectra.INode;
 import se.de.hu_berlin.informatik.stardust.spectra.ISpectra;
@@ -14,11 +20,22 @@ import se.de.hu_berlin.informatik.utils.processors.AbstractProcessor;
 /**
  * Reads a Spectra object and combines sequences of nodes to larger blocks based
  * on whether they were executed by the same set of traces (which would result in the same ranking).
- * 
+ *
+ * <p>
+ * Instead of comparing the involvement of consecutive nodes trace by trace,
+ * the involvement column of each node is reduced to a 64 bit fingerprint (the
+ * sum of random keys of all involving traces) in a single sweep over the
+ * traces. Consecutive nodes with equal fingerprints and involvement counts are
+ * merged after a verification pass over the traces, and all merged nodes are
+ * removed from the spectra at once.
+ *
  * @author Simon Heiden
  */
 public class BuildBlockSpectraModule extends AbstractProcessor<ISpectra<SourceCodeBlock,?>, ISpectra<SourceCodeBlock,?>> {
 
+	/** fixed seed, such that the fingerprints are reproducible */
+	private static final long FINGERPRINT_SEED = 0x5354415244555354L;
+
 	public BuildBlockSpectraModule() {
 		super();
 	}
@@ -28,7 +45,7 @@ public class BuildBlockSpectraModule extends AbstractProcessor<ISpectra<SourceCo
 	 */
 	@Override
 	public ISpectra<SourceCodeBlock,?> processItem(final ISpectra<SourceCodeBlock,?> input) {
-		
+
 		//get lines in the spectra and sort them
 		Collection<INode<SourceCodeBlock>> nodes = input.getNodes();
 		SourceCodeBlock[] array = new SourceCodeBlock[nodes.size()];
@@ -37,52 +54,125 @@ public class BuildBlockSpectraModule extends AbstractProcessor<ISpectra<SourceCo
 			array[++counter] = node.getIdentifier();
 		}
 		Arrays.sort(array);
-		
+
+		Map<SourceCodeBlock, Integer> lineIndices = new HashMap<>();
+		for (int i = 0; i < array.length; ++i) {
+			lineIndices.put(array[i], i);
+		}
+
+		//compute the fingerprints and involvement counts of all lines in one sweep
 		Collection<? extends ITrace<SourceCodeBlock>> traces = input.getTraces();
-		SourceCodeBlock lastLine = new SourceCodeBlock("", "", "", -1);
-		INode<SourceCodeBlock> lastNode = null;
-		//iterate over all lines
-		for (SourceCodeBlock line : array) {
-			INode<SourceCodeBlock> node = input.getOrCreateNode(line);
-			//see if we are inside the same method in the same package
-			if (line.getMethodName().equals(lastLine.getMethodName())
-					&& line.getPackageName().equals(lastLine.getPackageName())) {
+		long[] fingerprints = new long[array.length];
+		int[] involvementCounts = new int[array.length];
+		SplittableRandom random = new SplittableRandom(FINGERPRINT_SEED);
+		for (ITrace<SourceCodeBlock> trace : traces) {
+			long key = random.nextLong();
+			for (SourceCodeBlock line : trace.getInvolvedNodes()) {
+				Integer index = lineIndices.get(line);
+				if (index != null) {
+					fingerprints[index] += key;
+					++involvementCounts[index];
+				}
+			}
+		}
+
+		int[] blockStarts = computeBlockStarts(array, fingerprints, involvementCounts);
+
+		if (!verifyBlockStarts(input, array, lineIndices, blockStarts)) {
+			//fingerprint collision (very unlikely); fall back to comparing the involvements directly
+			blockStarts = computeBlockStarts(input, array);
+		}
+
+		//extend the ranges of the blocks and remove the superfluous nodes from the spectra
+		List<SourceCodeBlock> removedLines = new ArrayList<>();
+		for (int i = 0; i < array.length; ++i) {
+			if (blockStarts[i] != i) {
+				//(note that the following only works because the end line
+				//numbers do not influence the hash code, and the changed
+				//node's sort order remains identical)
+				array[blockStarts[i]].setLineNumberEnd(array[i].getEndLineNumber());
+				removedLines.add(array[i]);
+			}
+		}
+		input.removeNodes(removedLines);
+
+		return input;
+	}
+
+	/**
+	 * Computes, for each line, the index of the first line of the block that
+	 * the line belongs to, based on the fingerprints of the involvements.
+	 */
+	private static int[] computeBlockStarts(SourceCodeBlock[] array, long[] fingerprints, int[] involvementCounts) {
+		int[] blockStarts = new int[array.length];
+		for (int i = 0; i < array.length; ++i) {
+			int last = i - 1;
+			if (last >= 0 && isInSameMethod(array[i], array[last])
+					&& fingerprints[i] == fingerprints[last]
+					&& involvementCounts[i] == involvementCounts[last]) {
+				//there cannot be any other covered lines in between due
+				//to the ordering of SourceCodeLine objects
+				blockStarts[i] = blockStarts[last];
+			} else {
+				blockStarts[i] = i;
+			}
+		}
+		return blockStarts;
+	}
+
+	/**
+	 * Computes, for each line, the index of the first line of the block that
+	 * the line belongs to, by comparing the involvements trace by trace.
+	 */
+	private static int[] computeBlockStarts(ISpectra<SourceCodeBlock,?> input, SourceCodeBlock[] array) {
+		Collection<? extends ITrace<SourceCodeBlock>> traces = input.getTraces();
+		int[] blockStarts = new int[array.length];
+		for (int i = 0; i < array.length; ++i) {
+			blockStarts[i] = i;
+			int last = i - 1;
+			if (last >= 0 && isInSameMethod(array[i], array[last])) {
+				INode<SourceCodeBlock> node = input.getOrCreateNode(array[i]);
+				INode<SourceCodeBlock> blockNode = input.getOrCreateNode(array[blockStarts[last]]);
 				boolean isInvolvedInSameTraces = true;
-				//see if the involvements match for consecutive nodes
 				for (ITrace<SourceCodeBlock> trace : traces) {
 					//if we find an involvement that doesn't match, then we can break the loop
-					if (trace.isInvolved(node) != trace.isInvolved(lastNode)) {
+					if (trace.isInvolved(node) != trace.isInvolved(blockNode)) {
 						isInvolvedInSameTraces = false;
 						break;
 					}
 				}
-				//if this line is involved in the same traces as the last, then 
-				//we can safely extend the last block to this line;
-				//there cannot be any other covered lines in between due
-				//to the ordering of SourceCodeLine objects
 				if (isInvolvedInSameTraces) {
-					//(note that the following only works because the end line
-					//numbers do not influence the hash code, and the changed 
-					//node's sort order remains identical)
-					//extend the range of the last block
-					lastLine.setLineNumberEnd(line.getEndLineNumber());
-					//remove the superfluous node from the spectra
-					input.removeNode(line);
-				} else {
-					//if this line isn't involved in the same traces as the last 
-					//one, then go on to the next line
-					lastLine = line;
-					lastNode = node;
+					blockStarts[i] = blockStarts[last];
 				}
-			} else {
-				//if we change into another method or package, also go
-				//to the next line
-				lastLine = line;
-				lastNode = node;
 			}
 		}
-		
-		return input;
+		return blockStarts;
+	}
+
+	/**
+	 * Checks that each line is involved in exactly the same traces as the first
+	 * line of its block. Since the involvement counts of both lines are equal,
+	 * it suffices to check that every trace involving the line also involves
+	 * the first line of the block.
+	 */
+	private static boolean verifyBlockStarts(ISpectra<SourceCodeBlock,?> input, SourceCodeBlock[] array,
+			Map<SourceCodeBlock, Integer> lineIndices, int[] blockStarts) {
+		for (ITrace<SourceCodeBlock> trace : input.getTraces()) {
+			for (SourceCodeBlock line : trace.getInvolvedNodes()) {
+				Integer index = lineIndices.get(line);
+				if (index != null && blockStarts[index] != index
+						&& !trace.isInvolved(array[blockStarts[index]])) {
+					return false;
+				}
+			}
+		}
+		return true;
+	}
+
+	private static boolean isInSameMethod(SourceCodeBlock line, SourceCodeBlock lastLine) {
+		//see if we are inside the same method in the same package
+		return line.getMethodName().equals(lastLine.getMethodName())
+				&& line.getPackageName().equals(lastLine.getPackageName());
 	}
 
 }
@@ -32,7 +32,7 @@ public class FilterSpectraModule<T> extends AbstractProcessor<ISpectra<T,?>, ISp
 	@Override
 	public ISpectra<T,?> processItem(final ISpectra<T,?> input) {
 		Log.out(this, "Filtering spectra...");
-		return input.removeNodesWithCoverageType(coverageType);
+		return input.removeNodes(coverageType::isTypeOf);
 	}
 
 }
@@ -23,11 +23,57 @@ public class SaveSpectraModule<T extends Indexable<T>> extends AbstractProcessor
 	
 	final private Path output;
 	final private T dummy;
+	final private int threadCount;
+	final private boolean binary;
 
 	public SaveSpectraModule(T dummy, final Path output) {
+		this(dummy, output, SpectraFileUtils.DEFAULT_THREAD_COUNT);
+	}
+
+	/**
+	 * @param dummy
+	 * a dummy object of type T that is used for obtaining indexed identifiers
+	 * @param output
+	 * the output path to the zip file to be created
+	 * @param threadCount
+	 * the number of threads to use for encoding and compressing the traces
+	 */
+	public SaveSpectraModule(T dummy, final Path output, int threadCount) {
+		this(dummy, output, threadCount, false);
+	}
+
+	/**
+	 * @param dummy
+	 * a dummy object of type T that is used for obtaining indexed identifiers
+	 * @param output
+	 * the output path to the file to be created
+	 * @param binary
+	 * whether to save the spectra in the binary spectra file format instead of
+	 * a zip file; both formats are loaded by
+	 * {@link SpectraFileUtils#loadSpectraFromZipFile(Indexable, Path)}
+	 */
+	public SaveSpectraModule(T dummy, final Path output, boolean binary) {
+		this(dummy, output, SpectraFileUtils.DEFAULT_THREAD_COUNT, binary);
+	}
+
+	/**
+	 * @param dummy
+	 * a dummy object of type T that is used for obtaining indexed identifiers
+	 * @param output
+	 * the output path to the file to be created
+	 * @param threadCount
+	 * the number of threads to use for encoding and compressing the traces
+	 * (only used for zip files)
+	 * @param binary
+	 * whether to save the spectra in the binary spectra file format instead of
+	 * a zip file
+	 */
+	public SaveSpectraModule(T dummy, final Path output, int threadCount, boolean binary) {
 		super();
 		this.output = output;
 		this.dummy = dummy;
+		this.threadCount = threadCount;
+		this.binary = binary;
 	}
 
 	/* (non-Javadoc)
@@ -40,7 +86,11 @@ public class SaveSpectraModule<T extends Indexable<T>> extends AbstractProcessor
 //			return null;
 //		} else {
 			Log.out(this, "Saving spectra...");
-			SpectraFileUtils.saveSpectraToZipFile(dummy, input, output, true, true, true);
+			if (binary) {
+				SpectraFileUtils.saveSpectraToBinaryFile(dummy, input, output, true);
+			} else {
+				SpectraFileUtils.saveSpectraToZipFile(dummy, input, output, true, true, true, threadCount);
+			}
 //		}
 		return input;
 	}
@@ -0,0 +1,336 @@
+package se.de.hu_berlin.informatik.stardust.util;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+import se.de.hu_berlin.informatik.utils.miscellaneous.Log;
+
+/**
+ * Provides random access to a spectra that is stored in the binary spectra
+ * file format. Single traces (rows) or single nodes (columns) can be read
+ * without decoding the rest of the file. Files up to 2 GB are memory-mapped,
+ * larger files are read with positional reads.
+ *
+ * <p>
+ * The file format (version 1) consists of the following sections, with all
+ * fixed size numbers being stored in big-endian byte order:
+ *
+ * <pre>
+ * header        magic number "STSP" (int), version (int), flags (int),
+ *               node count (int), trace count (int), reserved (int),
+ *               offsets (long) of the node identifiers, trace identifiers,
+ *               index (-1 if not indexed), trace table and node table
+ * identifiers   length (int) followed by the UTF-8 encoded, tab separated
+ *               node identifiers, trace identifiers and indexed names
+ * trace data    for each trace, the number of involved nodes followed by
+ *               the gaps between the ascending positions of the involved
+ *               nodes (and the hit counts for count spectra)
+ * node data     the same for each node, listing the involving traces
+ * trace table   for each trace: data offset (long), data length (int),
+ *               flags (int, 1 if successful)
+ * node table    for each node: data offset (long), data length (int),
+ *               number of involving traces (int)
+ * </pre>
+ *
+ * All numbers in the trace and node data are stored as unsigned variable
+ * length integers (7 bits per byte, least significant group first). Traces
+ * with identical involvement may refer to the same trace data.
+ */
+public class BinarySpectraFile implements Closeable {
+
+	/** "STSP" */
+	static final int MAGIC_NUMBER = 0x53545350;
+	static final int VERSION = 1;
+	static final int HEADER_SIZE = 64;
+	static final int TABLE_ENTRY_SIZE = 16;
+
+	static final int FLAG_COUNT = 1;
+	static final int FLAG_INDEXED = 2;
+	static final int FLAG_SUCCESSFUL = 1;
+
+	private final Path path;
+	private final FileChannel channel;
+	private final ByteBuffer mappedFile;
+
+	private final int flags;
+	private final int nodeCount;
+	private final int traceCount;
+	private final long nodeIdentifiersOffset;
+	private final long traceIdentifiersOffset;
+	private final long indexOffset;
+	private final long traceTableOffset;
+	private final long nodeTableOffset;
+
+	/**
+	 * Opens the given binary spectra file. Aborts if the file can not be read
+	 * or is not a valid binary spectra file.
+	 * @param path
+	 * the path to the file
+	 */
+	public BinarySpectraFile(Path path) {
+		this.path = path;
+		FileChannel fileChannel = null;
+		ByteBuffer map = null;
+		ByteBuffer header = null;
+		try {
+			fileChannel = FileChannel.open(path, StandardOpenOption.READ);
+			if (fileChannel.size() <= Integer.MAX_VALUE) {
+				map = fileChannel.map(FileChannel.MapMode.READ_ONLY, 0, fileChannel.size());
+			}
+			header = read(fileChannel, map, 0, HEADER_SIZE);
+		} catch (IOException e) {
+			Log.abort(this, e, "Could not read binary spectra file '%s'.", path);
+		}
+		this.channel = fileChannel;
+		this.mappedFile = map;
+
+		if (header.getInt() != MAGIC_NUMBER) {
+			Log.abort(this, "'%s' is not a binary spectra file.", path);
+		}
+		int version = header.getInt();
+		if (version != VERSION) {
+			Log.abort(this, "Unsupported binary spectra file version %d in '%s'.", version, path);
+		}
+		this.flags = header.getInt();
+		this.nodeCount = header.getInt();
+		this.traceCount = header.getInt();
+		header.getInt();
+		this.nodeIdentifiersOffset = header.getLong();
+		this.traceIdentifiersOffset = header.getLong();
+		this.indexOffset = header.getLong();
+		this.traceTableOffset = header.getLong();
+		this.nodeTableOffset = header.getLong();
+	}
+
+	/**
+	 * Checks whether the given file starts with the magic number of the binary
+	 * spectra file format.
+	 * @param path
+	 * the path to a file
+	 * @return true if the file is a binary spectra file, false otherwise
+	 */
+	public static boolean isBinarySpectraFile(Path path) {
+		try (FileChannel fileChannel = FileChannel.open(path, StandardOpenOption.READ)) {
+			ByteBuffer buffer = ByteBuffer.allocate(Integer.BYTES);
+			while (buffer.hasRemaining()) {
+				if (fileChannel.read(buffer) < 0) {
+					return false;
+				}
+			}
+			buffer.flip();
+			return buffer.getInt() == MAGIC_NUMBER;
+		} catch (IOException e) {
+			return false;
+		}
+	}
+
+	private static ByteBuffer read(FileChannel channel, ByteBuffer map, long offset, int length)
+			throws IOException {
+		if (map != null) {
+			ByteBuffer buffer = map.duplicate();
+			buffer.position((int) offset);
+			buffer.limit((int) offset + length);
+			return buffer.slice();
+		}
+		ByteBuffer buffer = ByteBuffer.allocate(length);
+		while (buffer.hasRemaining()) {
+			if (channel.read(buffer, offset + buffer.position()) < 0) {
+				throw new IOException("Unexpected end of file.");
+			}
+		}
+		buffer.flip();
+		return buffer;
+	}
+
+	private ByteBuffer read(long offset, int length) {
+		try {
+			return read(channel, mappedFile, offset, length);
+		} catch (IOException e) {
+			Log.abort(this, e, "Could not read binary spectra file '%s'.", path);
+			return null;
+		}
+	}
+
+	private String readString(long offset) {
+		int length = read(offset, Integer.BYTES).getInt();
+		ByteBuffer buffer = read(offset + Integer.BYTES, length);
+		byte[] bytes = new byte[length];
+		buffer.get(bytes);
+		return new String(bytes, StandardCharsets.UTF_8);
+	}
+
+	private static String[] split(String string) {
+		String[] split = string.split(SpectraFileUtils.IDENTIFIER_DELIMITER);
+		if (split.length == 1 && split[0].equals("")) {
+			return new String[0];
+		} else {
+			return split;
+		}
+	}
+
+	/**
+	 * @return the number of nodes
+	 */
+	public int getNodeCount() {
+		return nodeCount;
+	}
+
+	/**
+	 * @return the number of traces
+	 */
+	public int getTraceCount() {
+		return traceCount;
+	}
+
+	/**
+	 * @return whether the file contains hit counts
+	 */
+	public boolean isCountSpectra() {
+		return (flags & FLAG_COUNT) != 0;
+	}
+
+	/**
+	 * @return whether the node identifiers are indexed
+	 */
+	public boolean isIndexed() {
+		return (flags & FLAG_INDEXED) != 0;
+	}
+
+	/**
+	 * @return the (possibly indexed) node identifiers, in the order of their
+	 * positions
+	 */
+	public String[] getRawNodeIdentifiers() {
+		return split(readString(nodeIdentifiersOffset));
+	}
+
+	/**
+	 * @return the trace identifiers, in the order of their positions
+	 */
+	public String[] getTraceIdentifiers() {
+		return split(readString(traceIdentifiersOffset));
+	}
+
+	/**
+	 * @return the identifier names that indexed node identifiers refer to, or
+	 * null if the node identifiers are not indexed
+	 */
+	public String[] getIndexedIdentifierNames() {
+		if (indexOffset < 0) {
+			return null;
+		}
+		return split(readString(indexOffset));
+	}
+
+	private ByteBuffer getTableEntry(long tableOffset, int position, int count) {
+		if (position < 0 || position >= count) {
+			throw new IndexOutOfBoundsException("Position " + position + " out of range [0, " + count + ").");
+		}
+		return read(tableOffset + (long) position * TABLE_ENTRY_SIZE, TABLE_ENTRY_SIZE);
+	}
+
+	/**
+	 * @param trace
+	 * the position of a trace
+	 * @return whether the trace is successful
+	 */
+	public boolean isSuccessful(int trace) {
+		ByteBuffer entry = getTableEntry(traceTableOffset, trace, traceCount);
+		return (entry.getInt(12) & FLAG_SUCCESSFUL) != 0;
+	}
+
+	/**
+	 * @param trace
+	 * the position of a trace
+	 * @return the offset of the trace data of the trace; traces with identical
+	 * involvement may have the same offset
+	 */
+	public long getTraceDataOffset(int trace) {
+		return getTableEntry(traceTableOffset, trace, traceCount).getLong(0);
+	}
+
+	/**
+	 * @param trace
+	 * the position of a trace
+	 * @return the positions of all nodes involved in the trace, in ascending
+	 * order
+	 */
+	public int[] getInvolvedNodes(int trace) {
+		return readEntries(getTableEntry(traceTableOffset, trace, traceCount), false);
+	}
+
+	/**
+	 * @param trace
+	 * the position of a trace
+	 * @return the hit counts of all nodes involved in the trace, in the order
+	 * of {@link #getInvolvedNodes(int)}; all ones if the file does not contain
+	 * hit counts
+	 */
+	public int[] getHitCounts(int trace) {
+		return readEntries(getTableEntry(traceTableOffset, trace, traceCount), true);
+	}
+
+	/**
+	 * @param node
+	 * the position of a node
+	 * @return the positions of all traces that involve the node, in ascending
+	 * order
+	 */
+	public int[] getInvolvingTraces(int node) {
+		return readEntries(getTableEntry(nodeTableOffset, node, nodeCount), false);
+	}
+
+	/**
+	 * @param node
+	 * the position of a node
+	 * @return the hit counts of the node in all traces that involve the node,
+	 * in the order of {@link #getInvolvingTraces(int)}; all ones if the file
+	 * does not contain hit counts
+	 */
+	public int[] getHitCountsOfNode(int node) {
+		return readEntries(getTableEntry(nodeTableOffset, node, nodeCount), true);
+	}
+
+	private int[] readEntries(ByteBuffer entry, boolean readHits) {
+		long offset = entry.getLong(0);
+		int length = entry.getInt(8);
+		ByteBuffer data = read(offset, length);
+		boolean hasHits = isCountSpectra();
+		int count = readVarInt(data);
+		int[] result = new int[count];
+		int last = -1;
+		for (int i = 0; i < count; ++i) {
+			last += readVarInt(data) + 1;
+			int hits = hasHits ? readVarInt(data) : 1;
+			result[i] = readHits ? hits : last;
+		}
+		return result;
+	}
+
+	private static int readVarInt(ByteBuffer data) {
+		int value = 0;
+		int shift = 0;
+		byte b;
+		do {
+			b = data.get();
+			value |= (b & 0x7F) << shift;
+			shift += 7;
+		} while ((b & 0x80) != 0);
+		return value;
+	}
+
+	@Override
+	public void close() {
+		try {
+			channel.close();
+		} catch (IOException e) {
+			Log.warn(this, e, "Could not close binary spectra file '%s'.", path);
+		}
+	}
+
+}
@@ -0,0 +1,282 @@
+package se.de.hu_berlin.informatik.stardust.util;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+
+import se.de.hu_berlin.informatik.stardust.spectra.INode;
+import se.de.hu_berlin.informatik.stardust.spectra.ISpectra;
+import se.de.hu_berlin.informatik.stardust.spectra.ITrace;
+import se.de.hu_berlin.informatik.stardust.spectra.count.CountTrace;
+import se.de.hu_berlin.informatik.stardust.spectra.hit.BitSetHitSpectra;
+import se.de.hu_berlin.informatik.stardust.spectra.hit.HitTrace;
+
+/**
+ * Writes spectra in the binary spectra file format that is described in
+ * {@link BinarySpectraFile}.
+ */
+class BinarySpectraFileWriter {
+
+	private static final int BUFFER_SIZE = 1 << 20;
+
+	private final FileChannel channel;
+	private final ByteBuffer buffer = ByteBuffer.allocate(BUFFER_SIZE);
+	private long position = 0;
+
+	private BinarySpectraFileWriter(FileChannel channel) {
+		this.channel = channel;
+	}
+
+	/**
+	 * Writes the given spectra to the given output file.
+	 * @param spectra
+	 * the spectra to write
+	 * @param nodes
+	 * the nodes of the spectra, in the order of their positions in the file
+	 * @param nodeIdentifiers
+	 * the (possibly indexed) node identifiers, separated by tabs
+	 * @param traceIdentifiers
+	 * the trace identifiers, separated by tabs
+	 * @param index
+	 * the identifier names of indexed node identifiers, separated by tabs, or
+	 * null if the identifiers are not indexed
+	 * @param output
+	 * the output file
+	 * @param <T>
+	 * the type of nodes in the spectra
+	 * @throws IOException
+	 * if the file can not be written
+	 */
+	static <T> void write(ISpectra<T, ?> spectra, Collection<INode<T>> nodes, String nodeIdentifiers,
+			String traceIdentifiers, String index, Path output) throws IOException {
+		output.toAbsolutePath().getParent().toFile().mkdirs();
+		try (FileChannel channel = FileChannel.open(output, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+				StandardOpenOption.TRUNCATE_EXISTING)) {
+			new BinarySpectraFileWriter(channel).writeSpectra(spectra, nodes, nodeIdentifiers, traceIdentifiers, index);
+		}
+	}
+
+	private <T> void writeSpectra(ISpectra<T, ?> spectra, Collection<INode<T>> nodes, String nodeIdentifiers,
+			String traceIdentifiers, String index) throws IOException {
+		Collection<? extends ITrace<T>> traces = spectra.getTraces();
+		boolean countSpectra = !traces.isEmpty() && traces.iterator().next() instanceof CountTrace;
+		int flags = (countSpectra ? BinarySpectraFile.FLAG_COUNT : 0)
+				| (index != null ? BinarySpectraFile.FLAG_INDEXED : 0);
+
+		// the header is written last, when all offsets are known
+		position = BinarySpectraFile.HEADER_SIZE;
+		channel.position(position);
+
+		long nodeIdentifiersOffset = writeString(nodeIdentifiers);
+		long traceIdentifiersOffset = writeString(traceIdentifiers);
+		long indexOffset = index == null ? -1 : writeString(index);
+
+		// write the trace data and collect the transposed node data
+		NodeColumn[] columns = new NodeColumn[nodes.size()];
+		for (int i = 0; i < columns.length; ++i) {
+			columns[i] = new NodeColumn(countSpectra);
+		}
+		long[] traceOffsets = new long[traces.size()];
+		int[] traceLengths = new int[traces.size()];
+		int[] traceFlags = new int[traces.size()];
+		int[] involved = new int[nodes.size()];
+		int[] hits = countSpectra ? new int[nodes.size()] : null;
+		// traces that share their involvement also share their data
+		Map<ITrace<T>, ITrace<T>> representatives = getRepresentatives(spectra);
+		Map<ITrace<T>, Integer> writtenTraces = new IdentityHashMap<>();
+		int traceIndex = 0;
+		for (ITrace<T> trace : traces) {
+			int involvedCount = 0;
+			int nodePosition = 0;
+			for (INode<T> node : nodes) {
+				if (trace.isInvolved(node)) {
+					involved[involvedCount] = nodePosition;
+					if (countSpectra) {
+						hits[involvedCount] = ((CountTrace<T>) trace).getHits(node);
+					}
+					columns[nodePosition].add(traceIndex, countSpectra ? hits[involvedCount] : 0);
+					++involvedCount;
+				}
+				++nodePosition;
+			}
+			Integer writtenTrace = writtenTraces.get(representatives.getOrDefault(trace, trace));
+			if (writtenTrace != null) {
+				traceOffsets[traceIndex] = traceOffsets[writtenTrace];
+				traceLengths[traceIndex] = traceLengths[writtenTrace];
+			} else {
+				traceOffsets[traceIndex] = position;
+				writeEntries(involved, hits, involvedCount);
+				traceLengths[traceIndex] = (int) (position - traceOffsets[traceIndex]);
+				writtenTraces.put(representatives.getOrDefault(trace, trace), traceIndex);
+			}
+			traceFlags[traceIndex] = trace.isSuccessful() ? BinarySpectraFile.FLAG_SUCCESSFUL : 0;
+			++traceIndex;
+		}
+
+		long[] nodeOffsets = new long[nodes.size()];
+		int[] nodeLengths = new int[nodes.size()];
+		int[] nodeCounts = new int[nodes.size()];
+		for (int i = 0; i < columns.length; ++i) {
+			nodeOffsets[i] = position;
+			writeEntries(columns[i].traces, columns[i].hits, columns[i].size);
+			nodeLengths[i] = (int) (position - nodeOffsets[i]);
+			nodeCounts[i] = columns[i].size;
+			columns[i] = null;
+		}
+
+		long traceTableOffset = writeTable(traceOffsets, traceLengths, traceFlags);
+		long nodeTableOffset = writeTable(nodeOffsets, nodeLengths, nodeCounts);
+		flush();
+
+		ByteBuffer header = ByteBuffer.allocate(BinarySpectraFile.HEADER_SIZE);
+		header.putInt(BinarySpectraFile.MAGIC_NUMBER);
+		header.putInt(BinarySpectraFile.VERSION);
+		header.putInt(flags);
+		header.putInt(nodes.size());
+		header.putInt(traces.size());
+		header.putInt(0);
+		header.putLong(nodeIdentifiersOffset);
+		header.putLong(traceIdentifiersOffset);
+		header.putLong(indexOffset);
+		header.putLong(traceTableOffset);
+		header.putLong(nodeTableOffset);
+		header.flip();
+		channel.position(0);
+		while (header.hasRemaining()) {
+			channel.write(header);
+		}
+	}
+
+	/**
+	 * Maps each trace of a {@link BitSetHitSpectra} that shares its involvement
+	 * with other traces to the first trace of its group.
+	 */
+	@SuppressWarnings("unchecked")
+	private static <T> Map<ITrace<T>, ITrace<T>> getRepresentatives(ISpectra<T, ?> spectra) {
+		Map<ITrace<T>, ITrace<T>> representatives = new IdentityHashMap<>();
+		if (spectra instanceof BitSetHitSpectra) {
+			for (List<HitTrace<T>> group : ((BitSetHitSpectra<T>) spectra).getTraceGroups()) {
+				if (group.size() > 1) {
+					for (HitTrace<T> trace : group) {
+						representatives.put(trace, group.get(0));
+					}
+				}
+			}
+		}
+		return representatives;
+	}
+
+	private long writeString(String string) throws IOException {
+		long offset = position;
+		byte[] bytes = string.getBytes(StandardCharsets.UTF_8);
+		putInt(bytes.length);
+		for (byte b : bytes) {
+			putByte(b);
+		}
+		return offset;
+	}
+
+	private long writeTable(long[] offsets, int[] lengths, int[] values) throws IOException {
+		long offset = position;
+		for (int i = 0; i < offsets.length; ++i) {
+			putLong(offsets[i]);
+			putInt(lengths[i]);
+			putInt(values[i]);
+		}
+		return offset;
+	}
+
+	/**
+	 * Writes the number of entries, followed by the differences between
+	 * consecutive (ascending) positions, each followed by the hit count, if
+	 * given. All numbers are stored as variable length integers.
+	 */
+	private void writeEntries(int[] positions, int[] hits, int count) throws IOException {
+		putVarInt(count);
+		int last = -1;
+		for (int i = 0; i < count; ++i) {
+			putVarInt(positions[i] - last - 1);
+			last = positions[i];
+			if (hits != null) {
+				putVarInt(hits[i]);
+			}
+		}
+	}
+
+	private void putVarInt(int value) throws IOException {
+		while ((value & ~0x7F) != 0) {
+			putByte((byte) ((value & 0x7F) | 0x80));
+			value >>>= 7;
+		}
+		putByte((byte) value);
+	}
+
+	private void putInt(int value) throws IOException {
+		ensureRemaining(Integer.BYTES);
+		buffer.putInt(value);
+		position += Integer.BYTES;
+	}
+
+	private void putLong(long value) throws IOException {
+		ensureRemaining(Long.BYTES);
+		buffer.putLong(value);
+		position += Long.BYTES;
+	}
+
+	private void putByte(byte value) throws IOException {
+		ensureRemaining(1);
+		buffer.put(value);
+		++position;
+	}
+
+	private void ensureRemaining(int bytes) throws IOException {
+		if (buffer.remaining() < bytes) {
+			flush();
+		}
+	}
+
+	private void flush() throws IOException {
+		buffer.flip();
+		while (buffer.hasRemaining()) {
+			channel.write(buffer);
+		}
+		buffer.clear();
+	}
+
+	/**
+	 * Collects the traces (and hit counts) of a single node.
+	 */
+	private static class NodeColumn {
+
+		private int[] traces = new int[4];
+		private int[] hits;
+		private int size = 0;
+
+		private NodeColumn(boolean storeHits) {
+			this.hits = storeHits ? new int[traces.length] : null;
+		}
+
+		private void add(int trace, int hitCount) {
+			if (size == traces.length) {
+				traces = Arrays.copyOf(traces, 2 * size);
+				if (hits != null) {
+					hits = Arrays.copyOf(hits, 2 * size);
+				}
+			}
+			traces[size] = trace;
+			if (hits != null) {
+				hits[size] = hitCount;
+			}
+			++size;
+		}
+	}
+
+}
@@ -0,0 +1,97 @@
+package se.de.hu_berlin.informatik.stardust.util;
+
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Decodes compressed integer sequences, as stored in spectra zip files, directly
+ * into int arrays. The compression processors of the utils library return boxed
+ * lists, which cost an object per involved node and trace when loading a spectra.
+ *
+ * <p>
+ * Only sequences of variable length are decoded. They are stored as one byte with
+ * the number of bits per value, a 4-byte sequence length of 0, the 4-byte number of
+ * sequences and the bit-packed values (most significant bit first). Each value is
+ * stored incremented by one, and a stored 0 ends a sequence. If the given data does
+ * not match this layout exactly, null is returned, such that callers can fall back
+ * to the processors of the utils library.
+ */
+final class IntSequenceDecoder {
+
+	private static final int HEADER_SIZE = 1 + 4 + 4;
+
+	private IntSequenceDecoder() {
+		// prevent initialization
+	}
+
+	/**
+	 * @param data
+	 * a compressed byte array that holds exactly one sequence
+	 * @return
+	 * the decoded sequence; or null if the layout is not supported
+	 */
+	static int[] decodeSequence(byte[] data) {
+		int[][] sequences = decodeSequences(data);
+		if (sequences == null || sequences.length != 1) {
+			return null;
+		}
+		return sequences[0];
+	}
+
+	/**
+	 * @param data
+	 * a compressed byte array that holds any number of sequences
+	 * @return
+	 * the decoded sequences; or null if the layout is not supported
+	 */
+	static int[][] decodeSequences(byte[] data) {
+		if (data == null || data.length < HEADER_SIZE) {
+			return null;
+		}
+		ByteBuffer header = ByteBuffer.wrap(data, 0, HEADER_SIZE);
+		int bitsPerValue = header.get();
+		int sequenceLength = header.getInt();
+		int sequenceCount = header.getInt();
+		if (bitsPerValue < 1 || bitsPerValue > 32 || sequenceLength != 0 || sequenceCount < 0) {
+			return null;
+		}
+
+		List<int[]> sequences = new ArrayList<>(sequenceCount);
+		int[] buffer = new int[64];
+		int count = 0;
+		long mask = (1L << bitsPerValue) - 1;
+		long bits = 0;
+		int availableBits = 0;
+		int position = HEADER_SIZE;
+		while (sequences.size() < sequenceCount) {
+			while (availableBits < bitsPerValue) {
+				if (position == data.length) {
+					// data ends within a sequence
+					return null;
+				}
+				bits = (bits << 8) | (data[position++] & 0xFF);
+				availableBits += 8;
+			}
+			availableBits -= bitsPerValue;
+			long value = (bits >>> availableBits) & mask;
+			if (value == 0) {
+				sequences.add(Arrays.copyOf(buffer, count));
+				count = 0;
+			} else {
+				if (count == buffer.length) {
+					buffer = Arrays.copyOf(buffer, buffer.length * 2);
+				}
+				buffer[count++] = (int) (value - 1);
+			}
+		}
+
+		// only padding bits (set to 0) may follow
+		if (position != data.length || availableBits >= 8 || (bits & ((1L << availableBits) - 1)) != 0) {
+			return null;
+		}
+		return sequences.toArray(new int[sequences.size()][]);
+	}
+
+}
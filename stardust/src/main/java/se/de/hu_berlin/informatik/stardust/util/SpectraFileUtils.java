@@ -2,15 +2,22 @@ package se.de.hu_berlin.informatik.stardust.util;
 
 import java.io.IOException;
 import java.nio.file.Path;
+import java.util.ArrayDeque;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collection;
 import java.util.Collections;
 import java.util.Comparator;
 import java.util.HashMap;
+import java.util.IdentityHashMap;
 import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
 import java.util.Objects;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 import java.util.function.Supplier;
 import java.util.Map.Entry;
 
@@ -26,6 +33,8 @@ import se.de.hu_berlin.informatik.stardust.spectra.ISpectra;
 import se.de.hu_berlin.informatik.stardust.spectra.ITrace;
 import se.de.hu_berlin.informatik.stardust.spectra.count.CountSpectra;
 import se.de.hu_berlin.informatik.stardust.spectra.count.CountTrace;
+import se.de.hu_berlin.informatik.stardust.spectra.hit.BitSetHitSpectra;
+import se.de.hu_berlin.informatik.stardust.spectra.hit.BitSetHitTrace;
 import se.de.hu_berlin.informatik.stardust.spectra.hit.HitSpectra;
 import se.de.hu_berlin.informatik.stardust.spectra.hit.HitTrace;
 import se.de.hu_berlin.informatik.utils.compression.CompressedByteArraysToByteArraysProcessor;
@@ -35,8 +44,6 @@ import se.de.hu_berlin.informatik.utils.compression.single.CompressedByteArrayTo
 import se.de.hu_berlin.informatik.utils.compression.single.CompressedByteArrayToIntSequenceProcessor;
 import se.de.hu_berlin.informatik.utils.compression.single.IntSequenceToCompressedByteArrayProcessor;
 import se.de.hu_berlin.informatik.utils.compression.ziputils.AddNamedByteArrayToZipFileProcessor;
-import se.de.hu_berlin.informatik.utils.compression.ziputils.ZipFileReader;
-import se.de.hu_berlin.informatik.utils.compression.ziputils.ZipFileWrapper;
 import se.de.hu_berlin.informatik.utils.files.csv.CSVUtils;
 import se.de.hu_berlin.informatik.utils.miscellaneous.Log;
 import se.de.hu_berlin.informatik.utils.miscellaneous.Misc;
@@ -56,7 +63,7 @@ public class SpectraFileUtils {
 	// TODO: what about hit count spectra? They are saved as normal hit spectra
 	// atm...
 
-	private static final String IDENTIFIER_DELIMITER = "\t";
+	static final String IDENTIFIER_DELIMITER = "\t";
 
 	private static final String NODE_IDENTIFIER_FILE_INDEX = "0.bin";
 	private static final String TRACE_IDENTIFIER_FILE_INDEX = "1.bin";
@@ -68,6 +75,7 @@ public class SpectraFileUtils {
 	private static final String TRACE_IDENTIFIER_FILE_NAME = ".traceIDs";
 	private static final String STATUS_FILE_NAME = ".status";
 	private static final String INDEX_FILE_NAME = ".index";
+	private static final String TRACE_GROUPS_FILE_NAME = ".traceGroups";
 
 	private static final String TRACE_FILE_EXTENSION = ".trc";
 
@@ -81,6 +89,23 @@ public class SpectraFileUtils {
 	public static final byte STATUS_COMPRESSED_COUNT = 6;
 	public static final byte STATUS_COMPRESSED_INDEXED_COUNT = 7;
 
+	/**
+	 * the maximum (estimated) size of all traces that are encoded, but not yet
+	 * written to the zip file, when saving with multiple threads
+	 */
+	private static final long MAX_IN_FLIGHT_BYTES = 64L * 1024 * 1024;
+	/**
+	 * the maximum number of traces that are encoded, but not yet written to the
+	 * zip file, per worker thread
+	 */
+	private static final int TRACES_IN_FLIGHT_PER_THREAD = 4;
+
+	/**
+	 * the number of threads that are used for encoding the traces when saving
+	 * a spectra without an explicitly given thread count
+	 */
+	public static final int DEFAULT_THREAD_COUNT = Math.max(1, Math.min(4, Runtime.getRuntime().availableProcessors()));
+
 	// suppress default constructor (class should not be instantiated)
 	private SpectraFileUtils() {
 		throw new AssertionError();
@@ -88,7 +113,7 @@ public class SpectraFileUtils {
 
 	/**
 	 * Saves a Spectra object to hard drive. Has to be used if the type T is not
-	 * indexable.
+	 * indexable. The traces are encoded by {@link #DEFAULT_THREAD_COUNT} threads.
 	 * @param spectra
 	 * the Spectra object to save
 	 * @param output
@@ -104,6 +129,33 @@ public class SpectraFileUtils {
 	 * thus not be indexed
 	 */
 	public static <T> void saveSpectraToZipFile(ISpectra<T, ?> spectra, Path output, boolean compress, boolean sparse) {
+		saveSpectraToZipFile(spectra, output, compress, sparse, DEFAULT_THREAD_COUNT);
+	}
+
+	/**
+	 * Saves a Spectra object to hard drive. Has to be used if the type T is not
+	 * indexable. The traces are encoded and compressed by the given number of
+	 * threads in parallel, while the zip file is written by the calling thread.
+	 * The resulting file is identical to the file that is created when using a
+	 * single thread.
+	 * @param spectra
+	 * the Spectra object to save
+	 * @param output
+	 * the output path to the zip file to be created
+	 * @param compress
+	 * whether or not to use an additional compression procedure apart from
+	 * zipping
+	 * @param sparse
+	 * whether or not to use a sparse matrix representation (less space needed
+	 * for storage)
+	 * @param threadCount
+	 * the number of threads to use for encoding the traces
+	 * @param <T>
+	 * the type of nodes in the spectra; does not have to be indexable and will
+	 * thus not be indexed
+	 */
+	public static <T> void saveSpectraToZipFile(ISpectra<T, ?> spectra, Path output, boolean compress, boolean sparse,
+			int threadCount) {
 		if (spectra.getTraces().size() == 0 || spectra.getNodes().size() == 0) {
 			Log.err(SpectraFileUtils.class, "Can not save empty spectra...");
 			return;
@@ -115,7 +167,8 @@ public class SpectraFileUtils {
 
 		String traceIdentifiers = getTraceIdentifierListString(spectra.getTraces());
 
-		saveSpectraToZipFile(spectra, output, compress, sparse, false, nodes, null, nodeIdentifiers, traceIdentifiers);
+		saveSpectraToZipFile(
+				spectra, output, compress, sparse, false, nodes, null, nodeIdentifiers, traceIdentifiers, threadCount);
 	}
 
 	private static <T> String getNodeIdentifierListString(Collection<INode<T>> nodes) {
@@ -147,8 +200,14 @@ public class SpectraFileUtils {
 		saveSpectraToZipFile(SourceCodeBlock.DUMMY, spectra, output, compress, sparse, index);
 	}
 
+	public static void saveBlockSpectraToZipFile(ISpectra<SourceCodeBlock, ?> spectra, Path output, boolean compress,
+			boolean sparse, boolean index, int threadCount) {
+		saveSpectraToZipFile(SourceCodeBlock.DUMMY, spectra, output, compress, sparse, index, threadCount);
+	}
+
 	/**
-	 * Saves a Spectra object to hard drive.
+	 * Saves a Spectra object to hard drive. The traces are encoded by
+	 * {@link #DEFAULT_THREAD_COUNT} threads.
 	 * @param dummy
 	 * a dummy object of type T that is used for obtaining indexed identifiers;
 	 * if the dummy is null, then no index can be created and the result is
@@ -170,8 +229,39 @@ public class SpectraFileUtils {
 	 */
 	public static <T extends Indexable<T>> void saveSpectraToZipFile(T dummy, ISpectra<T, ?> spectra, Path output,
 			boolean compress, boolean sparse, boolean index) {
+		saveSpectraToZipFile(dummy, spectra, output, compress, sparse, index, DEFAULT_THREAD_COUNT);
+	}
+
+	/**
+	 * Saves a Spectra object to hard drive. The traces are encoded and
+	 * compressed by the given number of threads in parallel, while the zip
+	 * file is written by the calling thread. The resulting file is identical to
+	 * the file that is created when using a single thread.
+	 * @param dummy
+	 * a dummy object of type T that is used for obtaining indexed identifiers;
+	 * if the dummy is null, then no index can be created and the result is
+	 * equal to calling the non-indexable version of this method
+	 * @param spectra
+	 * the Spectra object to save
+	 * @param output
+	 * the output path to the zip file to be created
+	 * @param compress
+	 * whether or not to use an additional compression procedure apart from
+	 * zipping
+	 * @param sparse
+	 * whether or not to use a sparse matrix representation (less space needed
+	 * for storage)
+	 * @param index
+	 * whether to index the identifiers to minimize the needed storage space
+	 * @param threadCount
+	 * the number of threads to use for encoding the traces
+	 * @param <T>
+	 * the type of nodes in the spectra
+	 */
+	public static <T extends Indexable<T>> void saveSpectraToZipFile(T dummy, ISpectra<T, ?> spectra, Path output,
+			boolean compress, boolean sparse, boolean index, int threadCount) {
 		if (dummy == null) {
-			saveSpectraToZipFile(spectra, output, compress, sparse);
+			saveSpectraToZipFile(spectra, output, compress, sparse, threadCount);
 			return;
 		}
 
@@ -188,136 +278,337 @@ public class SpectraFileUtils {
 		String nodeIdentifiers = getIdentifierString(dummy, index, nodes, map);
 		String traceIdentifiers = getTraceIdentifierListString(spectra.getTraces());
 
-		saveSpectraToZipFile(spectra, output, compress, sparse, index, nodes, map, nodeIdentifiers, traceIdentifiers);
+		saveSpectraToZipFile(
+				spectra, output, compress, sparse, index, nodes, map, nodeIdentifiers, traceIdentifiers, threadCount);
 	}
 
-	@SuppressWarnings("unchecked")
 	private static <T, K extends ITrace<T>> void saveSpectraToZipFile(ISpectra<T, K> spectra, Path output,
 			boolean compress, boolean sparse, boolean index, Collection<INode<T>> nodes, Map<String, Integer> map,
-			String nodeIdentifiers, String traceIdentifiers) {
+			String nodeIdentifiers, String traceIdentifiers, int threadCount) {
 
-		byte[] status = { STATUS_UNCOMPRESSED };
+		List<K> traces = new ArrayList<>(spectra.getTraces());
+		boolean countSpectra = !traces.isEmpty() && traces.get(0) instanceof CountTrace;
+		TraceEncoder<T> encoder = new TraceEncoder<>(nodes, countSpectra, sparse, compress);
 
 		Module<Pair<String, byte[]>, byte[]> module = new AddNamedByteArrayToZipFileProcessor(output, true).asModule();
 
-		// byte[] involvement;
-		if (!spectra.getTraces().isEmpty() && spectra.getTraces().iterator().next() instanceof CountTrace) {
-			saveInvolvementArrayForCountSpectra(
-					(ISpectra<T, ? extends CountTrace<T>>) spectra, nodes, index, status, module);
-		} else {
-			saveInvolvementArray(spectra, nodes, sparse, compress, index, status, module);
-		}
+		saveTraces(traces, encoder, threadCount, module);
 
 		// now, we have a list of identifiers and the involvement table
 		// so add them to the output zip file
 
+		byte[] status = { encoder.getStatus(index) };
+
 		module.submit(new Pair<>(NODE_IDENTIFIER_FILE_NAME, nodeIdentifiers.getBytes()))
 				.submit(new Pair<>(TRACE_IDENTIFIER_FILE_NAME, traceIdentifiers.getBytes()))
 				.submit(new Pair<>(STATUS_FILE_NAME, status));
 
 		if (index) {
-			// store the actual identifier names (order is important here, too)
-			StringBuilder identifierBuilder = new StringBuilder();
-			List<String> identifierNames = Misc.sortByValueToKeyList(map);
-			for (String identifier : identifierNames) {
-				identifierBuilder.append(identifier + IDENTIFIER_DELIMITER);
+			module.submit(new Pair<>(INDEX_FILE_NAME, getIndexString(map).getBytes()));
+		}
+
+		// traces that share their involvement are stored completely, and the groups are
+		// only stored as an additional hint that avoids comparing the involvements when loading
+		int[] traceGroups = countSpectra ? null : getTraceGroups(spectra, traces);
+		if (traceGroups != null) {
+			List<Integer> groups = new ArrayList<>(traceGroups.length);
+			for (int group : traceGroups) {
+				groups.add(group);
 			}
-			if (identifierBuilder.length() > 0) {
-				identifierBuilder.deleteCharAt(identifierBuilder.length() - 1);
+			module.submit(new Pair<>(TRACE_GROUPS_FILE_NAME,
+					new IntSequenceToCompressedByteArrayProcessor().submit(groups).getResult()));
+		}
+	}
+
+	/**
+	 * Computes the trace groups of a {@link BitSetHitSpectra} (see
+	 * {@link BitSetHitSpectra#getTraceGroups()}) with respect to the given
+	 * order of the traces.
+	 * @return for each trace, the position of the first trace of its group; or
+	 * null if no traces share their involvement
+	 */
+	@SuppressWarnings("unchecked")
+	private static <T> int[] getTraceGroups(ISpectra<T, ?> spectra, List<? extends ITrace<T>> traces) {
+		if (!(spectra instanceof BitSetHitSpectra)) {
+			return null;
+		}
+		Map<ITrace<T>, Integer> positions = new IdentityHashMap<>();
+		for (int i = 0; i < traces.size(); ++i) {
+			positions.put(traces.get(i), i);
+		}
+		int[] traceGroups = new int[traces.size()];
+		boolean shared = false;
+		for (List<HitTrace<T>> group : ((BitSetHitSpectra<T>) spectra).getTraceGroups()) {
+			int first = traces.size();
+			for (HitTrace<T> trace : group) {
+				first = Math.min(first, positions.get(trace));
+			}
+			for (HitTrace<T> trace : group) {
+				traceGroups[positions.get(trace)] = first;
 			}
+			shared |= group.size() > 1;
+		}
+		return shared ? traceGroups : null;
+	}
+
+	private static boolean isSharedInvolvement(int[] traceGroups, int position) {
+		return traceGroups != null && traceGroups[position] != position;
+	}
 
-			module.submit(new Pair<>(INDEX_FILE_NAME, identifierBuilder.toString().getBytes()));
+	private static String getIndexString(Map<String, Integer> map) {
+		// store the actual identifier names (order is important here, too)
+		StringBuilder identifierBuilder = new StringBuilder();
+		List<String> identifierNames = Misc.sortByValueToKeyList(map);
+		for (String identifier : identifierNames) {
+			identifierBuilder.append(identifier + IDENTIFIER_DELIMITER);
+		}
+		if (identifierBuilder.length() > 0) {
+			identifierBuilder.deleteCharAt(identifierBuilder.length() - 1);
 		}
+		return identifierBuilder.toString();
 	}
 
-	private static <T> void saveInvolvementArray(ISpectra<T, ?> spectra, Collection<INode<T>> nodes, boolean sparse,
-			boolean compress, boolean index, byte[] status, Module<Pair<String, byte[]>, byte[]> zipModule) {
-		int traceCount = 0;
-		IntSequenceToCompressedByteArrayProcessor module = new IntSequenceToCompressedByteArrayProcessor();
-		if (sparse) {
-			// iterate through the traces
-			for (ITrace<T> trace : spectra.getTraces()) {
-				++traceCount;
-				// is automatically compressed right now... TODO?
-				List<Integer> sparseEntries = new ArrayList<>(trace.involvedNodesCount() + 1);
-				// the first element is a flag that marks successful traces with
-				// '1'
-				if (trace.isSuccessful()) {
-					sparseEntries.add(1);
-				} else {
-					sparseEntries.add(0);
-				}
-				int nodeCounter = 0;
-				// the following elements represent the nodes that are involved
-				// in the current trace
-				for (INode<T> node : nodes) {
-					++nodeCounter;
-					if (trace.isInvolved(node)) {
-						sparseEntries.add(nodeCounter);
-					}
-				}
+	/**
+	 * Saves a Spectra object to hard drive in the binary spectra file format
+	 * (see {@link BinarySpectraFile}), which allows to read single traces or
+	 * nodes without decoding the whole file.
+	 * @param spectra
+	 * the Spectra object to save
+	 * @param output
+	 * the output path to the file to be created
+	 * @param <T>
+	 * the type of nodes in the spectra; does not have to be indexable and will
+	 * thus not be indexed
+	 */
+	public static <T> void saveSpectraToBinaryFile(ISpectra<T, ?> spectra, Path output) {
+		if (spectra.getTraces().size() == 0 || spectra.getNodes().size() == 0) {
+			Log.err(SpectraFileUtils.class, "Can not save empty spectra...");
+			return;
+		}
+
+		Collection<INode<T>> nodes = spectra.getNodes();
+
+		String nodeIdentifiers = getNodeIdentifierListString(nodes);
+		String traceIdentifiers = getTraceIdentifierListString(spectra.getTraces());
+
+		saveSpectraToBinaryFile(spectra, output, nodes, nodeIdentifiers, traceIdentifiers, null);
+	}
+
+	public static void saveBlockSpectraToBinaryFile(ISpectra<SourceCodeBlock, ?> spectra, Path output,
+			boolean index) {
+		saveSpectraToBinaryFile(SourceCodeBlock.DUMMY, spectra, output, index);
+	}
+
+	/**
+	 * Saves a Spectra object to hard drive in the binary spectra file format
+	 * (see {@link BinarySpectraFile}), which allows to read single traces or
+	 * nodes without decoding the whole file.
+	 * @param dummy
+	 * a dummy object of type T that is used for obtaining indexed identifiers;
+	 * if the dummy is null, then no index can be created and the result is
+	 * equal to calling the non-indexable version of this method
+	 * @param spectra
+	 * the Spectra object to save
+	 * @param output
+	 * the output path to the file to be created
+	 * @param index
+	 * whether to index the identifiers to minimize the needed storage space
+	 * @param <T>
+	 * the type of nodes in the spectra
+	 */
+	public static <T extends Indexable<T>> void saveSpectraToBinaryFile(T dummy, ISpectra<T, ?> spectra,
+			Path output, boolean index) {
+		if (dummy == null) {
+			saveSpectraToBinaryFile(spectra, output);
+			return;
+		}
+
+		Collection<INode<T>> nodes = spectra.getNodes();
+
+		Map<String, Integer> map = new HashMap<>();
+
+		String nodeIdentifiers = getIdentifierString(dummy, index, nodes, map);
+		String traceIdentifiers = getTraceIdentifierListString(spectra.getTraces());
 
-				byte[] involvement = module.submit(sparseEntries).getResult();
+		saveSpectraToBinaryFile(
+				spectra, output, nodes, nodeIdentifiers, traceIdentifiers, index ? getIndexString(map) : null);
+	}
 
+	private static <T> void saveSpectraToBinaryFile(ISpectra<T, ?> spectra, Path output, Collection<INode<T>> nodes,
+			String nodeIdentifiers, String traceIdentifiers, String index) {
+		try {
+			BinarySpectraFileWriter.write(spectra, nodes, nodeIdentifiers, traceIdentifiers, index, output);
+		} catch (IOException e) {
+			Log.err(SpectraFileUtils.class, e, "Could not save spectra to '%s'.", output);
+		}
+	}
+
+	/**
+	 * Encodes all traces of the given spectra and adds them to the zip file
+	 * with the given zip module, in the order of the traces. If more than one
+	 * thread is used, the traces are encoded and compressed by a pool of
+	 * worker threads, while the calling thread adds the encoded traces to the
+	 * zip file. At most {@link #getMaxTracesInFlight(int, int)} encoded traces
+	 * are held in memory at any time.
+	 */
+	private static <T> void saveTraces(List<? extends ITrace<T>> traces,
+			TraceEncoder<T> encoder, int threadCount, Module<Pair<String, byte[]>, byte[]> zipModule) {
+		if (threadCount <= 1) {
+			int traceCount = 0;
+			for (ITrace<T> trace : traces) {
 				// store each trace separately
-				zipModule.submit(new Pair<>(traceCount + TRACE_FILE_EXTENSION, involvement));
+				zipModule.submit(new Pair<>(++traceCount + TRACE_FILE_EXTENSION, encoder.encode(trace)));
 			}
+			return;
+		}
+
+		int maxTracesInFlight = getMaxTracesInFlight(encoder.getNodeCount(), threadCount);
+		ExecutorService executor = Executors.newFixedThreadPool(threadCount);
+		try {
+			ArrayDeque<Future<byte[]>> inFlight = new ArrayDeque<>(maxTracesInFlight);
+			Iterator<? extends ITrace<T>> iterator = traces.iterator();
+			int traceCount = 0;
+			while (iterator.hasNext() || !inFlight.isEmpty()) {
+				// keep the workers busy without exceeding the memory budget
+				while (iterator.hasNext() && inFlight.size() < maxTracesInFlight) {
+					ITrace<T> trace = iterator.next();
+					inFlight.add(executor.submit(() -> encoder.encode(trace)));
+				}
+				// store each trace separately, in the original order
+				zipModule.submit(new Pair<>(++traceCount + TRACE_FILE_EXTENSION, inFlight.poll().get()));
+			}
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			Log.abort(SpectraFileUtils.class, e, "Interrupted while saving traces.");
+		} catch (ExecutionException e) {
+			Log.abort(SpectraFileUtils.class, e.getCause(), "Could not encode trace.");
+		} finally {
+			executor.shutdownNow();
+		}
+	}
 
-			if (index) {
-				status[0] = STATUS_SPARSE_INDEXED;
+	/**
+	 * Computes the number of encoded traces that may be held in memory at the
+	 * same time, such that the (estimated) size of all of them stays within
+	 * {@link #MAX_IN_FLIGHT_BYTES}. Each worker thread may work on up to
+	 * {@link #TRACES_IN_FLIGHT_PER_THREAD} traces, but at least one trace is
+	 * always processed.
+	 */
+	private static int getMaxTracesInFlight(int nodeCount, int threadCount) {
+		// worst case: a boxed integer (and its reference) per node and trace
+		long bytesPerTrace = (nodeCount + 1L) * 24L;
+		long maxByBudget = Math.max(1L, MAX_IN_FLIGHT_BYTES / bytesPerTrace);
+		return (int) Math.min(maxByBudget, (long) threadCount * TRACES_IN_FLIGHT_PER_THREAD);
+	}
+
+	/**
+	 * Encodes single traces as entries of a spectra zip file. Can be used by
+	 * multiple threads at the same time, as long as the traces and the nodes
+	 * are not modified concurrently.
+	 *
+	 * @param <T>
+	 * the type of nodes in the spectra
+	 */
+	private static class TraceEncoder<T> {
+
+		private final List<INode<T>> nodes;
+		private final boolean countSpectra;
+		private final boolean sparse;
+		private final boolean compress;
+
+		// the processors are not thread-safe, so each thread gets its own
+		private final ThreadLocal<IntSequenceToCompressedByteArrayProcessor> intSequenceCompressor = ThreadLocal
+				.withInitial(IntSequenceToCompressedByteArrayProcessor::new);
+
+		private TraceEncoder(Collection<INode<T>> nodes, boolean countSpectra, boolean sparse, boolean compress) {
+			this.nodes = new ArrayList<>(nodes);
+			this.countSpectra = countSpectra;
+			this.sparse = sparse;
+			this.compress = compress;
+		}
+
+		private int getNodeCount() {
+			return nodes.size();
+		}
+
+		private byte getStatus(boolean index) {
+			if (countSpectra) {
+				return index ? STATUS_COMPRESSED_INDEXED_COUNT : STATUS_COMPRESSED_COUNT;
+			} else if (sparse) {
+				return index ? STATUS_SPARSE_INDEXED : STATUS_SPARSE;
+			} else if (compress) {
+				return index ? STATUS_COMPRESSED_INDEXED : STATUS_COMPRESSED;
 			} else {
-				status[0] = STATUS_SPARSE;
+				return index ? STATUS_UNCOMPRESSED_INDEXED : STATUS_UNCOMPRESSED;
 			}
-		} else {
-			// iterate through the traces
-			for (ITrace<T> trace : spectra.getTraces()) {
-				++traceCount;
-				byte[] involvement = new byte[nodes.size() + 1];
-				int byteCounter = -1;
-				// the first element is a flag that marks successful traces with
-				// '1'
-				if (trace.isSuccessful()) {
+		}
+
+		/**
+		 * @param trace
+		 * the trace to encode
+		 * @return the encoded trace
+		 */
+		@SuppressWarnings("unchecked")
+		private byte[] encode(ITrace<T> trace) {
+			if (countSpectra) {
+				return encodeHitCounts((CountTrace<T>) trace);
+			} else if (sparse) {
+				return encodeSparse(trace);
+			} else {
+				return encodeDense(trace);
+			}
+		}
+
+		private byte[] encodeSparse(ITrace<T> trace) {
+			// is automatically compressed right now... TODO?
+			List<Integer> sparseEntries = new ArrayList<>(trace.involvedNodesCount() + 1);
+			// the first element is a flag that marks successful traces with
+			// '1'
+			if (trace.isSuccessful()) {
+				sparseEntries.add(1);
+			} else {
+				sparseEntries.add(0);
+			}
+			int nodeCounter = 0;
+			// the following elements represent the nodes that are involved
+			// in the current trace
+			for (INode<T> node : nodes) {
+				++nodeCounter;
+				if (trace.isInvolved(node)) {
+					sparseEntries.add(nodeCounter);
+				}
+			}
+
+			return intSequenceCompressor.get().submit(sparseEntries).getResult();
+		}
+
+		private byte[] encodeDense(ITrace<T> trace) {
+			byte[] involvement = new byte[nodes.size() + 1];
+			int byteCounter = -1;
+			// the first element is a flag that marks successful traces with
+			// '1'
+			if (trace.isSuccessful()) {
+				involvement[++byteCounter] = 1;
+			} else {
+				involvement[++byteCounter] = 0;
+			}
+			// the following elements are flags that mark the trace's
+			// involvement with nodes with '1'
+			for (INode<T> node : nodes) {
+				if (trace.isInvolved(node)) {
 					involvement[++byteCounter] = 1;
 				} else {
 					involvement[++byteCounter] = 0;
 				}
-				// the following elements are flags that mark the trace's
-				// involvement with nodes with '1'
-				for (INode<T> node : nodes) {
-					if (trace.isInvolved(node)) {
-						involvement[++byteCounter] = 1;
-					} else {
-						involvement[++byteCounter] = 0;
-					}
-				}
-
-				if (compress) {
-					involvement = new ByteArrayToCompressedByteArrayProcessor().submit(involvement).getResult();
-				}
-
-				// store each trace separately
-				zipModule.submit(new Pair<>(traceCount + TRACE_FILE_EXTENSION, involvement));
 			}
 
 			if (compress) {
-				if (index) {
-					status[0] = STATUS_COMPRESSED_INDEXED;
-				} else {
-					status[0] = STATUS_COMPRESSED;
-				}
-			} else if (index) {
-				status[0] = STATUS_UNCOMPRESSED_INDEXED;
+				involvement = new ByteArrayToCompressedByteArrayProcessor().submit(involvement).getResult();
 			}
+			return involvement;
 		}
-	}
 
-	private static <T, K extends CountTrace<T>> void saveInvolvementArrayForCountSpectra(ISpectra<T, K> spectra,
-			Collection<INode<T>> nodes, boolean index, byte[] status, Module<Pair<String, byte[]>, byte[]> zipModule) {
-		IntSequenceToCompressedByteArrayProcessor module = new IntSequenceToCompressedByteArrayProcessor();
-		int traceCount = 0;
-		// iterate through the traces
-		for (K trace : spectra.getTraces()) {
-			++traceCount;
+		private byte[] encodeHitCounts(CountTrace<T> trace) {
 			List<Integer> traceHits = new ArrayList<>(nodes.size() + 1);
 			// the first element is a flag that marks successful traces with '1'
 			if (trace.isSuccessful()) {
@@ -335,16 +626,7 @@ public class SpectraFileUtils {
 				}
 			}
 
-			byte[] involvement = module.submit(traceHits).getResult();
-
-			// store each trace separately
-			zipModule.submit(new Pair<>(traceCount + TRACE_FILE_EXTENSION, involvement));
-		}
-
-		if (index) {
-			status[0] = STATUS_COMPRESSED_INDEXED_COUNT;
-		} else {
-			status[0] = STATUS_COMPRESSED_COUNT;
+			return intSequenceCompressor.get().submit(traceHits).getResult();
 		}
 	}
 
@@ -373,6 +655,90 @@ public class SpectraFileUtils {
 		return loadSpectraFromZipFile(SourceCodeBlock.DUMMY, zipFilePath);
 	}
 
+	public static ISpectra<SourceCodeBlock, ?> loadBlockSpectraFromBinaryFile(Path path, boolean failingTracesOnly) {
+		return loadSpectraFromBinaryFile(SourceCodeBlock.DUMMY, path, failingTracesOnly);
+	}
+
+	/**
+	 * Loads a Spectra object from a file in the binary spectra file format
+	 * (see {@link BinarySpectraFile}).
+	 * @param dummy
+	 * a dummy object of type T that is used for obtaining indexed identifiers
+	 * @param path
+	 * the path to the file containing the Spectra object
+	 * @param failingTracesOnly
+	 * whether to only load the failing traces; the data of successful traces
+	 * is not read at all in this case
+	 * @return the loaded Spectra object
+	 * @param <T>
+	 * the type of nodes in the spectra
+	 * @throws NullPointerException
+	 * if dummy is null
+	 */
+	public static <T extends Indexable<T>> ISpectra<T, ?> loadSpectraFromBinaryFile(T dummy, Path path,
+			boolean failingTracesOnly) throws NullPointerException {
+		try (BinarySpectraFile file = new BinarySpectraFile(path)) {
+			List<T> lineArray = getNodeIdentifiersFromBinaryFile(dummy, file);
+			if (file.isCountSpectra()) {
+				return loadFromBinaryFile(file, lineArray, new CountSpectra<>(), failingTracesOnly);
+			} else {
+				return loadFromBinaryFile(file, lineArray, new BitSetHitSpectra<>(), failingTracesOnly);
+			}
+		}
+	}
+
+	private static <T, D extends ISpectra<T, ?>> D loadFromBinaryFile(BinarySpectraFile file, List<T> lineArray,
+			D spectra, boolean failingTracesOnly) {
+		String[] traceIdentifiers = file.getTraceIdentifiers();
+		TraceFiller<T> filler = new TraceFiller<>(spectra, lineArray);
+		// traces with identical involvement refer to the same trace data
+		Map<Long, ITrace<T>> tracesByDataOffset = new HashMap<>();
+		boolean sharedData = false;
+		for (int traceIndex = 0; traceIndex < file.getTraceCount(); ++traceIndex) {
+			boolean successful = file.isSuccessful(traceIndex);
+			if (failingTracesOnly && successful) {
+				continue;
+			}
+			ITrace<T> trace = spectra.addTrace(traceIdentifiers[traceIndex], successful);
+			if (!(trace instanceof CountTrace)) {
+				ITrace<T> template = tracesByDataOffset.putIfAbsent(file.getTraceDataOffset(traceIndex), trace);
+				if (template != null) {
+					filler.share(trace, template);
+					sharedData = true;
+					continue;
+				}
+			}
+			int[] involvedNodes = file.getInvolvedNodes(traceIndex);
+			if (trace instanceof CountTrace) {
+				int[] hits = file.getHitCounts(traceIndex);
+				for (int i = 0; i < involvedNodes.length; ++i) {
+					((CountTrace<T>) trace).setHits(filler.getNode(involvedNodes[i]), hits[i]);
+				}
+			} else {
+				filler.clear();
+				for (int position : involvedNodes) {
+					filler.add(position);
+				}
+				filler.fill(trace);
+			}
+		}
+		// stored trace groups already share their involvement
+		if (!sharedData) {
+			internInvolvements(spectra);
+		}
+		return spectra;
+	}
+
+	private static <T extends Indexable<T>> List<T> getNodeIdentifiersFromBinaryFile(T dummy,
+			BinarySpectraFile file) throws NullPointerException {
+		Objects.requireNonNull(dummy);
+		String[] identifierNames = null;
+		if (file.isIndexed()) {
+			identifierNames = Objects.requireNonNull(file.getIndexedIdentifierNames(), "Index not found.");
+		}
+		return parseNodeIdentifiers(dummy, file.getRawNodeIdentifiers(), identifierNames);
+	}
+
 	/**
 	 * Loads a Spectra object from a zip file.
 	 * @param dummy
@@ -387,13 +753,16 @@ public class SpectraFileUtils {
 	 */
 	public static <T extends Indexable<T>> ISpectra<T, ?> loadSpectraFromZipFile(T dummy, Path zipFilePath)
 			throws NullPointerException {
-		ZipFileWrapper zip = new ZipFileReader().submit(zipFilePath).getResult();
-
-		byte[] status = getStatusByte(zip);
+		if (BinarySpectraFile.isBinarySpectraFile(zipFilePath)) {
+			return loadSpectraFromBinaryFile(dummy, zipFilePath, false);
+		}
+		try (ZipFileEntryReader zip = new ZipFileEntryReader(zipFilePath)) {
+			byte[] status = getStatusByte(zip);
 
-		List<T> lineArray = getNodeIdentifiersFromZipFile(dummy, zip, status);
+			List<T> lineArray = getNodeIdentifiersFromZipFile(dummy, zip, status);
 
-		return loadSpectraFromZipFile(zip, status, lineArray);
+			return loadSpectraFromZipFile(zip, status, lineArray);
+		}
 	}
 
 	/**
@@ -410,16 +779,22 @@ public class SpectraFileUtils {
 	 */
 	public static <T extends Indexable<T>> CountSpectra<T> loadCountSpectraFromZipFile(T dummy, Path zipFilePath)
 			throws NullPointerException {
-		ZipFileWrapper zip = new ZipFileReader().submit(zipFilePath).getResult();
-
-		byte[] status = getStatusByte(zip);
+		if (BinarySpectraFile.isBinarySpectraFile(zipFilePath)) {
+			try (BinarySpectraFile file = new BinarySpectraFile(zipFilePath)) {
+				List<T> lineArray = getNodeIdentifiersFromBinaryFile(dummy, file);
+				return loadFromBinaryFile(file, lineArray, new CountSpectra<>(), false);
+			}
+		}
+		try (ZipFileEntryReader zip = new ZipFileEntryReader(zipFilePath)) {
+			byte[] status = getStatusByte(zip);
 
-		List<T> lineArray = getNodeIdentifiersFromZipFile(dummy, zip, status);
+			List<T> lineArray = getNodeIdentifiersFromZipFile(dummy, zip, status);
 
-		return loadCountSpectraFromZipFile(zip, status, lineArray);
+			return loadCountSpectraFromZipFile(zip, status, lineArray);
+		}
 	}
 
-	private static byte[] getStatusByte(ZipFileWrapper zip) {
+	private static byte[] getStatusByte(ZipFileEntryReader zip) {
 		// parse the status byte (0 -> uncompressed, 1 -> compressed)
 		byte[] status = zip.tryGetFromOneOf(STATUS_FILE_NAME, STATUS_FILE_INDEX);
 		if (status == null) {
@@ -432,35 +807,68 @@ public class SpectraFileUtils {
 		return status;
 	}
 
-	private static <T> ISpectra<T, ?> loadSpectraFromZipFile(ZipFileWrapper zip, byte[] status, List<T> lineArray) {
-		return loadWithSpectraTypes(zip, status, lineArray, () -> new HitSpectra<>(), () -> new CountSpectra<>());
+	private static <T> ISpectra<T, ?> loadSpectraFromZipFile(ZipFileEntryReader zip, byte[] status, List<T> lineArray) {
+		return loadWithSpectraTypes(zip, status, lineArray, () -> new BitSetHitSpectra<>(), () -> new CountSpectra<>());
 	}
 
-	private static <T> CountSpectra<T> loadCountSpectraFromZipFile(ZipFileWrapper zip, byte[] status,
+	private static <T> CountSpectra<T> loadCountSpectraFromZipFile(ZipFileEntryReader zip, byte[] status,
 			List<T> lineArray) {
 		return loadWithSpectraTypes(zip, status, lineArray, () -> new CountSpectra<>(), () -> new CountSpectra<>());
 	}
 
-	private static <T, D extends ISpectra<T, ?>> D loadWithSpectraTypes(ZipFileWrapper zip, byte[] status,
+	private static <T, D extends ISpectra<T, ?>> D loadWithSpectraTypes(ZipFileEntryReader zip, byte[] status,
 			List<T> lineArray, Supplier<D> hitSpectraSupplier,
 			Supplier<? extends CountSpectra<T>> countSpectraSupplier) {
 		// create a new spectra
 		D result;
 
 		// parse the file containing the involvement table
-		byte[] involvementTable = zip.get(INVOLVEMENT_TABLE_FILE_INDEX, false);
+		byte[] involvementTable = zip.get(INVOLVEMENT_TABLE_FILE_INDEX);
+		int[] traceGroups = null;
 		if (involvementTable != null) {
 			result = loadFromOldSpectraFileFormat(
 					zip, involvementTable, status, lineArray, hitSpectraSupplier, countSpectraSupplier);
 		} else {
-			result = loadFromNewSpectraFileFormat(zip, status, lineArray, hitSpectraSupplier, countSpectraSupplier);
+			traceGroups = getTraceGroups(zip);
+			result = loadFromNewSpectraFileFormat(
+					zip, status, lineArray, traceGroups, hitSpectraSupplier, countSpectraSupplier);
 		}
 
+		// stored trace groups already share their involvement
+		if (traceGroups == null) {
+			internInvolvements(result);
+		}
 		return result;
 	}
 
+	/**
+	 * @return for each trace, the position of the first trace that shares its
+	 * involvement; or null if the zip file does not contain trace groups
+	 */
+	private static int[] getTraceGroups(ZipFileEntryReader zip) {
+		byte[] traceGroups = zip.get(TRACE_GROUPS_FILE_NAME);
+		if (traceGroups == null) {
+			return null;
+		}
+		return decodeIntSequence(traceGroups, new CompressedByteArrayToIntSequenceProcessor());
+	}
+
+	/**
+	 * Lets traces with identical involvement share their involvement, if
+	 * supported by the given spectra.
+	 */
+	private static void internInvolvements(ISpectra<?, ?> spectra) {
+		if (spectra instanceof BitSetHitSpectra) {
+			int distinctCount = ((BitSetHitSpectra<?>) spectra).internInvolvements();
+			if (distinctCount < spectra.getTraces().size()) {
+				Log.out(SpectraFileUtils.class, "%d of %d traces have distinct involvement.",
+						distinctCount, spectra.getTraces().size());
+			}
+		}
+	}
+
 	@SuppressWarnings("unchecked")
-	private static <T, D extends ISpectra<T, ?>> D loadFromOldSpectraFileFormat(ZipFileWrapper zip,
+	private static <T, D extends ISpectra<T, ?>> D loadFromOldSpectraFileFormat(ZipFileEntryReader zip,
 			byte[] involvementTable, byte[] status, List<T> lineArray, Supplier<D> hitSpectraSupplier,
 			Supplier<? extends CountSpectra<T>> countSpectraSupplier) {
 		D result;
@@ -470,56 +878,39 @@ public class SpectraFileUtils {
 
 		if (isSparse(status)) {
 			D spectra = hitSpectraSupplier.get();
-			List<List<Integer>> involvementLists = new CompressedByteArrayToIntSequencesProcessor()
-					.submit(involvementTable).getResult();
+			TraceFiller<T> filler = new TraceFiller<>(spectra, lineArray);
+			int[][] involvementLists = decodeIntSequences(involvementTable);
 
 			int traceCounter = -1;
 			// iterate over the lists and fill the spectra object with traces
-			for (List<Integer> involvedNodes : involvementLists) {
+			for (int[] involvedNodes : involvementLists) {
 				// the first element is always the 'successful' flag
-				ITrace<T> trace = spectra.addTrace(traceIdentifiers[++traceCounter], involvedNodes.get(0) == 1);
-				int nodeIndex = 1;
-				int node;
-				if (nodeIndex < involvedNodes.size()) {
-					node = involvedNodes.get(nodeIndex);
-				} else {
-					node = -1;
-				}
-				for (int i = 0; i < lineArray.size(); ++i) {
-					if (i + 1 == node) {
-						trace.setInvolvement(lineArray.get(i), true);
-						++nodeIndex;
-						if (nodeIndex < involvedNodes.size()) {
-							node = involvedNodes.get(nodeIndex);
-						} else {
-							node = -1;
-						}
-					} else {
-						trace.setInvolvement(lineArray.get(i), false);
-					}
+				ITrace<T> trace = spectra.addTrace(traceIdentifiers[++traceCounter], involvedNodes[0] == 1);
+				// the following elements are the (1-based) positions of the
+				// involved nodes
+				filler.clear();
+				for (int i = 1; i < involvedNodes.length; ++i) {
+					filler.add(involvedNodes[i] - 1);
 				}
+				filler.fill(trace);
 			}
 			result = spectra;
 		} else if (isCountSpectra(status)) {
 			CountSpectra<T> spectra = countSpectraSupplier.get();
-			List<List<Integer>> spectraData = new CompressedByteArrayToIntSequencesProcessor().submit(involvementTable)
-					.getResult();
+			List<INode<T>> nodes = createNodes(spectra, lineArray);
+			int[][] spectraData = decodeIntSequences(involvementTable);
 
 			int traceCounter = -1;
 			// iterate over the lists and fill the spectra object with traces
-			for (List<Integer> traceData : spectraData) {
-				Iterator<Integer> iterator = traceData.iterator();
+			for (int[] traceData : spectraData) {
 				// the first element is always the 'successful' flag
-				CountTrace<T> trace = spectra.addTrace(traceIdentifiers[++traceCounter], iterator.next() == 1);
-
-				int i = -1;
-				while (iterator.hasNext()) {
-					trace.setHits(lineArray.get(++i), iterator.next());
-				}
+				CountTrace<T> trace = spectra.addTrace(traceIdentifiers[++traceCounter], traceData[0] == 1);
+				setHitCounts(trace, nodes, traceData);
 			}
 			result = (D) spectra;
 		} else {
 			D spectra = hitSpectraSupplier.get();
+			TraceFiller<T> filler = new TraceFiller<>(spectra, lineArray);
 			// check if we have a compressed byte array at hand
 			if (isCompressed(status)) {
 				involvementTable = new CompressedByteArraysToByteArraysProcessor().submit(involvementTable).getResult();
@@ -534,9 +925,13 @@ public class SpectraFileUtils {
 				ITrace<T> trace = spectra
 						.addTrace(traceIdentifiers[++traceCounter], involvementTable[++tablePosition] == 1);
 
+				filler.clear();
 				for (int i = 0; i < lineArray.size(); ++i) {
-					trace.setInvolvement(lineArray.get(i), involvementTable[++tablePosition] == 1);
+					if (involvementTable[++tablePosition] == 1) {
+						filler.add(i);
+					}
 				}
+				filler.fill(trace);
 			}
 			result = spectra;
 		}
@@ -544,8 +939,8 @@ public class SpectraFileUtils {
 	}
 
 	@SuppressWarnings("unchecked")
-	private static <T, D extends ISpectra<T, ?>> D loadFromNewSpectraFileFormat(ZipFileWrapper zip, byte[] status,
-			List<T> lineArray, Supplier<D> hitSpectraSupplier,
+	private static <T, D extends ISpectra<T, ?>> D loadFromNewSpectraFileFormat(ZipFileEntryReader zip, byte[] status,
+			List<T> lineArray, int[] traceGroups, Supplier<D> hitSpectraSupplier,
 			Supplier<? extends CountSpectra<T>> countSpectraSupplier) {
 		D result;
 
@@ -554,69 +949,57 @@ public class SpectraFileUtils {
 
 		if (isSparse(status)) {
 			D spectra = hitSpectraSupplier.get();
+			TraceFiller<T> filler = new TraceFiller<>(spectra, lineArray);
 
 			CompressedByteArrayToIntSequenceProcessor processor = new CompressedByteArrayToIntSequenceProcessor();
 
 			int traceCounter = 0;
 			// iterate over the trace files and fill the spectra object
 			byte[] traceInvolvement;
-			while ((traceInvolvement = zip.get((++traceCounter) + TRACE_FILE_EXTENSION, false)) != null) {
-				List<Integer> involvedNodes = processor.submit(traceInvolvement).getResult();
+			while ((traceInvolvement = zip.get((++traceCounter) + TRACE_FILE_EXTENSION)) != null) {
+				int[] involvedNodes = decodeIntSequence(traceInvolvement, processor);
 
 				// the first element is always the 'successful' flag
-				ITrace<T> trace = spectra.addTrace(traceIdentifiers[traceCounter - 1], involvedNodes.get(0) == 1);
-				int nodeIndex = 1;
-				int node;
-				if (nodeIndex < involvedNodes.size()) {
-					node = involvedNodes.get(nodeIndex);
-				} else {
-					node = -1;
+				ITrace<T> trace = spectra.addTrace(traceIdentifiers[traceCounter - 1], involvedNodes[0] == 1);
+				if (filler.share(trace, traceGroups, traceCounter - 1)) {
+					continue;
 				}
-				for (int i = 0; i < lineArray.size(); ++i) {
-					if (i + 1 == node) {
-						trace.setInvolvement(lineArray.get(i), true);
-						++nodeIndex;
-						if (nodeIndex < involvedNodes.size()) {
-							node = involvedNodes.get(nodeIndex);
-						} else {
-							node = -1;
-						}
-					} else {
-						trace.setInvolvement(lineArray.get(i), false);
-					}
+				// the following elements are the (1-based) positions of the
+				// involved nodes
+				filler.clear();
+				for (int i = 1; i < involvedNodes.length; ++i) {
+					filler.add(involvedNodes[i] - 1);
 				}
+				filler.fill(trace);
 			}
 			result = spectra;
 		} else if (isCountSpectra(status)) {
 			CountSpectra<T> spectra = countSpectraSupplier.get();
+			List<INode<T>> nodes = createNodes(spectra, lineArray);
 
 			CompressedByteArrayToIntSequenceProcessor processor = new CompressedByteArrayToIntSequenceProcessor();
 
 			int traceCounter = 0;
 			// iterate over the trace files and fill the spectra object
 			byte[] traceInvolvement;
-			while ((traceInvolvement = zip.get((++traceCounter) + TRACE_FILE_EXTENSION, false)) != null) {
-				List<Integer> hits = processor.submit(traceInvolvement).getResult();
+			while ((traceInvolvement = zip.get((++traceCounter) + TRACE_FILE_EXTENSION)) != null) {
+				int[] hits = decodeIntSequence(traceInvolvement, processor);
 
-				Iterator<Integer> iterator = hits.iterator();
 				// the first element is always the 'successful' flag
-				CountTrace<T> trace = spectra.addTrace(traceIdentifiers[traceCounter - 1], iterator.next() == 1);
-
-				int i = -1;
-				while (iterator.hasNext()) {
-					trace.setHits(lineArray.get(++i), iterator.next());
-				}
+				CountTrace<T> trace = spectra.addTrace(traceIdentifiers[traceCounter - 1], hits[0] == 1);
+				setHitCounts(trace, nodes, hits);
 			}
 			result = (D) spectra;
 		} else {
 			D spectra = hitSpectraSupplier.get();
+			TraceFiller<T> filler = new TraceFiller<>(spectra, lineArray);
 
 			CompressedByteArrayToByteArrayProcessor processor = new CompressedByteArrayToByteArrayProcessor();
 
 			int traceCounter = 0;
 			// iterate over the trace files and fill the spectra object
 			byte[] traceInvolvement;
-			while ((traceInvolvement = zip.get((++traceCounter) + TRACE_FILE_EXTENSION, false)) != null) {
+			while ((traceInvolvement = zip.get((++traceCounter) + TRACE_FILE_EXTENSION)) != null) {
 
 				// check if we have a compressed byte array at hand
 				if (isCompressed(status)) {
@@ -625,10 +1008,17 @@ public class SpectraFileUtils {
 
 				// the first element is always the 'successful' flag
 				ITrace<T> trace = spectra.addTrace(traceIdentifiers[traceCounter - 1], traceInvolvement[0] == 1);
+				if (filler.share(trace, traceGroups, traceCounter - 1)) {
+					continue;
+				}
 
+				filler.clear();
 				for (int i = 0; i < lineArray.size(); ++i) {
-					trace.setInvolvement(lineArray.get(i), traceInvolvement[i + 1] == 1);
+					if (traceInvolvement[i + 1] == 1) {
+						filler.add(i);
+					}
 				}
+				filler.fill(trace);
 			}
 			result = spectra;
 		}
@@ -653,6 +1043,159 @@ public class SpectraFileUtils {
 				|| status[0] == STATUS_SPARSE_INDEXED || status[0] == STATUS_COMPRESSED_INDEXED_COUNT;
 	}
 
+	private static <T> void setHitCounts(CountTrace<T> trace, List<INode<T>> nodes, int[] traceData) {
+		// the elements after the 'successful' flag are the hit counts
+		for (int i = 1; i < traceData.length; ++i) {
+			// the nodes have already been created
+			if (traceData[i] > 0) {
+				trace.setHits(nodes.get(i - 1), traceData[i]);
+			}
+		}
+	}
+
+	private static int[][] decodeIntSequences(byte[] data) {
+		int[][] sequences = IntSequenceDecoder.decodeSequences(data);
+		if (sequences == null) {
+			// unknown layout
+			List<List<Integer>> lists = new CompressedByteArrayToIntSequencesProcessor().submit(data).getResult();
+			sequences = new int[lists.size()][];
+			for (int i = 0; i < sequences.length; ++i) {
+				sequences[i] = toIntArray(lists.get(i));
+			}
+		}
+		return sequences;
+	}
+
+	private static int[] decodeIntSequence(byte[] data, CompressedByteArrayToIntSequenceProcessor processor) {
+		int[] sequence = IntSequenceDecoder.decodeSequence(data);
+		if (sequence == null) {
+			// unknown layout
+			sequence = toIntArray(processor.submit(data).getResult());
+		}
+		return sequence;
+	}
+
+	private static int[] toIntArray(List<Integer> list) {
+		int[] array = new int[list.size()];
+		int i = 0;
+		for (Integer value : list) {
+			array[i++] = value;
+		}
+		return array;
+	}
+
+	private static <T> List<INode<T>> createNodes(ISpectra<T, ?> spectra, List<T> lineArray) {
+		// create all nodes up front, even if they are not involved in any trace
+		List<INode<T>> nodes = new ArrayList<>(lineArray.size());
+		for (T identifier : lineArray) {
+			nodes.add(spectra.getOrCreateNode(identifier));
+		}
+		return nodes;
+	}
+
+	/**
+	 * Collects the positions of the involved nodes of a single trace in a
+	 * primitive array and sets only their involvement. For bit set based
+	 * spectra, the positions are mapped to node indices and set all at once.
+	 * Traces that share their involvement with a previously filled trace share
+	 * the bit set of that trace.
+	 */
+	private static class TraceFiller<T> {
+
+		private final List<INode<T>> nodes;
+		private final BitSetHitSpectra<T> bitSetSpectra;
+		private final int[] bitSetIndices;
+		private final List<ITrace<T>> filledTraces = new ArrayList<>();
+		private int[] positions = new int[64];
+		private int count = 0;
+
+		@SuppressWarnings("unchecked")
+		private TraceFiller(ISpectra<T, ?> spectra, List<T> lineArray) {
+			this.nodes = createNodes(spectra, lineArray);
+			if (spectra instanceof BitSetHitSpectra) {
+				this.bitSetSpectra = (BitSetHitSpectra<T>) spectra;
+				this.bitSetIndices = new int[nodes.size()];
+				for (int i = 0; i < nodes.size(); ++i) {
+					bitSetIndices[i] = bitSetSpectra.getIndexOfNode(nodes.get(i));
+				}
+			} else {
+				this.bitSetSpectra = null;
+				this.bitSetIndices = null;
+			}
+		}
+
+		/**
+		 * Lets the given trace share the involvement of the first trace of its
+		 * group, if it is not the first trace of its group itself. Has to be
+		 * called for every trace, in the order of the traces.
+		 * @param trace
+		 * the trace at the given position
+		 * @param traceGroups
+		 * the trace groups; may be null
+		 * @param position
+		 * the position of the trace
+		 * @return whether the trace shares the involvement of a previous trace
+		 * and thus is already filled
+		 */
+		private boolean share(ITrace<T> trace, int[] traceGroups, int position) {
+			if (traceGroups == null) {
+				return false;
+			}
+			filledTraces.add(trace);
+			if (!isSharedInvolvement(traceGroups, position)) {
+				return false;
+			}
+			share(trace, filledTraces.get(traceGroups[position]));
+			return true;
+		}
+
+		/**
+		 * Lets the given trace share the involvement of the given (filled)
+		 * template trace.
+		 */
+		private void share(ITrace<T> trace, ITrace<T> template) {
+			if (bitSetSpectra != null && trace instanceof BitSetHitTrace && template instanceof BitSetHitTrace) {
+				bitSetSpectra.shareInvolvement((HitTrace<T>) trace, (HitTrace<T>) template);
+			} else {
+				for (T identifier : template.getInvolvedNodes()) {
+					trace.setInvolvement(identifier, true);
+				}
+			}
+		}
+
+		private INode<T> getNode(int position) {
+			return nodes.get(position);
+		}
+
+		private void clear() {
+			count = 0;
+		}
+
+		private void add(int position) {
+			if (position < 0 || position >= nodes.size()) {
+				// position does not match any node
+				return;
+			}
+			if (count == positions.length) {
+				positions = Arrays.copyOf(positions, 2 * count);
+			}
+			positions[count++] = position;
+		}
+
+		private void fill(ITrace<T> trace) {
+			if (bitSetIndices != null && trace instanceof BitSetHitTrace) {
+				for (int i = 0; i < count; ++i) {
+					positions[i] = bitSetIndices[positions[i]];
+				}
+				((BitSetHitTrace<T>) trace).setInvolvedIndices(positions, count);
+			} else {
+				for (int i = 0; i < count; ++i) {
+					trace.setInvolvement(nodes.get(positions[i]), true);
+				}
+			}
+		}
+	}
+
 	/**
 	 * Gets a list of the identifiers from a zip file.
 	 * @param dummy
@@ -664,24 +1207,38 @@ public class SpectraFileUtils {
 	 * the type of nodes in the spectra
 	 */
 	public static <T extends Indexable<T>> List<T> getNodeIdentifiersFromSpectraFile(T dummy, Path zipFilePath) {
-		ZipFileWrapper zip = new ZipFileReader().submit(zipFilePath).getResult();
-
-		byte[] status = getStatusByte(zip);
+		if (BinarySpectraFile.isBinarySpectraFile(zipFilePath)) {
+			try (BinarySpectraFile file = new BinarySpectraFile(zipFilePath)) {
+				return getNodeIdentifiersFromBinaryFile(dummy, file);
+			}
+		}
+		try (ZipFileEntryReader zip = new ZipFileEntryReader(zipFilePath)) {
+			byte[] status = getStatusByte(zip);
 
-		return getNodeIdentifiersFromZipFile(dummy, zip, status);
+			return getNodeIdentifiersFromZipFile(dummy, zip, status);
+		}
 	}
 
-	private static <T extends Indexable<T>> List<T> getNodeIdentifiersFromZipFile(T dummy, ZipFileWrapper zip,
+	private static <T extends Indexable<T>> List<T> getNodeIdentifiersFromZipFile(T dummy, ZipFileEntryReader zip,
 			byte[] status) throws NullPointerException {
 		Objects.requireNonNull(dummy);
 		String[] rawIdentifiers = getRawNodeIdentifiersFromZipFile(zip);
 
-		List<T> identifiers = new ArrayList<>(rawIdentifiers.length);
+		String[] identifierNames = null;
 		if (isIndexed(status)) {
 			// parse the file containing the identifier names
 			byte[] bytes = Objects
 					.requireNonNull(zip.tryGetFromOneOf(INDEX_FILE_NAME, INDEX_FILE_INDEX), "Index file not found.");
-			String[] identifierNames = new String(bytes).split(IDENTIFIER_DELIMITER);
+			identifierNames = new String(bytes).split(IDENTIFIER_DELIMITER);
+		}
+
+		return parseNodeIdentifiers(dummy, rawIdentifiers, identifierNames);
+	}
+
+	private static <T extends Indexable<T>> List<T> parseNodeIdentifiers(T dummy, String[] rawIdentifiers,
+			String[] identifierNames) {
+		List<T> identifiers = new ArrayList<>(rawIdentifiers.length);
+		if (identifierNames != null) {
 			Map<Integer, String> map = new HashMap<>();
 			int index = 0;
 			for (String identifier : identifierNames) {
@@ -709,16 +1266,26 @@ public class SpectraFileUtils {
 	 * @return the loaded Spectra object
 	 */
 	public static ISpectra<String, ?> loadStringSpectraFromZipFile(Path zipFilePath) {
-		ZipFileWrapper zip = new ZipFileReader().submit(zipFilePath).getResult();
-
-		byte[] status = getStatusByte(zip);
+		if (BinarySpectraFile.isBinarySpectraFile(zipFilePath)) {
+			try (BinarySpectraFile file = new BinarySpectraFile(zipFilePath)) {
+				List<String> identifiers = Arrays.asList(file.getRawNodeIdentifiers());
+				if (file.isCountSpectra()) {
+					return loadFromBinaryFile(file, identifiers, new CountSpectra<>(), false);
+				} else {
+					return loadFromBinaryFile(file, identifiers, new BitSetHitSpectra<>(), false);
+				}
+			}
+		}
+		try (ZipFileEntryReader zip = new ZipFileEntryReader(zipFilePath)) {
+			byte[] status = getStatusByte(zip);
 
-		List<String> identifiers = getIdentifiersFromZipFile(zip);
+			List<String> identifiers = getIdentifiersFromZipFile(zip);
 
-		return loadSpectraFromZipFile(zip, status, identifiers);
+			return loadSpectraFromZipFile(zip, status, identifiers);
+		}
 	}
 
-	private static List<String> getIdentifiersFromZipFile(ZipFileWrapper zip) {
+	private static List<String> getIdentifiersFromZipFile(ZipFileEntryReader zip) {
 		// parse the file containing the (possibly indexed) identifiers
 		String[] rawIdentifiers = getRawNodeIdentifiersFromZipFile(zip);
 
@@ -731,7 +1298,7 @@ public class SpectraFileUtils {
 		return lineArray;
 	}
 
-	private static String[] getRawNodeIdentifiersFromZipFile(ZipFileWrapper zip) {
+	private static String[] getRawNodeIdentifiersFromZipFile(ZipFileEntryReader zip) {
 		byte[] bytes = Objects.requireNonNull(
 				zip.tryGetFromOneOf(NODE_IDENTIFIER_FILE_NAME, NODE_IDENTIFIER_FILE_INDEX),
 				"Node identifier names file not found.");
@@ -743,7 +1310,7 @@ public class SpectraFileUtils {
 		}
 	}
 
-	private static String[] getRawTraceIdentifiersFromZipFile(ZipFileWrapper zip) {
+	private static String[] getRawTraceIdentifiersFromZipFile(ZipFileEntryReader zip) {
 		byte[] bytes = Objects.requireNonNull(
 				zip.tryGetFromOneOf(TRACE_IDENTIFIER_FILE_NAME, TRACE_IDENTIFIER_FILE_INDEX),
 				"Trace identifier names file not found.");
@@ -762,9 +1329,14 @@ public class SpectraFileUtils {
 	 * @return a list of identifiers as Strings
 	 */
 	public static List<String> getIdentifiersFromSpectraFile(Path zipFilePath) {
-		ZipFileWrapper zip = new ZipFileReader().submit(zipFilePath).getResult();
-
-		return getIdentifiersFromZipFile(zip);
+		if (BinarySpectraFile.isBinarySpectraFile(zipFilePath)) {
+			try (BinarySpectraFile file = new BinarySpectraFile(zipFilePath)) {
+				return new ArrayList<>(Arrays.asList(file.getRawNodeIdentifiers()));
+			}
+		}
+		try (ZipFileEntryReader zip = new ZipFileEntryReader(zipFilePath)) {
+			return getIdentifiersFromZipFile(zip);
+		}
 	}
 
 	public static void saveBlockSpectraToCsvFile(ISpectra<SourceCodeBlock, ?> spectra, Path output,
@@ -0,0 +1,100 @@
+package se.de.hu_berlin.informatik.stardust.util;
+
+import java.io.ByteArrayOutputStream;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Path;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipFile;
+
+import se.de.hu_berlin.informatik.utils.miscellaneous.Log;
+
+/**
+ * Provides random access to the single entries of a zip file. In contrast to
+ * reading the whole zip file into memory at once, entries are only read and
+ * decompressed when they are requested, so that large spectra files can be
+ * processed one trace at a time.
+ */
+public class ZipFileEntryReader implements Closeable {
+
+	private final ZipFile zipFile;
+
+	/**
+	 * Opens the given zip file. Aborts if the file can not be opened.
+	 * @param zipFilePath
+	 * the path to the zip file
+	 */
+	public ZipFileEntryReader(Path zipFilePath) {
+		ZipFile file = null;
+		try {
+			file = new ZipFile(zipFilePath.toFile());
+		} catch (IOException e) {
+			Log.abort(ZipFileEntryReader.class, e, "Could not open zip file '%s'.", zipFilePath);
+		}
+		this.zipFile = file;
+	}
+
+	/**
+	 * Reads the entry with the given name.
+	 * @param name
+	 * the name of the entry
+	 * @return the (uncompressed) content of the entry, or null if no entry with
+	 * the given name exists
+	 */
+	public byte[] get(String name) {
+		ZipEntry entry = zipFile.getEntry(name);
+		if (entry == null) {
+			return null;
+		}
+		try (InputStream input = zipFile.getInputStream(entry)) {
+			long size = entry.getSize();
+			if (size >= 0 && size <= Integer.MAX_VALUE) {
+				byte[] bytes = new byte[(int) size];
+				int offset = 0;
+				int read;
+				while (offset < bytes.length && (read = input.read(bytes, offset, bytes.length - offset)) >= 0) {
+					offset += read;
+				}
+				return bytes;
+			}
+			ByteArrayOutputStream output = new ByteArrayOutputStream();
+			byte[] buffer = new byte[8192];
+			int read;
+			while ((read = input.read(buffer)) >= 0) {
+				output.write(buffer, 0, read);
+			}
+			return output.toByteArray();
+		} catch (IOException e) {
+			Log.err(this, e, "Could not read entry '%s' from zip file '%s'.", name, zipFile.getName());
+			return null;
+		}
+	}
+
+	/**
+	 * Reads the first existing entry out of the entries with the given names.
+	 * @param names
+	 * the names of the entries to try, in order
+	 * @return the (uncompressed) content of the first existing entry, or null
+	 * if none of the entries exist
+	 */
+	public byte[] tryGetFromOneOf(String... names) {
+		for (String name : names) {
+			byte[] bytes = get(name);
+			if (bytes != null) {
+				return bytes;
+			}
+		}
+		return null;
+	}
+
+	@Override
+	public void close() {
+		try {
+			zipFile.close();
+		} catch (IOException e) {
+			Log.warn(this, e, "Could not close zip file '%s'.", zipFile.getName());
+		}
+	}
+
+}
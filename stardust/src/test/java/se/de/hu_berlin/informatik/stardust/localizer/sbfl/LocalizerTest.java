@@ -0,0 +1,42 @@
+package se.de.hu_berlin.informatik.stardust.localizer.sbfl;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import fk.stardust.test.data.SimpleSpectraProvider;
+import se.de.hu_berlin.informatik.stardust.localizer.IFaultLocalizer;
+import se.de.hu_berlin.informatik.stardust.localizer.sbfl.AbstractSpectrumBasedFaultLocalizer.ComputationStrategies;
+import se.de.hu_berlin.informatik.stardust.spectra.INode;
+import se.de.hu_berlin.informatik.stardust.spectra.hit.HitSpectra;
+import se.de.hu_berlin.informatik.utils.experiments.ranking.Ranking;
+
+public class LocalizerTest {
+
+	private double smallDelta = 0.00001;
+
+	@Test
+	public void localizeAllEqualsSingleRankings() throws Exception {
+		final HitSpectra<String> s = new SimpleSpectraProvider().loadHitSpectra();
+		final List<IFaultLocalizer<String>> localizers = new ArrayList<>();
+		for (final String name : new String[] { "tarantula", "ochiai", "jaccard", "dstar", "op2" }) {
+			localizers.add(FaultLocalizerFactory.newInstance(name));
+		}
+
+		for (final ComputationStrategies strategy : ComputationStrategies.values()) {
+			final List<Ranking<INode<String>>> rankings = s.getLocalizer().localizeAll(localizers, strategy);
+			Assert.assertEquals(localizers.size(), rankings.size());
+
+			for (int i = 0; i < localizers.size(); ++i) {
+				final Ranking<INode<String>> expected = localizers.get(i).localize(s, strategy);
+				for (final INode<String> node : s.getNodes()) {
+					Assert.assertEquals(expected.getRankingValue(node), rankings.get(i).getRankingValue(node), smallDelta);
+					Assert.assertEquals(expected.wastedEffort(node), rankings.get(i).wastedEffort(node));
+				}
+			}
+		}
+	}
+
+}
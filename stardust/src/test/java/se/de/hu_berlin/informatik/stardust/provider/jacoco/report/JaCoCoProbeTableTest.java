@@ -0,0 +1,205 @@
+package se.de.hu_berlin.informatik.stardust.provider.jacoco.report;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.jacoco.core.analysis.Analyzer;
+import org.jacoco.core.analysis.CoverageBuilder;
+import org.jacoco.core.analysis.IClassCoverage;
+import org.jacoco.core.analysis.ICounter;
+import org.jacoco.core.analysis.IMethodCoverage;
+import org.jacoco.core.data.ExecutionData;
+import org.jacoco.core.data.ExecutionDataStore;
+import org.jacoco.core.internal.data.CRC64;
+import org.jacoco.core.internal.flow.ClassProbesAdapter;
+import org.jacoco.core.internal.flow.ClassProbesVisitor;
+import org.jacoco.core.internal.flow.MethodProbesVisitor;
+import org.junit.Assert;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.objectweb.asm.ClassReader;
+import org.objectweb.asm.ClassWriter;
+import org.objectweb.asm.Label;
+import org.objectweb.asm.MethodVisitor;
+import org.objectweb.asm.Opcodes;
+
+import se.de.hu_berlin.informatik.stardust.localizer.sbfl.FaultLocalizerFactory;
+import se.de.hu_berlin.informatik.stardust.provider.jacoco.report.JaCoCoProbeTable.ClassEntry;
+import se.de.hu_berlin.informatik.stardust.provider.jacoco.report.JaCoCoProbeTable.MethodEntry;
+import se.de.hu_berlin.informatik.stardust.util.SpectraFileUtils;
+
+public class JaCoCoProbeTableTest {
+
+	@Rule
+	public TemporaryFolder folder = new TemporaryFolder();
+
+	private static byte[] getClassBytes(Class<?> clazz) throws IOException {
+		try (InputStream in = clazz.getResourceAsStream("/" + clazz.getName().replace('.', '/') + ".class")) {
+			ByteArrayOutputStream out = new ByteArrayOutputStream();
+			byte[] buffer = new byte[4096];
+			int read;
+			while ((read = in.read(buffer)) >= 0) {
+				out.write(buffer, 0, read);
+			}
+			return out.toByteArray();
+		}
+	}
+
+	/**
+	 * Creates a simple class with a static method that returns the given value.
+	 */
+	private static byte[] createClass(String name, int value) {
+		ClassWriter writer = new ClassWriter(ClassWriter.COMPUTE_MAXS);
+		writer.visit(Opcodes.V1_5, Opcodes.ACC_PUBLIC, name, null, "java/lang/Object", null);
+		writer.visitSource(name + ".java", null);
+		MethodVisitor method = writer.visitMethod(Opcodes.ACC_PUBLIC | Opcodes.ACC_STATIC, "value", "()I", null, null);
+		method.visitCode();
+		Label start = new Label();
+		method.visitLabel(start);
+		method.visitLineNumber(3, start);
+		method.visitIntInsn(Opcodes.BIPUSH, value);
+		method.visitInsn(Opcodes.IRETURN);
+		method.visitMaxs(0, 0);
+		method.visitEnd();
+		writer.visitEnd();
+		return writer.toByteArray();
+	}
+
+	private File writeClassFile(String fileName, byte[] bytes) throws IOException {
+		Path file = folder.getRoot().toPath().resolve(fileName);
+		Files.write(file, bytes);
+		return file.toFile();
+	}
+
+	private static Map<Long, ClassEntry> getClasses(JaCoCoProbeTable table) {
+		Map<Long, ClassEntry> classes = new HashMap<>();
+		for (List<ClassEntry> classEntries : table.getPackages().values()) {
+			for (ClassEntry classEntry : classEntries) {
+				classes.put(classEntry.getId(), classEntry);
+			}
+		}
+		return classes;
+	}
+
+	private static int getProbeCount(byte[] bytes) {
+		final int[] probeCount = new int[1];
+		new ClassReader(bytes).accept(new ClassProbesAdapter(new ClassProbesVisitor() {
+			@Override
+			public MethodProbesVisitor visitMethod(int access, String name, String desc,
+					String signature, String[] exceptions) {
+				return null;
+			}
+
+			@Override
+			public void visitTotalProbeCount(int count) {
+				probeCount[0] = count;
+			}
+		}, false), 0);
+		return probeCount[0];
+	}
+
+	/**
+	 * Computes the lines that are covered by the given probe with JaCoCo's analysis.
+	 */
+	private static int[] analyzeProbe(byte[] bytes, ClassEntry classEntry, int probe, int probeCount) throws IOException {
+		boolean[] probes = new boolean[probeCount];
+		probes[probe] = true;
+		String name = new ClassReader(bytes).getClassName();
+		ExecutionDataStore store = new ExecutionDataStore();
+		store.put(new ExecutionData(classEntry.getId(), name, probes));
+		CoverageBuilder builder = new CoverageBuilder();
+		new Analyzer(store, builder).analyzeClass(bytes, name);
+
+		Map<String, MethodEntry> methods = new HashMap<>();
+		for (MethodEntry methodEntry : classEntry.getMethods()) {
+			methods.put(methodEntry.getMethodNameAndSig(), methodEntry);
+		}
+		List<Integer> coveredLines = new ArrayList<>();
+		for (IClassCoverage classData : builder.getClasses()) {
+			for (IMethodCoverage method : classData.getMethods()) {
+				MethodEntry methodEntry = methods.get(method.getName() + method.getDesc());
+				int[] lineNumbers = methodEntry.getLineNumbers();
+				for (int i = 0; i < lineNumbers.length; ++i) {
+					int status = method.getLine(lineNumbers[i]).getStatus();
+					if (status != ICounter.EMPTY && status != ICounter.NOT_COVERED) {
+						coveredLines.add(methodEntry.getFirstLineIndex() + i);
+					}
+				}
+			}
+		}
+		int[] result = new int[coveredLines.size()];
+		for (int i = 0; i < result.length; ++i) {
+			result[i] = coveredLines.get(i);
+		}
+		return result;
+	}
+
+	@Test
+	public void probeLinesEqualToAnalysis() throws IOException {
+		// classes with loops, (string) switches, exception handlers, etc.
+		List<byte[]> classBytes = Arrays.asList(
+				getClassBytes(JaCoCoProbeTable.class),
+				getClassBytes(FaultLocalizerFactory.class),
+				getClassBytes(SpectraFileUtils.class),
+				createClass("Simple", 1));
+		List<File> classFiles = new ArrayList<>();
+		for (int i = 0; i < classBytes.size(); ++i) {
+			classFiles.add(writeClassFile("Class" + i + ".class", classBytes.get(i)));
+		}
+		JaCoCoProbeTable table = new JaCoCoProbeTable(classFiles);
+		Map<Long, ClassEntry> classes = getClasses(table);
+		Assert.assertEquals(classBytes.size(), classes.size());
+
+		for (byte[] bytes : classBytes) {
+			ClassEntry classEntry = classes.get(CRC64.checksum(bytes));
+			Assert.assertNotNull(classEntry);
+			int probeCount = getProbeCount(bytes);
+			Assert.assertTrue(probeCount > 0);
+			int[][] probeLines = classEntry.getProbeLines(probeCount);
+			Assert.assertEquals(probeCount, probeLines.length);
+			for (int probe = 0; probe < probeCount; ++probe) {
+				int[] expected = analyzeProbe(bytes, classEntry, probe, probeCount);
+				int[] actual = probeLines[probe].clone();
+				Arrays.sort(expected);
+				Arrays.sort(actual);
+				Assert.assertArrayEquals(expected, actual);
+			}
+			// the table is only computed once
+			Assert.assertSame(probeLines, classEntry.getProbeLines(probeCount));
+		}
+	}
+
+	@Test(expected = IllegalStateException.class)
+	public void rejectDifferentProbeCount() throws IOException {
+		byte[] bytes = createClass("Simple", 1);
+		JaCoCoProbeTable table = new JaCoCoProbeTable(Collections.singletonList(writeClassFile("Simple.class", bytes)));
+		getClasses(table).get(CRC64.checksum(bytes)).getProbeLines(getProbeCount(bytes) + 1);
+	}
+
+	@Test
+	public void acceptSameClassTwice() throws IOException {
+		byte[] bytes = createClass("Duplicate", 1);
+		JaCoCoProbeTable table = new JaCoCoProbeTable(Arrays.asList(
+				writeClassFile("Duplicate1.class", bytes), writeClassFile("Duplicate2.class", bytes)));
+		Assert.assertEquals(1, getClasses(table).size());
+	}
+
+	@Test(expected = IllegalStateException.class)
+	public void rejectDifferentClassesWithSameName() throws IOException {
+		new JaCoCoProbeTable(Arrays.asList(
+				writeClassFile("Duplicate1.class", createClass("Duplicate", 1)),
+				writeClassFile("Duplicate2.class", createClass("Duplicate", 2))));
+	}
+
+}
@@ -0,0 +1,121 @@
+package se.de.hu_berlin.informatik.stardust.spectra;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import fk.stardust.test.data.SimpleSpectraProvider;
+import se.de.hu_berlin.informatik.stardust.localizer.sbfl.AbstractSpectrumBasedFaultLocalizer.ComputationStrategies;
+import se.de.hu_berlin.informatik.stardust.spectra.hit.BitSetHitSpectra;
+import se.de.hu_berlin.informatik.stardust.spectra.hit.HitSpectra;
+import se.de.hu_berlin.informatik.stardust.spectra.hit.HitTrace;
+
+public class SimilarityMatrixTest {
+
+	private double smallDelta = 0.00001;
+
+	private static BitSetHitSpectra<String> toBitSetSpectra(final HitSpectra<String> original) {
+		final BitSetHitSpectra<String> s = new BitSetHitSpectra<>();
+		for (final ITrace<String> originalTrace : original.getTraces()) {
+			final ITrace<String> trace = s.addTrace(originalTrace.getIdentifier(), originalTrace.isSuccessful());
+			for (final String identifier : originalTrace.getInvolvedNodes()) {
+				trace.setInvolvement(identifier, true);
+			}
+		}
+		return s;
+	}
+
+	private void assertSimilarities(final ISpectra<String, ? extends ITrace<String>> s) {
+		final SimilarityMatrix<String, ? extends ITrace<String>> m = s.getSimilarities();
+		final ITrace<String> t1 = s.getTrace("t1");
+		final ITrace<String> t2 = s.getTrace("t2");
+
+		Assert.assertEquals(1.0, m.getSimilarity(t1, t1), smallDelta);
+		Assert.assertEquals(0.5, m.getSimilarity(t1, t2), smallDelta);
+		Assert.assertEquals(0.5, m.getSimilarity(t1, s.getTrace("t3")), smallDelta);
+		Assert.assertEquals(1.0, m.getSimilarity(t1, s.getTrace("t4")), smallDelta);
+		Assert.assertEquals(0.0, m.getSimilarity(t2, s.getTrace("t3")), smallDelta);
+		Assert.assertNull(m.getSimilarity(s.getTrace("t3"), t1));
+
+		Assert.assertEquals(0.75, m.getAverageSimilarity(t1), smallDelta);
+		Assert.assertEquals(0.25, m.getAverageSimilarity(s.getTrace("t3")), smallDelta);
+		Assert.assertEquals(1.0, m.getAverageSimilarity(s.getTrace("t4")), smallDelta);
+		Assert.assertEquals(0.5, m.getAverageSimilarity(s.getTrace("t5")), smallDelta);
+
+		Assert.assertEquals(0.5, s.getSimilarityMap(t2).get(s.getTrace("t5")), smallDelta);
+	}
+
+	@Test
+	public void computeSimilarities() {
+		final HitSpectra<String> s = new SimpleSpectraProvider().loadHitSpectra();
+		assertSimilarities(s);
+		assertSimilarities(toBitSetSpectra(s));
+	}
+
+	@Test
+	public void computeSimilarityMetrics() {
+		final HitSpectra<String> s = new SimpleSpectraProvider().loadHitSpectra();
+		final INode<String> node = s.getOrCreateNode("S1");
+
+		Assert.assertEquals(0.75, node.getEF(ComputationStrategies.SIMILARITY_SBFL), smallDelta);
+		Assert.assertEquals(1.75, node.getEP(ComputationStrategies.SIMILARITY_SBFL), smallDelta);
+		Assert.assertEquals(0.75, node.getNF(ComputationStrategies.SIMILARITY_SBFL), smallDelta);
+		Assert.assertEquals(0.0, node.getNP(ComputationStrategies.SIMILARITY_SBFL), smallDelta);
+	}
+
+	@Test
+	public void updateSimilaritiesIncrementally() {
+		final HitSpectra<String> original = new SimpleSpectraProvider().loadHitSpectra();
+		final HitSpectra<String> hashSpectra = new SimpleSpectraProvider().loadHitSpectra();
+		final BitSetHitSpectra<String> bitSetSpectra = toBitSetSpectra(original);
+
+		for (final HitSpectra<String> s : new HitSpectra[] { hashSpectra, bitSetSpectra }) {
+			// compute the matrix before modifying the spectra
+			s.getSimilarities().getAverageSimilarity(s.getTrace("t1"));
+
+			final HitTrace<String> t6 = s.addTrace("t6", false);
+			t6.setInvolvement("S1", true);
+			t6.setInvolvement("S3", true);
+			s.removeNode("S2");
+
+			final SimilarityMatrix<String, HitTrace<String>> expected = new SimilarityMatrix<>(s.getTraces());
+			for (final ITrace<String> failingTrace : s.getFailingTraces()) {
+				for (final ITrace<String> trace : s.getTraces()) {
+					Assert.assertEquals(expected.getSimilarity(failingTrace, trace),
+							s.getSimilarities().getSimilarity(failingTrace, trace), smallDelta);
+				}
+			}
+			Assert.assertEquals(1.0, s.getSimilarities().getSimilarity(s.getTrace("t1"), s.getTrace("t6")), smallDelta);
+			Assert.assertEquals(0.5, s.getSimilarities().getSimilarity(t6, s.getTrace("t2")), smallDelta);
+		}
+	}
+
+	@Test
+	public void updateSimilaritiesOfChangedTraces() {
+		final HitSpectra<String> original = new SimpleSpectraProvider().loadHitSpectra();
+		final HitSpectra<String> hashSpectra = new SimpleSpectraProvider().loadHitSpectra();
+		final BitSetHitSpectra<String> bitSetSpectra = toBitSetSpectra(original);
+
+		for (final HitSpectra<String> s : new HitSpectra[] { hashSpectra, bitSetSpectra }) {
+			// compute the matrix before modifying the spectra
+			s.getSimilarities().getAverageSimilarity(s.getTrace("t1"));
+
+			// change the involvement of already integrated traces (failing and successful)
+			s.getTrace("t1").setInvolvement("S2", false);
+			s.getTrace("t3").setInvolvement("S2", true);
+			s.getTrace("t5").setInvolvement(s.getOrCreateNode("S3"), true);
+
+			final SimilarityMatrix<String, HitTrace<String>> expected = new SimilarityMatrix<>(s.getTraces());
+			for (final ITrace<String> failingTrace : s.getFailingTraces()) {
+				for (final ITrace<String> trace : s.getTraces()) {
+					Assert.assertEquals(expected.getSimilarity(failingTrace, trace),
+							s.getSimilarities().getSimilarity(failingTrace, trace), smallDelta);
+				}
+			}
+			for (final ITrace<String> trace : s.getTraces()) {
+				Assert.assertEquals(expected.getAverageSimilarity(trace),
+						s.getSimilarities().getAverageSimilarity(trace), smallDelta);
+			}
+		}
+	}
+
+}
@@ -0,0 +1,195 @@
+package se.de.hu_berlin.informatik.stardust.spectra.hit;
+
+import java.util.List;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import fk.stardust.test.data.SimpleSpectraProvider;
+import se.de.hu_berlin.informatik.stardust.localizer.sbfl.AbstractSpectrumBasedFaultLocalizer.ComputationStrategies;
+import se.de.hu_berlin.informatik.stardust.spectra.INode;
+import se.de.hu_berlin.informatik.stardust.spectra.ITrace;
+
+public class BitSetHitSpectraTest {
+
+	private double smallDelta = 0.00001;
+
+	/**
+	 * Copies the test data into a bit set based spectra.
+	 */
+	private BitSetHitSpectra<String> getTestData() {
+		final HitSpectra<String> original = new SimpleSpectraProvider().loadHitSpectra();
+		final BitSetHitSpectra<String> s = new BitSetHitSpectra<>();
+		for (final INode<String> node : original.getNodes()) {
+			s.getOrCreateNode(node.getIdentifier());
+		}
+		for (final ITrace<String> originalTrace : original.getTraces()) {
+			final ITrace<String> trace = s.addTrace(originalTrace.getIdentifier(), originalTrace.isSuccessful());
+			for (final String identifier : originalTrace.getInvolvedNodes()) {
+				trace.setInvolvement(identifier, true);
+			}
+		}
+		return s;
+	}
+
+	@Test
+	public void isEqualToHashBasedSpectra() {
+		final HitSpectra<String> original = new SimpleSpectraProvider().loadHitSpectra();
+		final BitSetHitSpectra<String> s = this.getTestData();
+
+		Assert.assertEquals(original, s);
+		Assert.assertEquals(s, original);
+	}
+
+	@Test
+	public void computeINFSMetricsForSimpleSpectra() {
+		final BitSetHitSpectra<String> s = this.getTestData();
+
+		Assert.assertEquals(s.getOrCreateNode("S1").getNP(), 0, smallDelta);
+		Assert.assertEquals(s.getOrCreateNode("S1").getNF(), 1, smallDelta);
+		Assert.assertEquals(s.getOrCreateNode("S1").getEP(), 3, smallDelta);
+		Assert.assertEquals(s.getOrCreateNode("S1").getEF(), 1, smallDelta);
+
+		Assert.assertEquals(s.getOrCreateNode("S2").getNP(), 2, smallDelta);
+		Assert.assertEquals(s.getOrCreateNode("S2").getNF(), 0, smallDelta);
+		Assert.assertEquals(s.getOrCreateNode("S2").getEP(), 1, smallDelta);
+		Assert.assertEquals(s.getOrCreateNode("S2").getEF(), 2, smallDelta);
+
+		Assert.assertEquals(s.getOrCreateNode("S3").getNP(), 1, smallDelta);
+		Assert.assertEquals(s.getOrCreateNode("S3").getNF(), 1, smallDelta);
+		Assert.assertEquals(s.getOrCreateNode("S3").getEP(), 2, smallDelta);
+		Assert.assertEquals(s.getOrCreateNode("S3").getEF(), 1, smallDelta);
+	}
+
+	@Test
+	public void removeAndRecreateNode() {
+		final BitSetHitSpectra<String> s = this.getTestData();
+		final INode<String> removed = s.getOrCreateNode("S2");
+		final HitTrace<String> t1 = s.getTrace("t1");
+
+		Assert.assertTrue(t1.isInvolved("S2"));
+		Assert.assertEquals(2, t1.involvedNodesCount());
+
+		s.removeNode("S2");
+		Assert.assertFalse(s.hasNode("S2"));
+		Assert.assertFalse(t1.isInvolved("S2"));
+		Assert.assertFalse(t1.isInvolved(removed));
+		Assert.assertEquals(1, t1.involvedNodesCount());
+		Assert.assertEquals(2, s.getNodes().size());
+
+		// the recreated node gets a new index
+		t1.setInvolvement(removed, true);
+		Assert.assertTrue(s.hasNode("S2"));
+		Assert.assertTrue(t1.isInvolved("S2"));
+		Assert.assertEquals(4, s.getNodeIndexCount());
+		Assert.assertEquals(2, t1.getInvolvedNodes().size());
+		Assert.assertTrue(t1.getInvolvedNodes().contains("S2"));
+		Assert.assertEquals(s.getOrCreateNode("S2").getEF(), 1, smallDelta);
+	}
+
+	@Test
+	public void internIdenticalInvolvements() {
+		final BitSetHitSpectra<String> s = this.getTestData();
+		final HitTrace<String> t1 = s.getTrace("t1");
+		for (final String identifier : new String[] { "d1", "d2" }) {
+			final HitTrace<String> duplicate = s.addTrace(identifier, identifier.equals("d1"));
+			for (final String node : t1.getInvolvedNodes()) {
+				duplicate.setInvolvement(node, true);
+			}
+		}
+		final double[] ef = new double[3];
+		final double[] ep = new double[3];
+		for (int i = 0; i < 3; ++i) {
+			ef[i] = s.getOrCreateNode("S" + (i + 1)).getEF();
+			ep[i] = s.getOrCreateNode("S" + (i + 1)).getEP();
+		}
+
+		final int distinct = s.internInvolvements();
+		Assert.assertTrue(distinct <= s.getTraces().size() - 2);
+		Assert.assertEquals(distinct, s.getTraceGroups().size());
+		for (final List<HitTrace<String>> group : s.getTraceGroups()) {
+			if (group.contains(t1)) {
+				Assert.assertTrue(group.contains(s.getTrace("d1")));
+				Assert.assertTrue(group.contains(s.getTrace("d2")));
+			}
+		}
+		for (int i = 0; i < 3; ++i) {
+			s.getLocalizer().invalidateCachedValues();
+			Assert.assertEquals(ef[i], s.getOrCreateNode("S" + (i + 1)).getEF(), smallDelta);
+			Assert.assertEquals(ep[i], s.getOrCreateNode("S" + (i + 1)).getEP(), smallDelta);
+		}
+
+		// removing a node keeps the involvement shared
+		s.removeNode("S2");
+		Assert.assertEquals(distinct, s.getTraceGroups().size());
+		Assert.assertFalse(s.getTrace("d1").isInvolved("S2"));
+		Assert.assertEquals(t1.involvedNodesCount(), s.getTrace("d2").involvedNodesCount());
+
+		// changing a trace does not change the traces it shared its involvement with
+		final boolean involved = t1.isInvolved("S1");
+		s.getTrace("d1").setInvolvement("S1", !involved);
+		Assert.assertEquals(!involved, s.getTrace("d1").isInvolved("S1"));
+		Assert.assertEquals(involved, t1.isInvolved("S1"));
+		Assert.assertEquals(involved, s.getTrace("d2").isInvolved("S1"));
+		Assert.assertEquals(distinct + 1, s.getTraceGroups().size());
+	}
+
+	@Test
+	public void shareInvolvementOfTrace() {
+		final BitSetHitSpectra<String> s = this.getTestData();
+		final HitTrace<String> t1 = s.getTrace("t1");
+		final HitTrace<String> copy = s.addTrace("copy", false);
+		copy.setInvolvement("S3", true);
+
+		s.shareInvolvement(copy, t1);
+		Assert.assertEquals(t1.getInvolvedNodes(), copy.getInvolvedNodes());
+		Assert.assertEquals(s.getTraces().size() - 1, s.getTraceGroups().size());
+		final BitSetHitSpectra<String> unchanged = this.getTestData();
+		for (final INode<String> node : unchanged.getNodes()) {
+			Assert.assertEquals(node.getEF() + (t1.isInvolved(node.getIdentifier()) ? 1 : 0),
+					s.getOrCreateNode(node.getIdentifier()).getEF(), smallDelta);
+		}
+
+		// changing the template does not change the trace sharing its involvement
+		final boolean involved = t1.isInvolved("S3");
+		t1.setInvolvement("S3", !involved);
+		Assert.assertEquals(involved, copy.isInvolved("S3"));
+		Assert.assertEquals(s.getTraces().size(), s.getTraceGroups().size());
+
+		try {
+			s.shareInvolvement(this.getTestData().getTrace("t2"), t1);
+			Assert.fail("trace of another spectra was accepted");
+		} catch (IllegalArgumentException e) {
+			// expected
+		}
+	}
+
+	@Test
+	public void similarityCountsOfInternedTraces() {
+		final HitSpectra<String> original = new SimpleSpectraProvider().loadHitSpectra();
+		final BitSetHitSpectra<String> s = this.getTestData();
+		for (final HitSpectra<String> spectra : new HitSpectra[] { original, s }) {
+			final HitTrace<String> t1 = spectra.getTrace("t1");
+			final HitTrace<String> t2 = spectra.getTrace("t2");
+			for (final HitTrace<String> template : new HitTrace[] { t1, t1, t2 }) {
+				final HitTrace<String> duplicate = spectra.addTrace("d" + spectra.getTraces().size(),
+						spectra.getTraces().size() % 2 == 0);
+				for (final String node : template.getInvolvedNodes()) {
+					duplicate.setInvolvement(node, true);
+				}
+			}
+		}
+		Assert.assertTrue(s.internInvolvements() < s.getTraces().size());
+
+		for (final INode<String> node : original.getNodes()) {
+			final INode<String> bitSetNode = s.getOrCreateNode(node.getIdentifier());
+			for (final ComputationStrategies strategy : ComputationStrategies.values()) {
+				Assert.assertEquals(node.getEF(strategy), bitSetNode.getEF(strategy), smallDelta);
+				Assert.assertEquals(node.getEP(strategy), bitSetNode.getEP(strategy), smallDelta);
+				Assert.assertEquals(node.getNF(strategy), bitSetNode.getNF(strategy), smallDelta);
+				Assert.assertEquals(node.getNP(strategy), bitSetNode.getNP(strategy), smallDelta);
+			}
+		}
+	}
+
+}
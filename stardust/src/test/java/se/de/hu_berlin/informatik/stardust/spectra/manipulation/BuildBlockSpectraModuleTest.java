@@ -0,0 +1,75 @@
+package se.de.hu_berlin.informatik.stardust.spectra.manipulation;
+
+import java.util.Arrays;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import se.de.hu_berlin.informatik.stardust.localizer.SourceCodeBlock;
+import se.de.hu_berlin.informatik.stardust.spectra.ISpectra;
+import se.de.hu_berlin.informatik.stardust.spectra.ITrace;
+import se.de.hu_berlin.informatik.stardust.spectra.hit.BitSetHitSpectra;
+import se.de.hu_berlin.informatik.stardust.spectra.hit.HitSpectra;
+
+public class BuildBlockSpectraModuleTest {
+
+	private static SourceCodeBlock line(String methodName, int lineNumber) {
+		return new SourceCodeBlock("p", "p/C.java", methodName, lineNumber);
+	}
+
+	/**
+	 * Lines 1-6 belong to method m1, lines 7-8 to method m2. Lines 1-3 and 7-8
+	 * are executed by both traces, lines 5-6 only by the failing trace.
+	 */
+	private static void fillTestData(HitSpectra<SourceCodeBlock> s) {
+		for (int i = 1; i <= 8; ++i) {
+			s.getOrCreateNode(line(i <= 6 ? "m1" : "m2", i));
+		}
+		ITrace<SourceCodeBlock> t1 = s.addTrace("t1", true);
+		ITrace<SourceCodeBlock> t2 = s.addTrace("t2", false);
+		for (int i : new int[] { 1, 2, 3, 7, 8 }) {
+			t1.setInvolvement(line(i <= 6 ? "m1" : "m2", i), true);
+		}
+		for (int i : new int[] { 1, 2, 3, 5, 6, 7, 8 }) {
+			t2.setInvolvement(line(i <= 6 ? "m1" : "m2", i), true);
+		}
+	}
+
+	private static void assertBlocks(ISpectra<SourceCodeBlock, ?> s) {
+		Assert.assertEquals(4, s.getNodes().size());
+		for (int[] block : Arrays.asList(new int[] { 1, 3 }, new int[] { 4, 4 }, new int[] { 5, 6 },
+				new int[] { 7, 8 })) {
+			SourceCodeBlock start = line(block[0] <= 6 ? "m1" : "m2", block[0]);
+			Assert.assertTrue(s.hasNode(start));
+			Assert.assertEquals(block[1], s.getOrCreateNode(start).getIdentifier().getEndLineNumber());
+		}
+		Assert.assertEquals(1, s.getOrCreateNode(line("m1", 5)).getEF(), 0);
+		Assert.assertEquals(0, s.getOrCreateNode(line("m1", 5)).getEP(), 0);
+		Assert.assertEquals(2, s.getTrace("t1").involvedNodesCount());
+		Assert.assertEquals(3, s.getTrace("t2").involvedNodesCount());
+	}
+
+	@Test
+	public void buildBlocks() {
+		HitSpectra<SourceCodeBlock> s = new HitSpectra<>();
+		fillTestData(s);
+		assertBlocks(new BuildBlockSpectraModule().submit(s).getResult());
+	}
+
+	@Test
+	public void buildBlocksWithSharedInvolvement() {
+		BitSetHitSpectra<SourceCodeBlock> s = new BitSetHitSpectra<>();
+		fillTestData(s);
+		s.addTrace("t3", true).setInvolvement(line("m1", 1), true);
+		s.removeNodes(Arrays.asList(line("m1", 1)));
+		Assert.assertEquals(0, s.getTrace("t3").involvedNodesCount());
+		s.getOrCreateNode(line("m1", 1));
+		for (ITrace<SourceCodeBlock> trace : Arrays.asList(s.getTrace("t1"), s.getTrace("t2"))) {
+			trace.setInvolvement(line("m1", 1), true);
+		}
+		s.internInvolvements();
+		assertBlocks(new BuildBlockSpectraModule().submit(s).getResult());
+		Assert.assertEquals(0, s.getTrace("t3").involvedNodesCount());
+	}
+
+}
@@ -0,0 +1,124 @@
+package se.de.hu_berlin.informatik.stardust.util;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipFile;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import se.de.hu_berlin.informatik.utils.compression.CompressedByteArrayToIntSequencesProcessor;
+import se.de.hu_berlin.informatik.utils.compression.single.CompressedByteArrayToIntSequenceProcessor;
+import se.de.hu_berlin.informatik.utils.compression.single.IntSequenceToCompressedByteArrayProcessor;
+import se.de.hu_berlin.informatik.utils.miscellaneous.TestSettings;
+
+public class IntSequenceDecoderTest extends TestSettings {
+
+	private static byte[] readInvolvementTable() throws IOException {
+		try (ZipFile zip = new ZipFile(Paths.get(getStdResourcesDir(), "spectra.zip").toFile())) {
+			ZipEntry entry = zip.getEntry("2.bin");
+			try (InputStream in = zip.getInputStream(entry)) {
+				byte[] data = new byte[(int) entry.getSize()];
+				int offset = 0;
+				int read;
+				while (offset < data.length && (read = in.read(data, offset, data.length - offset)) >= 0) {
+					offset += read;
+				}
+				return data;
+			}
+		}
+	}
+
+	private static List<Integer> toList(int[] array) {
+		List<Integer> list = new ArrayList<>(array.length);
+		for (int value : array) {
+			list.add(value);
+		}
+		return list;
+	}
+
+	@Test
+	public void decodeInvolvementTable() throws IOException {
+		int[][] sequences = IntSequenceDecoder.decodeSequences(readInvolvementTable());
+
+		// one sequence per trace: the 'successful' flag, followed by the (1-based) positions of involved nodes
+		Assert.assertEquals(8, sequences.length);
+		int failingTraces = 0;
+		for (int[] sequence : sequences) {
+			Assert.assertTrue(sequence[0] == 0 || sequence[0] == 1);
+			failingTraces += 1 - sequence[0];
+			for (int i = 2; i < sequence.length; ++i) {
+				Assert.assertTrue(sequence[i - 1] < sequence[i]);
+			}
+		}
+		Assert.assertEquals(7, failingTraces);
+		Assert.assertEquals(16, sequences[0].length);
+	}
+
+	@Test
+	public void equalToLibraryDecoder() throws IOException {
+		byte[] data = readInvolvementTable();
+		List<List<Integer>> expected = new CompressedByteArrayToIntSequencesProcessor().submit(data).getResult();
+		int[][] sequences = IntSequenceDecoder.decodeSequences(data);
+
+		Assert.assertEquals(expected.size(), sequences.length);
+		for (int i = 0; i < sequences.length; ++i) {
+			Assert.assertEquals(expected.get(i), toList(sequences[i]));
+		}
+	}
+
+	@Test
+	public void decodeEncodedSequences() {
+		Random random = new Random(42);
+		for (int iteration = 0; iteration < 100; ++iteration) {
+			int[] sequence = new int[1 + random.nextInt(200)];
+			int bound = 1 + random.nextInt(iteration % 2 == 0 ? 10 : 100000);
+			for (int i = 0; i < sequence.length; ++i) {
+				sequence[i] = random.nextInt(bound);
+			}
+			byte[] data = new IntSequenceToCompressedByteArrayProcessor().submit(toList(sequence)).getResult();
+
+			int[] decoded = IntSequenceDecoder.decodeSequence(data);
+			if (decoded == null) {
+				// unsupported layout: the library decoder is used
+				decoded = toIntArray(new CompressedByteArrayToIntSequenceProcessor().submit(data).getResult());
+			}
+			Assert.assertArrayEquals(sequence, decoded);
+		}
+	}
+
+	private static int[] toIntArray(List<Integer> list) {
+		int[] array = new int[list.size()];
+		for (int i = 0; i < array.length; ++i) {
+			array[i] = list.get(i);
+		}
+		return array;
+	}
+
+	@Test
+	public void rejectUnsupportedLayouts() throws IOException {
+		byte[] data = readInvolvementTable();
+
+		Assert.assertNull(IntSequenceDecoder.decodeSequences(null));
+		Assert.assertNull(IntSequenceDecoder.decodeSequences(new byte[] { 14, 0, 0 }));
+		// fixed sequence length
+		byte[] fixedLength = data.clone();
+		fixedLength[4] = 3;
+		Assert.assertNull(IntSequenceDecoder.decodeSequences(fixedLength));
+		// wrong number of sequences
+		byte[] moreSequences = data.clone();
+		moreSequences[8] = 9;
+		Assert.assertNull(IntSequenceDecoder.decodeSequences(moreSequences));
+		// additional data
+		Assert.assertNull(IntSequenceDecoder.decodeSequences(Arrays.copyOf(data, data.length + 1)));
+		// more than one sequence
+		Assert.assertNull(IntSequenceDecoder.decodeSequence(data));
+	}
+
+}
@@ -6,9 +6,16 @@ package se.de.hu_berlin.informatik.stardust.util;
 import static org.junit.Assert.*;
 
 import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
 import java.util.Collection;
+import java.util.Collections;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipFile;
+import java.util.zip.ZipOutputStream;
+
 import org.junit.After;
 import org.junit.AfterClass;
 import org.junit.Before;
@@ -22,11 +29,14 @@ import se.de.hu_berlin.informatik.stardust.localizer.SourceCodeBlock;
 import se.de.hu_berlin.informatik.stardust.provider.cobertura.CoberturaSpectraProviderFactory;
 import se.de.hu_berlin.informatik.stardust.provider.cobertura.xml.CoberturaCountXMLProvider;
 import se.de.hu_berlin.informatik.stardust.provider.cobertura.xml.CoberturaXMLProvider;
+import se.de.hu_berlin.informatik.stardust.spectra.INode;
 import se.de.hu_berlin.informatik.stardust.spectra.ISpectra;
 import se.de.hu_berlin.informatik.stardust.spectra.ITrace;
 import se.de.hu_berlin.informatik.stardust.spectra.count.CountSpectra;
 import se.de.hu_berlin.informatik.stardust.spectra.count.CountTrace;
+import se.de.hu_berlin.informatik.stardust.spectra.hit.BitSetHitSpectra;
 import se.de.hu_berlin.informatik.stardust.spectra.hit.HitTrace;
+import se.de.hu_berlin.informatik.stardust.spectra.manipulation.SaveSpectraModule;
 import se.de.hu_berlin.informatik.utils.miscellaneous.Log;
 import se.de.hu_berlin.informatik.utils.miscellaneous.TestSettings;
 
@@ -296,7 +306,46 @@ public class SpectraFileUtilsTest extends TestSettings {
 		assertTrue(output3.toFile().exists());
 		assertTrue(output3.toFile().length() <= output2.toFile().length());
 	}
-	
+
+	/**
+	 * Test method for {@link se.de.hu_berlin.informatik.stardust.util.SpectraFileUtils#saveSpectraToZipFile(Indexable, ISpectra, Path, boolean, boolean, boolean, int)}.
+     * @throws Exception
+	 * if a trace can't be added
+	 */
+	@Test
+	public void testParallelBlockSpectraWriting() throws Exception {
+		final CoberturaXMLProvider<HitTrace<SourceCodeBlock>> c = CoberturaSpectraProviderFactory.getHitSpectraFromXMLProvider(true);
+        c.addData(getStdResourcesDir() + "/fk/stardust/provider/large-coverage.xml", "large", true);
+        c.addData(getStdResourcesDir() + "/fk/stardust/provider/large-coverage.xml", "large2", true);
+        c.addData(getStdResourcesDir() + "/fk/stardust/provider/simple-coverage.xml", "simple", false);
+
+        ISpectra<SourceCodeBlock, ? super HitTrace<SourceCodeBlock>> spectra = c.loadSpectra();
+
+        for (boolean sparse : new boolean[] { true, false }) {
+        	Path output1 = Paths.get(getStdTestDir(), "spectra_block_seq.zip");
+        	SpectraFileUtils.saveSpectraToZipFile(SourceCodeBlock.DUMMY, spectra, output1, true, sparse, true);
+        	Path output2 = Paths.get(getStdTestDir(), "spectra_block_par.zip");
+        	SpectraFileUtils.saveSpectraToZipFile(SourceCodeBlock.DUMMY, spectra, output2, true, sparse, true, 4);
+        	Log.out(this, "saved...");
+
+        	// the entries have to be identical to the sequentially written ones
+        	try (ZipFileEntryReader zip1 = new ZipFileEntryReader(output1);
+        			ZipFileEntryReader zip2 = new ZipFileEntryReader(output2)) {
+        		for (String name : new String[] { ".nodeIDs", ".traceIDs", ".status", ".index" }) {
+        			assertArrayEquals(zip1.get(name), zip2.get(name));
+        		}
+        		for (int i = 1; i <= spectra.getTraces().size(); ++i) {
+        			assertNotNull(zip2.get(i + ".trc"));
+        			assertArrayEquals(zip1.get(i + ".trc"), zip2.get(i + ".trc"));
+        		}
+        	}
+
+        	ISpectra<SourceCodeBlock, ?> spectra2 = SpectraFileUtils.loadSpectraFromZipFile(SourceCodeBlock.DUMMY, output2);
+        	Log.out(this, "loaded...");
+        	assertEquals(spectra, spectra2);
+        }
+	}
+
 	//TODO:doesn't seem to work for some kind of reasons... dunno why
 	/**
 	 * Test method for {@link se.de.hu_berlin.informatik.stardust.util.SpectraUtils.
@@ -315,4 +364,163 @@ public class SpectraFileUtilsTest extends TestSettings {
 		Log.out(this, "saved...");
 		assertTrue(output1.toFile().exists());
 	}
+	
+	/**
+	 * Test method for {@link se.de.hu_berlin.informatik.stardust.util.SpectraFileUtils#saveSpectraToBinaryFile}.
+     * @throws Exception
+	 * if a trace can't be added
+	 */
+	@Test
+	public void testBinaryBlockSpectraReadingAndWriting() throws Exception {
+		final CoberturaXMLProvider<HitTrace<SourceCodeBlock>> c = CoberturaSpectraProviderFactory.getHitSpectraFromXMLProvider(true);
+        c.addData(getStdResourcesDir() + "/fk/stardust/provider/large-coverage.xml", "large", true);
+        c.addData(getStdResourcesDir() + "/fk/stardust/provider/large-coverage.xml", "large2", true);
+        c.addData(getStdResourcesDir() + "/fk/stardust/provider/simple-coverage.xml", "simple", false);
+        ISpectra<SourceCodeBlock, ? super HitTrace<SourceCodeBlock>> spectra = c.loadSpectra();
+		
+		Path output1 = Paths.get(getStdTestDir(), "spectra_block.bin");
+		SpectraFileUtils.saveSpectraToBinaryFile(SourceCodeBlock.DUMMY, spectra, output1, true);
+		Log.out(this, "saved indexed...");
+		assertTrue(BinarySpectraFile.isBinarySpectraFile(output1));
+		
+		ISpectra<SourceCodeBlock, ?> spectra2 = SpectraFileUtils.loadSpectraFromZipFile(SourceCodeBlock.DUMMY, output1);
+		Log.out(this, "loaded...");
+		assertEquals(spectra, spectra2);
+		
+		Path output2 = Paths.get(getStdTestDir(), "spectra2_block.bin");
+		SpectraFileUtils.saveSpectraToBinaryFile(SourceCodeBlock.DUMMY, spectra2, output2, false);
+		Log.out(this, "saved non-indexed...");
+		ISpectra<SourceCodeBlock, ?> spectra3 = SpectraFileUtils.loadSpectraFromBinaryFile(SourceCodeBlock.DUMMY, output2, false);
+		Log.out(this, "loaded...");
+		assertEquals(spectra2, spectra3);
+		
+		ISpectra<SourceCodeBlock, ?> failingSpectra = SpectraFileUtils.loadSpectraFromBinaryFile(SourceCodeBlock.DUMMY, output1, true);
+		assertEquals(1, failingSpectra.getTraces().size());
+		assertEquals(spectra.getNodes().size(), failingSpectra.getNodes().size());
+		assertNotNull(failingSpectra.getTrace("simple"));
+		
+		try (BinarySpectraFile file = new BinarySpectraFile(output1)) {
+			assertEquals(spectra.getNodes().size(), file.getNodeCount());
+			assertEquals(spectra.getTraces().size(), file.getTraceCount());
+			int involvements = 0;
+			for (int node = 0; node < file.getNodeCount(); ++node) {
+				involvements += file.getInvolvingTraces(node).length;
+			}
+			for (int trace = 0; trace < file.getTraceCount(); ++trace) {
+				involvements -= file.getInvolvedNodes(trace).length;
+			}
+			assertEquals(0, involvements);
+		}
+		
+		assertTrue(output2.toFile().length() > output1.toFile().length());
+	}
+	
+	/**
+	 * Test method for {@link se.de.hu_berlin.informatik.stardust.util.SpectraFileUtils#saveSpectraToZipFile}
+	 * and {@link se.de.hu_berlin.informatik.stardust.util.SpectraFileUtils#saveSpectraToBinaryFile}.
+     * @throws Exception
+	 * if a trace can't be added
+	 */
+	@Test
+	public void testTraceGroupsReadingAndWriting() throws Exception {
+		final CoberturaXMLProvider<HitTrace<SourceCodeBlock>> c = CoberturaSpectraProviderFactory.getHitSpectraFromXMLProvider(true);
+        c.addData(getStdResourcesDir() + "/fk/stardust/provider/large-coverage.xml", "large", true);
+        c.addData(getStdResourcesDir() + "/fk/stardust/provider/large-coverage.xml", "large2", false);
+        c.addData(getStdResourcesDir() + "/fk/stardust/provider/large-coverage.xml", "large3", true);
+        c.addData(getStdResourcesDir() + "/fk/stardust/provider/simple-coverage.xml", "simple", false);
+        ISpectra<SourceCodeBlock, ? super HitTrace<SourceCodeBlock>> spectra = c.loadSpectra();
+		
+		Path zipOutput = Paths.get(getStdTestDir(), "spectra_groups.zip");
+		SpectraFileUtils.saveBlockSpectraToZipFile(spectra, zipOutput, true, true, true);
+		ISpectra<SourceCodeBlock, ?> zipSpectra = SpectraFileUtils.loadSpectraFromZipFile(SourceCodeBlock.DUMMY, zipOutput);
+		assertEquals(spectra, zipSpectra);
+		assertTrue(zipSpectra instanceof BitSetHitSpectra);
+		assertEquals(2, ((BitSetHitSpectra<SourceCodeBlock>) zipSpectra).getTraceGroups().size());
+		
+		// the loaded trace groups are stored and restored again
+		Path zipOutput2 = Paths.get(getStdTestDir(), "spectra_groups2.zip");
+		SpectraFileUtils.saveBlockSpectraToZipFile(zipSpectra, zipOutput2, true, true, true);
+		ISpectra<SourceCodeBlock, ?> zipSpectra2 = SpectraFileUtils.loadSpectraFromZipFile(SourceCodeBlock.DUMMY, zipOutput2);
+		assertEquals(spectra, zipSpectra2);
+		assertEquals(2, ((BitSetHitSpectra<SourceCodeBlock>) zipSpectra2).getTraceGroups().size());
+		
+		// the trace groups are only a hint, all traces are stored completely
+		Path zipOutputWithoutGroups = Paths.get(getStdTestDir(), "spectra_groups_removed.zip");
+		try (ZipFile zipFile = new ZipFile(zipOutput2.toFile());
+				ZipOutputStream out = new ZipOutputStream(Files.newOutputStream(zipOutputWithoutGroups))) {
+			boolean foundGroups = false;
+			for (ZipEntry entry : Collections.list(zipFile.entries())) {
+				if (entry.getName().equals(".traceGroups")) {
+					foundGroups = true;
+					continue;
+				}
+				out.putNextEntry(new ZipEntry(entry.getName()));
+				try (InputStream in = zipFile.getInputStream(entry)) {
+					byte[] buffer = new byte[4096];
+					int read;
+					while ((read = in.read(buffer)) >= 0) {
+						out.write(buffer, 0, read);
+					}
+				}
+				out.closeEntry();
+			}
+			assertTrue(foundGroups);
+		}
+		assertEquals(spectra, SpectraFileUtils.loadSpectraFromZipFile(SourceCodeBlock.DUMMY, zipOutputWithoutGroups));
+		for (INode<SourceCodeBlock> node : spectra.getNodes()) {
+			INode<SourceCodeBlock> loadedNode = zipSpectra2.getOrCreateNode(node.getIdentifier());
+			assertEquals(node.getEF(), loadedNode.getEF(), 0);
+			assertEquals(node.getEP(), loadedNode.getEP(), 0);
+		}
+		
+		Path binaryOutput = Paths.get(getStdTestDir(), "spectra_groups.bin");
+		SpectraFileUtils.saveSpectraToBinaryFile(SourceCodeBlock.DUMMY, zipSpectra, binaryOutput, true);
+		ISpectra<SourceCodeBlock, ?> binarySpectra = SpectraFileUtils.loadSpectraFromZipFile(SourceCodeBlock.DUMMY, binaryOutput);
+		assertEquals(spectra, binarySpectra);
+		assertEquals(2, ((BitSetHitSpectra<SourceCodeBlock>) binarySpectra).getTraceGroups().size());
+	}
+	
+	/**
+	 * Test method for {@link se.de.hu_berlin.informatik.stardust.spectra.manipulation.SaveSpectraModule}.
+     * @throws Exception
+	 * if a trace can't be added
+	 */
+	@Test
+	public void testSaveSpectraModuleFormats() throws Exception {
+		final CoberturaXMLProvider<HitTrace<SourceCodeBlock>> c = CoberturaSpectraProviderFactory.getHitSpectraFromXMLProvider(true);
+        c.addData(getStdResourcesDir() + "/fk/stardust/provider/large-coverage.xml", "large", true);
+        c.addData(getStdResourcesDir() + "/fk/stardust/provider/simple-coverage.xml", "simple", false);
+        ISpectra<SourceCodeBlock, ? super HitTrace<SourceCodeBlock>> spectra = c.loadSpectra();
+		
+		Path binaryOutput = Paths.get(getStdTestDir(), "spectra_module.bin");
+		new SaveSpectraModule<>(SourceCodeBlock.DUMMY, binaryOutput, true).submit(spectra);
+		assertTrue(BinarySpectraFile.isBinarySpectraFile(binaryOutput));
+		assertEquals(spectra, SpectraFileUtils.loadSpectraFromZipFile(SourceCodeBlock.DUMMY, binaryOutput));
+		
+		Path zipOutput = Paths.get(getStdTestDir(), "spectra_module.zip");
+		new SaveSpectraModule<>(SourceCodeBlock.DUMMY, zipOutput).submit(spectra);
+		assertFalse(BinarySpectraFile.isBinarySpectraFile(zipOutput));
+		assertEquals(spectra, SpectraFileUtils.loadSpectraFromZipFile(SourceCodeBlock.DUMMY, zipOutput));
+	}
+	
+	/**
+	 * Test method for {@link se.de.hu_berlin.informatik.stardust.util.SpectraFileUtils#saveSpectraToBinaryFile}.
+     * @throws Exception
+	 * if a trace can't be added
+	 */
+	@Test
+	public void testBinaryBlockCountSpectraReadingAndWriting() throws Exception {
+		final CoberturaCountXMLProvider<CountTrace<SourceCodeBlock>> c = CoberturaSpectraProviderFactory.getCountSpectraFromXMLProvider(true);
+        c.addData(getStdResourcesDir() + "/fk/stardust/provider/large-coverage.xml", "large", true);
+        c.addData(getStdResourcesDir() + "/fk/stardust/provider/simple-coverage.xml", "simple", false);
+        ISpectra<SourceCodeBlock, ? super CountTrace<SourceCodeBlock>> spectra = c.loadSpectra();
+		
+		Path output1 = Paths.get(getStdTestDir(), "count_spectra_block.bin");
+		SpectraFileUtils.saveSpectraToBinaryFile(SourceCodeBlock.DUMMY, spectra, output1, true);
+		Log.out(this, "saved...");
+		
+		CountSpectra<SourceCodeBlock> spectra2 = SpectraFileUtils.loadCountSpectraFromZipFile(SourceCodeBlock.DUMMY, output1);
+		Log.out(this, "loaded...");
+		assertEquals(spectra, spectra2);
+	}
 }
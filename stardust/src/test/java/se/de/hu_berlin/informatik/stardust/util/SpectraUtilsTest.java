@@ -181,6 +181,26 @@ public class SpectraUtilsTest extends TestSettings {
         Assert.assertEquals(0, s.getNodes().size());
     }
 
+	@Test
+    public void removeAndRetainNodesWithPredicate() throws Exception {
+		HitSpectra<String> s;
+
+        s = loadSimpleSpectraAndCheck();
+        s.retainNodes(CoverageType.EF_GT_ZERO::isTypeOf);
+        Assert.assertEquals(4, s.getNodes().size());
+        s.removeNodes(CoverageType.EP_EQUALS_ZERO::isTypeOf);
+        Assert.assertEquals(3, s.getNodes().size());
+        for (ITrace<String> trace : s.getTraces()) {
+        	for (String identifier : trace.getInvolvedNodes()) {
+        		Assert.assertTrue(s.hasNode(identifier));
+        	}
+        }
+
+        s = loadSimpleSpectraAndCheck();
+        s.removeNodes(CoverageType.EF_GT_ZERO::isTypeOf);
+        Assert.assertEquals(2, s.getNodes().size());
+    }
+
 	private static HitSpectra<String> loadSimpleSpectraAndCheck() {
 		final HitSpectra<String> s = new SimpleSpectraProvider2().loadHitSpectra();
         Assert.assertEquals(s.getNodes().size(), 6);